@@ -30,6 +30,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import org.ojalgo.data.DataBatch;
@@ -324,6 +325,20 @@ public final class ArtificialNeuralNetwork {
         return prime * result + Arrays.hashCode(myLayers);
     }
 
+    /**
+     * A thread safe (single example) invoker that collects concurrent requests into batches, and uses a
+     * pool of {@link NetworkInvoker}:s to process them.
+     *
+     * @param batchSize The max number of requests per batch
+     * @param parallelism The number of worker threads (each with its own {@link NetworkInvoker})
+     * @param maxDelay The max time to wait for a batch to fill up
+     * @param unit The time unit of the max delay
+     * @return The invoker – remember to close it
+     */
+    public BatchingInvoker newBatchingInvoker(final int batchSize, final int parallelism, final long maxDelay, final TimeUnit unit) {
+        return new BatchingInvoker(this, batchSize, parallelism, maxDelay, unit);
+    }
+
     /**
      * With batch size 1
      *
@@ -344,6 +359,29 @@ public final class ArtificialNeuralNetwork {
         return new NetworkInvoker(this, batchSize);
     }
 
+    /**
+     * With batch size 1
+     *
+     * @see #newPackedInvoker(int)
+     */
+    public PackedInvoker newPackedInvoker() {
+        return this.newPackedInvoker(1);
+    }
+
+    /**
+     * An alternative to {@link #newInvoker(int)} when inference speed is important. The returned invoker
+     * works with a float precision snapshot of the network, and plain (caller supplied) arrays for input and
+     * output.
+     *
+     * @param batchSize The max number of examples per invocation
+     * @return The invoker
+     */
+    public PackedInvoker newPackedInvoker(final int batchSize) {
+        // Make sure any dropouts related weight scaling is done
+        this.setConfiguration(null);
+        return new PackedInvoker(this, batchSize);
+    }
+
     /**
      * With batch size 1
      *
@@ -438,7 +476,7 @@ public final class ArtificialNeuralNetwork {
     void adjust(final int layer, final PhysicalStore<Double> input, final PhysicalStore<Double> output, final PhysicalStore<Double> upstreamGradient,
             final PhysicalStore<Double> downstreamGradient) {
         myLayers[layer].adjust(input, output, upstreamGradient, downstreamGradient, -myConfiguration.learningRate,
-                myConfiguration.probabilityDidKeepInput(layer), myConfiguration.regularisation());
+                myConfiguration.probabilityDidKeepInput(layer), myConfiguration.regularisation(), myConfiguration.optimiser);
     }
 
     int countInputNodes() {
@@ -469,6 +507,11 @@ public final class ArtificialNeuralNetwork {
         return retVal;
     }
 
+    void gradient(final int layer, final PhysicalStore<Double> input, final PhysicalStore<Double> output, final PhysicalStore<Double> upstreamGradient,
+            final PhysicalStore<Double> downstreamGradient, final PhysicalStore<Double> weightsGradient, final PhysicalStore<Double> biasGradient) {
+        myLayers[layer].gradient(input, output, upstreamGradient, downstreamGradient, weightsGradient, biasGradient);
+    }
+
     PhysicalStore<Double> invoke(final int layer, final PhysicalStore<Double> input, final PhysicalStore<Double> output) {
         if (myConfiguration != null) {
             return myLayers[layer].invoke(input, output, myConfiguration.probabilityWillKeepOutput(layer, this.depth()));
@@ -515,4 +558,9 @@ public final class ArtificialNeuralNetwork {
         myLayers[layer].setWeight(input, output, weight);
     }
 
+    void update(final int layer, final PhysicalStore<Double> weightsGradient, final PhysicalStore<Double> biasGradient) {
+        myLayers[layer].update(weightsGradient, biasGradient, -myConfiguration.learningRate, myConfiguration.probabilityDidKeepInput(layer),
+                myConfiguration.regularisation(), myConfiguration.optimiser);
+    }
+
 }
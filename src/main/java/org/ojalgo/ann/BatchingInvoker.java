@@ -0,0 +1,247 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.ann;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ojalgo.concurrent.DaemonPoolExecutor;
+import org.ojalgo.function.BasicFunction;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * A thread safe invoker for single examples. Requests submitted concurrently, from any number of threads,
+ * are collected into batches that are then invoked together. Each of the worker threads has its own
+ * {@link NetworkInvoker} (with the specified batch size) – they all share the same network (weights).
+ * <p>
+ * A worker waits for the first request to arrive, and then at most the specified max delay for the batch to
+ * fill up before invoking. Under light load this adds (at most) that delay to each request. Under heavy load
+ * the batches fill up immediately.
+ * <p>
+ * The network must not be trained while it is used by this invoker. Remember to {@link #close()} it when
+ * done.
+ *
+ * @author apete
+ */
+public final class BatchingInvoker implements BasicFunction.PlainUnary<Access1D<Double>, MatrixStore<Double>>, AutoCloseable {
+
+    static final class Request {
+
+        final Access1D<Double> input;
+        final CompletableFuture<MatrixStore<Double>> result = new CompletableFuture<>();
+
+        Request(final Access1D<Double> input) {
+            super();
+            this.input = input;
+        }
+
+    }
+
+    private final int myBatchSize;
+    private final AtomicLong myCountBatches = new AtomicLong();
+    private final ExecutorService myExecutor;
+    private final long myMaxDelay;
+    private final ArtificialNeuralNetwork myNetwork;
+    private final BlockingQueue<Request> myQueue = new LinkedBlockingQueue<>();
+    private volatile boolean myShutdown = false;
+
+    BatchingInvoker(final ArtificialNeuralNetwork network, final int batchSize, final int parallelism, final long maxDelay, final TimeUnit unit) {
+
+        super();
+
+        if (batchSize < 1 || parallelism < 1 || maxDelay < 0L) {
+            throw new IllegalArgumentException();
+        }
+
+        myNetwork = network;
+        myBatchSize = batchSize;
+        myMaxDelay = unit.toNanos(maxDelay);
+
+        // Make sure any dropouts related weight scaling is done before the workers start
+        network.setConfiguration(null);
+
+        myExecutor = DaemonPoolExecutor.newFixedThreadPool("ojAlgo-ann-batching-", parallelism);
+        for (int w = 0; w < parallelism; w++) {
+            myExecutor.execute(this::serve);
+        }
+    }
+
+    /**
+     * Stop the worker threads. Requests not yet processed are cancelled.
+     */
+    public void close() {
+
+        myShutdown = true;
+
+        myExecutor.shutdownNow();
+
+        this.cancelQueued();
+    }
+
+    public int getBatchSize() {
+        return myBatchSize;
+    }
+
+    /**
+     * Submits the input and then blocks until the output is available.
+     *
+     * @see #submit(Access1D)
+     */
+    @Override
+    public MatrixStore<Double> invoke(final Access1D<Double> input) {
+        try {
+            return this.submit(input).get();
+        } catch (InterruptedException | ExecutionException cause) {
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * @param input A single example
+     * @return The (future) output, a 1-row matrix, as returned by {@link NetworkInvoker#invoke(Access1D)}
+     *         with batch size 1. If the input does not have the size of the network's input layer the
+     *         future is completed exceptionally (with an {@link IllegalArgumentException}) – the request is
+     *         never queued, and does not affect other requests.
+     */
+    public CompletableFuture<MatrixStore<Double>> submit(final Access1D<Double> input) {
+
+        if (myShutdown) {
+            throw new IllegalStateException("Closed!");
+        }
+
+        Request request = new Request(input);
+
+        if (input.count() != myNetwork.countInputNodes()) {
+            request.result.completeExceptionally(new IllegalArgumentException("The input size must be " + myNetwork.countInputNodes() + "!"));
+            return request.result;
+        }
+
+        myQueue.add(request);
+
+        if (myShutdown && myQueue.remove(request)) {
+            // Closed concurrently with this request being added
+            request.result.cancel(false);
+        }
+
+        return request.result;
+    }
+
+    private void cancelQueued() {
+        Request request = null;
+        while ((request = myQueue.poll()) != null) {
+            request.result.cancel(false);
+        }
+    }
+
+    /**
+     * Collect the next batch of requests. If interrupted while waiting for the batch to fill up, the
+     * requests already collected are cancelled (they would otherwise never be completed).
+     *
+     * @return The number of requests collected
+     */
+    private int collect(final Request[] batch) throws InterruptedException {
+
+        int retVal = 0;
+
+        batch[retVal++] = myQueue.take();
+
+        long deadline = System.nanoTime() + myMaxDelay;
+
+        try {
+            while (retVal < myBatchSize) {
+                Request next = myQueue.poll();
+                if (next == null) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0L || (next = myQueue.poll(remaining, TimeUnit.NANOSECONDS)) == null) {
+                        break;
+                    }
+                }
+                batch[retVal++] = next;
+            }
+        } catch (InterruptedException cause) {
+            for (int r = 0; r < retVal; r++) {
+                batch[r].result.cancel(false);
+                batch[r] = null;
+            }
+            throw cause;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * The worker loop
+     */
+    private void serve() {
+
+        NetworkInvoker invoker = myNetwork.newInvoker(myBatchSize);
+        PhysicalStore<Double> input = myNetwork.newStore(myBatchSize, myNetwork.countInputNodes());
+        Request[] batch = new Request[myBatchSize];
+
+        try {
+            while (!myShutdown) {
+
+                int count = this.collect(batch);
+
+                try {
+
+                    for (int r = 0; r < count; r++) {
+                        input.fillRow(r, batch[r].input);
+                    }
+
+                    MatrixStore<Double> output = invoker.invoke(input);
+                    myCountBatches.incrementAndGet();
+
+                    for (int r = 0; r < count; r++) {
+                        batch[r].result.complete(output.offsets(r, 0).limits(1, -1).copy());
+                    }
+
+                } catch (RuntimeException cause) {
+                    for (int r = 0; r < count; r++) {
+                        batch[r].result.completeExceptionally(cause);
+                    }
+                }
+
+                for (int r = 0; r < count; r++) {
+                    batch[r] = null;
+                }
+            }
+        } catch (InterruptedException cause) {
+            // Shutting down
+        } finally {
+            // Anything submitted while (or after) close() drained the queue
+            this.cancelQueued();
+        }
+    }
+
+    long countBatches() {
+        return myCountBatches.get();
+    }
+
+}
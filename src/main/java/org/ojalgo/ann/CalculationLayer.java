@@ -26,6 +26,7 @@ import static org.ojalgo.function.constant.PrimitiveMath.*;
 import java.util.function.DoubleUnaryOperator;
 
 import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.random.Uniform;
@@ -35,7 +36,16 @@ final class CalculationLayer {
 
     private ArtificialNeuralNetwork.Activator myActivator;
     private final PhysicalStore<Double> myBias;
+    /**
+     * Work area for the accumulated (over a batch) bias gradient
+     */
+    private transient PhysicalStore<Double> myBiasGradient = null;
+    private transient Optimiser.State myOptimiserState = null;
     private final PhysicalStore<Double> myWeights;
+    /**
+     * Work area for the accumulated (over a batch) weights gradient
+     */
+    private transient PhysicalStore<Double> myWeightsGradient = null;
 
     CalculationLayer(final PhysicalStore.Factory<Double, ?> factory, final int numberOfInputs, final int numberOfOutputs,
             final ArtificialNeuralNetwork.Activator activator) {
@@ -102,32 +112,21 @@ final class CalculationLayer {
 
     void adjust(final PhysicalStore<Double> input, final PhysicalStore<Double> output, final PhysicalStore<Double> upstreamGradient,
             final PhysicalStore<Double> downstreamGradient, final double learningRate, final double dropoutsFactor, final DoubleUnaryOperator regularisation) {
+        this.adjust(input, output, upstreamGradient, downstreamGradient, learningRate, dropoutsFactor, regularisation, null);
+    }
 
-        downstreamGradient.modifyMatching(MULTIPLY, output.onAll(myActivator.getDerivativeInTermsOfOutput()).transpose());
-
-        if (upstreamGradient != null) {
-            // No need to do this multiplication for the input layer
-            // input null to stop it...
-            myWeights.multiply(downstreamGradient, upstreamGradient);
-        }
+    void adjust(final PhysicalStore<Double> input, final PhysicalStore<Double> output, final PhysicalStore<Double> upstreamGradient,
+            final PhysicalStore<Double> downstreamGradient, final double learningRate, final double dropoutsFactor, final DoubleUnaryOperator regularisation,
+            final Optimiser optimiser) {
 
-        if (regularisation != null) {
-            PrimitiveFunction.Unary modifier = arg -> arg + learningRate * regularisation.applyAsDouble(arg);
-            myWeights.modifyAll(modifier);
+        if (myWeightsGradient == null) {
+            myWeightsGradient = myWeights.physical().make(myWeights.countColumns(), myWeights.countRows());
+            myBiasGradient = myBias.physical().make(myBias.countColumns(), 1L);
         }
 
-        for (long j = 0L, nbOutput = myWeights.countColumns(); j < nbOutput; j++) {
-            for (long b = 0L, batchSize = input.countRows(); b < batchSize; b++) {
-
-                double gradient = downstreamGradient.doubleValue(j, b);
-                double ratedGradient = learningRate * gradient;
-                myBias.add(j, ratedGradient);
+        this.gradient(input, output, upstreamGradient, downstreamGradient, myWeightsGradient, myBiasGradient);
 
-                for (long i = 0L, nbInput = myWeights.countRows(); i < nbInput; i++) {
-                    myWeights.add(i, j, ratedGradient * (input.doubleValue(b, i) / dropoutsFactor));
-                }
-            }
-        }
+        this.update(myWeightsGradient, myBiasGradient, learningRate, dropoutsFactor, regularisation, optimiser);
     }
 
     int countInputNodes() {
@@ -158,6 +157,32 @@ final class CalculationLayer {
         return myWeights.doubleValue(input, output);
     }
 
+    /**
+     * The back-propagation part of
+     * {@link #adjust(PhysicalStore, PhysicalStore, PhysicalStore, PhysicalStore, double, double, DoubleUnaryOperator, Optimiser)}
+     * – the weights are not modified, only read. The (summed over the batch) gradients are written to the
+     * supplied work areas.
+     *
+     * @param weightsGradient Transposed, [outputs]x[inputs]
+     * @param biasGradient [outputs]x1
+     */
+    void gradient(final PhysicalStore<Double> input, final PhysicalStore<Double> output, final PhysicalStore<Double> upstreamGradient,
+            final PhysicalStore<Double> downstreamGradient, final PhysicalStore<Double> weightsGradient, final PhysicalStore<Double> biasGradient) {
+
+        downstreamGradient.modifyMatching(MULTIPLY, output.onAll(myActivator.getDerivativeInTermsOfOutput()).transpose());
+
+        if (upstreamGradient != null) {
+            // No need to do this multiplication for the input layer
+            // input null to stop it...
+            myWeights.multiply(downstreamGradient, upstreamGradient);
+        }
+
+        // All batch instances at once: ([gradient][input])^T = [input]^T [gradient]^T is a rank-k (k = batch size) update
+        weightsGradient.fillByMultiplying(downstreamGradient, input);
+
+        downstreamGradient.reduceRows(Aggregator.SUM).supplyTo(biasGradient);
+    }
+
     PhysicalStore<Double> invoke(final PhysicalStore<Double> input, final PhysicalStore<Double> output) {
         myWeights.premultiply(input).onColumns(ADD, myBias).supplyTo(output);
         myActivator.activate(output);
@@ -197,4 +222,37 @@ final class CalculationLayer {
         myWeights.set(input, output, weight);
     }
 
+    /**
+     * Apply gradients calculated by
+     * {@link #gradient(PhysicalStore, PhysicalStore, PhysicalStore, PhysicalStore, PhysicalStore, PhysicalStore)}
+     *
+     * @param optimiser null means plain SGD (with fixed learning rate)
+     */
+    void update(final PhysicalStore<Double> weightsGradient, final PhysicalStore<Double> biasGradient, final double learningRate, final double dropoutsFactor,
+            final DoubleUnaryOperator regularisation, final Optimiser optimiser) {
+
+        if (regularisation != null) {
+            PrimitiveFunction.Unary modifier = arg -> arg + learningRate * regularisation.applyAsDouble(arg);
+            myWeights.modifyAll(modifier);
+        }
+
+        if (optimiser != null) {
+
+            this.getOptimiserState(optimiser).update(myWeights, myBias, weightsGradient, biasGradient, learningRate, dropoutsFactor);
+
+        } else {
+
+            myWeights.modifyMatching(ADD, weightsGradient.transpose().onAll(MULTIPLY.second(learningRate / dropoutsFactor)));
+
+            biasGradient.axpy(learningRate, myBias);
+        }
+    }
+
+    private synchronized Optimiser.State getOptimiserState(final Optimiser optimiser) {
+        if (myOptimiserState == null || !myOptimiserState.isFor(optimiser)) {
+            myOptimiserState = optimiser.newState(myWeights, myBias);
+        }
+        return myOptimiserState;
+    }
+
 }
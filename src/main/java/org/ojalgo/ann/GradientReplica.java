@@ -0,0 +1,187 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.ann;
+
+import static org.ojalgo.function.constant.PrimitiveMath.ADD;
+
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.type.function.TwoStepMapper;
+
+/**
+ * Used by {@link NetworkTrainer} when training using multiple threads. Each worker thread has its own
+ * replica that contains all invocation/training specific state – the layer outputs, the back-propagated
+ * gradients and the (accumulated) weights and bias gradients. The network weights are shared, and only read
+ * when calculating the gradients.
+ * <p>
+ * In synchronous mode the gradients are accumulated, merged (reduced) using
+ * {@link org.ojalgo.concurrent.ProcessingService#reduce(java.util.Collection, int, java.util.function.Supplier)}
+ * and then applied once. In "Hogwild" mode each replica applies the gradients, of every batch it consumes,
+ * directly to the shared weights without any locking.
+ *
+ * @author apete
+ */
+final class GradientReplica implements TwoStepMapper<GradientReplica.Batch, GradientReplica> {
+
+    /**
+     * A batch, or part of a batch, of training examples.
+     */
+    static final class Batch {
+
+        final Access1D<Double> input;
+        final int size;
+        final Access1D<Double> target;
+
+        Batch(final Access1D<Double> input, final Access1D<Double> target, final int size) {
+            super();
+            this.input = input;
+            this.target = target;
+            this.size = size;
+        }
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PhysicalStore<Double>[] newArray(final int length) {
+        return (PhysicalStore<Double>[]) new PhysicalStore<?>[length];
+    }
+
+    private final PhysicalStore<Double>[] myBiasGradients;
+    private final PhysicalStore<Double>[] myBiasSums;
+    private final TrainingConfiguration myConfiguration;
+    private int myCount = 0;
+    private final PhysicalStore<Double>[] myGradients;
+    private PhysicalStore<Double> myInput = null;
+    private final ArtificialNeuralNetwork myNetwork;
+    private final PhysicalStore<Double>[] myOutputs;
+    private final PhysicalStore<Double>[] myWeightsGradients;
+    private final PhysicalStore<Double>[] myWeightsSums;
+
+    GradientReplica(final ArtificialNeuralNetwork network, final TrainingConfiguration configuration) {
+
+        super();
+
+        myNetwork = network;
+        myConfiguration = configuration;
+
+        int depth = network.depth();
+
+        myOutputs = GradientReplica.newArray(depth);
+        myGradients = GradientReplica.newArray(depth);
+
+        myWeightsGradients = GradientReplica.newArray(depth);
+        myBiasGradients = GradientReplica.newArray(depth);
+        myWeightsSums = GradientReplica.newArray(depth);
+        myBiasSums = GradientReplica.newArray(depth);
+
+        for (int l = 0; l < depth; l++) {
+            myWeightsGradients[l] = network.newStore(network.countOutputNodes(l), network.countInputNodes(l));
+            myBiasGradients[l] = network.newStore(network.countOutputNodes(l), 1);
+        }
+    }
+
+    public void consume(final Batch item) {
+
+        int depth = myNetwork.depth();
+
+        if (myInput == null || myInput.getRowDim() != item.size) {
+            myInput = myNetwork.newStore(item.size, myNetwork.countInputNodes());
+            for (int l = 0; l < depth; l++) {
+                myOutputs[l] = myNetwork.newStore(item.size, myNetwork.countOutputNodes(l));
+                myGradients[l] = myNetwork.newStore(myNetwork.countOutputNodes(l), item.size);
+            }
+        }
+
+        myInput.fillMatching(item.input);
+
+        PhysicalStore<Double> current = myInput;
+        for (int l = 0; l < depth; l++) {
+            current = myNetwork.invoke(l, current, myOutputs[l]);
+        }
+
+        myGradients[depth - 1].regionByTransposing().fillMatching(item.target, myConfiguration.error.getDerivative(), current);
+
+        for (int l = depth - 1; l >= 0; l--) {
+
+            PhysicalStore<Double> input = l == 0 ? myInput : myOutputs[l - 1];
+            PhysicalStore<Double> upstreamGradient = l == 0 ? null : myGradients[l - 1];
+
+            myNetwork.gradient(l, input, myOutputs[l], upstreamGradient, myGradients[l], myWeightsGradients[l], myBiasGradients[l]);
+        }
+
+        if (myConfiguration.hogwild) {
+            for (int l = 0; l < depth; l++) {
+                myNetwork.update(l, myWeightsGradients[l], myBiasGradients[l]);
+            }
+        } else {
+            this.accumulate(myWeightsGradients, myBiasGradients, 1);
+        }
+    }
+
+    /**
+     * @return This replica, with the accumulated gradients.
+     */
+    public GradientReplica getResults() {
+        return this;
+    }
+
+    public void merge(final GradientReplica other) {
+        if (other != this && other.myCount > 0) {
+            this.accumulate(other.myWeightsSums, other.myBiasSums, other.myCount);
+        }
+    }
+
+    public void reset() {
+        myCount = 0;
+    }
+
+    private void accumulate(final PhysicalStore<Double>[] weightsGradients, final PhysicalStore<Double>[] biasGradients, final int count) {
+        for (int l = 0; l < weightsGradients.length; l++) {
+            if (myCount == 0) {
+                if (myWeightsSums[l] == null) {
+                    myWeightsSums[l] = weightsGradients[l].copy();
+                    myBiasSums[l] = biasGradients[l].copy();
+                } else {
+                    myWeightsSums[l].fillMatching(weightsGradients[l]);
+                    myBiasSums[l].fillMatching(biasGradients[l]);
+                }
+            } else {
+                myWeightsSums[l].modifyMatching(ADD, weightsGradients[l]);
+                myBiasSums[l].modifyMatching(ADD, biasGradients[l]);
+            }
+        }
+        myCount += count;
+    }
+
+    /**
+     * Apply the accumulated gradients to the (shared) network weights, and reset.
+     */
+    void apply() {
+        if (myCount > 0) {
+            for (int l = 0; l < myWeightsSums.length; l++) {
+                myNetwork.update(l, myWeightsSums[l], myBiasSums[l]);
+            }
+        }
+        this.reset();
+    }
+
+}
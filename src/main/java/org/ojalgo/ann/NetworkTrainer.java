@@ -21,11 +21,16 @@
  */
 package org.ojalgo.ann;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntSupplier;
 
 import org.ojalgo.ann.ArtificialNeuralNetwork.Activator;
 import org.ojalgo.ann.ArtificialNeuralNetwork.Error;
+import org.ojalgo.array.ArrayR064;
+import org.ojalgo.concurrent.ProcessingService;
 import org.ojalgo.data.DataBatch;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
@@ -35,6 +40,14 @@ import org.ojalgo.structure.Structure2D;
 
 /**
  * An Artificial Neural Network (ANN) builder/trainer.
+ * <p>
+ * By default training is done in the calling thread. With {@link #parallelism(int)} set to something larger
+ * than 1 the training is data-parallel: Each batch is split in (equally sized) parts that are processed by
+ * separate worker threads, each with its own gradient replicas. The gradients are summed, and then applied
+ * once, to the shared network weights. This gives the same results as training with the same batch in one
+ * thread. With {@link #hogwild()} the workers instead update the weights directly, without locking or
+ * waiting for each other. When training with multiple batches, {@link #train(Iterable, Iterable)}, the
+ * batches are then distributed among the workers.
  *
  * @author apete
  */
@@ -42,6 +55,8 @@ public final class NetworkTrainer extends WrappedANN {
 
     private final TrainingConfiguration myConfiguration = new TrainingConfiguration();
     private final PhysicalStore<Double>[] myGradients;
+    private transient GradientReplica[] myReplicas = null;
+    private transient PhysicalStore<Double> myTarget = null;
 
     NetworkTrainer(final ArtificialNeuralNetwork network, final int batchSize) {
 
@@ -134,6 +149,16 @@ public final class NetworkTrainer extends WrappedANN {
         return result;
     }
 
+    /**
+     * "Hogwild" style parallel training – the worker threads apply their gradients to the shared weights
+     * directly, without locking and without waiting for the other workers. Only has an effect when the
+     * {@link #parallelism(int)} is larger than 1.
+     */
+    public NetworkTrainer hogwild() {
+        myConfiguration.hogwild = true;
+        return this;
+    }
+
     /**
      * L1 lasso regularisation
      */
@@ -151,6 +176,34 @@ public final class NetworkTrainer extends WrappedANN {
         return super.newOutputBatch();
     }
 
+    /**
+     * The default is (equivalent to) {@link Optimiser#sgd()}, plain stochastic gradient descent with a fixed
+     * learning rate.
+     */
+    public NetworkTrainer optimiser(final Optimiser optimiser) {
+        myConfiguration.optimiser = optimiser;
+        return this;
+    }
+
+    /**
+     * The number of worker threads to use. Default is 1, training is done in the calling thread.
+     */
+    public NetworkTrainer parallelism(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException();
+        }
+        myConfiguration.parallelism = parallelism;
+        myReplicas = null;
+        return this;
+    }
+
+    /**
+     * @see #parallelism(int)
+     */
+    public NetworkTrainer parallelism(final IntSupplier parallelism) {
+        return this.parallelism(parallelism.getAsInt());
+    }
+
     public NetworkTrainer rate(final double rate) {
         myConfiguration.learningRate = rate;
         return this;
@@ -193,6 +246,11 @@ public final class NetworkTrainer extends WrappedANN {
      */
     public void train(final Access1D<Double> givenInput, final Access1D<Double> targetOutput) {
 
+        if (myConfiguration.parallelism > 1 && this.getBatchSize() > 1) {
+            this.trainInParallel(this.split(givenInput, targetOutput));
+            return;
+        }
+
         MatrixStore<Double> current = this.invoke(givenInput, myConfiguration);
 
         myGradients[myGradients.length - 1].regionByTransposing().fillMatching(targetOutput, myConfiguration.error.getDerivative(), current);
@@ -210,19 +268,35 @@ public final class NetworkTrainer extends WrappedANN {
     }
 
     /**
-     * Note that the required {@link Iterable}:s can be obtained from calling {@link Access2D#rows()} or
-     * {@link Access2D#columns()} on anything "2D".
-     *
-     * @deprecated Just use {@link #train(Access1D, Access1D)} instead
+     * Train with multiple batches, one at the time as with {@link #train(Access1D, Access1D)}, unless
+     * {@link #hogwild()} parallel training is configured. In that case the batches are distributed among the
+     * worker threads and processed concurrently.
+     * <p>
+     * Note that with batch size 1 the required {@link Iterable}:s can be obtained from calling
+     * {@link Access2D#rows()} or {@link Access2D#columns()} on anything "2D".
      */
-    @Deprecated
     public void train(final Iterable<? extends Access1D<Double>> givenInputs, final Iterable<? extends Access1D<Double>> targetOutputs) {
 
         Iterator<? extends Access1D<Double>> iterI = givenInputs.iterator();
         Iterator<? extends Access1D<Double>> iterO = targetOutputs.iterator();
 
-        while (iterI.hasNext() && iterO.hasNext()) {
-            this.train(iterI.next(), iterO.next());
+        if (myConfiguration.parallelism > 1 && myConfiguration.hogwild) {
+
+            // Copied, as the iterators may return the same (mutable) instance every time – row/column views do
+            List<GradientReplica.Batch> batches = new ArrayList<>();
+            while (iterI.hasNext() && iterO.hasNext()) {
+                ArrayR064 input = ArrayR064.wrap(iterI.next().toRawCopy1D());
+                ArrayR064 target = ArrayR064.wrap(iterO.next().toRawCopy1D());
+                batches.add(new GradientReplica.Batch(input, target, this.getBatchSize()));
+            }
+
+            this.trainInParallel(batches);
+
+        } else {
+
+            while (iterI.hasNext() && iterO.hasNext()) {
+                this.train(iterI.next(), iterO.next());
+            }
         }
     }
 
@@ -231,6 +305,54 @@ public final class NetworkTrainer extends WrappedANN {
         return this;
     }
 
+    /**
+     * Split the batch in (at most) parallelism parts
+     */
+    private List<GradientReplica.Batch> split(final Access1D<Double> givenInput, final Access1D<Double> targetOutput) {
+
+        int batchSize = this.getBatchSize();
+
+        this.setInput(givenInput);
+        PhysicalStore<Double> input = this.getInput();
+
+        if (myTarget == null) {
+            myTarget = this.get().newStore(batchSize, this.get().countOutputNodes());
+        }
+        myTarget.fillMatching(targetOutput);
+
+        int nbParts = Math.min(myConfiguration.parallelism, batchSize);
+
+        List<GradientReplica.Batch> retVal = new ArrayList<>(nbParts);
+        for (int p = 0; p < nbParts; p++) {
+            int first = p * batchSize / nbParts;
+            int size = (p + 1) * batchSize / nbParts - first;
+            retVal.add(new GradientReplica.Batch(input.offsets(first, 0).limits(size, -1), myTarget.offsets(first, 0).limits(size, -1), size));
+        }
+        return retVal;
+    }
+
+    private void trainInParallel(final List<GradientReplica.Batch> work) {
+
+        int parallelism = myConfiguration.parallelism;
+
+        if (myReplicas == null) {
+            // One per worker, and one more to merge the results into
+            myReplicas = new GradientReplica[parallelism + 1];
+            for (int r = 0; r < myReplicas.length; r++) {
+                myReplicas[r] = new GradientReplica(this.get(), myConfiguration);
+            }
+        }
+
+        // Set once, here, rather than by each of the workers
+        this.get().setConfiguration(myConfiguration);
+
+        Iterator<GradientReplica> replicas = Arrays.asList(myReplicas).iterator();
+
+        GradientReplica total = ProcessingService.INSTANCE.reduce(work, parallelism, replicas::next);
+
+        total.apply();
+    }
+
     double error(final Access1D<?> target, final Access1D<?> current) {
         return myConfiguration.error.invoke(target, current);
     }
@@ -0,0 +1,363 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.ann;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Objects;
+
+import org.ojalgo.matrix.store.PhysicalStore;
+
+/**
+ * How the (back-propagated) gradients are used to update the weights and biases. The default, without
+ * anything else specified, is plain stochastic gradient descent with a fixed learning rate. The base
+ * learning rate is always the one set using {@link NetworkTrainer#rate(double)}, and that rate may be varied
+ * over time by specifying a {@link Schedule}.
+ * <p>
+ * Instances are immutable specifications. The state needed to implement the various methods (velocities,
+ * moment estimates...) is kept per calculation layer and updated in-place.
+ *
+ * @author apete
+ */
+public final class Optimiser {
+
+    /**
+     * Learning rate schedule. Returns a factor that is multiplied with the base learning rate. The input is
+     * the number of update steps already taken (0 for the first step).
+     */
+    @FunctionalInterface
+    public interface Schedule {
+
+        /**
+         * No change, always 1.0
+         */
+        static Schedule constant() {
+            return step -> ONE;
+        }
+
+        /**
+         * Cosine annealing from 1.0 to {@code minimum} over {@code period} steps, after that constant at
+         * {@code minimum}.
+         */
+        static Schedule cosine(final int period, final double minimum) {
+            return step -> minimum + (ONE - minimum) * HALF * (ONE + Math.cos(PI * Math.min(step, period) / period));
+        }
+
+        /**
+         * Multiply by {@code factor} every {@code period} steps.
+         */
+        static Schedule step(final int period, final double factor) {
+            return step -> Math.pow(factor, step / period);
+        }
+
+        /**
+         * Linear warm-up, over the first {@code steps} steps, and then continue with the other schedule
+         * (that then starts at step 0).
+         */
+        static Schedule warmUp(final int steps, final Schedule then) {
+            return step -> step < steps ? (step + ONE) / steps : then.factor(step - steps);
+        }
+
+        double factor(int step);
+
+    }
+
+    enum Method {
+        ADAM, MOMENTUM, NESTEROV, RMSPROP, SGD;
+    }
+
+    /**
+     * The per layer state
+     */
+    static final class State {
+
+        private PhysicalStore<Double> myBiasMoment1 = null;
+        private PhysicalStore<Double> myBiasMoment2 = null;
+        private int myCount = 0;
+        private final Optimiser myOptimiser;
+        private PhysicalStore<Double> myWeightsMoment1 = null;
+        private PhysicalStore<Double> myWeightsMoment2 = null;
+
+        State(final Optimiser optimiser, final PhysicalStore<Double> weights, final PhysicalStore<Double> bias) {
+
+            super();
+
+            myOptimiser = optimiser;
+
+            PhysicalStore.Factory<Double, ?> factory = weights.physical();
+
+            if (optimiser.myMethod != Method.SGD) {
+                myWeightsMoment1 = factory.make(weights.countRows(), weights.countColumns());
+                myBiasMoment1 = factory.make(bias.countRows(), bias.countColumns());
+            }
+            if (optimiser.myMethod == Method.ADAM) {
+                myWeightsMoment2 = factory.make(weights.countRows(), weights.countColumns());
+                myBiasMoment2 = factory.make(bias.countRows(), bias.countColumns());
+            }
+        }
+
+        /**
+         * @param weights [inputs]x[outputs]
+         * @param bias 1x[outputs]
+         * @param weightsGradient Transposed, [outputs]x[inputs]
+         * @param biasGradient [outputs]x1
+         * @param learningRate Negative, the (base) step size
+         * @param dropoutsFactor The weights gradient is divided by this
+         */
+        void update(final PhysicalStore<Double> weights, final PhysicalStore<Double> bias, final PhysicalStore<Double> weightsGradient,
+                final PhysicalStore<Double> biasGradient, final double learningRate, final double dropoutsFactor) {
+
+            double rate = learningRate * myOptimiser.mySchedule.factor(myCount);
+
+            myCount++;
+
+            if (myOptimiser.myWeightDecay != ZERO) {
+                weights.modifyAll(MULTIPLY.second(ONE + rate * myOptimiser.myWeightDecay));
+            }
+
+            switch (myOptimiser.myMethod) {
+
+            case ADAM:
+                // Bias corrections, the same for all elements
+                double correction1 = ONE / (ONE - Math.pow(myOptimiser.myBeta1, myCount));
+                double correction2 = ONE / (ONE - Math.pow(myOptimiser.myBeta2, myCount));
+                this.adam(weights, weightsGradient, myWeightsMoment1, myWeightsMoment2, rate, dropoutsFactor, correction1, correction2);
+                this.adam(bias, biasGradient, myBiasMoment1, myBiasMoment2, rate, ONE, correction1, correction2);
+                break;
+
+            case MOMENTUM:
+                this.momentum(weights, weightsGradient, myWeightsMoment1, rate, dropoutsFactor);
+                this.momentum(bias, biasGradient, myBiasMoment1, rate, ONE);
+                break;
+
+            case NESTEROV:
+                this.nesterov(weights, weightsGradient, myWeightsMoment1, rate, dropoutsFactor);
+                this.nesterov(bias, biasGradient, myBiasMoment1, rate, ONE);
+                break;
+
+            case RMSPROP:
+                this.rmsprop(weights, weightsGradient, myWeightsMoment1, rate, dropoutsFactor);
+                this.rmsprop(bias, biasGradient, myBiasMoment1, rate, ONE);
+                break;
+
+            default:
+                // The same (bulk) update as without an optimiser, only the rate may be scheduled
+                weights.modifyMatching(ADD, weightsGradient.transpose().onAll(MULTIPLY.second(rate / dropoutsFactor)));
+                biasGradient.axpy(rate, bias);
+                break;
+            }
+        }
+
+        /**
+         * The target, and the moment estimates, are [m]x[n] and the gradient is transposed [n]x[m]. The
+         * gradient is divided by the scale.
+         */
+        private void adam(final PhysicalStore<Double> target, final PhysicalStore<Double> gradient, final PhysicalStore<Double> moment1,
+                final PhysicalStore<Double> moment2, final double rate, final double scale, final double correction1, final double correction2) {
+
+            double beta1 = myOptimiser.myBeta1;
+            double beta2 = myOptimiser.myBeta2;
+            double epsilon = myOptimiser.myEpsilon;
+
+            for (int j = 0, nbCols = Math.toIntExact(target.countColumns()); j < nbCols; j++) {
+                for (int i = 0, nbRows = Math.toIntExact(target.countRows()); i < nbRows; i++) {
+                    double grad = gradient.doubleValue(j, i) / scale;
+                    double first = beta1 * moment1.doubleValue(i, j) + (ONE - beta1) * grad;
+                    double second = beta2 * moment2.doubleValue(i, j) + (ONE - beta2) * grad * grad;
+                    moment1.set(i, j, first);
+                    moment2.set(i, j, second);
+                    target.set(i, j, target.doubleValue(i, j) + rate * (first * correction1) / (Math.sqrt(second * correction2) + epsilon));
+                }
+            }
+        }
+
+        private void momentum(final PhysicalStore<Double> target, final PhysicalStore<Double> gradient, final PhysicalStore<Double> velocity,
+                final double rate, final double scale) {
+
+            double beta1 = myOptimiser.myBeta1;
+
+            for (int j = 0, nbCols = Math.toIntExact(target.countColumns()); j < nbCols; j++) {
+                for (int i = 0, nbRows = Math.toIntExact(target.countRows()); i < nbRows; i++) {
+                    double value = beta1 * velocity.doubleValue(i, j) + gradient.doubleValue(j, i) / scale;
+                    velocity.set(i, j, value);
+                    target.set(i, j, target.doubleValue(i, j) + rate * value);
+                }
+            }
+        }
+
+        private void nesterov(final PhysicalStore<Double> target, final PhysicalStore<Double> gradient, final PhysicalStore<Double> velocity,
+                final double rate, final double scale) {
+
+            double beta1 = myOptimiser.myBeta1;
+
+            for (int j = 0, nbCols = Math.toIntExact(target.countColumns()); j < nbCols; j++) {
+                for (int i = 0, nbRows = Math.toIntExact(target.countRows()); i < nbRows; i++) {
+                    double grad = gradient.doubleValue(j, i) / scale;
+                    double value = beta1 * velocity.doubleValue(i, j) + grad;
+                    velocity.set(i, j, value);
+                    target.set(i, j, target.doubleValue(i, j) + rate * (grad + beta1 * value));
+                }
+            }
+        }
+
+        private void rmsprop(final PhysicalStore<Double> target, final PhysicalStore<Double> gradient, final PhysicalStore<Double> average,
+                final double rate, final double scale) {
+
+            double beta1 = myOptimiser.myBeta1;
+            double epsilon = myOptimiser.myEpsilon;
+
+            for (int j = 0, nbCols = Math.toIntExact(target.countColumns()); j < nbCols; j++) {
+                for (int i = 0, nbRows = Math.toIntExact(target.countRows()); i < nbRows; i++) {
+                    double grad = gradient.doubleValue(j, i) / scale;
+                    double value = beta1 * average.doubleValue(i, j) + (ONE - beta1) * grad * grad;
+                    average.set(i, j, value);
+                    target.set(i, j, target.doubleValue(i, j) + rate * grad / (Math.sqrt(value) + epsilon));
+                }
+            }
+        }
+
+        boolean isFor(final Optimiser optimiser) {
+            return myOptimiser == optimiser;
+        }
+
+    }
+
+    private static final double EPSILON = 1E-8;
+
+    private static final Optimiser SGD = new Optimiser(Method.SGD, ZERO, ZERO, ZERO, Schedule.constant());
+
+    /**
+     * Adam with the usual default parameters, beta1=0.9 and beta2=0.999
+     */
+    public static Optimiser adam() {
+        return Optimiser.adam(0.9, 0.999);
+    }
+
+    /**
+     * Adam – adaptive moment estimation
+     *
+     * @param beta1 Decay rate for the first moment (mean) estimate
+     * @param beta2 Decay rate for the second moment (uncentered variance) estimate
+     */
+    public static Optimiser adam(final double beta1, final double beta2) {
+        return new Optimiser(Method.ADAM, beta1, beta2, ZERO, Schedule.constant());
+    }
+
+    /**
+     * AdamW – Adam with decoupled weight decay. The weights (not the biases) are multiplied by
+     * (1 - rate * weightDecay) every update step.
+     */
+    public static Optimiser adamW(final double weightDecay) {
+        return new Optimiser(Method.ADAM, 0.9, 0.999, weightDecay, Schedule.constant());
+    }
+
+    /**
+     * Gradient descent with (heavy ball) momentum
+     */
+    public static Optimiser momentum(final double momentum) {
+        return new Optimiser(Method.MOMENTUM, momentum, ZERO, ZERO, Schedule.constant());
+    }
+
+    /**
+     * Gradient descent with Nesterov momentum
+     */
+    public static Optimiser nesterov(final double momentum) {
+        return new Optimiser(Method.NESTEROV, momentum, ZERO, ZERO, Schedule.constant());
+    }
+
+    /**
+     * RMSProp with decay rate 0.9
+     */
+    public static Optimiser rmsprop() {
+        return Optimiser.rmsprop(0.9);
+    }
+
+    /**
+     * RMSProp – the step is divided by a moving average of the gradient magnitude
+     *
+     * @param decay Decay rate for the moving average of the squared gradient
+     */
+    public static Optimiser rmsprop(final double decay) {
+        return new Optimiser(Method.RMSPROP, decay, ZERO, ZERO, Schedule.constant());
+    }
+
+    /**
+     * Plain stochastic gradient descent, the default
+     */
+    public static Optimiser sgd() {
+        return SGD;
+    }
+
+    private final double myBeta1;
+    private final double myBeta2;
+    private final double myEpsilon = EPSILON;
+    private final Method myMethod;
+    private final Schedule mySchedule;
+    private final double myWeightDecay;
+
+    Optimiser(final Method method, final double beta1, final double beta2, final double weightDecay, final Schedule schedule) {
+
+        super();
+
+        myMethod = method;
+        myBeta1 = beta1;
+        myBeta2 = beta2;
+        myWeightDecay = weightDecay;
+        mySchedule = schedule;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Optimiser)) {
+            return false;
+        }
+        Optimiser other = (Optimiser) obj;
+        return myMethod == other.myMethod && Double.doubleToLongBits(myBeta1) == Double.doubleToLongBits(other.myBeta1)
+                && Double.doubleToLongBits(myBeta2) == Double.doubleToLongBits(other.myBeta2)
+                && Double.doubleToLongBits(myWeightDecay) == Double.doubleToLongBits(other.myWeightDecay) && Objects.equals(mySchedule, other.mySchedule);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(myMethod, myBeta1, myBeta2, myWeightDecay, mySchedule);
+    }
+
+    /**
+     * @return A new instance, the same as this but with the specified learning rate schedule
+     */
+    public Optimiser schedule(final Schedule schedule) {
+        return new Optimiser(myMethod, myBeta1, myBeta2, myWeightDecay, schedule);
+    }
+
+    @Override
+    public String toString() {
+        return myMethod + " [beta1=" + myBeta1 + ", beta2=" + myBeta2 + ", weightDecay=" + myWeightDecay + "]";
+    }
+
+    State newState(final PhysicalStore<Double> weights, final PhysicalStore<Double> bias) {
+        return new State(this, weights, bias);
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.ann;
+
+import org.ojalgo.ann.ArtificialNeuralNetwork.Activator;
+import org.ojalgo.array.operation.DOT;
+
+/**
+ * An inference only, float precision, snapshot of a network. The weights are copied (packed) to float arrays
+ * when the invoker is created – later training of the network does not affect it.
+ * <p>
+ * The input and output arrays are supplied by the caller, and contain the examples one after the other (row
+ * by row). The number of examples is derived from the input length, and may be anything up to the batch size
+ * specified when the invoker was created. Nothing is allocated when invoking.
+ * <p>
+ * Instances are not thread safe (they contain work areas). Create one per thread.
+ *
+ * @author apete
+ */
+public final class PackedInvoker {
+
+    static final class Layer {
+
+        final Activator activator;
+        final float[] bias;
+        final int inputs;
+        final int outputs;
+        /**
+         * Output by output – the weights of each output node are contiguous
+         */
+        final float[] weights;
+
+        Layer(final ArtificialNeuralNetwork network, final int layer) {
+
+            super();
+
+            activator = network.getActivator(layer);
+            inputs = network.countInputNodes(layer);
+            outputs = network.countOutputNodes(layer);
+
+            weights = new float[outputs * inputs];
+            bias = new float[outputs];
+
+            for (int j = 0; j < outputs; j++) {
+                for (int i = 0; i < inputs; i++) {
+                    weights[j * inputs + i] = (float) network.getWeight(layer, i, j);
+                }
+                bias[j] = (float) network.getBias(layer, j);
+            }
+        }
+
+    }
+
+    private static float activate(final Activator activator, final float value) {
+        switch (activator) {
+        case RELU:
+            return value > 0F ? value : 0F;
+        case SIGMOID:
+            return (float) (1.0 / (1.0 + Math.exp(-value)));
+        case TANH:
+            // Math.tanh is (relatively) slow, and float precision is all that's needed
+            return (float) (1.0 - 2.0 / (Math.exp(2.0 * value) + 1.0));
+        case SOFTMAX:
+            // Exponentiated and normalised afterwards
+            return value;
+        default:
+            return value;
+        }
+    }
+
+    /**
+     * [output] = activator([weights][input] + [bias]) for all the examples, with the activator applied
+     * directly as each element is calculated.
+     */
+    private static void invoke(final Layer layer, final float[] input, final float[] output, final int nbExamples) {
+
+        int nbIn = layer.inputs;
+        int nbOut = layer.outputs;
+        float[] weights = layer.weights;
+        Activator activator = layer.activator;
+
+        for (int j = 0; j < nbOut; j++) {
+
+            int offsetW = j * nbIn;
+            float bias = layer.bias[j];
+
+            // The weights of this output node are reused for all examples
+            for (int e = 0; e < nbExamples; e++) {
+
+                float sum = DOT.invoke(weights, offsetW, input, e * nbIn, 0, nbIn);
+
+                output[e * nbOut + j] = PackedInvoker.activate(activator, sum + bias);
+            }
+        }
+
+        if (activator == Activator.SOFTMAX) {
+            for (int e = 0; e < nbExamples; e++) {
+                int offset = e * nbOut;
+                // Subtract the max logit to avoid overflow – float exp overflows above about 88
+                float max = Float.NEGATIVE_INFINITY;
+                for (int j = 0; j < nbOut; j++) {
+                    max = Math.max(max, output[offset + j]);
+                }
+                float total = 0F;
+                for (int j = 0; j < nbOut; j++) {
+                    float value = (float) Math.exp(output[offset + j] - max);
+                    output[offset + j] = value;
+                    total += value;
+                }
+                for (int j = 0; j < nbOut; j++) {
+                    output[offset + j] /= total;
+                }
+            }
+        }
+    }
+
+    private final int myBatchSize;
+    private final float[] myInput;
+    private final Layer[] myLayers;
+    private final float[] myWork1;
+    private final float[] myWork2;
+
+    PackedInvoker(final ArtificialNeuralNetwork network, final int batchSize) {
+
+        super();
+
+        myBatchSize = batchSize;
+
+        myLayers = new Layer[network.depth()];
+        for (int l = 0; l < myLayers.length; l++) {
+            myLayers[l] = new Layer(network, l);
+        }
+
+        myInput = new float[batchSize * network.countInputNodes()];
+        myWork1 = new float[batchSize * network.width()];
+        myWork2 = new float[batchSize * network.width()];
+    }
+
+    public int countInputNodes() {
+        return myLayers[0].inputs;
+    }
+
+    public int countOutputNodes() {
+        return myLayers[myLayers.length - 1].outputs;
+    }
+
+    public int getBatchSize() {
+        return myBatchSize;
+    }
+
+    /**
+     * @param input The input of 1 or more examples, row by row
+     * @param output Will be filled with the corresponding output
+     */
+    public void invoke(final double[] input, final double[] output) {
+
+        int nbExamples = this.countExamples(input.length);
+
+        for (int i = 0, limit = nbExamples * this.countInputNodes(); i < limit; i++) {
+            myInput[i] = (float) input[i];
+        }
+
+        float[] result = this.invoke(myInput, nbExamples);
+
+        for (int i = 0, limit = nbExamples * this.countOutputNodes(); i < limit; i++) {
+            output[i] = result[i];
+        }
+    }
+
+    /**
+     * @param input The input of 1 or more examples, row by row
+     * @param output Will be filled with the corresponding output
+     */
+    public void invoke(final float[] input, final float[] output) {
+
+        int nbExamples = this.countExamples(input.length);
+
+        float[] result = this.invoke(input, nbExamples);
+
+        System.arraycopy(result, 0, output, 0, nbExamples * this.countOutputNodes());
+    }
+
+    private int countExamples(final int inputLength) {
+        int nbInputs = this.countInputNodes();
+        int retVal = inputLength / nbInputs;
+        if (retVal * nbInputs != inputLength || retVal > myBatchSize) {
+            throw new IllegalArgumentException("Input length must be a multiple of " + nbInputs + ", max " + myBatchSize * nbInputs + "!");
+        }
+        return retVal;
+    }
+
+    private float[] invoke(final float[] input, final int nbExamples) {
+
+        float[] current = input;
+        float[] next = myWork1;
+
+        for (int l = 0; l < myLayers.length; l++) {
+            PackedInvoker.invoke(myLayers[l], current, next, nbExamples);
+            current = next;
+            next = next == myWork1 ? myWork2 : myWork1;
+        }
+
+        return current;
+    }
+
+}
@@ -23,13 +23,17 @@ package org.ojalgo.ann;
 
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
+import java.util.Objects;
 import java.util.function.DoubleUnaryOperator;
 
 final class TrainingConfiguration {
 
     boolean dropouts = false;
     ArtificialNeuralNetwork.Error error = ArtificialNeuralNetwork.Error.HALF_SQUARED_DIFFERENCE;
+    boolean hogwild = false;
     double learningRate = HUNDREDTH;
+    Optimiser optimiser = null;
+    int parallelism = 1;
     boolean regularisationL1 = false;
     double regularisationL1Factor = ZERO;
     boolean regularisationL2 = false;
@@ -48,7 +52,9 @@ final class TrainingConfiguration {
             return false;
         }
         TrainingConfiguration other = (TrainingConfiguration) obj;
-        if ((dropouts != other.dropouts) || (error != other.error) || (Double.doubleToLongBits(learningRate) != Double.doubleToLongBits(other.learningRate))
+        if ((dropouts != other.dropouts) || (error != other.error) || (hogwild != other.hogwild)
+                || (Double.doubleToLongBits(learningRate) != Double.doubleToLongBits(other.learningRate)) || !Objects.equals(optimiser, other.optimiser)
+                || (parallelism != other.parallelism)
                 || (regularisationL1 != other.regularisationL1)) {
             return false;
         }
@@ -70,9 +76,12 @@ final class TrainingConfiguration {
         int result = 1;
         result = (prime * result) + (dropouts ? 1231 : 1237);
         result = (prime * result) + ((error == null) ? 0 : error.hashCode());
+        result = (prime * result) + (hogwild ? 1231 : 1237);
         long temp;
         temp = Double.doubleToLongBits(learningRate);
         result = (prime * result) + (int) (temp ^ (temp >>> 32));
+        result = (prime * result) + ((optimiser == null) ? 0 : optimiser.hashCode());
+        result = (prime * result) + parallelism;
         result = (prime * result) + (regularisationL1 ? 1231 : 1237);
         temp = Double.doubleToLongBits(regularisationL1Factor);
         result = (prime * result) + (int) (temp ^ (temp >>> 32));
@@ -90,17 +90,6 @@ abstract class WrappedANN implements Supplier<ArtificialNeuralNetwork> {
         return myNetwork.newBatch(myBatchSize, myNetwork.countInputNodes());
     }
 
-    private void setInput(final Access1D<Double> input) {
-        if (input instanceof PhysicalStore && ((PhysicalStore<Double>) input).getRowDim() == myBatchSize) {
-            myInput = (PhysicalStore<Double>) input;
-        } else {
-            if (myInput == null || myInput.getRowDim() != myBatchSize) {
-                myInput = myNetwork.newStore(myBatchSize, myNetwork.countInputNodes());
-            }
-            myInput.fillMatching(input);
-        }
-    }
-
     void adjust(final int layer, final PhysicalStore<Double> input, final PhysicalStore<Double> output, final PhysicalStore<Double> upstreamGradient,
             final PhysicalStore<Double> downstreamGradient) {
         myNetwork.adjust(layer, input, output, upstreamGradient, downstreamGradient);
@@ -179,6 +168,17 @@ abstract class WrappedANN implements Supplier<ArtificialNeuralNetwork> {
         myNetwork.setBias(layer, output, bias);
     }
 
+    void setInput(final Access1D<Double> input) {
+        if (input instanceof PhysicalStore && ((PhysicalStore<Double>) input).getRowDim() == myBatchSize) {
+            myInput = (PhysicalStore<Double>) input;
+        } else {
+            if (myInput == null || myInput.getRowDim() != myBatchSize) {
+                myInput = myNetwork.newStore(myBatchSize, myNetwork.countInputNodes());
+            }
+            myInput.fillMatching(input);
+        }
+    }
+
     void setWeight(final int layer, final int input, final int output, final double weight) {
         myNetwork.setWeight(layer, input, output, weight);
     }
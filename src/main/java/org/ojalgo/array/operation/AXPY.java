@@ -45,14 +45,22 @@ public abstract class AXPY implements ArrayOperation {
     }
 
     public static void invoke(final double[] y, final int basey, final double a, final double[] x, final int basex, final int first, final int limit) {
-        for (int i = first; i < limit; i++) {
-            y[basey + i] += a * x[basex + i];
+        if (SIMD.isElementWise(1, first, limit)) {
+            SIMD.INSTANCE.axpy(y, basey, a, x, basex, first, limit);
+        } else {
+            for (int i = first; i < limit; i++) {
+                y[basey + i] += a * x[basex + i];
+            }
         }
     }
 
     public static void invoke(final float[] y, final int basey, final float a, final float[] x, final int basex, final int first, final int limit) {
-        for (int i = first; i < limit; i++) {
-            y[basey + i] += a * x[basex + i];
+        if (SIMD.isElementWise(1, first, limit)) {
+            SIMD.INSTANCE.axpy(y, basey, a, x, basex, first, limit);
+        } else {
+            for (int i = first; i < limit; i++) {
+                y[basey + i] += a * x[basex + i];
+            }
         }
     }
 
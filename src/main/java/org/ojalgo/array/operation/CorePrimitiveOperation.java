@@ -149,38 +149,62 @@ public abstract class CorePrimitiveOperation implements ArrayOperation {
     }
 
     public static void add(final double[] data, final int first, final int limit, final int step, final double left, final double[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left + right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.add(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left + right[i];
+            }
         }
     }
 
     public static void add(final double[] data, final int first, final int limit, final int step, final double[] left, final double right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] + right;
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.add(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] + right;
+            }
         }
     }
 
     public static void add(final double[] data, final int first, final int limit, final int step, final double[] left, final double[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] + right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.add(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] + right[i];
+            }
         }
     }
 
     public static void add(final float[] data, final int first, final int limit, final int step, final float left, final float[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left + right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.add(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left + right[i];
+            }
         }
     }
 
     public static void add(final float[] data, final int first, final int limit, final int step, final float[] left, final float right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] + right;
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.add(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] + right;
+            }
         }
     }
 
     public static void add(final float[] data, final int first, final int limit, final int step, final float[] left, final float[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] + right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.add(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] + right[i];
+            }
         }
     }
 
@@ -358,38 +382,62 @@ public abstract class CorePrimitiveOperation implements ArrayOperation {
     }
 
     public static void divide(final double[] data, final int first, final int limit, final int step, final double left, final double[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left / right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.divide(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left / right[i];
+            }
         }
     }
 
     public static void divide(final double[] data, final int first, final int limit, final int step, final double[] left, final double right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] / right;
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.divide(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] / right;
+            }
         }
     }
 
     public static void divide(final double[] data, final int first, final int limit, final int step, final double[] left, final double[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] / right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.divide(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] / right[i];
+            }
         }
     }
 
     public static void divide(final float[] data, final int first, final int limit, final int step, final float left, final float[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left / right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.divide(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left / right[i];
+            }
         }
     }
 
     public static void divide(final float[] data, final int first, final int limit, final int step, final float[] left, final float right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] / right;
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.divide(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] / right;
+            }
         }
     }
 
     public static void divide(final float[] data, final int first, final int limit, final int step, final float[] left, final float[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] / right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.divide(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] / right[i];
+            }
         }
     }
 
@@ -567,38 +615,62 @@ public abstract class CorePrimitiveOperation implements ArrayOperation {
     }
 
     public static void multiply(final double[] data, final int first, final int limit, final int step, final double left, final double[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left * right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.multiply(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left * right[i];
+            }
         }
     }
 
     public static void multiply(final double[] data, final int first, final int limit, final int step, final double[] left, final double right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] * right;
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.multiply(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] * right;
+            }
         }
     }
 
     public static void multiply(final double[] data, final int first, final int limit, final int step, final double[] left, final double[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] * right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.multiply(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] * right[i];
+            }
         }
     }
 
     public static void multiply(final float[] data, final int first, final int limit, final int step, final float left, final float[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left * right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.multiply(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left * right[i];
+            }
         }
     }
 
     public static void multiply(final float[] data, final int first, final int limit, final int step, final float[] left, final float right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] * right;
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.multiply(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] * right;
+            }
         }
     }
 
     public static void multiply(final float[] data, final int first, final int limit, final int step, final float[] left, final float[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] * right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.multiply(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] * right[i];
+            }
         }
     }
 
@@ -694,14 +766,22 @@ public abstract class CorePrimitiveOperation implements ArrayOperation {
     }
 
     public static void negate(final double[] data, final int first, final int limit, final int step, final double[] values) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = -values[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.negate(data, first, limit, values);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = -values[i];
+            }
         }
     }
 
     public static void negate(final float[] data, final int first, final int limit, final int step, final float[] values) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = -values[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.negate(data, first, limit, values);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = -values[i];
+            }
         }
     }
 
@@ -843,38 +923,62 @@ public abstract class CorePrimitiveOperation implements ArrayOperation {
     }
 
     public static void subtract(final double[] data, final int first, final int limit, final int step, final double left, final double[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left - right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.subtract(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left - right[i];
+            }
         }
     }
 
     public static void subtract(final double[] data, final int first, final int limit, final int step, final double[] left, final double right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] - right;
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.subtract(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] - right;
+            }
         }
     }
 
     public static void subtract(final double[] data, final int first, final int limit, final int step, final double[] left, final double[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] - right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.subtract(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] - right[i];
+            }
         }
     }
 
     public static void subtract(final float[] data, final int first, final int limit, final int step, final float left, final float[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left - right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.subtract(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left - right[i];
+            }
         }
     }
 
     public static void subtract(final float[] data, final int first, final int limit, final int step, final float[] left, final float right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] - right;
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.subtract(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] - right;
+            }
         }
     }
 
     public static void subtract(final float[] data, final int first, final int limit, final int step, final float[] left, final float[] right) {
-        for (int i = first; i < limit; i += step) {
-            data[i] = left[i] - right[i];
+        if (SIMD.isElementWise(step, first, limit)) {
+            SIMD.INSTANCE.subtract(data, first, limit, left, right);
+        } else {
+            for (int i = first; i < limit; i += step) {
+                data[i] = left[i] - right[i];
+            }
         }
     }
 
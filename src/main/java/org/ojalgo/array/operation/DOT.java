@@ -87,6 +87,9 @@ public abstract class DOT implements ArrayOperation {
     }
 
     public static double invoke(final double[] array1, final int offset1, final double[] array2, final int offset2, final int first, final int limit) {
+        if (SIMD.isReduction(first, limit)) {
+            return SIMD.INSTANCE.dot(array1, offset1, array2, offset2, first, limit);
+        }
         return DOT.unrolled04(array1, offset1, array2, offset2, first, limit);
     }
 
@@ -99,6 +102,9 @@ public abstract class DOT implements ArrayOperation {
     }
 
     public static float invoke(final float[] array1, final int offset1, final float[] array2, final int offset2, final int first, final int limit) {
+        if (SIMD.isReduction(first, limit)) {
+            return SIMD.INSTANCE.dot(array1, offset1, array2, offset2, first, limit);
+        }
         return DOT.unrolled04(array1, offset1, array2, offset2, first, limit);
     }
 
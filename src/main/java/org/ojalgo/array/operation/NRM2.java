@@ -32,6 +32,9 @@ import static org.ojalgo.function.constant.PrimitiveMath.ZERO;
 public abstract class NRM2 implements ArrayOperation {
 
     public static double invoke(final double[] data, final double scale, final int first, final int limit) {
+        if (SIMD.isReduction(first, limit)) {
+            return scale * Math.sqrt(SIMD.INSTANCE.sumOfScaledSquares(data, scale, first, limit));
+        }
         double tmpVal;
         double sum2 = ZERO;
         for (int i = first; i < limit; i++) {
@@ -0,0 +1,148 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+/**
+ * Explicit SIMD implementations of the most frequently used primitive (double and float) kernels – AXPY, DOT,
+ * NRM2 and the element-wise arithmetic of {@link CorePrimitiveOperation}. Only contiguous ranges (step 1) are
+ * handled.
+ * <p>
+ * The implementation is based on the (incubating) Vector API, {@code jdk.incubator.vector}, and is compiled
+ * separately (requires Java 17 or later to build). It is only used if that module is present in the running
+ * JVM – add it with {@code --add-modules jdk.incubator.vector}. Otherwise {@link #INSTANCE} is null and the
+ * plain Java loops are used, exactly as before.
+ *
+ * @author apete
+ */
+abstract class SIMD {
+
+    /**
+     * Element-wise operations (and AXPY) on ranges shorter than this are processed using the plain Java loops.
+     * The JIT compiler already auto-vectorises those simple loops well – the explicit implementations only
+     * pay off for larger ranges.
+     */
+    static int THRESHOLD_ELEMENTWISE = 8192;
+    /**
+     * Reductions (DOT and NRM2) on ranges shorter than this are processed using the plain Java loops. The JIT
+     * compiler does not vectorise floating point reductions (it may not change the order of summation).
+     */
+    static int THRESHOLD_REDUCTION = 32;
+
+    /**
+     * The Vector API implementation, or null if not available
+     */
+    static final SIMD INSTANCE = SIMD.load();
+
+    private static final String IMPLEMENTATION = "org.ojalgo.array.operation.SIMDVector";
+    private static final String MODULE = "jdk.incubator.vector";
+
+    static boolean isElementWise(final int step, final int first, final int limit) {
+        return INSTANCE != null && step == 1 && limit - first >= THRESHOLD_ELEMENTWISE;
+    }
+
+    static boolean isReduction(final int first, final int limit) {
+        return INSTANCE != null && limit - first >= THRESHOLD_REDUCTION;
+    }
+
+    private static SIMD load() {
+        if (ModuleLayer.boot().findModule(MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            return (SIMD) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError cause) {
+            return null;
+        }
+    }
+
+    abstract void add(double[] data, int first, int limit, double left, double[] right);
+
+    abstract void add(double[] data, int first, int limit, double[] left, double right);
+
+    abstract void add(double[] data, int first, int limit, double[] left, double[] right);
+
+    abstract void add(float[] data, int first, int limit, float left, float[] right);
+
+    abstract void add(float[] data, int first, int limit, float[] left, float right);
+
+    abstract void add(float[] data, int first, int limit, float[] left, float[] right);
+
+    /**
+     * y[basey + i] += a * x[basex + i] for i in [first,limit)
+     */
+    abstract void axpy(double[] y, int basey, double a, double[] x, int basex, int first, int limit);
+
+    /**
+     * y[basey + i] += a * x[basex + i] for i in [first,limit)
+     */
+    abstract void axpy(float[] y, int basey, float a, float[] x, int basex, int first, int limit);
+
+    abstract void divide(double[] data, int first, int limit, double left, double[] right);
+
+    abstract void divide(double[] data, int first, int limit, double[] left, double right);
+
+    abstract void divide(double[] data, int first, int limit, double[] left, double[] right);
+
+    abstract void divide(float[] data, int first, int limit, float left, float[] right);
+
+    abstract void divide(float[] data, int first, int limit, float[] left, float right);
+
+    abstract void divide(float[] data, int first, int limit, float[] left, float[] right);
+
+    abstract double dot(double[] array1, int offset1, double[] array2, int offset2, int first, int limit);
+
+    abstract float dot(float[] array1, int offset1, float[] array2, int offset2, int first, int limit);
+
+    abstract void multiply(double[] data, int first, int limit, double left, double[] right);
+
+    abstract void multiply(double[] data, int first, int limit, double[] left, double right);
+
+    abstract void multiply(double[] data, int first, int limit, double[] left, double[] right);
+
+    abstract void multiply(float[] data, int first, int limit, float left, float[] right);
+
+    abstract void multiply(float[] data, int first, int limit, float[] left, float right);
+
+    abstract void multiply(float[] data, int first, int limit, float[] left, float[] right);
+
+    abstract void negate(double[] data, int first, int limit, double[] values);
+
+    abstract void negate(float[] data, int first, int limit, float[] values);
+
+    abstract void subtract(double[] data, int first, int limit, double left, double[] right);
+
+    abstract void subtract(double[] data, int first, int limit, double[] left, double right);
+
+    abstract void subtract(double[] data, int first, int limit, double[] left, double[] right);
+
+    abstract void subtract(float[] data, int first, int limit, float left, float[] right);
+
+    abstract void subtract(float[] data, int first, int limit, float[] left, float right);
+
+    abstract void subtract(float[] data, int first, int limit, float[] left, float[] right);
+
+    /**
+     * The sum of (data[i] / scale)^2 for i in [first,limit)
+     */
+    abstract double sumOfScaledSquares(double[] data, double scale, int first, int limit);
+
+}
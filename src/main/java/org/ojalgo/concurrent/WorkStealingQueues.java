@@ -0,0 +1,229 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One prioritised {@link Queue} per worker (thread). Each worker adds to, and polls from, its own queue. Only
+ * when its own queue is empty does a worker steal from the other workers' queues. Compared to
+ * {@link MultiviewSet}, where every item is added to every view, there is very little contention between the
+ * workers. Typical usage:
+ * <ol>
+ * <li>Create a {@link WorkStealingQueues} instance with one {@link Comparator} per worker
+ * <li>Hand out the {@link #workers()} to the threads (one each)
+ * <li>Each thread repeatedly calls {@link Worker#take()}, processes the item (possibly calling
+ * {@link Worker#offer(Object)} with new items), and then calls {@link Worker#done()}.
+ * <li>{@link Worker#take()} returns null when there is nothing left to do – all queues are empty and no
+ * worker is processing an item that could generate new items.
+ * </ol>
+ *
+ * @author apete
+ */
+public final class WorkStealingQueues<T> {
+
+    public final class Worker {
+
+        private final int myIndex;
+        private final PriorityBlockingQueue<T> myQueue;
+
+        Worker(final int index, final Comparator<? super T> comparator) {
+
+            super();
+
+            myIndex = index;
+            myQueue = new PriorityBlockingQueue<>(16, comparator);
+        }
+
+        /**
+         * Must be called once for each item returned by {@link #take()}, after it has been processed.
+         */
+        public void done() {
+            if (myPending.decrementAndGet() == 0) {
+                WorkStealingQueues.this.signal(true);
+            }
+        }
+
+        public boolean isEmpty() {
+            return myQueue.isEmpty();
+        }
+
+        /**
+         * Add to this worker's own queue.
+         */
+        public void offer(final T entry) {
+            myPending.incrementAndGet();
+            myQueue.add(entry);
+            WorkStealingQueues.this.signal(false);
+        }
+
+        /**
+         * @return The highest priority item in this worker's own queue, or if that is empty an item stolen
+         *         from one of the other workers' queues. Returns null if there is currently nothing to take.
+         */
+        public T poll() {
+
+            T retVal = myQueue.poll();
+
+            for (int i = 1, limit = myWorkers.size(); retVal == null && i < limit; i++) {
+                retVal = myWorkers.get((myIndex + i) % limit).myQueue.poll();
+            }
+
+            return retVal;
+        }
+
+        public int size() {
+            return myQueue.size();
+        }
+
+        /**
+         * Like {@link #poll()}, but if there is currently nothing to take, and other workers are still
+         * processing items, this method blocks until new items are offered (or the last item is done).
+         *
+         * @return The next item to process, or null when there is nothing left to do (or if the thread was
+         *         interrupted while waiting)
+         */
+        public T take() {
+
+            T retVal = null;
+
+            while ((retVal = this.poll()) == null && myPending.get() > 0) {
+
+                myLock.lock();
+                myWaiting.incrementAndGet();
+                try {
+                    while (WorkStealingQueues.this.isEmpty() && myPending.get() > 0) {
+                        myChanged.await();
+                    }
+                } catch (InterruptedException cause) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                } finally {
+                    myWaiting.decrementAndGet();
+                    myLock.unlock();
+                }
+            }
+
+            return retVal;
+        }
+
+    }
+
+    private final Condition myChanged;
+    private final ReentrantLock myLock = new ReentrantLock();
+    /**
+     * The number of items offered but not yet done – either still in one of the queues or currently being
+     * processed.
+     */
+    private final AtomicInteger myPending = new AtomicInteger();
+    /**
+     * The number of workers blocked in {@link Worker#take()} – no need to signal if there are none.
+     */
+    private final AtomicInteger myWaiting = new AtomicInteger();
+    private final List<Worker> myWorkers;
+
+    /**
+     * @param priorities One {@link Comparator} per worker. They need not be unique.
+     */
+    public WorkStealingQueues(final List<? extends Comparator<? super T>> priorities) {
+
+        super();
+
+        List<Worker> workers = new ArrayList<>(priorities.size());
+        for (int i = 0; i < priorities.size(); i++) {
+            workers.add(new Worker(i, priorities.get(i)));
+        }
+        myWorkers = Collections.unmodifiableList(workers);
+
+        myChanged = myLock.newCondition();
+    }
+
+    /**
+     * Empty all the queues. Should not be called while any of the workers are active.
+     */
+    public void clear() {
+        for (Worker worker : myWorkers) {
+            worker.myQueue.clear();
+        }
+        myPending.set(0);
+        this.signal(true);
+    }
+
+    public boolean isEmpty() {
+        for (Worker worker : myWorkers) {
+            if (!worker.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The total number of items in all the queues
+     */
+    public int size() {
+        int retVal = 0;
+        for (Worker worker : myWorkers) {
+            retVal += worker.size();
+        }
+        return retVal;
+    }
+
+    public Worker worker(final int index) {
+        return myWorkers.get(index);
+    }
+
+    public List<Worker> workers() {
+        return myWorkers;
+    }
+
+    /**
+     * Wake up workers blocked in {@link Worker#take()}. A waiting worker increments {@link #myWaiting}
+     * before it checks the queues, so if it's not yet counted here it will see the new item anyway.
+     *
+     * @param all true to wake all workers (there's nothing left to do), false to wake one (there's a new
+     *        item)
+     */
+    private void signal(final boolean all) {
+        if (myWaiting.get() > 0) {
+            myLock.lock();
+            try {
+                if (all) {
+                    myChanged.signalAll();
+                } else {
+                    myChanged.signal();
+                }
+            } finally {
+                myLock.unlock();
+            }
+        }
+    }
+
+}
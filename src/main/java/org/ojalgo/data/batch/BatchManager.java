@@ -25,7 +25,7 @@ import java.io.File;
 import java.util.concurrent.ExecutorService;
 import java.util.function.IntSupplier;
 
-import org.ojalgo.data.batch.BatchNode.Builder;
+import org.ojalgo.netio.ColumnarInterpreter;
 import org.ojalgo.netio.DataInterpreter;
 import org.ojalgo.netio.FromFileReader;
 
@@ -43,6 +43,7 @@ public final class BatchManager {
     private Integer myFragmentation = null;
     private IntSupplier myParallelism = null;
     private Integer myQueueCapacity = null;
+    private Integer mySpillThreshold = null;
 
     public BatchManager(final File batchRootDirectory) {
         super();
@@ -76,27 +77,17 @@ public final class BatchManager {
         return this;
     }
 
-    public <T> BatchNode.Builder<T> newNodeBuilder(final String nodeName, final DataInterpreter<T> dataInterpreter) {
-
-        Builder<T> retVal = BatchNode.newBuilder(new File(myBatchRootDirectory, nodeName), dataInterpreter);
-
-        if (myFragmentation != null) {
-            retVal.fragmentation(myFragmentation.intValue());
-        }
-
-        if (myExecutor != null) {
-            retVal.executor(myExecutor);
-        }
-
-        if (myParallelism != null) {
-            retVal.parallelism(myParallelism);
-        }
-
-        if (myQueueCapacity != null) {
-            retVal.queue(myQueueCapacity.intValue());
-        }
+    /**
+     * A node using the columnar shard format.
+     *
+     * @see BatchNode#newBuilder(File, ColumnarInterpreter)
+     */
+    public <T> BatchNode.Builder<T> newNodeBuilder(final String nodeName, final ColumnarInterpreter<T> columnarInterpreter) {
+        return this.configure(BatchNode.newBuilder(new File(myBatchRootDirectory, nodeName), columnarInterpreter));
+    }
 
-        return retVal;
+    public <T> BatchNode.Builder<T> newNodeBuilder(final String nodeName, final DataInterpreter<T> dataInterpreter) {
+        return this.configure(BatchNode.newBuilder(new File(myBatchRootDirectory, nodeName), dataInterpreter));
     }
 
     /**
@@ -122,4 +113,37 @@ public final class BatchManager {
         return this;
     }
 
+    /**
+     * @see BatchNode.Builder#spill(int)
+     */
+    public BatchManager spill(final int threshold) {
+        mySpillThreshold = Integer.valueOf(threshold);
+        return this;
+    }
+
+    private <T> BatchNode.Builder<T> configure(final BatchNode.Builder<T> builder) {
+
+        if (myFragmentation != null) {
+            builder.fragmentation(myFragmentation.intValue());
+        }
+
+        if (myExecutor != null) {
+            builder.executor(myExecutor);
+        }
+
+        if (myParallelism != null) {
+            builder.parallelism(myParallelism);
+        }
+
+        if (myQueueCapacity != null) {
+            builder.queue(myQueueCapacity.intValue());
+        }
+
+        if (mySpillThreshold != null) {
+            builder.spill(mySpillThreshold.intValue());
+        }
+
+        return builder;
+    }
+
 }
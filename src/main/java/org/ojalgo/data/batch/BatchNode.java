@@ -22,19 +22,37 @@
 package org.ojalgo.data.batch;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntSupplier;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
 
 import org.ojalgo.concurrent.Parallelism;
 import org.ojalgo.concurrent.ProcessingService;
 import org.ojalgo.function.special.PowerOf2;
+import org.ojalgo.netio.ColumnarBlock;
+import org.ojalgo.netio.ColumnarInterpreter;
+import org.ojalgo.netio.ColumnarReader;
+import org.ojalgo.netio.ColumnarWriter;
 import org.ojalgo.netio.DataInterpreter;
 import org.ojalgo.netio.DataReader;
 import org.ojalgo.netio.DataWriter;
@@ -51,11 +69,26 @@ import org.ojalgo.type.management.Throughput;
  * A batch processing data node for when there's no way to fit the data in memory.
  * <p>
  * Data is stored in sharded files, and data is written/consumed and processed concurrently.
+ * <p>
+ * By default items are serialised one at the time using a {@link DataInterpreter}. For numeric data,
+ * types that can be represented as a fixed number of primitive values, it's much more efficient to use a
+ * {@link ColumnarInterpreter}. The shards are then stored in (compressed) blocks of primitive columns, see
+ * {@link ColumnarWriter}, and processing streams whole blocks.
+ * <p>
+ * Apart from processing the shards one at the time, there are also external memory (sort and group-by)
+ * operators: {@link #sort(Comparator, Consumer)} and {@link #groupBy(Function, Collector, BiConsumer)}. They
+ * spill to (temporary) files when the data does not fit in memory, see {@link Builder#spill(int)}.
+ * <p>
+ * Nodes can also be chained in to pipelines (or DAG:s) where the next stage consumes the items as they are
+ * written, rather than after everything has been written to disk, see {@link #newPipe(Supplier)}.
  */
 public final class BatchNode<T> {
 
     public static final class Builder<T> {
 
+        private int myBlockSize = 4096;
+        private ColumnarBlock.Codec myCodec = ColumnarBlock.Codec.DEFLATE;
+        private ColumnarInterpreter<T> myColumnarInterpreter = null;
         private final File myDirectory;
         private ToIntFunction<T> myDistributor = obj -> ThreadLocalRandom.current().nextInt();
         private ExecutorService myExecutor = null;
@@ -64,6 +97,7 @@ public final class BatchNode<T> {
         private int myParallelism = Parallelism.CORES.getAsInt();
 
         private int myQueueCapacity = 1024;
+        private int mySpillThreshold = 100_000;
 
         Builder(final File directory, final DataInterpreter<T> interpreter) {
             super();
@@ -75,6 +109,21 @@ public final class BatchNode<T> {
             return new BatchNode<>(this);
         }
 
+        /**
+         * Use the columnar, block-oriented, shard format. Items are mapped to/from primitive columns using
+         * the {@link ColumnarInterpreter}, and the {@link DataInterpreter} (if any) is not used.
+         *
+         * @param interpreter Maps items to/from rows of primitive columns
+         * @param blockSize The (max) number of rows in each block
+         * @param codec How to compress the blocks
+         */
+        public BatchNode.Builder<T> columnar(final ColumnarInterpreter<T> interpreter, final int blockSize, final ColumnarBlock.Codec codec) {
+            myColumnarInterpreter = interpreter;
+            myBlockSize = blockSize;
+            myCodec = codec;
+            return this;
+        }
+
         /**
          * The default is to distribute randomly. Most likely you want to distribute based on some property of
          * the item/type – extract that property and get its hash code. That causes all items with same value
@@ -124,6 +173,27 @@ public final class BatchNode<T> {
             return this;
         }
 
+        int getBlockSize() {
+            return myBlockSize;
+        }
+
+        ColumnarBlock.Codec getCodec() {
+            return myCodec;
+        }
+
+        ColumnarInterpreter<T> getColumnarInterpreter() {
+            return myColumnarInterpreter;
+        }
+
+        /**
+         * The maximum number of items (when sorting) or groups (when grouping) each worker thread keeps in
+         * memory before spilling to disk.
+         */
+        public Builder<T> spill(final int threshold) {
+            mySpillThreshold = threshold;
+            return this;
+        }
+
         ToIntFunction<T> getDistributor() {
             return myDistributor;
         }
@@ -168,12 +238,182 @@ public final class BatchNode<T> {
             return myQueueCapacity;
         }
 
+        int getSpillThreshold() {
+            return mySpillThreshold;
+        }
+
         ShardedFile getShardedFile() {
             return ShardedFile.of(myDirectory, "Shard.data", this.getFragmentation());
         }
 
     }
 
+    /**
+     * The current (smallest not yet consumed) item of a sorted run
+     */
+    private static final class Head<T> {
+
+        T item;
+        final int order;
+        final FromFileReader<T> reader;
+
+        Head(final FromFileReader<T> reader, final int order) {
+            super();
+            this.reader = reader;
+            this.order = order;
+            this.item = reader.read();
+        }
+
+    }
+
+    /**
+     * Sub-partitions, of a group-by partition, for items with keys that didn't fit in memory. The writers
+     * are created lazily.
+     */
+    private static final class Overflow<T> implements AutoCloseable {
+
+        private final Function<File, ToFileWriter<T>> myFactory;
+        private final File[] myFiles;
+        private final List<ToFileWriter<T>> myWriters;
+
+        Overflow(final File partition, final Function<File, ToFileWriter<T>> factory) {
+
+            super();
+
+            myFactory = factory;
+
+            myFiles = new File[SUB_PARTITIONS];
+            for (int i = 0; i < SUB_PARTITIONS; i++) {
+                myFiles[i] = new File(partition.getParentFile(), partition.getName() + "-" + i);
+            }
+            myWriters = new ArrayList<>(Collections.nCopies(SUB_PARTITIONS, null));
+        }
+
+        public void close() throws IOException {
+            for (ToFileWriter<T> writer : myWriters) {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+
+        List<File> files() {
+            List<File> retVal = new ArrayList<>();
+            for (int i = 0; i < SUB_PARTITIONS; i++) {
+                if (myWriters.get(i) != null) {
+                    retVal.add(myFiles[i]);
+                }
+            }
+            return retVal;
+        }
+
+        void write(final int index, final T item) {
+            ToFileWriter<T> writer = myWriters.get(index);
+            if (writer == null) {
+                writer = myFactory.apply(myFiles[index]);
+                myWriters.set(index, writer);
+            }
+            writer.write(item);
+        }
+
+    }
+
+    /**
+     * A bounded in-memory queue, consumed concurrently, with a temporary sub-directory of the node as overflow
+     * storage.
+     */
+    private final class Pipe implements AutoConsumer<T> {
+
+        private final List<Consumer<T>> myConsumers;
+        private final LinkedBlockingQueue<T> myQueue;
+        private final AutoConsumer<T> myQueued;
+        private volatile AutoConsumer<T> mySpill = null;
+        private volatile ShardedFile mySpilled = null;
+
+        Pipe(final Supplier<Consumer<T>> consumerFactory) {
+
+            super();
+
+            int parallelism = myParallelism.getAsInt();
+
+            myQueue = new LinkedBlockingQueue<>(myQueueCapacity);
+
+            myConsumers = new ArrayList<>(parallelism);
+            @SuppressWarnings("unchecked")
+            Consumer<T>[] workers = (Consumer<T>[]) new Consumer<?>[parallelism];
+            for (int i = 0; i < parallelism; i++) {
+                Consumer<T> consumer = consumerFactory.get();
+                myConsumers.add(consumer);
+                workers[i] = consumer::accept; // Not AutoCloseable, the consumers are needed after the queue is closed
+            }
+
+            myQueued = AutoConsumer.queued(myProcessor.getExecutor(), myQueue, workers);
+        }
+
+        /**
+         * Wait for the queued items to be consumed, then process any spilled items using the same consumers,
+         * and finally delete the spilled data. Any data the node held before the pipe was created is left
+         * untouched.
+         */
+        public void close() throws IOException {
+
+            BatchNode.close(myQueued);
+
+            if (mySpill != null) {
+
+                BatchNode.close(mySpill);
+
+                try {
+
+                    ConcurrentLinkedQueue<File> shards = new ConcurrentLinkedQueue<>(mySpilled.files());
+                    AtomicInteger index = new AtomicInteger();
+
+                    myProcessor.run(myConsumers.size(), () -> {
+                        Consumer<T> consumer = myConsumers.get(index.getAndIncrement());
+                        File shard = null;
+                        while ((shard = shards.poll()) != null) {
+                            BatchNode.this.process(shard, consumer);
+                        }
+                    });
+
+                } finally {
+                    mySpilled.delete();
+                }
+            }
+
+            for (Consumer<T> consumer : myConsumers) {
+                if (consumer instanceof AutoCloseable) {
+                    BatchNode.close((AutoCloseable) consumer);
+                }
+            }
+        }
+
+        /**
+         * Never blocks – if the queue is full the item is written to disk instead.
+         */
+        public void write(final T item) {
+            if (!myQueue.offer(item)) {
+                this.getSpill().write(item);
+            }
+        }
+
+        private AutoConsumer<T> getSpill() {
+            AutoConsumer<T> retVal = mySpill;
+            if (retVal == null) {
+                synchronized (this) {
+                    retVal = mySpill;
+                    if (retVal == null) {
+                        File directory = BatchNode.this.newTemporaryDirectory("Pipe");
+                        mySpilled = ShardedFile.of(directory, "Spill.data", myShards.numberOfShards);
+                        mySpill = retVal = BatchNode.this.newWriter(mySpilled);
+                    }
+                }
+            }
+            return retVal;
+        }
+
+    }
+
     private static final class TwoStepWrapper<T> implements TwoStepMapper<T, Boolean> {
 
         private final Consumer<T> myActualConsumer;
@@ -203,6 +443,30 @@ public final class BatchNode<T> {
         // Dummy no-op consumer
     };
 
+    /**
+     * The maximum number of sorted runs merged at once
+     */
+    private static final int MAX_FAN_IN = 64;
+
+    /**
+     * Limits the recursive re-partitioning (of groups that don't fit in memory)
+     */
+    private static final int MAX_LEVEL = 8;
+
+    private static final int SUB_PARTITIONS = 16;
+
+    private static final AtomicInteger TEMPORARY = new AtomicInteger();
+
+    /**
+     * A node using the columnar shard format with default block size and codec.
+     *
+     * @see Builder#columnar(ColumnarInterpreter, int, ColumnarBlock.Codec)
+     */
+    public static <T> BatchNode.Builder<T> newBuilder(final File directory, final ColumnarInterpreter<T> interpreter) {
+        BatchNode.Builder<T> retVal = new BatchNode.Builder<>(directory, null);
+        return retVal.columnar(interpreter, retVal.getBlockSize(), retVal.getCodec());
+    }
+
     public static <T> BatchNode.Builder<T> newBuilder(final File directory, final DataInterpreter<T> interpreter) {
         return new BatchNode.Builder<>(directory, interpreter);
     }
@@ -211,6 +475,40 @@ public final class BatchNode<T> {
         return BatchNode.newBuilder(directory, interpreter).build();
     }
 
+    /**
+     * Different levels of (re)partitioning need different, independent, hash functions – otherwise all
+     * items of a partition would end up in the same sub-partition.
+     */
+    /**
+     * Passes on {@link IOException} and unchecked exceptions as they are. Anything else is wrapped in a
+     * {@link RuntimeException}.
+     */
+    private static void close(final AutoCloseable closeable) throws IOException {
+        try {
+            closeable.close();
+        } catch (IOException | RuntimeException cause) {
+            throw cause;
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(cause);
+        } catch (Exception cause) {
+            throw new RuntimeException(cause);
+        }
+    }
+
+    static int hash(final Object key, final int level) {
+        int h = Objects.hashCode(key) + level * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private final int myBlockSize;
+    private final ColumnarBlock.Codec myCodec;
+    private final ColumnarInterpreter<T> myColumnarInterpreter;
     private final ToIntFunction<T> myDistributor;
     private final DataInterpreter<T> myInterpreter;
     private final IntSupplier myParallelism;
@@ -219,6 +517,7 @@ public final class BatchNode<T> {
     private transient Function<File, AutoSupplier<T>> myReaderFactory = null;
     private final Throughput myReaderManager;
     private final ShardedFile myShards;
+    private final int mySpillThreshold;
     private final Throughput myWriterManger;
 
     BatchNode(final BatchNode.Builder<T> builder) {
@@ -229,9 +528,13 @@ public final class BatchNode<T> {
         myParallelism = builder.getParallelism();
 
         myInterpreter = builder.getInterpreter();
+        myColumnarInterpreter = builder.getColumnarInterpreter();
+        myBlockSize = builder.getBlockSize();
+        myCodec = builder.getCodec();
         myDistributor = builder.getDistributor();
         myProcessor = builder.getProcessor();
         myQueueCapacity = builder.getQueueCapacity();
+        mySpillThreshold = builder.getSpillThreshold();
 
         myWriterManger = new Throughput();
         myReaderManager = new Throughput();
@@ -248,9 +551,77 @@ public final class BatchNode<T> {
         myShards.delete();
     }
 
+    /**
+     * External memory group-by: all items with the same key are reduced using the {@link Collector}, and the
+     * results are passed to the consumer (1 call per distinct key).
+     * <p>
+     * The data is first (re)partitioned on the key, in parallel, to temporary shards. Those partitions are
+     * then aggregated concurrently. If a partition has more distinct keys than the spill threshold, items with
+     * keys not already in memory are spilled to sub-partitions that are aggregated afterwards (recursively).
+     *
+     * @param classifier Extracts the key to group on
+     * @param downstream Reduces the items of each group
+     * @param consumer Must be able to consume concurrently
+     */
+    public <K, A, R> void groupBy(final Function<? super T, ? extends K> classifier, final Collector<? super T, A, R> downstream,
+            final BiConsumer<? super K, ? super R> consumer) {
+
+        File directory = this.newTemporaryDirectory("GroupBy");
+
+        try {
+
+            ShardedFile partitions = ShardedFile.of(directory, "Partition.data", myShards.numberOfShards);
+
+            ToIntFunction<T> distributor = item -> BatchNode.hash(classifier.apply(item), 0);
+
+            AutoConsumer<T> writer = ToFileWriter.newBuilder(partitions).queue(myQueueCapacity).parallelism(myParallelism).build(distributor,
+                    this::newShardWriter);
+            try {
+                this.processAll(writer::write);
+            } finally {
+                BatchNode.close(writer);
+            }
+
+            myProcessor.process(partitions.files(), myParallelism, partition -> this.aggregate(partition, 1, classifier, downstream, consumer));
+
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        } finally {
+            FromFileReader.delete(directory);
+        }
+    }
+
+    /**
+     * Create a pipeline stage: Items written to the returned {@link AutoConsumer} are put on a bounded
+     * in-memory queue (capacity set by {@link Builder#queue(int)}) and consumed, concurrently, by consumers
+     * from the factory – 1 per worker thread. When the queue is full items are instead written (spilled) to a
+     * temporary sub-directory of this node. Closing the pipe waits for the queue to be consumed, then the
+     * spilled items are processed by the same consumers, and finally the spilled data is deleted. Data
+     * already written to this node (using {@link #newWriter()}) is not affected by the pipe.
+     * <p>
+     * The consumers can write to other pipes (or {@link #newWriter()}:s) – that's how to chain stages in to a
+     * pipeline or DAG. Close the pipes in topological order (upstream before downstream), for instance by
+     * nesting them in try-with-resources blocks with the downstream stages created first:
+     *
+     * <pre>
+     * try (AutoConsumer&lt;B&gt; second = nodeB.newPipe(() -&gt; b -&gt; ...);
+     *         AutoConsumer&lt;A&gt; first = nodeA.newPipe(() -&gt; a -&gt; second.write(transform(a)))) {
+     *     source.forEach(first::write);
+     * }
+     * </pre>
+     *
+     * The executor (see {@link Builder#executor(ExecutorService)}) must be able to run all the stages'
+     * workers simultaneously.
+     *
+     * @param consumerFactory Produces the consumers of this stage. Consumers that are {@link AutoCloseable}
+     *        are closed when the pipe is closed.
+     */
+    public AutoConsumer<T> newPipe(final Supplier<Consumer<T>> consumerFactory) {
+        return new Pipe(consumerFactory);
+    }
+
     public AutoConsumer<T> newWriter() {
-        return ToFileWriter.newBuilder(myShards).queue(myQueueCapacity).parallelism(myParallelism).statistics(myWriterManger).build(myDistributor,
-                shard -> DataWriter.of(shard, myInterpreter));
+        return this.newWriter(myShards);
     }
 
     /**
@@ -271,6 +642,28 @@ public final class BatchNode<T> {
         this.processMapped(() -> new TwoStepWrapper<>(consumerFactory), DUMMY);
     }
 
+    /**
+     * Process whole (decoded) blocks of primitive columns. Only possible with the columnar shard format.
+     *
+     * @param consumer Must be able to consume concurrently. The {@link ColumnarBlock} instances are reused –
+     *        don't hold on to them.
+     */
+    public void processBlocks(final Consumer<ColumnarBlock> consumer) {
+        this.processBlocks(null, consumer);
+    }
+
+    /**
+     * Same as {@link #processBlocks(Consumer)} but blocks that the filter rejects are skipped without being
+     * decompressed/decoded. When the filter is evaluated only the block size and the per column minimum and
+     * maximum values are available.
+     */
+    public void processBlocks(final Predicate<ColumnarBlock> filter, final Consumer<ColumnarBlock> consumer) {
+        if (myColumnarInterpreter == null) {
+            throw new IllegalStateException("Not a columnar node!");
+        }
+        myProcessor.process(myShards.files(), myParallelism, shard -> this.read(shard, filter, consumer));
+    }
+
     /**
      * Process mapped/derived data in batches.
      * <P>
@@ -310,6 +703,119 @@ public final class BatchNode<T> {
         return totalResults.getResults();
     }
 
+    /**
+     * External merge sort – all items, from all shards, are passed to the consumer in sorted order.
+     * <p>
+     * The shards are read concurrently and split in runs (at most the spill threshold number of items) that
+     * are sorted in memory and spilled to temporary files. The runs are then merged, in parallel, until
+     * there are few enough to do the final k-way merge that feeds the consumer.
+     *
+     * @param comparator Defines the sort order
+     * @param consumer Is called from one thread at the time, in sorted order
+     */
+    public void sort(final Comparator<? super T> comparator, final Consumer<? super T> consumer) {
+
+        File directory = this.newTemporaryDirectory("Sort");
+
+        try {
+
+            AtomicInteger counter = new AtomicInteger();
+            Supplier<File> runs = () -> new File(directory, "Run" + counter.incrementAndGet() + ".data");
+
+            List<File> sorted = Collections.synchronizedList(new ArrayList<>());
+
+            myProcessor.process(myShards.files(), myParallelism, shard -> {
+
+                List<T> buffer = new ArrayList<>();
+
+                this.process(shard, item -> {
+                    buffer.add(item);
+                    if (buffer.size() >= mySpillThreshold) {
+                        sorted.add(this.spill(buffer, comparator, runs.get()));
+                    }
+                });
+
+                if (!buffer.isEmpty()) {
+                    sorted.add(this.spill(buffer, comparator, runs.get()));
+                }
+            });
+
+            List<File> remaining = new ArrayList<>(sorted);
+
+            while (remaining.size() > MAX_FAN_IN) {
+
+                List<List<File>> groups = new ArrayList<>();
+                for (int i = 0; i < remaining.size(); i += MAX_FAN_IN) {
+                    groups.add(remaining.subList(i, Math.min(i + MAX_FAN_IN, remaining.size())));
+                }
+
+                List<File> merged = Collections.synchronizedList(new ArrayList<>());
+
+                myProcessor.process(groups, myParallelism, group -> {
+                    File run = runs.get();
+                    try (ToFileWriter<T> writer = this.newShardWriter(run)) {
+                        this.merge(group, comparator, writer::write);
+                    } catch (IOException cause) {
+                        throw new RuntimeException(cause);
+                    }
+                    group.forEach(File::delete);
+                    merged.add(run);
+                });
+
+                remaining = new ArrayList<>(merged);
+            }
+
+            this.merge(remaining, comparator, consumer);
+
+        } finally {
+            FromFileReader.delete(directory);
+        }
+    }
+
+    private <K, A, R> void aggregate(final File partition, final int level, final Function<? super T, ? extends K> classifier,
+            final Collector<? super T, A, R> downstream, final BiConsumer<? super K, ? super R> consumer) {
+
+        Supplier<A> supplier = downstream.supplier();
+        BiConsumer<A, ? super T> accumulator = downstream.accumulator();
+
+        Map<K, A> groups = new HashMap<>();
+        List<File> overflowing;
+
+        try (Overflow<T> overflow = new Overflow<>(partition, this::newShardWriter)) {
+
+            this.process(partition, item -> {
+
+                K key = classifier.apply(item);
+                A container = groups.get(key);
+
+                if (container == null) {
+                    if (groups.size() >= mySpillThreshold && level < MAX_LEVEL) {
+                        overflow.write(Math.floorMod(BatchNode.hash(key, level), SUB_PARTITIONS), item);
+                        return;
+                    }
+                    container = supplier.get();
+                    groups.put(key, container);
+                }
+
+                accumulator.accept(container, item);
+            });
+
+            overflowing = overflow.files();
+
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+
+        Function<A, R> finisher = downstream.finisher();
+        groups.forEach((key, container) -> consumer.accept(key, finisher.apply(container)));
+        groups.clear();
+
+        for (File subpartition : overflowing) {
+            this.aggregate(subpartition, level + 1, classifier, downstream, consumer);
+            subpartition.delete();
+        }
+    }
+
     private Function<File, AutoSupplier<T>> getReaderFactory() {
         if (myReaderFactory == null) {
             Function<File, DataReader<T>> baseReader = file -> DataReader.of(file, myInterpreter);
@@ -319,41 +825,161 @@ public final class BatchNode<T> {
         return myReaderFactory;
     }
 
+    /**
+     * k-way merge of sorted runs using a priority queue. Ties are resolved by the order of the runs to make
+     * the result deterministic.
+     */
+    private void merge(final List<File> runs, final Comparator<? super T> comparator, final Consumer<? super T> consumer) {
+
+        Comparator<Head<T>> order = (h1, h2) -> {
+            int retVal = comparator.compare(h1.item, h2.item);
+            return retVal != 0 ? retVal : Integer.compare(h1.order, h2.order);
+        };
+
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, runs.size()), order);
+        List<FromFileReader<T>> readers = new ArrayList<>(runs.size());
+
+        try {
+
+            for (File run : runs) {
+                FromFileReader<T> reader = this.newShardReader(run);
+                readers.add(reader);
+                Head<T> head = new Head<>(reader, readers.size());
+                if (head.item != null) {
+                    heads.add(head);
+                }
+            }
+
+            Head<T> head = null;
+            while ((head = heads.poll()) != null) {
+                consumer.accept(head.item);
+                if ((head.item = head.reader.read()) != null) {
+                    heads.add(head);
+                }
+            }
+
+        } finally {
+            for (FromFileReader<T> reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException cause) {
+                    throw new RuntimeException(cause);
+                }
+            }
+        }
+    }
+
     private AutoSupplier<T> newReader(final File file) {
         return this.getReaderFactory().apply(file);
     }
 
-    private void process(final File shard, final Consumer<T> consumer) {
+    /**
+     * A plain (not queued) reader of a single file, using the format of this node.
+     */
+    private FromFileReader<T> newShardReader(final File file) {
+        if (myColumnarInterpreter != null) {
+            return ColumnarReader.of(file, myColumnarInterpreter);
+        } else {
+            return DataReader.of(file, myInterpreter);
+        }
+    }
 
-        try (AutoSupplier<T> reader = this.newReader(shard)) {
+    /**
+     * A plain (not queued) writer of a single file, using the format of this node.
+     */
+    private ToFileWriter<T> newShardWriter(final File file) {
+        if (myColumnarInterpreter != null) {
+            return ColumnarWriter.of(file, myColumnarInterpreter, myBlockSize, myCodec);
+        } else {
+            return DataWriter.of(file, myInterpreter);
+        }
+    }
 
-            T item = null;
-            while ((item = reader.read()) != null) {
-                consumer.accept(item);
-            }
+    private File newTemporaryDirectory(final String operation) {
+        File retVal = new File(myShards.directory(), operation + "-" + TEMPORARY.incrementAndGet());
+        ToFileWriter.mkdirs(retVal);
+        return retVal;
+    }
 
-        } catch (Exception cause) {
-            throw new RuntimeException(cause);
+    private AutoConsumer<T> newWriter(final ShardedFile shards) {
+        ToFileWriter.Builder builder = ToFileWriter.newBuilder(shards).queue(myQueueCapacity).parallelism(myParallelism).statistics(myWriterManger);
+        if (myColumnarInterpreter != null) {
+            return builder.build(myDistributor, shard -> ColumnarWriter.of(shard, myColumnarInterpreter, myBlockSize, myCodec));
+        } else {
+            return builder.build(myDistributor, shard -> DataWriter.of(shard, myInterpreter));
         }
+    }
+
+    private void process(final File shard, final Consumer<T> consumer) {
+
+        if (myColumnarInterpreter != null) {
+
+            this.read(shard, null, block -> {
+                for (int r = 0, limit = block.size(); r < limit; r++) {
+                    consumer.accept(myColumnarInterpreter.deserialize(block, r));
+                }
+            });
 
+        } else {
+
+            try (AutoSupplier<T> reader = this.newReader(shard)) {
+
+                T item = null;
+                while ((item = reader.read()) != null) {
+                    consumer.accept(item);
+                }
+
+            } catch (Exception cause) {
+                throw new RuntimeException(cause);
+            }
+        }
     }
 
     private <G> void process(final File shard, final Supplier<TwoStepMapper<T, G>> aggregatorSupplier, final Consumer<G> consumer) {
 
         TwoStepMapper<T, G> aggregator = aggregatorSupplier.get(); // It's a ThreadLocal...
 
-        try (AutoSupplier<T> reader = this.newReader(shard)) {
+        this.process(shard, aggregator::consume);
+
+        consumer.accept(aggregator.getResults());
+
+        aggregator.reset(); // ...and needs to be reset.
+    }
+
+    /**
+     * Sort the items in memory, write them to the file and then clear the list.
+     */
+    private File spill(final List<T> items, final Comparator<? super T> comparator, final File file) {
 
-            T item = null;
-            while ((item = reader.read()) != null) {
-                aggregator.consume(item);
+        items.sort(comparator);
+
+        try (ToFileWriter<T> writer = this.newShardWriter(file)) {
+            for (T item : items) {
+                writer.write(item);
             }
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
 
-            consumer.accept(aggregator.getResults());
+        items.clear();
 
-            aggregator.reset(); // ...and needs to be reset.
+        return file;
+    }
 
-        } catch (Exception cause) {
+    /**
+     * Blocks are read, decompressed and decoded in the calling (worker) thread – no intermediate queue.
+     */
+    private void read(final File shard, final Predicate<ColumnarBlock> filter, final Consumer<ColumnarBlock> consumer) {
+
+        try (ColumnarReader<T> reader = ColumnarReader.of(shard, myColumnarInterpreter)) {
+
+            ColumnarBlock block = null;
+            while ((block = reader.readBlock(filter)) != null) {
+                consumer.accept(block);
+                myReaderManager.add(block.size());
+            }
+
+        } catch (IOException cause) {
             throw new RuntimeException(cause);
         }
     }
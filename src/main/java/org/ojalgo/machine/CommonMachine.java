@@ -43,6 +43,14 @@ public abstract class CommonMachine extends BasicMachine {
      * The size of one top level (L3 or L2) cache unit in bytes.
      */
     public final long cache;
+    /**
+     * The size of one L1 (data) cache unit in bytes.
+     */
+    public final long cacheL1;
+    /**
+     * The size of one L2 cache unit in bytes. If there is no L3 cache this is the same as {@link #cache}.
+     */
+    public final long cacheL2;
     /**
      * The total number of processor cores.
      */
@@ -60,6 +68,8 @@ public abstract class CommonMachine extends BasicMachine {
         architecture = hardware.architecture;
 
         cache = hardware.cache;
+        cacheL1 = hardware.cacheL1;
+        cacheL2 = hardware.cacheL2;
 
         cores = hardware.cores;
         units = hardware.units;
@@ -78,6 +88,8 @@ public abstract class CommonMachine extends BasicMachine {
 
         cores = threads / levels[levels.length - 1].threads;
         cache = levels[1].memory;
+        cacheL1 = levels[levels.length - 1].memory;
+        cacheL2 = levels.length > 2 ? levels[levels.length - 2].memory : cache;
         units = threads / levels[1].threads;
     }
 
@@ -85,6 +97,8 @@ public abstract class CommonMachine extends BasicMachine {
         super(base.memory, modThreads);
         architecture = base.architecture;
         cache = base.cache;
+        cacheL1 = base.cacheL1;
+        cacheL2 = base.cacheL2;
         cores = modCores;
         units = modUnits;
     }
@@ -129,7 +143,7 @@ public abstract class CommonMachine extends BasicMachine {
         } else if (!architecture.equals(other.architecture)) {
             return false;
         }
-        if (cache != other.cache || cores != other.cores || units != other.units) {
+        if (cache != other.cache || cacheL1 != other.cacheL1 || cacheL2 != other.cacheL2 || cores != other.cores || units != other.units) {
             return false;
         }
         return true;
@@ -157,6 +171,8 @@ public abstract class CommonMachine extends BasicMachine {
         int result = super.hashCode();
         result = prime * result + (architecture == null ? 0 : architecture.hashCode());
         result = prime * result + (int) (cache ^ cache >>> 32);
+        result = prime * result + (int) (cacheL1 ^ cacheL1 >>> 32);
+        result = prime * result + (int) (cacheL2 ^ cacheL2 >>> 32);
         result = prime * result + cores;
         return prime * result + units;
     }
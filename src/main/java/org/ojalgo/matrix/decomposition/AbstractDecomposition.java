@@ -78,7 +78,7 @@ abstract class AbstractDecomposition<N extends Comparable<N>> implements MatrixD
 
     protected abstract Scalar.Factory<N> scalar();
 
-    boolean isSolvable() {
+    public boolean isSolvable() {
         if (myComputed && mySolvable == null) {
             if (this instanceof MatrixDecomposition.Solver) {
                 mySolvable = Boolean.valueOf(this.checkSolvability());
@@ -112,6 +112,15 @@ public interface LDL<N extends Comparable<N>> extends LDU<N>, MatrixDecompositio
 
     Factory<RationalNumber> Q128 = typical -> new LDLDecomposition.Q128();
 
+    /**
+     * Sparse LDL decomposition with a fill-reducing (approximate minimum degree) ordering – the input matrix
+     * is never densified. Intended for large sparse symmetric positive definite or quasi-definite matrices,
+     * typically {@link org.ojalgo.matrix.store.SparseStore} instances. The symbolic analysis is reused when
+     * consecutive matrices have the same sparsity pattern. Can be used with
+     * {@link org.ojalgo.optimisation.convex.ConvexSolver.Configuration#solverSPD(java.util.function.Function)}.
+     */
+    Factory<Double> SPARSE = typical -> new SparseLDL();
+
     /**
      * @deprecated
      */
@@ -70,6 +70,17 @@ public interface LU<N extends Comparable<N>> extends LDU<N>, MatrixDecomposition
 
     Factory<Quadruple> R128 = typical -> new LUDecomposition.R128();
 
+    /**
+     * Sparse LU decomposition with threshold partial pivoting and a fill-reducing column ordering – the
+     * input matrix is never densified. Intended for large sparse (square) matrices, typically
+     * {@link org.ojalgo.matrix.store.SparseStore} instances. Decomposing a matrix with the same sparsity
+     * pattern as the previous one reuses the orderings and the structures of the factors when possible.
+     * <p>
+     * Note that with this implementation {@link LU#getU()} is column permuted – [P][A] = [L][U] still holds
+     * but [U] is in general not upper triangular.
+     */
+    Factory<Double> SPARSE = typical -> new SparseLU();
+
     Factory<Quaternion> H256 = typical -> new LUDecomposition.H256();
 
     Factory<RationalNumber> Q128 = typical -> new LUDecomposition.Q128();
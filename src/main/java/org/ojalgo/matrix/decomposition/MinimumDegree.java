@@ -0,0 +1,312 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import java.util.Arrays;
+
+/**
+ * Approximate minimum degree (AMD) fill-reducing ordering of a symmetric sparsity pattern.
+ * <p>
+ * Works on the quotient graph: eliminated nodes become "elements" that represent the cliques they create,
+ * and elements adjacent to a pivot are absorbed in to the new element. The degree of each node is
+ * approximated using the same bound as the AMD algorithm by Amestoy, Davis and Duff:
+ * |A<sub>i</sub>| + |L<sub>p</sub> \ i| + Σ |L<sub>e</sub> \ L<sub>p</sub>|. Dense rows/columns (with more than
+ * 10√n entries) are removed from the graph and ordered last. There is no supervariable detection (mass
+ * elimination).
+ *
+ * @author apete
+ */
+final class MinimumDegree {
+
+    /**
+     * @param counts The number of entries in each column
+     * @param dim The number of rows/columns
+     * @return Column pointers, length dim+1, of the compressed format used by
+     *         {@link #order(int, int[], int[])} and the sparse decompositions
+     */
+    static int[] cumulate(final int[] counts, final int dim) {
+        int[] retVal = new int[dim + 1];
+        for (int j = 0; j < dim; j++) {
+            retVal[j + 1] = retVal[j] + counts[j];
+        }
+        return retVal;
+    }
+
+    /**
+     * @param dim The number of rows/columns
+     * @param pointers Column pointers of the (symmetric, both triangles) pattern, length dim+1
+     * @param indices Row indices of the pattern. Diagonal entries are ignored.
+     * @return The elimination order – order[k] is the (original) index of the k:th pivot.
+     */
+    static int[] order(final int dim, final int[] pointers, final int[] indices) {
+        return new MinimumDegree(dim, pointers, indices).order();
+    }
+
+    private final int myDim;
+    private final int[] myDegree;
+    private final boolean[] myDense;
+    private final boolean[] myEliminated;
+    private final int[][] myElements;
+    private final int[] myElementCounts;
+    private final int[] myHead;
+    private final int[][] myMembers;
+    private int myMinDegree = 0;
+    private final int[] myNext;
+    private final int[] myPrevious;
+    private final int[] myStamps;
+    private int myStamp = 0;
+    private final int[][] myVariables;
+    private final int[] myVariableCounts;
+    private final int[] myWeights;
+    private final int[] myWeightStamps;
+
+    private MinimumDegree(final int dim, final int[] pointers, final int[] indices) {
+
+        super();
+
+        myDim = dim;
+
+        myDegree = new int[dim];
+        myDense = new boolean[dim];
+        myEliminated = new boolean[dim];
+        myElements = new int[dim][];
+        myElementCounts = new int[dim];
+        myHead = new int[dim + 1];
+        myMembers = new int[dim][];
+        myNext = new int[dim];
+        myPrevious = new int[dim];
+        myStamps = new int[dim];
+        myVariables = new int[dim][];
+        myVariableCounts = new int[dim];
+        myWeights = new int[dim];
+        myWeightStamps = new int[dim];
+
+        int denseLimit = Math.max(16, (int) (10.0 * Math.sqrt(dim)));
+
+        for (int j = 0; j < dim; j++) {
+            int count = 0;
+            for (int p = pointers[j]; p < pointers[j + 1]; p++) {
+                if (indices[p] != j) {
+                    count++;
+                }
+            }
+            myDense[j] = count > denseLimit;
+        }
+
+        for (int j = 0; j < dim; j++) {
+            int[] variables = new int[pointers[j + 1] - pointers[j]];
+            int count = 0;
+            if (!myDense[j]) {
+                for (int p = pointers[j]; p < pointers[j + 1]; p++) {
+                    int i = indices[p];
+                    if (i != j && !myDense[i]) {
+                        variables[count++] = i;
+                    }
+                }
+            }
+            myVariables[j] = variables;
+            myVariableCounts[j] = count;
+            myElements[j] = new int[4];
+            myDegree[j] = count;
+        }
+
+        Arrays.fill(myHead, -1);
+        for (int j = 0; j < dim; j++) {
+            if (!myDense[j]) {
+                this.insert(j);
+            }
+        }
+    }
+
+    private int[] add(final int[] array, final int count, final int value) {
+        int[] retVal = array;
+        if (count >= array.length) {
+            retVal = Arrays.copyOf(array, Math.max(4, 2 * array.length));
+        }
+        retVal[count] = value;
+        return retVal;
+    }
+
+    private void insert(final int node) {
+        int degree = myDegree[node];
+        int first = myHead[degree];
+        myNext[node] = first;
+        myPrevious[node] = -1;
+        if (first >= 0) {
+            myPrevious[first] = node;
+        }
+        myHead[degree] = node;
+        myMinDegree = Math.min(myMinDegree, degree);
+    }
+
+    private int nextStamp() {
+        if (++myStamp == Integer.MAX_VALUE) {
+            Arrays.fill(myStamps, 0);
+            Arrays.fill(myWeightStamps, 0);
+            myStamp = 1;
+        }
+        return myStamp;
+    }
+
+    private int[] order() {
+
+        int[] retVal = new int[myDim];
+        int k = 0;
+
+        int[] pattern = new int[myDim];
+
+        while (true) {
+
+            while (myMinDegree <= myDim && myHead[myMinDegree] < 0) {
+                myMinDegree++;
+            }
+            if (myMinDegree > myDim) {
+                break;
+            }
+
+            int pivot = myHead[myMinDegree];
+            this.remove(pivot);
+            myEliminated[pivot] = true;
+            retVal[k++] = pivot;
+
+            // Lp = (Ap ∪ Le for all e adjacent to p) \ p
+
+            int stamp = this.nextStamp();
+            myStamps[pivot] = stamp;
+            int size = 0;
+
+            int[] variables = myVariables[pivot];
+            for (int v = 0, limit = myVariableCounts[pivot]; v < limit; v++) {
+                int i = variables[v];
+                if (!myEliminated[i] && myStamps[i] != stamp) {
+                    myStamps[i] = stamp;
+                    pattern[size++] = i;
+                }
+            }
+
+            int[] elements = myElements[pivot];
+            for (int e = 0, limit = myElementCounts[pivot]; e < limit; e++) {
+                int element = elements[e];
+                int[] members = myMembers[element];
+                if (members != null) {
+                    for (int i : members) {
+                        if (!myEliminated[i] && myStamps[i] != stamp) {
+                            myStamps[i] = stamp;
+                            pattern[size++] = i;
+                        }
+                    }
+                    myMembers[element] = null; // Absorbed
+                }
+            }
+
+            myMembers[pivot] = Arrays.copyOf(pattern, size);
+            myVariables[pivot] = null;
+            myElements[pivot] = null;
+
+            // Update the nodes in Lp
+
+            for (int m = 0; m < size; m++) {
+                int i = pattern[m];
+
+                int[] iElements = myElements[i];
+                int count = 0;
+                for (int e = 0, limit = myElementCounts[i]; e < limit; e++) {
+                    int element = iElements[e];
+                    if (myMembers[element] != null) {
+                        iElements[count++] = element;
+                    }
+                }
+                iElements = this.add(iElements, count++, pivot);
+                myElements[i] = iElements;
+                myElementCounts[i] = count;
+
+                // Aggressive pruning – the nodes in Lp are connected via the new element
+                int[] iVariables = myVariables[i];
+                count = 0;
+                for (int v = 0, limit = myVariableCounts[i]; v < limit; v++) {
+                    int j = iVariables[v];
+                    if (!myEliminated[j] && myStamps[j] != stamp) {
+                        iVariables[count++] = j;
+                    }
+                }
+                myVariableCounts[i] = count;
+            }
+
+            // |Le \ Lp| for all elements adjacent to the nodes in Lp
+
+            int weightStamp = stamp;
+            for (int m = 0; m < size; m++) {
+                int i = pattern[m];
+                int[] iElements = myElements[i];
+                for (int e = 0, limit = myElementCounts[i] - 1; e < limit; e++) {
+                    int element = iElements[e];
+                    if (myWeightStamps[element] != weightStamp) {
+                        myWeightStamps[element] = weightStamp;
+                        myWeights[element] = myMembers[element].length;
+                    }
+                    myWeights[element]--;
+                }
+            }
+
+            int remaining = myDim - k;
+            for (int m = 0; m < size; m++) {
+                int i = pattern[m];
+
+                int external = myVariableCounts[i] + size - 1;
+                int[] iElements = myElements[i];
+                for (int e = 0, limit = myElementCounts[i] - 1; e < limit; e++) {
+                    external += Math.max(0, myWeights[iElements[e]]);
+                }
+
+                int degree = Math.min(remaining - 1, Math.min(myDegree[i] + size - 1, external));
+
+                if (degree != myDegree[i]) {
+                    this.remove(i);
+                    myDegree[i] = Math.max(0, degree);
+                    this.insert(i);
+                }
+            }
+        }
+
+        for (int j = 0; j < myDim; j++) {
+            if (myDense[j]) {
+                retVal[k++] = j;
+            }
+        }
+
+        return retVal;
+    }
+
+    private void remove(final int node) {
+        int previous = myPrevious[node];
+        int next = myNext[node];
+        if (previous >= 0) {
+            myNext[previous] = next;
+        } else {
+            myHead[myDegree[node]] = next;
+        }
+        if (next >= 0) {
+            myPrevious[next] = previous;
+        }
+    }
+
+}
@@ -0,0 +1,509 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.array.ArrayR064;
+import org.ojalgo.function.FunctionSet;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.DiagonalStore;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.scalar.PrimitiveScalar;
+import org.ojalgo.scalar.Scalar;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Access2D.Collectable;
+import org.ojalgo.structure.ElementView2D;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * Sparse LDL<sup>T</sup> decomposition of a symmetric matrix, [P][A][P]<sup>T</sup> = [L][D][L]<sup>T</sup>.
+ * Only the lower triangular part (including the diagonal) of the input matrix is read, and only its nonzero
+ * elements. The input can be any {@link Access2D} but the intended use case is large and very sparse
+ * {@link SparseStore} instances – the matrix is never densified.
+ * <ul>
+ * <li>The permutation is a fill-reducing approximate minimum degree ordering, see {@link MinimumDegree}. It
+ * is chosen based on the sparsity pattern only, not on the numerical values. There is no numerical pivoting,
+ * which is fine for (symmetric) positive definite and quasi-definite matrices.</li>
+ * <li>The symbolic analysis (ordering, elimination tree and the nonzero structure of [L]) is kept and reused
+ * when the next matrix to decompose has the same sparsity pattern as the previous one. Then only the numeric
+ * factorisation is redone.</li>
+ * <li>The numeric factorisation is an up-looking (row-by-row) algorithm that computes one row of [L] at the
+ * time by a sparse triangular solve guided by the elimination tree.</li>
+ * </ul>
+ *
+ * @author apete
+ */
+final class SparseLDL extends AbstractDecomposition<Double> implements LDL<Double> {
+
+    private int myAnalyses = 0;
+    private double[] myD = new double[0];
+    private int myDim = 0;
+    private int[] myFlags;
+    private int[] myInputIndices;
+    private int[] myInputPointers;
+    private double[] myInputValues;
+    private int[] myL_i;
+    private int[] myL_p;
+    private double[] myL_x;
+    private int[] myMap;
+    private int[] myNonzeros;
+    private int[] myOrder = new int[0];
+    private int[] myParent;
+    private int[] myPattern;
+    private int[] myReverseOrder = new int[0];
+    private int[] myU_i;
+    private int[] myU_p;
+    private double[] myU_x;
+    private double[] myWork;
+
+    SparseLDL() {
+        super();
+    }
+
+    public void btran(final PhysicalStore<Double> arg) {
+        this.solveInPlace(arg);
+    }
+
+    public Double calculateDeterminant(final Access2D<?> matrix) {
+        this.doDecompose(matrix);
+        return this.getDeterminant();
+    }
+
+    public int countSignificant(final double threshold) {
+        int significant = 0;
+        for (int i = 0; i < myDim; i++) {
+            if (Math.abs(myD[i]) > threshold) {
+                significant++;
+            }
+        }
+        return significant;
+    }
+
+    public boolean decompose(final Access2D.Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        if (matrix instanceof Access2D) {
+            return this.doDecompose((Access2D<?>) matrix);
+        } else {
+            return this.doDecompose(matrix.collect(Primitive64Store.FACTORY));
+        }
+    }
+
+    @Override
+    public int getColDim() {
+        return myDim;
+    }
+
+    public MatrixStore<Double> getD() {
+        return DiagonalStore.builder(Primitive64Store.FACTORY, ArrayR064.wrap(myD)).get();
+    }
+
+    public Double getDeterminant() {
+        double retVal = ONE;
+        for (int i = 0; i < myDim; i++) {
+            retVal *= myD[i];
+        }
+        return Double.valueOf(retVal);
+    }
+
+    public MatrixStore<Double> getInverse() {
+        return this.getInverse(this.allocate(myDim, myDim));
+    }
+
+    /**
+     * The preallocated store is filled with the identity matrix and then solved in place.
+     */
+    public MatrixStore<Double> getInverse(final PhysicalStore<Double> preallocated) {
+        preallocated.fillAll(ZERO);
+        preallocated.fillDiagonal(ONE);
+        this.solveInPlace(preallocated);
+        return preallocated;
+    }
+
+    /**
+     * @return A {@link SparseStore} with ones on the diagonal
+     */
+    public MatrixStore<Double> getL() {
+
+        SparseStore<Double> retVal = SparseStore.R064.make(myDim, myDim);
+
+        for (int j = 0; j < myDim; j++) {
+            retVal.set(j, j, ONE);
+            for (int p = myL_p[j], limit = myL_p[j + 1]; p < limit; p++) {
+                retVal.set(myL_i[p], j, myL_x[p]);
+            }
+        }
+
+        return retVal;
+    }
+
+    public int[] getPivotOrder() {
+        return myOrder;
+    }
+
+    public double getRankThreshold() {
+
+        double largest = ZERO;
+        for (int i = 0; i < myDim; i++) {
+            largest = Math.max(largest, Math.abs(myD[i]));
+        }
+
+        return this.getDimensionalEpsilon() * Math.max(MACHINE_SMALLEST, largest);
+    }
+
+    public int[] getReversePivotOrder() {
+        return myReverseOrder;
+    }
+
+    @Override
+    public int getRowDim() {
+        return myDim;
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
+        return this.getSolution(rhs, this.preallocate(this, rhs));
+    }
+
+    /**
+     * The right hand side is copied to the preallocated store that is then solved in place.
+     */
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs, final PhysicalStore<Double> preallocated) {
+        if (rhs != preallocated) {
+            rhs.supplyTo(preallocated);
+        }
+        this.solveInPlace(preallocated);
+        return preallocated;
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.doDecompose(original);
+
+        if (this.isSolvable()) {
+            return this.getInverse(preallocated);
+        }
+        throw RecoverableCondition.newMatrixNotInvertible();
+    }
+
+    public boolean isPivoted() {
+        for (int i = 0; i < myOrder.length; i++) {
+            if (myOrder[i] != i) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D template) {
+        return this.allocate(template.countRows(), template.countRows());
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return this.allocate(templateRHS.countRows(), templateRHS.countColumns());
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.doDecompose(body);
+
+        if (this.isSolvable()) {
+            return this.getSolution(rhs.asCollectable2D(), preallocated);
+        }
+        throw RecoverableCondition.newEquationSystemNotSolvable();
+    }
+
+    private void analyse() {
+
+        int dim = myDim;
+        int[] inputPointers = myInputPointers;
+        int[] inputIndices = myInputIndices;
+
+        // Symmetric pattern, both triangles, excluding the diagonal
+
+        int[] counts = new int[dim + 1];
+        for (int j = 0; j < dim; j++) {
+            for (int p = inputPointers[j]; p < inputPointers[j + 1]; p++) {
+                int i = inputIndices[p];
+                if (i != j) {
+                    counts[i]++;
+                    counts[j]++;
+                }
+            }
+        }
+        int[] pointers = MinimumDegree.cumulate(counts, dim);
+        int[] indices = new int[pointers[dim]];
+        int[] next = Arrays.copyOf(pointers, dim);
+        for (int j = 0; j < dim; j++) {
+            for (int p = inputPointers[j]; p < inputPointers[j + 1]; p++) {
+                int i = inputIndices[p];
+                if (i != j) {
+                    indices[next[i]++] = j;
+                    indices[next[j]++] = i;
+                }
+            }
+        }
+
+        myOrder = MinimumDegree.order(dim, pointers, indices);
+        myReverseOrder = new int[dim];
+        for (int k = 0; k < dim; k++) {
+            myReverseOrder[myOrder[k]] = k;
+        }
+
+        // Upper triangular part of [P][A][P]T, and the map from input elements
+
+        Arrays.fill(counts, 0);
+        for (int j = 0; j < dim; j++) {
+            for (int p = inputPointers[j]; p < inputPointers[j + 1]; p++) {
+                counts[Math.max(myReverseOrder[inputIndices[p]], myReverseOrder[j])]++;
+            }
+        }
+        myU_p = MinimumDegree.cumulate(counts, dim);
+        myU_i = new int[myU_p[dim]];
+        myU_x = new double[myU_p[dim]];
+        myMap = new int[inputPointers[dim]];
+        next = Arrays.copyOf(myU_p, dim);
+        for (int j = 0; j < dim; j++) {
+            for (int p = inputPointers[j]; p < inputPointers[j + 1]; p++) {
+                int ri = myReverseOrder[inputIndices[p]];
+                int rj = myReverseOrder[j];
+                int col = Math.max(ri, rj);
+                int pos = next[col]++;
+                myU_i[pos] = Math.min(ri, rj);
+                myMap[p] = pos;
+            }
+        }
+
+        // Elimination tree and column counts of [L]
+
+        myParent = new int[dim];
+        myFlags = new int[dim];
+        myNonzeros = new int[dim];
+        myPattern = new int[dim];
+        myWork = new double[dim];
+
+        for (int k = 0; k < dim; k++) {
+            myParent[k] = -1;
+            myFlags[k] = k;
+            myNonzeros[k] = 0;
+            for (int p = myU_p[k]; p < myU_p[k + 1]; p++) {
+                for (int i = myU_i[p]; i < k && myFlags[i] != k; i = myParent[i]) {
+                    if (myParent[i] == -1) {
+                        myParent[i] = k;
+                    }
+                    myNonzeros[i]++;
+                    myFlags[i] = k;
+                }
+            }
+        }
+
+        myL_p = MinimumDegree.cumulate(myNonzeros, dim);
+        myL_i = new int[myL_p[dim]];
+        myL_x = new double[myL_p[dim]];
+        myD = new double[dim];
+
+        myAnalyses++;
+    }
+
+    private boolean doDecompose(final Access2D<?> matrix) {
+
+        this.reset();
+
+        int dim = matrix.getRowDim();
+
+        // Lower triangular nonzeros in compressed column form
+
+        int[] pointers = new int[dim + 1];
+        for (ElementView2D<?, ?> element : matrix.nonzeros()) {
+            if (element.row() >= element.column() && element.doubleValue() != ZERO) {
+                pointers[Math.toIntExact(element.column()) + 1]++;
+            }
+        }
+        for (int j = 0; j < dim; j++) {
+            pointers[j + 1] += pointers[j];
+        }
+        int[] indices = new int[pointers[dim]];
+        double[] values = new double[pointers[dim]];
+        int[] next = Arrays.copyOf(pointers, dim);
+        for (ElementView2D<?, ?> element : matrix.nonzeros()) {
+            double value = element.doubleValue();
+            if (element.row() >= element.column() && value != ZERO) {
+                int pos = next[Math.toIntExact(element.column())]++;
+                indices[pos] = Math.toIntExact(element.row());
+                values[pos] = value;
+            }
+        }
+
+        if (dim != myDim || !Arrays.equals(pointers, myInputPointers) || !Arrays.equals(indices, myInputIndices)) {
+            myDim = dim;
+            myInputPointers = pointers;
+            myInputIndices = indices;
+            this.analyse();
+        }
+        myInputValues = values;
+
+        return this.computed(this.factorise());
+    }
+
+    /**
+     * Up-looking numeric factorisation, row k of [L] is the solution to [L<sub>k</sub>][D<sub>k</sub>][l] =
+     * [a], where [L<sub>k</sub>] and [D<sub>k</sub>] are the leading (k-1)x(k-1) parts and [a] is the k:th
+     * column of the upper triangular part of the (permuted) matrix. The nonzero pattern of row k is found by
+     * following the elimination tree from each nonzero in [a].
+     */
+    private boolean factorise() {
+
+        int dim = myDim;
+
+        int[] u_p = myU_p;
+        int[] u_i = myU_i;
+        double[] u_x = myU_x;
+        int[] l_p = myL_p;
+        int[] l_i = myL_i;
+        double[] l_x = myL_x;
+        double[] d = myD;
+        int[] parent = myParent;
+        int[] flags = myFlags;
+        int[] nonzeros = myNonzeros;
+        int[] pattern = myPattern;
+        double[] y = myWork;
+
+        Arrays.fill(u_x, ZERO);
+        for (int p = 0; p < myMap.length; p++) {
+            u_x[myMap[p]] += myInputValues[p];
+        }
+
+        for (int k = 0; k < dim; k++) {
+
+            y[k] = ZERO;
+            int top = dim;
+            flags[k] = k;
+            nonzeros[k] = 0;
+
+            for (int p = u_p[k]; p < u_p[k + 1]; p++) {
+                int i = u_i[p];
+                y[i] += u_x[p];
+                int len = 0;
+                for (; flags[i] != k; i = parent[i]) {
+                    pattern[len++] = i;
+                    flags[i] = k;
+                }
+                while (len > 0) {
+                    pattern[--top] = pattern[--len];
+                }
+            }
+
+            d[k] = y[k];
+            y[k] = ZERO;
+
+            for (; top < dim; top++) {
+                int i = pattern[top];
+                double yi = y[i];
+                y[i] = ZERO;
+                int limit = l_p[i] + nonzeros[i];
+                for (int p = l_p[i]; p < limit; p++) {
+                    y[l_i[p]] -= l_x[p] * yi;
+                }
+                double l_ki = yi / d[i];
+                d[k] -= l_ki * yi;
+                l_i[limit] = k;
+                l_x[limit] = l_ki;
+                nonzeros[i]++;
+            }
+
+            if (d[k] == ZERO) {
+                Arrays.fill(d, k + 1, dim, ZERO);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void solveInPlace(final PhysicalStore<Double> arg) {
+
+        int dim = myDim;
+        int[] order = myOrder;
+        double[] x = myWork;
+
+        for (int c = 0, limit = arg.getColDim(); c < limit; c++) {
+
+            for (int k = 0; k < dim; k++) {
+                x[k] = arg.doubleValue(order[k], c);
+            }
+
+            for (int j = 0; j < dim; j++) {
+                double xj = x[j];
+                if (xj != ZERO) {
+                    for (int p = myL_p[j]; p < myL_p[j + 1]; p++) {
+                        x[myL_i[p]] -= myL_x[p] * xj;
+                    }
+                }
+            }
+
+            for (int j = 0; j < dim; j++) {
+                x[j] /= myD[j];
+            }
+
+            for (int j = dim - 1; j >= 0; j--) {
+                double xj = x[j];
+                for (int p = myL_p[j]; p < myL_p[j + 1]; p++) {
+                    xj -= myL_x[p] * x[myL_i[p]];
+                }
+                x[j] = xj;
+            }
+
+            for (int k = 0; k < dim; k++) {
+                arg.set(order[k], c, x[k]);
+            }
+        }
+    }
+
+    @Override
+    protected PhysicalStore<Double> allocate(final long numberOfRows, final long numberOfColumns) {
+        return Primitive64Store.FACTORY.make(numberOfRows, numberOfColumns);
+    }
+
+    @Override
+    protected boolean checkSolvability() {
+        return this.isFullRank();
+    }
+
+    @Override
+    protected FunctionSet<Double> function() {
+        return PrimitiveFunction.getSet();
+    }
+
+    @Override
+    protected Scalar.Factory<Double> scalar() {
+        return PrimitiveScalar.FACTORY;
+    }
+
+    int countAnalyses() {
+        return myAnalyses;
+    }
+
+}
@@ -0,0 +1,804 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.function.FunctionSet;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.scalar.PrimitiveScalar;
+import org.ojalgo.scalar.Scalar;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Access2D.Collectable;
+import org.ojalgo.structure.ElementView2D;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * Sparse LU decomposition of a square matrix, [P][A][Q] = [L][U], that never densifies the input. Memory use
+ * is proportional to the number of nonzeros in the factors.
+ * <ul>
+ * <li>The column permutation [Q] is a fill-reducing approximate minimum degree ordering of the pattern of
+ * [A]<sup>T</sup>[A], see {@link MinimumDegree}. Dense rows of [A] are ignored when forming that pattern.</li>
+ * <li>The numeric factorisation is left-looking (Gilbert-Peierls). Each column of [L] and [U] is computed by
+ * a sparse triangular solve with the already computed columns of [L]. The nonzero pattern is found by a depth
+ * first search in the graph of [L], so the work is proportional to the number of floating point operations.
+ * </li>
+ * <li>The row permutation [P] is determined by threshold partial pivoting. The "diagonal" element is kept as
+ * pivot if its magnitude is at least {@link #PIVOT_THRESHOLD} times the largest candidate, otherwise the
+ * largest candidate is used.</li>
+ * <li>When the next matrix to decompose has the same sparsity pattern as the previous one, a refactorisation
+ * reusing both permutations and the nonzero structures of [L] and [U] is attempted first. It falls back to
+ * the full factorisation, with pivoting, if any of the fixed pivots is not acceptable.</li>
+ * </ul>
+ * {@link #getPivotOrder()} is the row order [P]. To stay consistent with the {@link LU} interface,
+ * {@link #getU()} returns [U][Q]<sup>T</sup> – the columns are permuted back to their original order.
+ *
+ * @author apete
+ */
+final class SparseLU extends AbstractDecomposition<Double> implements LU<Double> {
+
+    /**
+     * Relative magnitude, compared to the largest candidate in the column, required to keep the "diagonal"
+     * element as pivot. Also used to validate the fixed pivots when refactorising.
+     */
+    static final double PIVOT_THRESHOLD = 0.1;
+
+    private static int signum(final int[] permutation) {
+        int retVal = 1;
+        boolean[] visited = new boolean[permutation.length];
+        for (int i = 0; i < permutation.length; i++) {
+            if (!visited[i]) {
+                int length = 0;
+                for (int j = i; !visited[j]; j = permutation[j]) {
+                    visited[j] = true;
+                    length++;
+                }
+                if (length % 2 == 0) {
+                    retVal = -retVal;
+                }
+            }
+        }
+        return retVal;
+    }
+
+    private int myAnalyses = 0;
+    private int[] myColumnOrder = new int[0];
+    private int myDim = 0;
+    private int myFactorisations = 0;
+    private int[] myInputIndices;
+    private int[] myInputPointers;
+    private double[] myInputValues;
+    private int[] myL_i;
+    private int[] myL_p;
+    private double[] myL_x;
+    private int[] myMarks;
+    private int myMarkStamp = 0;
+    private int[] myPattern;
+    private int[] myPointerStack;
+    private boolean myRefactorable = false;
+    private int[] myReverseRowOrder = new int[0];
+    private int[] myRowOrder = new int[0];
+    private int[] myStack;
+    private double[] myU_d = new double[0];
+    private int[] myU_i;
+    private int[] myU_p;
+    private double[] myU_x;
+    private double[] myWork;
+
+    SparseLU() {
+        super();
+    }
+
+    /**
+     * Solve [A]<sup>T</sup>[x] = [b] in place
+     */
+    public void btran(final PhysicalStore<Double> arg) {
+
+        int dim = myDim;
+        double[] y = myWork;
+
+        for (int c = 0, limit = arg.getColDim(); c < limit; c++) {
+
+            for (int k = 0; k < dim; k++) {
+                y[k] = arg.doubleValue(myColumnOrder[k], c);
+            }
+
+            for (int j = 0; j < dim; j++) {
+                double yj = y[j];
+                for (int p = myU_p[j]; p < myU_p[j + 1]; p++) {
+                    yj -= myU_x[p] * y[myU_i[p]];
+                }
+                y[j] = yj / myU_d[j];
+            }
+
+            for (int j = dim - 1; j >= 0; j--) {
+                double yj = y[j];
+                for (int p = myL_p[j]; p < myL_p[j + 1]; p++) {
+                    yj -= myL_x[p] * y[myL_i[p]];
+                }
+                y[j] = yj;
+            }
+
+            for (int k = 0; k < dim; k++) {
+                arg.set(myRowOrder[k], c, y[k]);
+            }
+        }
+    }
+
+    public Double calculateDeterminant(final Access2D<?> matrix) {
+        this.doDecompose(matrix);
+        return this.getDeterminant();
+    }
+
+    public int countSignificant(final double threshold) {
+        int significant = 0;
+        for (int i = 0; i < myDim; i++) {
+            if (Math.abs(myU_d[i]) > threshold) {
+                significant++;
+            }
+        }
+        return significant;
+    }
+
+    public boolean decompose(final Access2D.Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        if (matrix instanceof Access2D) {
+            return this.doDecompose((Access2D<?>) matrix);
+        } else {
+            return this.doDecompose(matrix.collect(Primitive64Store.FACTORY));
+        }
+    }
+
+    @Override
+    public int getColDim() {
+        return myDim;
+    }
+
+    /**
+     * @return The column order [Q] – the k:th column of [L][U] corresponds to column order[k] of [A].
+     */
+    public int[] getColumnOrder() {
+        return myColumnOrder;
+    }
+
+    public Double getDeterminant() {
+        double retVal = SparseLU.signum(myRowOrder) * SparseLU.signum(myColumnOrder);
+        for (int i = 0; i < myDim; i++) {
+            retVal *= myU_d[i];
+        }
+        return Double.valueOf(retVal);
+    }
+
+    public MatrixStore<Double> getInverse() {
+        return this.getInverse(this.allocate(myDim, myDim));
+    }
+
+    /**
+     * The preallocated store is filled with the identity matrix and then solved in place.
+     */
+    public MatrixStore<Double> getInverse(final PhysicalStore<Double> preallocated) {
+        preallocated.fillAll(ZERO);
+        preallocated.fillDiagonal(ONE);
+        this.solveInPlace(preallocated);
+        return preallocated;
+    }
+
+    /**
+     * @return A {@link SparseStore} with ones on the diagonal
+     */
+    public MatrixStore<Double> getL() {
+
+        SparseStore<Double> retVal = SparseStore.R064.make(myDim, myDim);
+
+        for (int j = 0; j < myDim; j++) {
+            retVal.set(j, j, ONE);
+            for (int p = myL_p[j]; p < myL_p[j + 1]; p++) {
+                retVal.set(myL_i[p], j, myL_x[p]);
+            }
+        }
+
+        return retVal;
+    }
+
+    public int[] getPivotOrder() {
+        return myRowOrder;
+    }
+
+    public double getRankThreshold() {
+
+        double largest = ZERO;
+        for (int i = 0; i < myDim; i++) {
+            largest = Math.max(largest, Math.abs(myU_d[i]));
+        }
+
+        return this.getDimensionalEpsilon() * Math.max(MACHINE_SMALLEST, largest);
+    }
+
+    public int[] getReversePivotOrder() {
+        return myReverseRowOrder;
+    }
+
+    @Override
+    public int getRowDim() {
+        return myDim;
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
+        return this.getSolution(rhs, this.preallocate(this, rhs));
+    }
+
+    /**
+     * The right hand side is copied to the preallocated store that is then solved in place.
+     */
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs, final PhysicalStore<Double> preallocated) {
+        if (rhs != preallocated) {
+            rhs.supplyTo(preallocated);
+        }
+        this.solveInPlace(preallocated);
+        return preallocated;
+    }
+
+    /**
+     * @return A {@link SparseStore} containing [U][Q]<sup>T</sup>
+     */
+    public MatrixStore<Double> getU() {
+
+        SparseStore<Double> retVal = SparseStore.R064.make(myDim, myDim);
+
+        int[] reverseColumnOrder = new int[myDim];
+        for (int k = 0; k < myDim; k++) {
+            reverseColumnOrder[myColumnOrder[k]] = k;
+        }
+
+        for (int c = 0; c < myDim; c++) {
+            int k = reverseColumnOrder[c];
+            for (int p = myU_p[k]; p < myU_p[k + 1]; p++) {
+                retVal.set(myU_i[p], c, myU_x[p]);
+            }
+            retVal.set(k, c, myU_d[k]);
+        }
+
+        return retVal;
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.doDecompose(original);
+
+        if (this.isSolvable()) {
+            return this.getInverse(preallocated);
+        }
+        throw RecoverableCondition.newMatrixNotInvertible();
+    }
+
+    public boolean isPivoted() {
+        for (int i = 0; i < myRowOrder.length; i++) {
+            if (myRowOrder[i] != i) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D template) {
+        return this.allocate(template.countRows(), template.countRows());
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return this.allocate(templateRHS.countRows(), templateRHS.countColumns());
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.doDecompose(body);
+
+        if (this.isSolvable()) {
+            return this.getSolution(rhs.asCollectable2D(), preallocated);
+        }
+        throw RecoverableCondition.newEquationSystemNotSolvable();
+    }
+
+    /**
+     * Column ordering based on the pattern of [A]<sup>T</sup>[A], and (re)allocation of the work arrays
+     */
+    private void analyse() {
+
+        int dim = myDim;
+        int[] inputPointers = myInputPointers;
+        int[] inputIndices = myInputIndices;
+
+        // Row-wise pattern
+
+        int[] counts = new int[dim];
+        for (int p = 0; p < inputPointers[dim]; p++) {
+            counts[inputIndices[p]]++;
+        }
+        int[] rowPointers = MinimumDegree.cumulate(counts, dim);
+        int[] rowIndices = new int[rowPointers[dim]];
+        int[] next = Arrays.copyOf(rowPointers, dim);
+        for (int j = 0; j < dim; j++) {
+            for (int p = inputPointers[j]; p < inputPointers[j + 1]; p++) {
+                rowIndices[next[inputIndices[p]]++] = j;
+            }
+        }
+
+        int denseLimit = Math.max(16, (int) (10.0 * Math.sqrt(dim)));
+
+        // Pattern of [A]T[A] – first count, then fill
+
+        int[] marks = new int[dim];
+        Arrays.fill(marks, -1);
+        Arrays.fill(counts, 0);
+        for (int j = 0; j < dim; j++) {
+            marks[j] = j;
+            for (int p = inputPointers[j]; p < inputPointers[j + 1]; p++) {
+                int i = inputIndices[p];
+                if (rowPointers[i + 1] - rowPointers[i] <= denseLimit) {
+                    for (int r = rowPointers[i]; r < rowPointers[i + 1]; r++) {
+                        int l = rowIndices[r];
+                        if (marks[l] != j) {
+                            marks[l] = j;
+                            counts[j]++;
+                        }
+                    }
+                }
+            }
+        }
+        int[] pointers = MinimumDegree.cumulate(counts, dim);
+        int[] indices = new int[pointers[dim]];
+        Arrays.fill(marks, -1);
+        for (int j = 0; j < dim; j++) {
+            int pos = pointers[j];
+            marks[j] = j;
+            for (int p = inputPointers[j]; p < inputPointers[j + 1]; p++) {
+                int i = inputIndices[p];
+                if (rowPointers[i + 1] - rowPointers[i] <= denseLimit) {
+                    for (int r = rowPointers[i]; r < rowPointers[i + 1]; r++) {
+                        int l = rowIndices[r];
+                        if (marks[l] != j) {
+                            marks[l] = j;
+                            indices[pos++] = l;
+                        }
+                    }
+                }
+            }
+        }
+
+        myColumnOrder = MinimumDegree.order(dim, pointers, indices);
+
+        myMarks = new int[dim];
+        myMarkStamp = 0;
+        myPattern = new int[dim];
+        myPointerStack = new int[dim];
+        myStack = new int[dim];
+        myWork = new double[dim];
+        myRowOrder = new int[dim];
+        myReverseRowOrder = new int[dim];
+        myU_d = new double[dim];
+        myL_p = new int[dim + 1];
+        myU_p = new int[dim + 1];
+        int capacity = 2 * inputPointers[dim] + dim;
+        myL_i = new int[capacity];
+        myL_x = new double[capacity];
+        myU_i = new int[capacity];
+        myU_x = new double[capacity];
+
+        myRefactorable = false;
+        myAnalyses++;
+    }
+
+    /**
+     * Depth first search, in the graph of [L], starting at (original) row index start. Rows that have not yet
+     * been pivoted on are leaves. Found rows are placed in myPattern, in reverse topological order, ending at
+     * top.
+     */
+    private int depthFirstSearch(final int start, final int top, final int stamp, final int[] reverseRowOrder) {
+
+        int[] stack = myStack;
+        int[] pointerStack = myPointerStack;
+        int[] marks = myMarks;
+        int[] pattern = myPattern;
+
+        int retVal = top;
+        int head = 0;
+        stack[0] = start;
+
+        while (head >= 0) {
+
+            int j = stack[head];
+            int col = reverseRowOrder[j];
+
+            if (marks[j] != stamp) {
+                marks[j] = stamp;
+                pointerStack[head] = col < 0 ? 0 : myL_p[col];
+            }
+
+            boolean done = true;
+            int limit = col < 0 ? 0 : myL_p[col + 1];
+            for (int p = pointerStack[head]; p < limit; p++) {
+                int i = myL_i[p];
+                if (marks[i] != stamp) {
+                    pointerStack[head] = p + 1;
+                    stack[++head] = i;
+                    done = false;
+                    break;
+                }
+            }
+
+            if (done) {
+                head--;
+                pattern[--retVal] = j;
+            }
+        }
+
+        return retVal;
+    }
+
+    private boolean doDecompose(final Access2D<?> matrix) {
+
+        this.reset();
+
+        if (!matrix.isSquare()) {
+            return this.computed(false);
+        }
+
+        int dim = matrix.getRowDim();
+
+        // Nonzeros in compressed column form
+
+        int[] pointers = new int[dim + 1];
+        for (ElementView2D<?, ?> element : matrix.nonzeros()) {
+            if (element.doubleValue() != ZERO) {
+                pointers[Math.toIntExact(element.column()) + 1]++;
+            }
+        }
+        for (int j = 0; j < dim; j++) {
+            pointers[j + 1] += pointers[j];
+        }
+        int[] indices = new int[pointers[dim]];
+        double[] values = new double[pointers[dim]];
+        int[] next = Arrays.copyOf(pointers, dim);
+        for (ElementView2D<?, ?> element : matrix.nonzeros()) {
+            double value = element.doubleValue();
+            if (value != ZERO) {
+                int pos = next[Math.toIntExact(element.column())]++;
+                indices[pos] = Math.toIntExact(element.row());
+                values[pos] = value;
+            }
+        }
+
+        myInputValues = values;
+
+        if (dim != myDim || !Arrays.equals(pointers, myInputPointers) || !Arrays.equals(indices, myInputIndices)) {
+            myDim = dim;
+            myInputPointers = pointers;
+            myInputIndices = indices;
+            this.analyse();
+        } else if (myRefactorable && this.refactorise()) {
+            return this.computed(true);
+        }
+
+        this.factorise();
+
+        return this.computed(true);
+    }
+
+    private void factorise() {
+
+        int dim = myDim;
+        int[] a_p = myInputPointers;
+        int[] a_i = myInputIndices;
+        double[] a_x = myInputValues;
+        int[] columnOrder = myColumnOrder;
+        int[] reverseRowOrder = myReverseRowOrder;
+        int[] pattern = myPattern;
+        double[] x = myWork;
+
+        Arrays.fill(reverseRowOrder, -1);
+        Arrays.fill(x, ZERO);
+
+        int lnz = 0;
+        int unz = 0;
+        int unpivoted = 0;
+        boolean regular = true;
+
+        for (int k = 0; k < dim; k++) {
+
+            myL_p[k] = lnz;
+            myU_p[k] = unz;
+
+            if (myL_i.length < lnz + dim) {
+                int capacity = Math.max(2 * myL_i.length, lnz + dim);
+                myL_i = Arrays.copyOf(myL_i, capacity);
+                myL_x = Arrays.copyOf(myL_x, capacity);
+            }
+            if (myU_i.length < unz + dim) {
+                int capacity = Math.max(2 * myU_i.length, unz + dim);
+                myU_i = Arrays.copyOf(myU_i, capacity);
+                myU_x = Arrays.copyOf(myU_x, capacity);
+            }
+
+            int col = columnOrder[k];
+
+            // Nonzero pattern of column k of [L] and [U]
+
+            int stamp = this.nextMarkStamp();
+            int top = dim;
+            for (int p = a_p[col]; p < a_p[col + 1]; p++) {
+                int i = a_i[p];
+                if (myMarks[i] != stamp) {
+                    top = this.depthFirstSearch(i, top, stamp, reverseRowOrder);
+                }
+            }
+
+            // Sparse triangular solve
+
+            for (int p = a_p[col]; p < a_p[col + 1]; p++) {
+                x[a_i[p]] = a_x[p];
+            }
+
+            for (int px = top; px < dim; px++) {
+                int j = pattern[px];
+                int pivotCol = reverseRowOrder[j];
+                if (pivotCol >= 0) {
+                    double xj = x[j];
+                    for (int p = myL_p[pivotCol]; p < myL_p[pivotCol + 1]; p++) {
+                        x[myL_i[p]] -= myL_x[p] * xj;
+                    }
+                }
+            }
+
+            // Pivot selection, and column k of [U]
+
+            int pivotRow = -1;
+            double largest = -ONE;
+            for (int px = top; px < dim; px++) {
+                int i = pattern[px];
+                if (reverseRowOrder[i] < 0) {
+                    double candidate = Math.abs(x[i]);
+                    if (candidate > largest) {
+                        largest = candidate;
+                        pivotRow = i;
+                    }
+                } else {
+                    myU_i[unz] = reverseRowOrder[i];
+                    myU_x[unz++] = x[i];
+                }
+            }
+
+            if (pivotRow >= 0 && reverseRowOrder[col] < 0 && myMarks[col] == stamp && Math.abs(x[col]) >= PIVOT_THRESHOLD * largest) {
+                pivotRow = col;
+            }
+
+            if (pivotRow < 0 || largest <= ZERO) {
+                // Singular – any remaining row will do
+                regular = false;
+                if (pivotRow < 0) {
+                    while (reverseRowOrder[unpivoted] >= 0) {
+                        unpivoted++;
+                    }
+                    pivotRow = unpivoted;
+                }
+            }
+
+            double pivot = x[pivotRow];
+            myU_d[k] = pivot;
+            reverseRowOrder[pivotRow] = k;
+            myRowOrder[k] = pivotRow;
+
+            // Column k of [L]
+
+            for (int px = top; px < dim; px++) {
+                int i = pattern[px];
+                if (reverseRowOrder[i] < 0 && pivot != ZERO) {
+                    myL_i[lnz] = i;
+                    myL_x[lnz++] = x[i] / pivot;
+                }
+                x[i] = ZERO;
+            }
+        }
+
+        myL_p[dim] = lnz;
+        myU_p[dim] = unz;
+
+        // Row indices of [L] to pivot order, and sorted row indices in [U]
+
+        for (int p = 0; p < lnz; p++) {
+            myL_i[p] = reverseRowOrder[myL_i[p]];
+        }
+        this.sortU();
+
+        myRefactorable = regular;
+        myFactorisations++;
+    }
+
+    private int nextMarkStamp() {
+        if (++myMarkStamp == Integer.MAX_VALUE) {
+            Arrays.fill(myMarks, 0);
+            myMarkStamp = 1;
+        }
+        return myMarkStamp;
+    }
+
+    /**
+     * Numeric factorisation with fixed row and column orders, and fixed nonzero structures of [L] and [U].
+     *
+     * @return false if any of the pivots is no longer acceptable
+     */
+    private boolean refactorise() {
+
+        int dim = myDim;
+        int[] a_p = myInputPointers;
+        int[] a_i = myInputIndices;
+        double[] a_x = myInputValues;
+        int[] reverseRowOrder = myReverseRowOrder;
+        double[] x = myWork;
+
+        for (int k = 0; k < dim; k++) {
+
+            int col = myColumnOrder[k];
+            for (int p = a_p[col]; p < a_p[col + 1]; p++) {
+                x[reverseRowOrder[a_i[p]]] = a_x[p];
+            }
+
+            for (int p = myU_p[k]; p < myU_p[k + 1]; p++) {
+                int j = myU_i[p];
+                double ujk = x[j];
+                x[j] = ZERO;
+                myU_x[p] = ujk;
+                for (int q = myL_p[j]; q < myL_p[j + 1]; q++) {
+                    x[myL_i[q]] -= myL_x[q] * ujk;
+                }
+            }
+
+            double pivot = x[k];
+            x[k] = ZERO;
+
+            double largest = ZERO;
+            for (int p = myL_p[k]; p < myL_p[k + 1]; p++) {
+                largest = Math.max(largest, Math.abs(x[myL_i[p]]));
+            }
+
+            if (pivot == ZERO || Math.abs(pivot) < PIVOT_THRESHOLD * largest) {
+                Arrays.fill(x, ZERO);
+                return false;
+            }
+
+            myU_d[k] = pivot;
+            for (int p = myL_p[k]; p < myL_p[k + 1]; p++) {
+                int i = myL_i[p];
+                myL_x[p] = x[i] / pivot;
+                x[i] = ZERO;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Solve [A][x] = [b] in place
+     */
+    private void solveInPlace(final PhysicalStore<Double> arg) {
+
+        int dim = myDim;
+        double[] y = myWork;
+
+        for (int c = 0, limit = arg.getColDim(); c < limit; c++) {
+
+            for (int k = 0; k < dim; k++) {
+                y[k] = arg.doubleValue(myRowOrder[k], c);
+            }
+
+            for (int j = 0; j < dim; j++) {
+                double yj = y[j];
+                if (yj != ZERO) {
+                    for (int p = myL_p[j]; p < myL_p[j + 1]; p++) {
+                        y[myL_i[p]] -= myL_x[p] * yj;
+                    }
+                }
+            }
+
+            for (int j = dim - 1; j >= 0; j--) {
+                double yj = y[j] / myU_d[j];
+                y[j] = yj;
+                if (yj != ZERO) {
+                    for (int p = myU_p[j]; p < myU_p[j + 1]; p++) {
+                        y[myU_i[p]] -= myU_x[p] * yj;
+                    }
+                }
+            }
+
+            for (int k = 0; k < dim; k++) {
+                arg.set(myColumnOrder[k], c, y[k]);
+            }
+        }
+    }
+
+    /**
+     * Sorts the row indices of each column of [U] by transposing twice
+     */
+    private void sortU() {
+
+        int dim = myDim;
+        int nnz = myU_p[dim];
+
+        int[] counts = new int[dim];
+        for (int p = 0; p < nnz; p++) {
+            counts[myU_i[p]]++;
+        }
+        int[] t_p = MinimumDegree.cumulate(counts, dim);
+        int[] t_i = new int[nnz];
+        double[] t_x = new double[nnz];
+        int[] next = Arrays.copyOf(t_p, dim);
+        for (int j = 0; j < dim; j++) {
+            for (int p = myU_p[j]; p < myU_p[j + 1]; p++) {
+                int pos = next[myU_i[p]]++;
+                t_i[pos] = j;
+                t_x[pos] = myU_x[p];
+            }
+        }
+
+        System.arraycopy(myU_p, 0, next, 0, dim);
+        for (int i = 0; i < dim; i++) {
+            for (int p = t_p[i]; p < t_p[i + 1]; p++) {
+                int pos = next[t_i[p]]++;
+                myU_i[pos] = i;
+                myU_x[pos] = t_x[p];
+            }
+        }
+    }
+
+    @Override
+    protected PhysicalStore<Double> allocate(final long numberOfRows, final long numberOfColumns) {
+        return Primitive64Store.FACTORY.make(numberOfRows, numberOfColumns);
+    }
+
+    @Override
+    protected boolean checkSolvability() {
+        return this.isSquare() && this.isFullRank();
+    }
+
+    @Override
+    protected FunctionSet<Double> function() {
+        return PrimitiveFunction.getSet();
+    }
+
+    @Override
+    protected Scalar.Factory<Double> scalar() {
+        return PrimitiveScalar.FACTORY;
+    }
+
+    int countAnalyses() {
+        return myAnalyses;
+    }
+
+    int countFactorisations() {
+        return myFactorisations;
+    }
+
+}
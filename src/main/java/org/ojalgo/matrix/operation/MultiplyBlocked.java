@@ -0,0 +1,694 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.operation;
+
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.concurrent.Parallelism;
+import org.ojalgo.concurrent.ProcessingService;
+import org.ojalgo.machine.CommonMachine;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * Packed and cache blocked (GotoBLAS style) matrix multiplication for large dense (column major)
+ * {@code double[]} and {@code float[]} matrices. The product is computed as a sequence of rank-KC updates
+ * where blocks of the left and right matrices are copied ("packed") into contiguous buffers laid out in the
+ * order the {@value #MR}x{@value #NR} micro-kernel consumes them:
+ * <ul>
+ * <li>A KCxNC block of the right matrix is packed in to NR-wide slivers – sized to stay in the top level
+ * (L3 or L2) cache.
+ * <li>An MCxKC block of the left matrix is packed in to MR-tall slivers – sized to stay in the L2 cache.
+ * <li>One MR-sliver of the left block and one NR-sliver of the right block, together, fit in the L1 cache.
+ * </ul>
+ * The block sizes are derived from the cache descriptions of {@link OjAlgoUtils#ENVIRONMENT}. Multithreading
+ * is done by splitting the columns of the product – each thread packs its own blocks.
+ *
+ * @author apete
+ */
+public class MultiplyBlocked implements MatrixOperation {
+
+    @FunctionalInterface
+    interface Packer32 {
+
+        void pack(float[] buffer, int first, int limit, int firstK, int limitK);
+
+    }
+
+    @FunctionalInterface
+    interface Packer64 {
+
+        void pack(double[] buffer, int first, int limit, int firstK, int limitK);
+
+    }
+
+    public static IntSupplier PARALLELISM = Parallelism.THREADS;
+    /**
+     * Both the number of rows and columns of the product need to be at least this large for the blocked
+     * implementation to be used.
+     */
+    public static int THRESHOLD = 128;
+
+    /**
+     * The number of rows in the micro-kernel (and in a packed sliver of the left matrix)
+     */
+    static final int MR = 4;
+    /**
+     * The number of columns in the micro-kernel (and in a packed sliver of the right matrix)
+     */
+    static final int NR = 4;
+    /**
+     * Block size in the "complexity" dimension – one MRxKC sliver of the left matrix and one KCxNR sliver of
+     * the right matrix fit in half the L1 cache.
+     */
+    static final int KC;
+    /**
+     * Block size in the row dimension – one MCxKC block of the left matrix fit in half the L2 cache.
+     */
+    static final int MC;
+    /**
+     * Block size in the column dimension – one KCxNC block of the right matrix fit in half the top level
+     * cache.
+     */
+    static final int NC;
+
+    private static final DivideAndConquer.Divider DIVIDER = ProcessingService.INSTANCE.divider();
+
+    static {
+
+        CommonMachine environment = OjAlgoUtils.ENVIRONMENT;
+
+        long sizeL1 = environment.cacheL1 > 0L ? environment.cacheL1 : 32L * 1024L;
+        long sizeL2 = environment.cacheL2 > 0L ? environment.cacheL2 : 256L * 1024L;
+        long sizeL3 = Math.max(environment.cache, sizeL2);
+
+        KC = MultiplyBlocked.blockSize(sizeL1 / (2L * Double.BYTES * (MR + NR)), 1, 64, 512);
+        MC = MultiplyBlocked.blockSize(sizeL2 / (2L * Double.BYTES * KC), MR, 2 * MR, 1024);
+        NC = MultiplyBlocked.blockSize(sizeL3 / (2L * Double.BYTES * KC), NR, 4 * NR, 4096);
+    }
+
+    public static void fillMxN(final double[] product, final Access1D<?> left, final int complexity, final double[] right) {
+
+        if (complexity < MR * NR) {
+            MultiplyLeft.fillMxN_MT(product, left, complexity, right);
+            return;
+        }
+
+        int nbRows = Math.toIntExact(left.count() / complexity);
+        int nbCols = right.length / complexity;
+
+        MultiplyBlocked.invoke(product, nbRows, complexity, nbCols, (buffer, first, limit, firstK, limitK) -> {
+            MultiplyBlocked.packLeft(buffer, first, limit, firstK, limitK, left, nbRows);
+        }, (buffer, first, limit, firstK, limitK) -> {
+            MultiplyBlocked.packRight(buffer, first, limit, firstK, limitK, right, complexity);
+        });
+    }
+
+    public static void fillMxN(final double[] product, final double[] left, final int complexity, final Access1D<?> right) {
+
+        if (complexity < MR * NR) {
+            MultiplyRight.fillMxN_MT(product, left, complexity, right);
+            return;
+        }
+
+        int nbRows = left.length / complexity;
+        int nbCols = Math.toIntExact(right.count() / complexity);
+
+        MultiplyBlocked.invoke(product, nbRows, complexity, nbCols, (buffer, first, limit, firstK, limitK) -> {
+            MultiplyBlocked.packLeft(buffer, first, limit, firstK, limitK, left, nbRows);
+        }, (buffer, first, limit, firstK, limitK) -> {
+            MultiplyBlocked.packRight(buffer, first, limit, firstK, limitK, right, complexity);
+        });
+    }
+
+    public static void fillMxN(final double[] product, final double[] left, final int complexity, final double[] right) {
+
+        if (complexity < MR * NR) {
+            MultiplyNeither.fillMxN_MT(product, left, complexity, right);
+            return;
+        }
+
+        int nbRows = left.length / complexity;
+        int nbCols = right.length / complexity;
+
+        MultiplyBlocked.invoke(product, nbRows, complexity, nbCols, (buffer, first, limit, firstK, limitK) -> {
+            MultiplyBlocked.packLeft(buffer, first, limit, firstK, limitK, left, nbRows);
+        }, (buffer, first, limit, firstK, limitK) -> {
+            MultiplyBlocked.packRight(buffer, first, limit, firstK, limitK, right, complexity);
+        });
+    }
+
+    public static void fillMxN(final float[] product, final Access1D<?> left, final int complexity, final float[] right) {
+
+        if (complexity < MR * NR) {
+            MultiplyLeft.fillMxN_MT(product, left, complexity, right);
+            return;
+        }
+
+        int nbRows = Math.toIntExact(left.count() / complexity);
+        int nbCols = right.length / complexity;
+
+        MultiplyBlocked.invoke(product, nbRows, complexity, nbCols, (buffer, first, limit, firstK, limitK) -> {
+            MultiplyBlocked.packLeft(buffer, first, limit, firstK, limitK, left, nbRows);
+        }, (buffer, first, limit, firstK, limitK) -> {
+            MultiplyBlocked.packRight(buffer, first, limit, firstK, limitK, right, complexity);
+        });
+    }
+
+    public static void fillMxN(final float[] product, final float[] left, final int complexity, final Access1D<?> right) {
+
+        if (complexity < MR * NR) {
+            MultiplyRight.fillMxN_MT(product, left, complexity, right);
+            return;
+        }
+
+        int nbRows = left.length / complexity;
+        int nbCols = Math.toIntExact(right.count() / complexity);
+
+        MultiplyBlocked.invoke(product, nbRows, complexity, nbCols, (buffer, first, limit, firstK, limitK) -> {
+            MultiplyBlocked.packLeft(buffer, first, limit, firstK, limitK, left, nbRows);
+        }, (buffer, first, limit, firstK, limitK) -> {
+            MultiplyBlocked.packRight(buffer, first, limit, firstK, limitK, right, complexity);
+        });
+    }
+
+    public static void fillMxN(final float[] product, final float[] left, final int complexity, final float[] right) {
+
+        if (complexity < MR * NR) {
+            MultiplyNeither.fillMxN_MT(product, left, complexity, right);
+            return;
+        }
+
+        int nbRows = left.length / complexity;
+        int nbCols = right.length / complexity;
+
+        MultiplyBlocked.invoke(product, nbRows, complexity, nbCols, (buffer, first, limit, firstK, limitK) -> {
+            MultiplyBlocked.packLeft(buffer, first, limit, firstK, limitK, left, nbRows);
+        }, (buffer, first, limit, firstK, limitK) -> {
+            MultiplyBlocked.packRight(buffer, first, limit, firstK, limitK, right, complexity);
+        });
+    }
+
+    /**
+     * @return true if a product of this size should be calculated using the blocked implementation
+     */
+    public static boolean isApplicable(final long rows, final long columns) {
+        return rows >= THRESHOLD && columns >= THRESHOLD;
+    }
+
+    private static int blockSize(final long estimate, final int multipleOf, final int min, final int max) {
+        long size = Math.max(min, Math.min(max, estimate));
+        return Math.toIntExact(size - size % multipleOf);
+    }
+
+    private static int ceil(final int value, final int multipleOf) {
+        return (value + multipleOf - 1) / multipleOf * multipleOf;
+    }
+
+    /**
+     * Computes columns [firstColumn,columnLimit) of the product.
+     */
+    private static void compute(final double[] product, final int nbRows, final int complexity, final int firstColumn, final int columnLimit,
+            final Packer64 left, final Packer64 right) {
+
+        int nc = Math.min(NC, MultiplyBlocked.ceil(columnLimit - firstColumn, NR));
+        int kc = Math.min(KC, complexity);
+        int mc = Math.min(MC, MultiplyBlocked.ceil(nbRows, MR));
+
+        double[] packedLeft = new double[mc * kc];
+        double[] packedRight = new double[kc * nc];
+        double[] edge = new double[MR * NR];
+
+        Arrays.fill(product, firstColumn * nbRows, columnLimit * nbRows, 0D);
+
+        for (int jc = firstColumn; jc < columnLimit; jc += NC) {
+            int jl = Math.min(jc + NC, columnLimit);
+
+            for (int pc = 0; pc < complexity; pc += KC) {
+                int pl = Math.min(pc + KC, complexity);
+                int pk = pl - pc;
+
+                right.pack(packedRight, jc, jl, pc, pl);
+
+                for (int ic = 0; ic < nbRows; ic += MC) {
+                    int il = Math.min(ic + MC, nbRows);
+
+                    left.pack(packedLeft, ic, il, pc, pl);
+
+                    for (int jr = jc; jr < jl; jr += NR) {
+                        int nr = Math.min(NR, jl - jr);
+                        int offsetRight = (jr - jc) * pk;
+
+                        for (int ir = ic; ir < il; ir += MR) {
+                            int mr = Math.min(MR, il - ir);
+                            int offsetLeft = (ir - ic) * pk;
+
+                            MultiplyBlocked.kernel(product, ir + jr * nbRows, nbRows, mr, nr, pk, packedLeft, offsetLeft, packedRight, offsetRight, edge);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes columns [firstColumn,columnLimit) of the product.
+     */
+    private static void compute(final float[] product, final int nbRows, final int complexity, final int firstColumn, final int columnLimit,
+            final Packer32 left, final Packer32 right) {
+
+        int nc = Math.min(NC, MultiplyBlocked.ceil(columnLimit - firstColumn, NR));
+        int kc = Math.min(KC, complexity);
+        int mc = Math.min(MC, MultiplyBlocked.ceil(nbRows, MR));
+
+        float[] packedLeft = new float[mc * kc];
+        float[] packedRight = new float[kc * nc];
+        float[] edge = new float[MR * NR];
+
+        Arrays.fill(product, firstColumn * nbRows, columnLimit * nbRows, 0F);
+
+        for (int jc = firstColumn; jc < columnLimit; jc += NC) {
+            int jl = Math.min(jc + NC, columnLimit);
+
+            for (int pc = 0; pc < complexity; pc += KC) {
+                int pl = Math.min(pc + KC, complexity);
+                int pk = pl - pc;
+
+                right.pack(packedRight, jc, jl, pc, pl);
+
+                for (int ic = 0; ic < nbRows; ic += MC) {
+                    int il = Math.min(ic + MC, nbRows);
+
+                    left.pack(packedLeft, ic, il, pc, pl);
+
+                    for (int jr = jc; jr < jl; jr += NR) {
+                        int nr = Math.min(NR, jl - jr);
+                        int offsetRight = (jr - jc) * pk;
+
+                        for (int ir = ic; ir < il; ir += MR) {
+                            int mr = Math.min(MR, il - ir);
+                            int offsetLeft = (ir - ic) * pk;
+
+                            MultiplyBlocked.kernel(product, ir + jr * nbRows, nbRows, mr, nr, pk, packedLeft, offsetLeft, packedRight, offsetRight, edge);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void divide(final int nbCols, final IntSupplier parallelism, final DivideAndConquer.Conquerer conquerer) {
+        int threshold = Math.max(THRESHOLD / 2, MultiplyBlocked.ceil(nbCols / Math.max(1, parallelism.getAsInt()), NR));
+        DIVIDER.parallelism(parallelism).threshold(threshold).divide(0, nbCols, conquerer);
+    }
+
+    private static void invoke(final double[] product, final int nbRows, final int complexity, final int nbCols, final Packer64 left,
+            final Packer64 right) {
+        MultiplyBlocked.divide(nbCols, PARALLELISM, (f, l) -> MultiplyBlocked.compute(product, nbRows, complexity, f, l, left, right));
+    }
+
+    private static void invoke(final float[] product, final int nbRows, final int complexity, final int nbCols, final Packer32 left,
+            final Packer32 right) {
+        MultiplyBlocked.divide(nbCols, PARALLELISM, (f, l) -> MultiplyBlocked.compute(product, nbRows, complexity, f, l, left, right));
+    }
+
+    /**
+     * The MRxNR micro-kernel: product[MRxNR] += packedLeft[MRxKC] * packedRight[KCxNR] with all 16 partial
+     * sums held in local variables. Partial (edge) tiles are first calculated in to a separate buffer.
+     */
+    private static void kernel(final double[] product, final int offset, final int nbRows, final int mr, final int nr, final int kc, final double[] left,
+            final int offsetLeft, final double[] right, final int offsetRight, final double[] edge) {
+
+        double c00 = 0D, c10 = 0D, c20 = 0D, c30 = 0D;
+        double c01 = 0D, c11 = 0D, c21 = 0D, c31 = 0D;
+        double c02 = 0D, c12 = 0D, c22 = 0D, c32 = 0D;
+        double c03 = 0D, c13 = 0D, c23 = 0D, c33 = 0D;
+
+        for (int p = 0, a = offsetLeft, b = offsetRight; p < kc; p++, a += MR, b += NR) {
+
+            double a0 = left[a];
+            double a1 = left[a + 1];
+            double a2 = left[a + 2];
+            double a3 = left[a + 3];
+
+            double b0 = right[b];
+            c00 += a0 * b0;
+            c10 += a1 * b0;
+            c20 += a2 * b0;
+            c30 += a3 * b0;
+
+            double b1 = right[b + 1];
+            c01 += a0 * b1;
+            c11 += a1 * b1;
+            c21 += a2 * b1;
+            c31 += a3 * b1;
+
+            double b2 = right[b + 2];
+            c02 += a0 * b2;
+            c12 += a1 * b2;
+            c22 += a2 * b2;
+            c32 += a3 * b2;
+
+            double b3 = right[b + 3];
+            c03 += a0 * b3;
+            c13 += a1 * b3;
+            c23 += a2 * b3;
+            c33 += a3 * b3;
+        }
+
+        if (mr == MR && nr == NR) {
+
+            int j0 = offset, j1 = j0 + nbRows, j2 = j1 + nbRows, j3 = j2 + nbRows;
+
+            product[j0] += c00;
+            product[j0 + 1] += c10;
+            product[j0 + 2] += c20;
+            product[j0 + 3] += c30;
+
+            product[j1] += c01;
+            product[j1 + 1] += c11;
+            product[j1 + 2] += c21;
+            product[j1 + 3] += c31;
+
+            product[j2] += c02;
+            product[j2 + 1] += c12;
+            product[j2 + 2] += c22;
+            product[j2 + 3] += c32;
+
+            product[j3] += c03;
+            product[j3 + 1] += c13;
+            product[j3 + 2] += c23;
+            product[j3 + 3] += c33;
+
+        } else {
+
+            edge[0] = c00;
+            edge[1] = c10;
+            edge[2] = c20;
+            edge[3] = c30;
+            edge[4] = c01;
+            edge[5] = c11;
+            edge[6] = c21;
+            edge[7] = c31;
+            edge[8] = c02;
+            edge[9] = c12;
+            edge[10] = c22;
+            edge[11] = c32;
+            edge[12] = c03;
+            edge[13] = c13;
+            edge[14] = c23;
+            edge[15] = c33;
+
+            for (int j = 0; j < nr; j++) {
+                for (int i = 0; i < mr; i++) {
+                    product[offset + i + j * nbRows] += edge[i + j * MR];
+                }
+            }
+        }
+    }
+
+    /**
+     * The MRxNR micro-kernel: product[MRxNR] += packedLeft[MRxKC] * packedRight[KCxNR] with all 16 partial
+     * sums held in local variables. Partial (edge) tiles are first calculated in to a separate buffer.
+     */
+    private static void kernel(final float[] product, final int offset, final int nbRows, final int mr, final int nr, final int kc, final float[] left,
+            final int offsetLeft, final float[] right, final int offsetRight, final float[] edge) {
+
+        float c00 = 0F, c10 = 0F, c20 = 0F, c30 = 0F;
+        float c01 = 0F, c11 = 0F, c21 = 0F, c31 = 0F;
+        float c02 = 0F, c12 = 0F, c22 = 0F, c32 = 0F;
+        float c03 = 0F, c13 = 0F, c23 = 0F, c33 = 0F;
+
+        for (int p = 0, a = offsetLeft, b = offsetRight; p < kc; p++, a += MR, b += NR) {
+
+            float a0 = left[a];
+            float a1 = left[a + 1];
+            float a2 = left[a + 2];
+            float a3 = left[a + 3];
+
+            float b0 = right[b];
+            c00 += a0 * b0;
+            c10 += a1 * b0;
+            c20 += a2 * b0;
+            c30 += a3 * b0;
+
+            float b1 = right[b + 1];
+            c01 += a0 * b1;
+            c11 += a1 * b1;
+            c21 += a2 * b1;
+            c31 += a3 * b1;
+
+            float b2 = right[b + 2];
+            c02 += a0 * b2;
+            c12 += a1 * b2;
+            c22 += a2 * b2;
+            c32 += a3 * b2;
+
+            float b3 = right[b + 3];
+            c03 += a0 * b3;
+            c13 += a1 * b3;
+            c23 += a2 * b3;
+            c33 += a3 * b3;
+        }
+
+        if (mr == MR && nr == NR) {
+
+            int j0 = offset, j1 = j0 + nbRows, j2 = j1 + nbRows, j3 = j2 + nbRows;
+
+            product[j0] += c00;
+            product[j0 + 1] += c10;
+            product[j0 + 2] += c20;
+            product[j0 + 3] += c30;
+
+            product[j1] += c01;
+            product[j1 + 1] += c11;
+            product[j1 + 2] += c21;
+            product[j1 + 3] += c31;
+
+            product[j2] += c02;
+            product[j2 + 1] += c12;
+            product[j2 + 2] += c22;
+            product[j2 + 3] += c32;
+
+            product[j3] += c03;
+            product[j3 + 1] += c13;
+            product[j3 + 2] += c23;
+            product[j3 + 3] += c33;
+
+        } else {
+
+            edge[0] = c00;
+            edge[1] = c10;
+            edge[2] = c20;
+            edge[3] = c30;
+            edge[4] = c01;
+            edge[5] = c11;
+            edge[6] = c21;
+            edge[7] = c31;
+            edge[8] = c02;
+            edge[9] = c12;
+            edge[10] = c22;
+            edge[11] = c32;
+            edge[12] = c03;
+            edge[13] = c13;
+            edge[14] = c23;
+            edge[15] = c33;
+
+            for (int j = 0; j < nr; j++) {
+                for (int i = 0; i < mr; i++) {
+                    product[offset + i + j * nbRows] += edge[i + j * MR];
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs rows [first,limit) and columns [firstK,limitK) of the (column major) left matrix in to MR-tall
+     * slivers, each stored row-index-fastest, padding with zeros.
+     */
+    static void packLeft(final double[] buffer, final int first, final int limit, final int firstK, final int limitK, final Access1D<?> left,
+            final int nbRows) {
+        int kc = limitK - firstK;
+        for (int i = first, s = 0; i < limit; i += MR, s += MR * kc) {
+            int mr = Math.min(MR, limit - i);
+            for (int p = 0; p < kc; p++) {
+                long index = i + (firstK + p) * (long) nbRows;
+                int b = s + p * MR;
+                for (int r = 0; r < mr; r++) {
+                    buffer[b + r] = left.doubleValue(index + r);
+                }
+                for (int r = mr; r < MR; r++) {
+                    buffer[b + r] = 0D;
+                }
+            }
+        }
+    }
+
+    static void packLeft(final double[] buffer, final int first, final int limit, final int firstK, final int limitK, final double[] left,
+            final int nbRows) {
+        int kc = limitK - firstK;
+        for (int i = first, s = 0; i < limit; i += MR, s += MR * kc) {
+            int mr = Math.min(MR, limit - i);
+            for (int p = 0; p < kc; p++) {
+                int index = i + (firstK + p) * nbRows;
+                int b = s + p * MR;
+                if (mr == MR) {
+                    buffer[b] = left[index];
+                    buffer[b + 1] = left[index + 1];
+                    buffer[b + 2] = left[index + 2];
+                    buffer[b + 3] = left[index + 3];
+                } else {
+                    for (int r = 0; r < MR; r++) {
+                        buffer[b + r] = r < mr ? left[index + r] : 0D;
+                    }
+                }
+            }
+        }
+    }
+
+    static void packLeft(final float[] buffer, final int first, final int limit, final int firstK, final int limitK, final Access1D<?> left,
+            final int nbRows) {
+        int kc = limitK - firstK;
+        for (int i = first, s = 0; i < limit; i += MR, s += MR * kc) {
+            int mr = Math.min(MR, limit - i);
+            for (int p = 0; p < kc; p++) {
+                long index = i + (firstK + p) * (long) nbRows;
+                int b = s + p * MR;
+                for (int r = 0; r < mr; r++) {
+                    buffer[b + r] = left.floatValue(index + r);
+                }
+                for (int r = mr; r < MR; r++) {
+                    buffer[b + r] = 0F;
+                }
+            }
+        }
+    }
+
+    static void packLeft(final float[] buffer, final int first, final int limit, final int firstK, final int limitK, final float[] left,
+            final int nbRows) {
+        int kc = limitK - firstK;
+        for (int i = first, s = 0; i < limit; i += MR, s += MR * kc) {
+            int mr = Math.min(MR, limit - i);
+            for (int p = 0; p < kc; p++) {
+                int index = i + (firstK + p) * nbRows;
+                int b = s + p * MR;
+                if (mr == MR) {
+                    buffer[b] = left[index];
+                    buffer[b + 1] = left[index + 1];
+                    buffer[b + 2] = left[index + 2];
+                    buffer[b + 3] = left[index + 3];
+                } else {
+                    for (int r = 0; r < MR; r++) {
+                        buffer[b + r] = r < mr ? left[index + r] : 0F;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs rows [firstK,limitK) and columns [first,limit) of the (column major) right matrix in to NR-wide
+     * slivers, each stored column-index-fastest, padding with zeros.
+     */
+    static void packRight(final double[] buffer, final int first, final int limit, final int firstK, final int limitK, final Access1D<?> right,
+            final int complexity) {
+        int kc = limitK - firstK;
+        for (int j = first, s = 0; j < limit; j += NR, s += NR * kc) {
+            int nr = Math.min(NR, limit - j);
+            for (int c = 0; c < NR; c++) {
+                if (c < nr) {
+                    long index = firstK + (j + c) * (long) complexity;
+                    for (int p = 0; p < kc; p++) {
+                        buffer[s + p * NR + c] = right.doubleValue(index + p);
+                    }
+                } else {
+                    for (int p = 0; p < kc; p++) {
+                        buffer[s + p * NR + c] = 0D;
+                    }
+                }
+            }
+        }
+    }
+
+    static void packRight(final double[] buffer, final int first, final int limit, final int firstK, final int limitK, final double[] right,
+            final int complexity) {
+        int kc = limitK - firstK;
+        for (int j = first, s = 0; j < limit; j += NR, s += NR * kc) {
+            int nr = Math.min(NR, limit - j);
+            for (int c = 0; c < NR; c++) {
+                if (c < nr) {
+                    int index = firstK + (j + c) * complexity;
+                    for (int p = 0; p < kc; p++) {
+                        buffer[s + p * NR + c] = right[index + p];
+                    }
+                } else {
+                    for (int p = 0; p < kc; p++) {
+                        buffer[s + p * NR + c] = 0D;
+                    }
+                }
+            }
+        }
+    }
+
+    static void packRight(final float[] buffer, final int first, final int limit, final int firstK, final int limitK, final Access1D<?> right,
+            final int complexity) {
+        int kc = limitK - firstK;
+        for (int j = first, s = 0; j < limit; j += NR, s += NR * kc) {
+            int nr = Math.min(NR, limit - j);
+            for (int c = 0; c < NR; c++) {
+                if (c < nr) {
+                    long index = firstK + (j + c) * (long) complexity;
+                    for (int p = 0; p < kc; p++) {
+                        buffer[s + p * NR + c] = right.floatValue(index + p);
+                    }
+                } else {
+                    for (int p = 0; p < kc; p++) {
+                        buffer[s + p * NR + c] = 0F;
+                    }
+                }
+            }
+        }
+    }
+
+    static void packRight(final float[] buffer, final int first, final int limit, final int firstK, final int limitK, final float[] right,
+            final int complexity) {
+        int kc = limitK - firstK;
+        for (int j = first, s = 0; j < limit; j += NR, s += NR * kc) {
+            int nr = Math.min(NR, limit - j);
+            for (int c = 0; c < NR; c++) {
+                if (c < nr) {
+                    int index = firstK + (j + c) * complexity;
+                    for (int p = 0; p < kc; p++) {
+                        buffer[s + p * NR + c] = right[index + p];
+                    }
+                } else {
+                    for (int p = 0; p < kc; p++) {
+                        buffer[s + p * NR + c] = 0F;
+                    }
+                }
+            }
+        }
+    }
+
+}
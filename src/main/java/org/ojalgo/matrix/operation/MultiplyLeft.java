@@ -78,6 +78,9 @@ public class MultiplyLeft implements MatrixOperation {
     }
 
     public static MultiplyLeft.Primitive32 newPrimitive32(final long rows, final long columns) {
+        if (MultiplyBlocked.isApplicable(rows, columns)) {
+            return MultiplyBlocked::fillMxN;
+        }
         if (rows > THRESHOLD && columns > THRESHOLD) {
             return MultiplyLeft::fillMxN_MT;
         }
@@ -91,6 +94,9 @@ public class MultiplyLeft implements MatrixOperation {
     }
 
     public static MultiplyLeft.Primitive64 newPrimitive64(final long rows, final long columns) {
+        if (MultiplyBlocked.isApplicable(rows, columns)) {
+            return MultiplyBlocked::fillMxN;
+        }
         if (rows > THRESHOLD && columns > THRESHOLD) {
             return MultiplyLeft::fillMxN_MT;
         }
@@ -76,6 +76,9 @@ public class MultiplyNeither implements MatrixOperation {
     }
 
     public static MultiplyNeither.Primitive32 newPrimitive32(final long rows, final long columns) {
+        if (MultiplyBlocked.isApplicable(rows, columns)) {
+            return MultiplyBlocked::fillMxN;
+        }
         if (rows > THRESHOLD && columns > THRESHOLD) {
             return MultiplyNeither::fillMxN_MT;
         }
@@ -89,6 +92,9 @@ public class MultiplyNeither implements MatrixOperation {
     }
 
     public static MultiplyNeither.Primitive64 newPrimitive64(final long rows, final long columns) {
+        if (MultiplyBlocked.isApplicable(rows, columns)) {
+            return MultiplyBlocked::fillMxN;
+        }
         if (rows > THRESHOLD && columns > THRESHOLD) {
             return MultiplyNeither::fillMxN_MT;
         }
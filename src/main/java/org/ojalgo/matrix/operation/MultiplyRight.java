@@ -78,6 +78,9 @@ public class MultiplyRight implements MatrixOperation {
     }
 
     public static MultiplyRight.Primitive32 newPrimitive32(final long rows, final long columns) {
+        if (MultiplyBlocked.isApplicable(rows, columns)) {
+            return MultiplyBlocked::fillMxN;
+        }
         if (rows > THRESHOLD && columns > THRESHOLD) {
             return MultiplyRight::fillMxN_MT;
         }
@@ -91,6 +94,9 @@ public class MultiplyRight implements MatrixOperation {
     }
 
     public static MultiplyRight.Primitive64 newPrimitive64(final long rows, final long columns) {
+        if (MultiplyBlocked.isApplicable(rows, columns)) {
+            return MultiplyBlocked::fillMxN;
+        }
         if (rows > THRESHOLD && columns > THRESHOLD) {
             return MultiplyRight::fillMxN_MT;
         }
@@ -0,0 +1,499 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+import org.ojalgo.array.SparseArray;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.concurrent.Parallelism;
+import org.ojalgo.concurrent.ProcessingService;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.ElementView2D;
+
+/**
+ * Common base for {@link R064CSR} and {@link R064CSC}. The nonzero elements are stored in 3 arrays – pointers
+ * (one per row or column, plus one), (row or column) indices and values. The major dimension is rows for CSR
+ * and columns for CSC. The indices within each major segment are sorted.
+ * <p>
+ * Instances are immutable. Transposing does not copy anything – a CSR matrix transposed is a CSC matrix
+ * using the same arrays, and vice versa.
+ * <p>
+ * All products are calculated using one of two kernels: "gather" – each element of the product is a dot
+ * product of a major segment and the dense vector – and "scatter" – each major segment, scaled by an element
+ * of the dense vector, is added to the product. Large products are calculated in parallel. With gather the
+ * major segments are simply divided between the threads. With scatter each thread accumulates to a local
+ * buffer.
+ *
+ * @author apete
+ */
+abstract class CompressedStore extends FactoryStore<Double> {
+
+    static final class NonzeroView implements ElementView2D<Double, NonzeroView> {
+
+        private int myCursor;
+        private final int myLastCursor;
+        private int myMajor;
+        private final CompressedStore myStore;
+
+        NonzeroView(final CompressedStore store) {
+            this(store, -1, store.countNonzeros() - 1);
+        }
+
+        private NonzeroView(final CompressedStore store, final int initial, final int last) {
+            super();
+            myStore = store;
+            myCursor = initial;
+            myLastCursor = last;
+            myMajor = 0;
+            this.locate();
+        }
+
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS & ~SORTED;
+        }
+
+        public long column() {
+            return myStore.isRowMajor() ? myStore.myIndices[myCursor] : myMajor;
+        }
+
+        @Override
+        public double doubleValue() {
+            return myStore.myValues[myCursor];
+        }
+
+        public long estimateSize() {
+            return myLastCursor - myCursor;
+        }
+
+        public Double get() {
+            return Double.valueOf(myStore.myValues[myCursor]);
+        }
+
+        public boolean hasNext() {
+            return myCursor < myLastCursor;
+        }
+
+        public boolean hasPrevious() {
+            return myCursor > 0;
+        }
+
+        public long index() {
+            return this.column() * myStore.countRows() + this.row();
+        }
+
+        public NonzeroView iterator() {
+            return new NonzeroView(myStore, -1, myLastCursor);
+        }
+
+        public NonzeroView next() {
+            myCursor++;
+            this.locate();
+            return this;
+        }
+
+        public NonzeroView previous() {
+            myCursor--;
+            this.locate();
+            return this;
+        }
+
+        public long row() {
+            return myStore.isRowMajor() ? myMajor : myStore.myIndices[myCursor];
+        }
+
+        @Override
+        public String toString() {
+            return myStore.isRowMajor() ? myMajor + "," + myStore.myIndices[myCursor] + ": " + this.doubleValue()
+                    : myStore.myIndices[myCursor] + "," + myMajor + ": " + this.doubleValue();
+        }
+
+        public NonzeroView trySplit() {
+            return null;
+        }
+
+        private void locate() {
+            int[] pointers = myStore.myPointers;
+            int cursor = Math.max(myCursor, 0);
+            while (myMajor > 0 && pointers[myMajor] > cursor) {
+                myMajor--;
+            }
+            while (myMajor + 2 < pointers.length && pointers[myMajor + 1] <= cursor) {
+                myMajor++;
+            }
+        }
+
+    }
+
+    static final class Parts {
+
+        final int[] indices;
+        final int[] pointers;
+        final double[] values;
+
+        Parts(final int[] pointers, final int[] indices, final double[] values) {
+            super();
+            this.pointers = pointers;
+            this.indices = indices;
+            this.values = values;
+        }
+
+    }
+
+    static IntSupplier PARALLELISM = Parallelism.THREADS;
+    /**
+     * Products involving fewer nonzeros than this are calculated single threaded
+     */
+    static int THRESHOLD = 16_384;
+
+    private static final DivideAndConquer.Divider DIVIDER = ProcessingService.INSTANCE.divider();
+
+    /**
+     * Builds CSC arrays in a single pass over the (column major sorted) elements of a {@link SparseStore}.
+     */
+    static CompressedStore.Parts compress(final SparseArray<?> elements, final int nbRows, final int nbColumns) {
+
+        int nbNonzeros = Math.toIntExact(elements.countNonzeros());
+
+        int[] pointers = new int[nbColumns + 1];
+        int[] indices = new int[nbNonzeros];
+        double[] values = new double[nbNonzeros];
+
+        int[] position = { 0 };
+        elements.visitPrimitiveNonzerosInRange(0L, elements.count(), (index, value) -> {
+            int k = position[0]++;
+            indices[k] = (int) (index % nbRows);
+            values[k] = value;
+            pointers[(int) (index / nbRows) + 1]++;
+        });
+
+        for (int j = 0; j < nbColumns; j++) {
+            pointers[j + 1] += pointers[j];
+        }
+
+        return new CompressedStore.Parts(pointers, indices, values);
+    }
+
+    /**
+     * Switches between CSR and CSC (with the same matrix dimensions) – a counting sort. The indices in each
+     * major segment of the result are sorted.
+     *
+     * @param minorDim The number of elements in each major segment, the major dimension of the result
+     */
+    static CompressedStore.Parts convert(final CompressedStore.Parts source, final int minorDim) {
+
+        int[] sourcePointers = source.pointers;
+        int[] sourceIndices = source.indices;
+        double[] sourceValues = source.values;
+
+        int majorDim = sourcePointers.length - 1;
+        int nbNonzeros = sourcePointers[majorDim];
+
+        int[] pointers = new int[minorDim + 1];
+        int[] indices = new int[nbNonzeros];
+        double[] values = new double[nbNonzeros];
+
+        for (int p = 0; p < nbNonzeros; p++) {
+            pointers[sourceIndices[p] + 1]++;
+        }
+        for (int i = 0; i < minorDim; i++) {
+            pointers[i + 1] += pointers[i];
+        }
+
+        int[] next = Arrays.copyOf(pointers, minorDim);
+
+        for (int k = 0; k < majorDim; k++) {
+            for (int p = sourcePointers[k]; p < sourcePointers[k + 1]; p++) {
+                int q = next[sourceIndices[p]]++;
+                indices[q] = k;
+                values[q] = sourceValues[p];
+            }
+        }
+
+        return new CompressedStore.Parts(pointers, indices, values);
+    }
+
+    /**
+     * [output]<sub>k</sub> = [segment]<sub>k</sub> · [input] for each major segment k in the range
+     */
+    static void gather(final int[] pointers, final int[] indices, final double[] values, final int first, final int limit, final double[] input,
+            final int inputOffset, final double[] output, final int outputOffset) {
+        for (int k = first; k < limit; k++) {
+            double sum = ZERO;
+            for (int p = pointers[k], last = pointers[k + 1]; p < last; p++) {
+                sum += values[p] * input[inputOffset + indices[p]];
+            }
+            output[outputOffset + k] = sum;
+        }
+    }
+
+    /**
+     * [output] += [input]<sub>k</sub> [segment]<sub>k</sub> for each major segment k in the range
+     */
+    static void scatter(final int[] pointers, final int[] indices, final double[] values, final int first, final int limit, final double[] input,
+            final int inputOffset, final double[] output, final int outputOffset) {
+        for (int k = first; k < limit; k++) {
+            double scale = input[inputOffset + k];
+            if (scale != ZERO) {
+                for (int p = pointers[k], last = pointers[k + 1]; p < last; p++) {
+                    output[outputOffset + indices[p]] += scale * values[p];
+                }
+            }
+        }
+    }
+
+    private static void divide(final int limit, final DivideAndConquer.Conquerer conquerer) {
+        int parallelism = PARALLELISM.getAsInt();
+        DIVIDER.parallelism(PARALLELISM).threshold(Math.max(1, limit / Math.max(1, parallelism))).divide(0, limit, conquerer);
+    }
+
+    /**
+     * Either the backing array of a {@link Primitive64Store} or a copy
+     */
+    private static double[] toArray(final Access1D<?> access) {
+        if (access instanceof Primitive64Store) {
+            return ((Primitive64Store) access).data;
+        }
+        return access.toRawCopy1D();
+    }
+
+    private final int[] myIndices;
+    private final int[] myPointers;
+    private final double[] myValues;
+
+    CompressedStore(final int nbRows, final int nbColumns, final CompressedStore.Parts arrays) {
+        super(Primitive64Store.FACTORY, nbRows, nbColumns);
+        myPointers = arrays.pointers;
+        myIndices = arrays.indices;
+        myValues = arrays.values;
+    }
+
+    public final int countNonzeros() {
+        return myPointers[myPointers.length - 1];
+    }
+
+    @Override
+    public final double doubleValue(final int row, final int col) {
+        int major = this.isRowMajor() ? row : col;
+        int minor = this.isRowMajor() ? col : row;
+        int position = Arrays.binarySearch(myIndices, myPointers[major], myPointers[major + 1], minor);
+        return position >= 0 ? myValues[position] : ZERO;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!super.equals(obj) || !(obj instanceof CompressedStore)) {
+            return false;
+        }
+        CompressedStore other = (CompressedStore) obj;
+        return this.isRowMajor() == other.isRowMajor() && Arrays.equals(myPointers, other.myPointers)
+                && Arrays.equals(myIndices, other.myIndices) && Arrays.equals(myValues, other.myValues);
+    }
+
+    @Override
+    public final Double get(final int row, final int col) {
+        return Double.valueOf(this.doubleValue(row, col));
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = super.hashCode();
+        result = prime * result + Arrays.hashCode(myPointers);
+        result = prime * result + Arrays.hashCode(myIndices);
+        return prime * result + Arrays.hashCode(myValues);
+    }
+
+    @Override
+    public final NonzeroView nonzeros() {
+        return new NonzeroView(this);
+    }
+
+    @Override
+    public final void supplyTo(final TransformableRegion<Double> receiver) {
+        receiver.reset();
+        for (NonzeroView nonzero : this.nonzeros()) {
+            receiver.set(nonzero.row(), nonzero.column(), nonzero.doubleValue());
+        }
+    }
+
+    /**
+     * [output] = [this segments][input], for each column of input. Each element of output is the dot product
+     * of a major segment and an input column.
+     *
+     * @param input minorDim x nbColumns (column major)
+     * @param output majorDim x nbColumns (column major)
+     */
+    final void gather(final double[] input, final double[] output, final int nbColumns) {
+
+        int majorDim = myPointers.length - 1;
+        int minorDim = this.getMinorDim();
+
+        for (int c = 0; c < nbColumns; c++) {
+
+            int inputOffset = c * minorDim;
+            int outputOffset = c * majorDim;
+
+            if (this.countNonzeros() >= THRESHOLD) {
+                CompressedStore.divide(majorDim,
+                        (first, limit) -> CompressedStore.gather(myPointers, myIndices, myValues, first, limit, input, inputOffset, output, outputOffset));
+            } else {
+                CompressedStore.gather(myPointers, myIndices, myValues, 0, majorDim, input, inputOffset, output, outputOffset);
+            }
+        }
+    }
+
+    final int[] getIndices() {
+        return myIndices;
+    }
+
+    final CompressedStore.Parts getParts() {
+        return new CompressedStore.Parts(myPointers, myIndices, myValues);
+    }
+
+    final int getMinorDim() {
+        return this.isRowMajor() ? this.getColDim() : this.getRowDim();
+    }
+
+    final int[] getPointers() {
+        return myPointers;
+    }
+
+    abstract boolean isRowMajor();
+
+    /**
+     * Calculates [target] = [this][right] using {@link #gather(double[], double[], int)} or
+     * {@link #scatter(double[], double[], int)} depending on the orientation. If the target is a (full)
+     * {@link Primitive64Store} it is written to directly.
+     */
+    final void multiply(final boolean gather, final Access1D<?> right, final TransformableRegion<Double> target, final int nbColumns) {
+
+        int nbRows = gather ? myPointers.length - 1 : this.getMinorDim();
+
+        double[] input = CompressedStore.toArray(right);
+
+        boolean direct = target instanceof Primitive64Store && target.countRows() == nbRows && target.count() == (long) nbRows * nbColumns;
+        double[] output = direct ? ((Primitive64Store) target).data : new double[nbRows * nbColumns];
+
+        if (gather) {
+            this.gather(input, output, nbColumns);
+        } else {
+            if (direct) {
+                Arrays.fill(output, ZERO);
+            }
+            this.scatter(input, output, nbColumns);
+        }
+
+        if (!direct) {
+            for (int c = 0; c < nbColumns; c++) {
+                for (int i = 0; i < nbRows; i++) {
+                    target.set(i, c, output[i + c * nbRows]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculates [left][this] using {@link #gather(double[], double[], int)} or
+     * {@link #scatter(double[], double[], int)} depending on the orientation – as ([this]<sup>T</sup>[left]
+     * <sup>T</sup>)<sup>T</sup>.
+     */
+    final MatrixStore<Double> premultiply(final boolean gather, final Access1D<?> left) {
+
+        int nbRows = Math.toIntExact(left.count() / this.getRowDim());
+        int complexity = this.getRowDim();
+        int nbColumns = this.getColDim();
+
+        double[] input;
+        if (nbRows == 1) {
+            input = CompressedStore.toArray(left);
+        } else {
+            input = new double[complexity * nbRows];
+            for (int i = 0; i < nbRows; i++) {
+                for (int l = 0; l < complexity; l++) {
+                    input[l + i * complexity] = left.doubleValue(i + l * nbRows);
+                }
+            }
+        }
+
+        double[] output = new double[nbColumns * nbRows];
+
+        if (gather) {
+            this.gather(input, output, nbRows);
+        } else {
+            this.scatter(input, output, nbRows);
+        }
+
+        if (nbRows == 1) {
+            return Primitive64Store.wrap(output, 1);
+        }
+
+        Primitive64Store retVal = Primitive64Store.FACTORY.make(nbRows, nbColumns);
+        for (int j = 0; j < nbColumns; j++) {
+            for (int i = 0; i < nbRows; i++) {
+                retVal.set(i, j, output[j + i * nbColumns]);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * [output] += [this segments]<sup>T</sup>[input], for each column of input. Each major segment, scaled by
+     * an input element, is added to the output column.
+     *
+     * @param input majorDim x nbColumns (column major)
+     * @param output minorDim x nbColumns (column major)
+     */
+    final void scatter(final double[] input, final double[] output, final int nbColumns) {
+
+        int majorDim = myPointers.length - 1;
+        int minorDim = this.getMinorDim();
+
+        for (int c = 0; c < nbColumns; c++) {
+
+            int inputOffset = c * majorDim;
+            int outputOffset = c * minorDim;
+
+            if (this.countNonzeros() >= THRESHOLD) {
+                CompressedStore.divide(majorDim, (first, limit) -> {
+                    double[] buffer = new double[minorDim];
+                    CompressedStore.scatter(myPointers, myIndices, myValues, first, limit, input, inputOffset, buffer, 0);
+                    synchronized (output) {
+                        for (int i = 0; i < minorDim; i++) {
+                            output[outputOffset + i] += buffer[i];
+                        }
+                    }
+                });
+            } else {
+                CompressedStore.scatter(myPointers, myIndices, myValues, 0, majorDim, input, inputOffset, output, outputOffset);
+            }
+        }
+    }
+
+}
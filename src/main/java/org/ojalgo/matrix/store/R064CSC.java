@@ -0,0 +1,85 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import org.ojalgo.structure.Access1D;
+
+/**
+ * Compressed Sparse Column (CSC) – an immutable sparse matrix with int indices and double values. Compared to
+ * {@link SparseStore} it uses much less memory, and multiplication is much faster, but it cannot be modified.
+ * Create instances using {@link SparseStore#toCSC()}.
+ * <p>
+ * {@link #multiply(Access1D, TransformableRegion)}, [A][x], is a "scatter" – each column, scaled by an element
+ * of [x], is added to the product – and (when large) parallelised using a buffer per thread. Multiplying with
+ * the transpose, [A]<sup>T</sup>[y] or [y]<sup>T</sup>[A], is a "gather" and is parallelised by dividing the
+ * columns between threads.
+ * <p>
+ * {@link #transpose()} returns an {@link R064CSR} using the same (not copied) arrays.
+ *
+ * @author apete
+ */
+public final class R064CSC extends CompressedStore {
+
+    R064CSC(final int nbRows, final int nbColumns, final CompressedStore.Parts parts) {
+        super(nbRows, nbColumns, parts);
+    }
+
+    @Override
+    public int firstInColumn(final int col) {
+        int[] pointers = this.getPointers();
+        return pointers[col] < pointers[col + 1] ? this.getIndices()[pointers[col]] : this.getRowDim();
+    }
+
+    @Override
+    public int limitOfColumn(final int col) {
+        int[] pointers = this.getPointers();
+        return pointers[col] < pointers[col + 1] ? this.getIndices()[pointers[col + 1] - 1] + 1 : 0;
+    }
+
+    @Override
+    public void multiply(final Access1D<Double> right, final TransformableRegion<Double> target) {
+        this.multiply(false, right, target, Math.toIntExact(right.count() / this.getColDim()));
+    }
+
+    @Override
+    public MatrixStore<Double> premultiply(final Access1D<Double> left) {
+        return this.premultiply(true, left);
+    }
+
+    /**
+     * @return A copy, with the same elements, in CSR format
+     */
+    public R064CSR toCSR() {
+        return new R064CSR(this.getRowDim(), this.getColDim(), CompressedStore.convert(this.getParts(), this.getMinorDim()));
+    }
+
+    @Override
+    public R064CSR transpose() {
+        return new R064CSR(this.getColDim(), this.getRowDim(), this.getParts());
+    }
+
+    @Override
+    boolean isRowMajor() {
+        return false;
+    }
+
+}
@@ -721,6 +721,22 @@ public final class SparseStore<N extends Comparable<N>> extends FactoryStore<N>
         myElements.supplyNonZerosTo(receiver);
     }
 
+    /**
+     * An immutable, compact, copy of this matrix – in compressed sparse column format. Only the double
+     * values are retained. Built in a single pass over the nonzero elements.
+     */
+    public R064CSC toCSC() {
+        return new R064CSC(this.getRowDim(), this.getColDim(), CompressedStore.compress(myElements, this.getRowDim(), this.getColDim()));
+    }
+
+    /**
+     * An immutable, compact, copy of this matrix – in compressed sparse row format. Only the double values
+     * are retained. Much faster to multiply with than this {@link SparseStore}.
+     */
+    public R064CSR toCSR() {
+        return this.toCSC().toCSR();
+    }
+
     @Override
     public void visitColumn(final long row, final long col, final VoidFunction<N> visitor) {
 
@@ -0,0 +1,174 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Biconjugate gradient stabilized method, BiCGSTAB, for solving [A][x]=[b] with any (non-singular) [A].
+ * <p>
+ * Requires 2 matrix-vector multiplications and 2 preconditioner applications per iteration, but (unlike
+ * {@link GMRESSolver}) a constant amount of memory – 8 vectors of the same size as the solution. Right
+ * preconditioned. Convergence is not monotone. If the method breaks down it is restarted from the current
+ * solution.
+ *
+ * @author apete
+ * @see https://en.wikipedia.org/wiki/Biconjugate_gradient_stabilized_method
+ */
+public final class BiCGSTABSolver extends KrylovSubspaceSolver {
+
+    public BiCGSTABSolver() {
+        super();
+    }
+
+    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        int nbEquations = equations.size();
+
+        int iterations = 0;
+        int limit = this.getIterationsLimit();
+        NumberContext accuracy = this.getAccuracyContext();
+
+        double normErr = POSITIVE_INFINITY;
+        double normRHS = ONE;
+
+        for (int i = 0; i < nbEquations; i++) {
+            normRHS = HYPOT.invoke(normRHS, equations.get(i).getRHS());
+        }
+
+        Preconditioner preconditioner = this.getPreconditioner(equations, Math.toIntExact(solution.count()));
+
+        Primitive64Store[] work = this.getWorkVectors(8, solution);
+        Primitive64Store residual = work[0];
+        Primitive64Store shadow = work[1]; // r-hat, fixed between restarts
+        Primitive64Store direction = work[2]; // p
+        Primitive64Store preconditionedDirection = work[3]; // y
+        Primitive64Store vector = work[4]; // v
+        Primitive64Store intermediate = work[5]; // s
+        Primitive64Store preconditionedIntermediate = work[6]; // z
+        Primitive64Store product = work[7]; // t
+
+        normErr = KrylovSubspaceSolver.residual(equations, solution, residual);
+
+        boolean restart = true;
+        boolean restarted = false;
+
+        double rho = ONE;
+        double alpha = ONE;
+        double omega = ONE;
+
+        while (iterations < limit && !Double.isNaN(normErr) && !accuracy.isSmall(normRHS, normErr) && normErr != ZERO) {
+
+            if (restart) {
+                if (restarted) {
+                    break; // Breakdown immediately after a restart – give up
+                }
+                shadow.fillMatching(residual);
+                direction.fillAll(ZERO);
+                vector.fillAll(ZERO);
+                rho = alpha = omega = ONE;
+                restart = false;
+                restarted = true;
+            }
+
+            double rhoNext = shadow.dot(residual);
+            if (rhoNext == ZERO) {
+                // Breakdown – the residual is orthogonal to the shadow residual
+                restart = true;
+                continue;
+            }
+
+            double beta = (rhoNext / rho) * (alpha / omega);
+            rho = rhoNext;
+
+            // p = r + β (p - ω v)
+            vector.axpy(-omega, direction);
+            direction.modifyAll(MULTIPLY.second(beta));
+            residual.axpy(ONE, direction);
+
+            preconditioner.apply(direction, preconditionedDirection);
+            KrylovSubspaceSolver.multiply(equations, preconditionedDirection, vector);
+
+            double shadowDotVector = shadow.dot(vector);
+            if (shadowDotVector == ZERO) {
+                restart = true;
+                continue;
+            }
+            alpha = rho / shadowDotVector;
+
+            // s = r - α v
+            intermediate.fillMatching(residual);
+            vector.axpy(-alpha, intermediate);
+
+            double normIntermediate = Math.sqrt(intermediate.dot(intermediate));
+            if (accuracy.isSmall(normRHS, normIntermediate)) {
+                preconditionedDirection.axpy(alpha, solution);
+                normErr = KrylovSubspaceSolver.residual(equations, solution, residual);
+                restart = true;
+                restarted = false;
+                iterations++;
+                if (this.isDebugPrinterSet()) {
+                    this.debug(iterations, normErr / normRHS, solution);
+                }
+                continue;
+            }
+
+            preconditioner.apply(intermediate, preconditionedIntermediate);
+            KrylovSubspaceSolver.multiply(equations, preconditionedIntermediate, product);
+
+            double productDotProduct = product.dot(product);
+            omega = productDotProduct != ZERO ? product.dot(intermediate) / productDotProduct : ZERO;
+
+            // x = x + α y + ω z
+            preconditionedDirection.axpy(alpha, solution);
+            preconditionedIntermediate.axpy(omega, solution);
+
+            // r = s - ω t
+            residual.fillMatching(intermediate);
+            product.axpy(-omega, residual);
+
+            normErr = Math.sqrt(residual.dot(residual));
+
+            iterations++;
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(iterations, normErr / normRHS, solution);
+            }
+
+            restarted = false;
+
+            if (omega == ZERO) {
+                restart = true;
+            }
+        }
+
+        return normErr / normRHS;
+    }
+
+}
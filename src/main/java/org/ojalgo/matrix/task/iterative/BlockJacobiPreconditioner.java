@@ -0,0 +1,157 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+/**
+ * [M] is the block diagonal part of [A]. The blocks are formed by consecutive equations (in the order they
+ * are listed) and are factorised using dense LU with partial pivoting.
+ *
+ * @author apete
+ */
+final class BlockJacobiPreconditioner extends SparsePreconditioner {
+
+    private final int myBlockSize;
+    /**
+     * One dense (row major) LU factorisation per block
+     */
+    private double[][] myFactors;
+    private int[][] myPivots;
+
+    BlockJacobiPreconditioner(final int blockSize) {
+        super();
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("The block size must be at least 1!");
+        }
+        myBlockSize = blockSize;
+    }
+
+    @Override
+    void factorise() {
+
+        int dim = this.getDim();
+        int[] pointers = this.getPointers();
+        int[] columns = this.getColumns();
+        double[] values = this.getValues();
+
+        int nbBlocks = (dim + myBlockSize - 1) / myBlockSize;
+        myFactors = new double[nbBlocks][];
+        myPivots = new int[nbBlocks][];
+
+        for (int b = 0; b < nbBlocks; b++) {
+
+            int first = b * myBlockSize;
+            int size = Math.min(myBlockSize, dim - first);
+            int limit = first + size;
+
+            double[] block = new double[size * size];
+            for (int i = first; i < limit; i++) {
+                for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                    int j = columns[p];
+                    if (j >= first && j < limit) {
+                        block[(i - first) * size + j - first] = values[p];
+                    }
+                }
+            }
+
+            int[] pivots = new int[size];
+
+            for (int k = 0; k < size; k++) {
+
+                int pivotRow = k;
+                for (int i = k + 1; i < size; i++) {
+                    if (Math.abs(block[i * size + k]) > Math.abs(block[pivotRow * size + k])) {
+                        pivotRow = i;
+                    }
+                }
+                pivots[k] = pivotRow;
+
+                if (pivotRow != k) {
+                    for (int j = 0; j < size; j++) {
+                        double tmp = block[k * size + j];
+                        block[k * size + j] = block[pivotRow * size + j];
+                        block[pivotRow * size + j] = tmp;
+                    }
+                }
+
+                if (block[k * size + k] == ZERO) {
+                    block[k * size + k] = ONE;
+                }
+                double pivot = block[k * size + k];
+
+                for (int i = k + 1; i < size; i++) {
+                    double multiplier = block[i * size + k] /= pivot;
+                    if (multiplier != ZERO) {
+                        for (int j = k + 1; j < size; j++) {
+                            block[i * size + j] -= multiplier * block[k * size + j];
+                        }
+                    }
+                }
+            }
+
+            myFactors[b] = block;
+            myPivots[b] = pivots;
+        }
+    }
+
+    @Override
+    void solve(final double[] vector) {
+
+        int dim = this.getDim();
+
+        for (int b = 0; b < myFactors.length; b++) {
+
+            int first = b * myBlockSize;
+            int size = Math.min(myBlockSize, dim - first);
+
+            double[] block = myFactors[b];
+            int[] pivots = myPivots[b];
+
+            for (int k = 0; k < size; k++) {
+                int pivotRow = pivots[k];
+                if (pivotRow != k) {
+                    double tmp = vector[first + k];
+                    vector[first + k] = vector[first + pivotRow];
+                    vector[first + pivotRow] = tmp;
+                }
+            }
+
+            for (int i = 0; i < size; i++) {
+                double value = vector[first + i];
+                for (int j = 0; j < i; j++) {
+                    value -= block[i * size + j] * vector[first + j];
+                }
+                vector[first + i] = value;
+            }
+
+            for (int i = size - 1; i >= 0; i--) {
+                double value = vector[first + i];
+                for (int j = i + 1; j < size; j++) {
+                    value -= block[i * size + j] * vector[first + j];
+                }
+                vector[first + i] = value / block[i * size + i];
+            }
+        }
+    }
+
+}
@@ -25,25 +25,24 @@ import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import java.util.List;
 
-import org.ojalgo.RecoverableCondition;
 import org.ojalgo.equation.Equation;
-import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.Primitive64Store;
-import org.ojalgo.structure.Access2D;
 import org.ojalgo.structure.Structure1D;
 import org.ojalgo.type.context.NumberContext;
 
 /**
  * For solving [A][x]=[b] when [A] is symmetric and positive-definite.
  * <p>
- * This implementation is (Jacobi) preconditioned – using the diagonal elements to scale the residual.
+ * This implementation is preconditioned. By default with Jacobi (diagonal scaling), but any symmetric
+ * positive definite {@link Preconditioner} can be configured – {@link Preconditioner#incompleteCholesky()} or
+ * {@link Preconditioner#ssor(double)} typically require far fewer iterations.
  *
  * @author apete
  * @see https://en.wikipedia.org/wiki/Conjugate_gradient_method
  * @see https://optimization.cbe.cornell.edu/index.php?title=Conjugate_gradient_methods
  */
-public final class ConjugateGradientSolver extends KrylovSubspaceSolver implements IterativeSolverTask.SparseDelegate {
+public final class ConjugateGradientSolver extends KrylovSubspaceSolver {
 
     private transient Primitive64Store myDirection = null;
     private transient Primitive64Store myPreconditioned = null;
@@ -70,6 +69,8 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
         Primitive64Store preconditioned = this.preconditioned(solution);
         Primitive64Store vector = this.vector(solution);
 
+        Preconditioner preconditioner = this.getPreconditioner(equations, Math.toIntExact(solution.count()));
+
         double stepLength; // alpha
         double gradientCorrectionFactor; // beta
 
@@ -83,10 +84,10 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
             normRHS = HYPOT.invoke(normRHS, tmpVal);
             tmpVal -= row.dot(solution);
             residual.set(row.index, tmpVal);
-            double pivot = row.getPivot();
-            preconditioned.set(row.index, tmpVal / pivot);
         }
 
+        preconditioner.apply(residual, preconditioned);
+
         direction.fillMatching(preconditioned);
 
         zr1 = preconditioned.dot(residual);
@@ -117,10 +118,10 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
                 Equation row = equations.get(r);
                 double tmpVal = residual.doubleValue(row.index);
                 normErr = HYPOT.invoke(normErr, tmpVal);
-                double pivot = row.getPivot();
-                preconditioned.set(row.index, tmpVal / pivot);
             }
 
+            preconditioner.apply(residual, preconditioned);
+
             zr1 = preconditioned.dot(residual);
             gradientCorrectionFactor = zr1 / zr0;
 
@@ -140,15 +141,6 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
         return normErr / normRHS;
     }
 
-    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
-
-        List<Equation> equations = IterativeSolverTask.toListOfRows(body, rhs);
-
-        this.resolve(equations, preallocated);
-
-        return preallocated;
-    }
-
     private Primitive64Store direction(final Structure1D structure) {
         if ((myDirection == null) || (myDirection.count() != structure.count())) {
             myDirection = Primitive64Store.FACTORY.make(structure.count(), 1L);
@@ -0,0 +1,193 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.equation.Equation;
+import org.ojalgo.function.aggregator.Aggregator;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Restarted generalized minimal residual method, GMRES(m), for solving [A][x]=[b] with any (non-singular)
+ * [A].
+ * <p>
+ * The Krylov basis is orthogonalised using modified Gram-Schmidt, and the least squares problem is updated
+ * using Givens rotations. Right preconditioned, which means the residual that is minimised (and reported) is
+ * the true residual. The memory requirement grows linearly with the restart parameter – m+2 vectors of the
+ * same size as the solution.
+ *
+ * @author apete
+ * @see https://en.wikipedia.org/wiki/Generalized_minimal_residual_method
+ */
+public final class GMRESSolver extends KrylovSubspaceSolver {
+
+    private static final int DEFAULT_RESTART = 30;
+
+    private final int myRestart;
+
+    public GMRESSolver() {
+        this(DEFAULT_RESTART);
+    }
+
+    /**
+     * @param restart The max dimension of the Krylov subspace, m, before the iterations are restarted
+     */
+    public GMRESSolver(final int restart) {
+        super();
+        if (restart < 1) {
+            throw new IllegalArgumentException("The restart parameter must be at least 1!");
+        }
+        myRestart = restart;
+    }
+
+    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        int nbEquations = equations.size();
+        int restart = myRestart;
+
+        int iterations = 0;
+        int limit = this.getIterationsLimit();
+        NumberContext accuracy = this.getAccuracyContext();
+
+        double normErr = POSITIVE_INFINITY;
+        double normRHS = ONE;
+
+        for (int i = 0; i < nbEquations; i++) {
+            normRHS = HYPOT.invoke(normRHS, equations.get(i).getRHS());
+        }
+
+        Preconditioner preconditioner = this.getPreconditioner(equations, Math.toIntExact(solution.count()));
+
+        Primitive64Store[] work = this.getWorkVectors(restart + 2, solution);
+        Primitive64Store preconditioned = work[restart + 1];
+        Primitive64Store[] basis = work; // The first m+1 vectors
+
+        double[][] hessenberg = new double[restart + 1][restart];
+        double[] cosines = new double[restart];
+        double[] sines = new double[restart];
+        double[] projected = new double[restart + 1];
+        double[] coefficients = new double[restart];
+
+        normErr = KrylovSubspaceSolver.residual(equations, solution, basis[0]);
+
+        while (iterations < limit && !Double.isNaN(normErr) && !accuracy.isSmall(normRHS, normErr) && normErr != ZERO) {
+
+            double previous = normErr;
+
+            basis[0].modifyAll(DIVIDE.second(normErr));
+
+            projected[0] = normErr;
+            for (int i = 1; i <= restart; i++) {
+                projected[i] = ZERO;
+            }
+
+            int dim = 0;
+
+            for (int j = 0; j < restart && iterations < limit; j++) {
+
+                preconditioner.apply(basis[j], preconditioned);
+                Primitive64Store next = basis[j + 1];
+                KrylovSubspaceSolver.multiply(equations, preconditioned, next);
+
+                for (int i = 0; i <= j; i++) {
+                    double h = next.dot(basis[i]);
+                    hessenberg[i][j] = h;
+                    basis[i].axpy(-h, next);
+                }
+                double subdiagonal = next.aggregateAll(Aggregator.NORM2);
+                hessenberg[j + 1][j] = subdiagonal;
+                if (subdiagonal != ZERO) {
+                    next.modifyAll(DIVIDE.second(subdiagonal));
+                }
+
+                for (int i = 0; i < j; i++) {
+                    double upper = hessenberg[i][j];
+                    double lower = hessenberg[i + 1][j];
+                    hessenberg[i][j] = cosines[i] * upper + sines[i] * lower;
+                    hessenberg[i + 1][j] = cosines[i] * lower - sines[i] * upper;
+                }
+
+                double diagonal = hessenberg[j][j];
+                double hypot = HYPOT.invoke(diagonal, subdiagonal);
+                if (hypot == ZERO) {
+                    cosines[j] = ONE;
+                    sines[j] = ZERO;
+                } else {
+                    cosines[j] = diagonal / hypot;
+                    sines[j] = subdiagonal / hypot;
+                }
+                hessenberg[j][j] = hypot;
+                hessenberg[j + 1][j] = ZERO;
+
+                projected[j + 1] = -sines[j] * projected[j];
+                projected[j] = cosines[j] * projected[j];
+
+                normErr = Math.abs(projected[j + 1]);
+
+                dim = j + 1;
+                iterations++;
+
+                if (this.isDebugPrinterSet()) {
+                    this.debug(iterations, normErr / normRHS, solution);
+                }
+
+                if (subdiagonal == ZERO || accuracy.isSmall(normRHS, normErr)) {
+                    break;
+                }
+            }
+
+            // Back substitution, and then [x] += [M]^-1 [V][y]
+
+            for (int i = dim - 1; i >= 0; i--) {
+                double value = projected[i];
+                for (int k = i + 1; k < dim; k++) {
+                    value -= hessenberg[i][k] * coefficients[k];
+                }
+                coefficients[i] = hessenberg[i][i] != ZERO ? value / hessenberg[i][i] : ZERO;
+            }
+
+            Primitive64Store combination = basis[dim];
+            combination.fillAll(ZERO);
+            for (int i = 0; i < dim; i++) {
+                basis[i].axpy(coefficients[i], combination);
+            }
+            preconditioner.apply(combination, preconditioned);
+            preconditioned.axpy(ONE, solution);
+
+            // Recalculate the true residual, also the starting point of the next cycle
+
+            normErr = KrylovSubspaceSolver.residual(equations, solution, basis[0]);
+
+            if (!(normErr < previous)) {
+                break; // Stagnation – a complete cycle without progress
+            }
+        }
+
+        return normErr / normRHS;
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+/**
+ * Zero fill-in incomplete Cholesky, IC(0): [M] = [L][L]<sup>T</sup> where [L] has the same sparsity pattern
+ * as the lower triangular part of [A]. Only the lower triangular part of [A] is used.
+ * <p>
+ * For matrices that are not M-matrices the factorisation may break down (non-positive pivot). Then the
+ * diagonal is shifted, [A] + α diag([A]), with increasing α until it succeeds. If that fails too the
+ * factorisation degenerates to diagonal scaling.
+ *
+ * @author apete
+ */
+final class IncompleteCholesky extends SparsePreconditioner {
+
+    private static final double[] SHIFTS = { ZERO, 0.001, 0.01, 0.1, 1.0, 10.0 };
+
+    private int[] myL_c;
+    private int[] myL_p;
+    private double[] myL_x;
+
+    IncompleteCholesky() {
+        super();
+    }
+
+    private void copy(final double shift) {
+
+        int[] pointers = this.getPointers();
+        double[] values = this.getValues();
+
+        for (int i = 0, dim = this.getDim(); i < dim; i++) {
+            int length = myL_p[i + 1] - myL_p[i];
+            System.arraycopy(values, pointers[i], myL_x, myL_p[i], length);
+            myL_x[myL_p[i + 1] - 1] *= ONE + shift;
+        }
+    }
+
+    /**
+     * Row-wise, l<sub>ik</sub> = (a<sub>ik</sub> - Σ l<sub>ij</sub>l<sub>kj</sub>) / l<sub>kk</sub>, where
+     * the sum is over the columns j &lt; k present in both row i and row k.
+     */
+    private boolean compute() {
+
+        int[] l_p = myL_p;
+        int[] l_c = myL_c;
+        double[] l_x = myL_x;
+
+        for (int i = 0, dim = this.getDim(); i < dim; i++) {
+
+            int first = l_p[i];
+            int diag = l_p[i + 1] - 1;
+
+            double sum = ZERO;
+
+            for (int p = first; p < diag; p++) {
+
+                int k = l_c[p];
+                int diagK = l_p[k + 1] - 1;
+
+                double value = l_x[p];
+                for (int a = first, b = l_p[k]; a < p && b < diagK;) {
+                    int colA = l_c[a];
+                    int colB = l_c[b];
+                    if (colA == colB) {
+                        value -= l_x[a++] * l_x[b++];
+                    } else if (colA < colB) {
+                        a++;
+                    } else {
+                        b++;
+                    }
+                }
+
+                value /= l_x[diagK];
+                l_x[p] = value;
+                sum += value * value;
+            }
+
+            double pivot = l_x[diag] - sum;
+            if (!(pivot > ZERO)) {
+                return false;
+            }
+            l_x[diag] = Math.sqrt(pivot);
+        }
+
+        return true;
+    }
+
+    @Override
+    void factorise() {
+
+        int dim = this.getDim();
+        int[] pointers = this.getPointers();
+        int[] columns = this.getColumns();
+        int[] diagonal = this.getDiagonal();
+
+        myL_p = new int[dim + 1];
+        for (int i = 0; i < dim; i++) {
+            myL_p[i + 1] = myL_p[i] + diagonal[i] - pointers[i] + 1;
+        }
+        myL_c = new int[myL_p[dim]];
+        myL_x = new double[myL_p[dim]];
+        for (int i = 0; i < dim; i++) {
+            System.arraycopy(columns, pointers[i], myL_c, myL_p[i], myL_p[i + 1] - myL_p[i]);
+        }
+
+        for (double shift : SHIFTS) {
+            this.copy(shift);
+            if (this.compute()) {
+                return;
+            }
+        }
+
+        double[] values = this.getValues();
+        for (int i = 0; i < dim; i++) {
+            for (int p = myL_p[i]; p < myL_p[i + 1] - 1; p++) {
+                myL_x[p] = ZERO;
+            }
+            double pivot = Math.abs(values[diagonal[i]]);
+            myL_x[myL_p[i + 1] - 1] = pivot > ZERO ? Math.sqrt(pivot) : ONE;
+        }
+    }
+
+    @Override
+    void solve(final double[] vector) {
+
+        int[] l_p = myL_p;
+        int[] l_c = myL_c;
+        double[] l_x = myL_x;
+
+        int dim = this.getDim();
+
+        for (int i = 0; i < dim; i++) {
+            int diag = l_p[i + 1] - 1;
+            double value = vector[i];
+            for (int p = l_p[i]; p < diag; p++) {
+                value -= l_x[p] * vector[l_c[p]];
+            }
+            vector[i] = value / l_x[diag];
+        }
+
+        for (int i = dim - 1; i >= 0; i--) {
+            int diag = l_p[i + 1] - 1;
+            double value = vector[i] / l_x[diag];
+            vector[i] = value;
+            for (int p = l_p[i]; p < diag; p++) {
+                vector[l_c[p]] -= l_x[p] * value;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+/**
+ * Zero fill-in incomplete LU, ILU(0): [M] = [L][U] where [L] (unit lower triangular) and [U] together have
+ * the same sparsity pattern as [A]. Zero pivots are replaced by a small value relative to the row.
+ *
+ * @author apete
+ */
+final class IncompleteLU extends SparsePreconditioner {
+
+    private double[] myLU;
+
+    IncompleteLU() {
+        super();
+    }
+
+    @Override
+    void factorise() {
+
+        int dim = this.getDim();
+        int[] pointers = this.getPointers();
+        int[] columns = this.getColumns();
+        int[] diagonal = this.getDiagonal();
+
+        double[] lu = this.getValues().clone();
+
+        int[] positions = new int[dim];
+        Arrays.fill(positions, -1);
+
+        for (int i = 0; i < dim; i++) {
+
+            for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                positions[columns[p]] = p;
+            }
+
+            for (int p = pointers[i]; p < diagonal[i]; p++) {
+                int k = columns[p];
+                double l_ik = lu[p] / lu[diagonal[k]];
+                lu[p] = l_ik;
+                for (int q = diagonal[k] + 1; q < pointers[k + 1]; q++) {
+                    int pos = positions[columns[q]];
+                    if (pos >= 0) {
+                        lu[pos] -= l_ik * lu[q];
+                    }
+                }
+            }
+
+            if (lu[diagonal[i]] == ZERO) {
+                double largest = ZERO;
+                for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                    largest = Math.max(largest, Math.abs(lu[p]));
+                }
+                lu[diagonal[i]] = largest > ZERO ? largest * RELATIVELY_SMALL : ONE;
+            }
+
+            for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                positions[columns[p]] = -1;
+            }
+        }
+
+        myLU = lu;
+    }
+
+    @Override
+    void solve(final double[] vector) {
+
+        int[] pointers = this.getPointers();
+        int[] columns = this.getColumns();
+        int[] diagonal = this.getDiagonal();
+        double[] lu = myLU;
+
+        int dim = this.getDim();
+
+        for (int i = 0; i < dim; i++) {
+            double value = vector[i];
+            for (int p = pointers[i]; p < diagonal[i]; p++) {
+                value -= lu[p] * vector[columns[p]];
+            }
+            vector[i] = value;
+        }
+
+        for (int i = dim - 1; i >= 0; i--) {
+            double value = vector[i];
+            for (int p = diagonal[i] + 1; p < pointers[i + 1]; p++) {
+                value -= lu[p] * vector[columns[p]];
+            }
+            vector[i] = value / lu[diagonal[i]];
+        }
+    }
+
+}
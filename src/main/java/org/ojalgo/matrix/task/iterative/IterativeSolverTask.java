@@ -93,6 +93,28 @@ public abstract class IterativeSolverTask implements SolverTask<Double> {
             return this;
         }
 
+        /**
+         * The preconditioner to use. Only the Krylov subspace solvers (like {@link ConjugateGradientSolver})
+         * and {@link JacobiSolver} make use of this. With null the solver's default is used – Jacobi
+         * (diagonal scaling) with the Krylov subspace solvers, and plain Jacobi iterations with
+         * {@link JacobiSolver}.
+         */
+        public Configurator preconditioner(final Preconditioner preconditioner) {
+            mySolver.setPreconditioner(preconditioner);
+            return this;
+        }
+
+        /**
+         * Reuse the prepared preconditioner between calls with the same list of equations (until that list
+         * is modified via {@link MutableSolver}). Only switch this on if the equation bodies are not modified
+         * in place – the preconditioner would then be stale. Default is false; the preconditioner is prepared
+         * for each solve.
+         */
+        public Configurator reusePreconditioner(final boolean reuse) {
+            mySolver.setPreconditionerReused(reuse);
+            return this;
+        }
+
     }
 
     public interface SparseDelegate {
@@ -180,6 +202,12 @@ public abstract class IterativeSolverTask implements SolverTask<Double> {
     private NumberContext myAccuracyContext = DEFAULT;
     private BasicLogger myDebugPrinter = null;
     private int myIterationsLimit = Integer.MAX_VALUE;
+    private Preconditioner myPreconditioner = null;
+    private boolean myPreconditionerReused = false;
+    /**
+     * The list of equations that the preconditioner was last prepared for
+     */
+    private transient List<Equation> myPreparedFor = null;
 
     IterativeSolverTask() {
         super();
@@ -218,10 +246,27 @@ public abstract class IterativeSolverTask implements SolverTask<Double> {
         return myIterationsLimit;
     }
 
+    /**
+     * @return The preconditioner, prepared for these equations, or null if there is no preconditioner. If
+     *         reuse is switched on it is only (re)prepared if the list of equations is a different instance
+     *         from the previous call, or if it has been invalidated since then.
+     */
+    protected final Preconditioner getPreconditioner(final List<Equation> equations, final int dim) {
+        if (myPreconditioner != null && (!myPreconditionerReused || myPreparedFor != equations)) {
+            myPreconditioner.prepare(equations, dim);
+            myPreparedFor = equations;
+        }
+        return myPreconditioner;
+    }
+
     protected final boolean isDebugPrinterSet() {
         return myDebugPrinter != null;
     }
 
+    protected final boolean isPreconditionerSet() {
+        return myPreconditioner != null;
+    }
+
     protected void setAccuracyContext(final NumberContext accuracyContext) {
         myAccuracyContext = accuracyContext;
     }
@@ -234,4 +279,21 @@ public abstract class IterativeSolverTask implements SolverTask<Double> {
         myIterationsLimit = iterationsLimit;
     }
 
+    protected void setPreconditioner(final Preconditioner preconditioner) {
+        myPreconditioner = preconditioner;
+        myPreparedFor = null;
+    }
+
+    protected void setPreconditionerReused(final boolean reused) {
+        myPreconditionerReused = reused;
+        myPreparedFor = null;
+    }
+
+    /**
+     * The equations (may) have changed – the preconditioner needs to be prepared again.
+     */
+    void invalidatePreconditioner() {
+        myPreparedFor = null;
+    }
+
 }
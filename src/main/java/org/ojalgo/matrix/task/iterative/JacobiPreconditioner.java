@@ -0,0 +1,80 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * [M] is the diagonal of [A], or optionally the absolute values of the diagonal elements (with zeros replaced
+ * by ones). The latter is positive definite regardless of [A] and is what {@link MINRESSolver} needs.
+ *
+ * @author apete
+ */
+final class JacobiPreconditioner implements Preconditioner {
+
+    private final boolean myAbsolute;
+    private int[] myIndices = new int[0];
+    private double[] myPivots = new double[0];
+
+    JacobiPreconditioner() {
+        this(false);
+    }
+
+    JacobiPreconditioner(final boolean absolute) {
+        super();
+        myAbsolute = absolute;
+    }
+
+    public void apply(final Access1D<?> input, final PhysicalStore<Double> output) {
+        for (int k = 0; k < myIndices.length; k++) {
+            int index = myIndices[k];
+            output.set(index, input.doubleValue(index) / myPivots[k]);
+        }
+    }
+
+    public void prepare(final List<Equation> equations, final int dim) {
+
+        int nbEquations = equations.size();
+
+        if (myIndices.length != nbEquations) {
+            myIndices = new int[nbEquations];
+            myPivots = new double[nbEquations];
+        }
+
+        for (int k = 0; k < nbEquations; k++) {
+            Equation row = equations.get(k);
+            myIndices[k] = row.index;
+            double pivot = row.getPivot();
+            if (myAbsolute) {
+                pivot = pivot != ZERO ? Math.abs(pivot) : ONE;
+            }
+            myPivots[k] = pivot;
+        }
+    }
+
+}
@@ -23,7 +23,10 @@ package org.ojalgo.matrix.task.iterative;
 
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
+import java.util.List;
+
 import org.ojalgo.RecoverableCondition;
+import org.ojalgo.equation.Equation;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
@@ -36,6 +39,9 @@ import org.ojalgo.type.context.NumberContext;
  * For solving [A][x]=[b] where [A] has non-zero elements on the diagonal.
  * <p>
  * It's most likely better to instead use {@link GaussSeidelSolver} or {@link ConjugateGradientSolver}.
+ * <p>
+ * If a {@link Preconditioner} is configured this becomes a preconditioned Richardson iteration – the
+ * residual is scaled by the inverse of the preconditioner rather than by the inverse of the diagonal.
  *
  * @author apete
  * @see https://en.wikipedia.org/wiki/Jacobi_method
@@ -49,6 +55,10 @@ public final class JacobiSolver extends StationaryIterativeSolver {
     @SuppressWarnings("unchecked")
     public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> current) throws RecoverableCondition {
 
+        if (this.isPreconditionerSet()) {
+            return this.solvePreconditioned(body, rhs, current);
+        }
+
         MatrixStore<Double> tmpBody = null;
         if (body instanceof MatrixStore<?> && body.get(0L) instanceof Double) {
             tmpBody = (MatrixStore<Double>) body;
@@ -97,4 +107,53 @@ public final class JacobiSolver extends StationaryIterativeSolver {
         return current;
     }
 
+    private MatrixStore<Double> solvePreconditioned(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> current) {
+
+        List<Equation> equations = IterativeSolverTask.toListOfRows(body, rhs);
+        int nbEquations = equations.size();
+
+        Preconditioner preconditioner = this.getPreconditioner(equations, Math.toIntExact(current.count()));
+
+        PhysicalStore<Double> residual = Primitive64Store.FACTORY.make(current.count(), 1L);
+        PhysicalStore<Double> increment = Primitive64Store.FACTORY.make(current.count(), 1L);
+
+        double normErr = POSITIVE_INFINITY;
+        double normRHS = ONE;
+        for (int i = 0; i < nbEquations; i++) {
+            normRHS = HYPOT.invoke(normRHS, equations.get(i).getRHS());
+        }
+
+        int iterations = 0;
+        int limit = this.getIterationsLimit();
+        NumberContext accuracy = this.getAccuracyContext();
+        double relaxation = this.getRelaxationFactor();
+        do {
+
+            normErr = ZERO;
+            for (int i = 0; i < nbEquations; i++) {
+                Equation row = equations.get(i);
+                double tmpVal = row.getRHS() - row.dot(current);
+                normErr = HYPOT.invoke(normErr, tmpVal);
+                residual.set(row.index, tmpVal);
+            }
+
+            preconditioner.apply(residual, increment);
+
+            if (accuracy.isDifferent(ONE, relaxation)) {
+                increment.modifyAll(MULTIPLY.second(relaxation));
+            }
+
+            current.modifyMatching(ADD, increment);
+
+            iterations++;
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(iterations, normErr / normRHS, current);
+            }
+
+        } while (iterations < limit && !accuracy.isSmall(normRHS, normErr));
+
+        return current;
+    }
+
 }
@@ -21,10 +21,99 @@
  */
 package org.ojalgo.matrix.task.iterative;
 
-abstract class KrylovSubspaceSolver extends IterativeSolverTask {
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Structure1D;
+
+/**
+ * Common base for the Krylov subspace solvers. They are all preconditioned – by default with
+ * {@link Preconditioner#jacobi()}.
+ * <ul>
+ * <li>{@link ConjugateGradientSolver} – symmetric positive definite systems</li>
+ * <li>{@link MINRESSolver} – symmetric, possibly indefinite, systems</li>
+ * <li>{@link GMRESSolver} and {@link BiCGSTABSolver} – general (unsymmetric) systems</li>
+ * </ul>
+ *
+ * @author apete
+ */
+abstract class KrylovSubspaceSolver extends IterativeSolverTask implements IterativeSolverTask.SparseDelegate {
+
+    /**
+     * [product] = [A][vector] – only the elements corresponding to the equations are set.
+     */
+    static void multiply(final List<Equation> equations, final Access1D<?> vector, final PhysicalStore<Double> product) {
+        for (int i = 0, limit = equations.size(); i < limit; i++) {
+            Equation row = equations.get(i);
+            product.set(row.index, row.dot(vector));
+        }
+    }
+
+    /**
+     * [residual] = [b] - [A][solution] – only the elements corresponding to the equations are set.
+     *
+     * @return The norm of the residual
+     */
+    static double residual(final List<Equation> equations, final Access1D<?> solution, final PhysicalStore<Double> residual) {
+        double retVal = ZERO;
+        for (int i = 0, limit = equations.size(); i < limit; i++) {
+            Equation row = equations.get(i);
+            double value = row.getRHS() - row.dot(solution);
+            retVal = HYPOT.invoke(retVal, value);
+            residual.set(row.index, value);
+        }
+        return retVal;
+    }
+
+    private transient Primitive64Store[] myWorkVectors = null;
 
     protected KrylovSubspaceSolver() {
         super();
+        this.setPreconditioner(null);
+    }
+
+    public final MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated)
+            throws RecoverableCondition {
+
+        List<Equation> equations = IterativeSolverTask.toListOfRows(body, rhs);
+
+        this.resolve(equations, preallocated);
+
+        return preallocated;
+    }
+
+    /**
+     * With null the default, {@link Preconditioner#jacobi()}, is used.
+     */
+    @Override
+    protected void setPreconditioner(final Preconditioner preconditioner) {
+        super.setPreconditioner(preconditioner != null ? preconditioner : Preconditioner.jacobi());
+    }
+
+    /**
+     * @return The requested number of (zero filled) vectors, each of the same size as the structure. They are
+     *         reused between calls.
+     */
+    final Primitive64Store[] getWorkVectors(final int count, final Structure1D structure) {
+        if (myWorkVectors == null || myWorkVectors.length != count || myWorkVectors[0].count() != structure.count()) {
+            myWorkVectors = new Primitive64Store[count];
+            for (int i = 0; i < count; i++) {
+                myWorkVectors[i] = Primitive64Store.FACTORY.make(structure.count(), 1L);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                myWorkVectors[i].fillAll(ZERO);
+            }
+        }
+        return myWorkVectors;
     }
 
 }
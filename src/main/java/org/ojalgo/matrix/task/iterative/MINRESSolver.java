@@ -0,0 +1,200 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Minimal residual method, MINRES, for solving [A][x]=[b] when [A] is symmetric – it may be indefinite (KKT
+ * systems and the like).
+ * <p>
+ * Short recurrences (Lanczos), so constant memory – 7 vectors of the same size as the solution. The
+ * preconditioner must be symmetric positive definite. The default is diagonal scaling using the absolute
+ * values of the diagonal elements. The residual is estimated from the recurrence, and verified when the
+ * iterations terminate. If the true residual is not yet small enough the iterations are restarted from the
+ * current solution.
+ *
+ * @author apete
+ * @see https://en.wikipedia.org/wiki/Minimal_residual_method
+ * @see https://web.stanford.edu/group/SOL/software/minres/
+ */
+public final class MINRESSolver extends KrylovSubspaceSolver {
+
+    public MINRESSolver() {
+        super();
+    }
+
+    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        int nbEquations = equations.size();
+
+        int iterations = 0;
+        int limit = this.getIterationsLimit();
+        NumberContext accuracy = this.getAccuracyContext();
+
+        double normErr = POSITIVE_INFINITY;
+        double normRHS = ONE;
+
+        for (int i = 0; i < nbEquations; i++) {
+            normRHS = HYPOT.invoke(normRHS, equations.get(i).getRHS());
+        }
+
+        Preconditioner preconditioner = this.getPreconditioner(equations, Math.toIntExact(solution.count()));
+
+        Primitive64Store[] work = this.getWorkVectors(7, solution);
+        Primitive64Store r1 = work[0];
+        Primitive64Store r2 = work[1];
+        Primitive64Store y = work[2];
+        Primitive64Store v = work[3];
+        Primitive64Store w = work[4];
+        Primitive64Store w1 = work[5];
+        Primitive64Store w2 = work[6];
+
+        normErr = KrylovSubspaceSolver.residual(equations, solution, r1);
+
+        while (iterations < limit && !Double.isNaN(normErr) && !accuracy.isSmall(normRHS, normErr) && normErr != ZERO) {
+
+            double previous = normErr;
+
+            preconditioner.apply(r1, y);
+
+            double beta1 = r1.dot(y);
+            if (!(beta1 > ZERO)) {
+                break; // The preconditioner is not positive definite
+            }
+            beta1 = Math.sqrt(beta1);
+
+            // To translate the (preconditioned) residual norm estimate to the actual norm
+            double scale = normErr / beta1;
+
+            r2.fillMatching(r1);
+            w.fillAll(ZERO);
+            w2.fillAll(ZERO);
+
+            double oldb = ZERO;
+            double beta = beta1;
+            double dbar = ZERO;
+            double epsln = ZERO;
+            double phibar = beta1;
+            double cs = -ONE;
+            double sn = ZERO;
+
+            double estimate = normErr;
+
+            do {
+
+                // Lanczos step
+
+                v.fillMatching(y);
+                v.modifyAll(DIVIDE.second(beta));
+
+                KrylovSubspaceSolver.multiply(equations, v, y);
+                if (oldb != ZERO) {
+                    r1.axpy(-beta / oldb, y);
+                }
+
+                double alfa = v.dot(y);
+                r2.axpy(-alfa / beta, y);
+
+                Primitive64Store tmp = r1;
+                r1 = r2;
+                r2 = y;
+                y = tmp;
+
+                preconditioner.apply(r2, y);
+
+                oldb = beta;
+                beta = r2.dot(y);
+                if (beta < ZERO) {
+                    break; // The preconditioner is not positive definite
+                }
+                beta = Math.sqrt(beta);
+
+                // Apply the previous rotation, and calculate the next
+
+                double oldeps = epsln;
+                double delta = cs * dbar + sn * alfa;
+                double gbar = sn * dbar - cs * alfa;
+                epsln = sn * beta;
+                dbar = -cs * beta;
+
+                double gamma = HYPOT.invoke(gbar, beta);
+                if (gamma == ZERO) {
+                    gamma = MACHINE_EPSILON;
+                }
+                cs = gbar / gamma;
+                sn = beta / gamma;
+                double phi = cs * phibar;
+                phibar = sn * phibar;
+
+                // Update the solution
+
+                tmp = w1;
+                w1 = w2;
+                w2 = w;
+                w = tmp;
+
+                w.fillMatching(v);
+                w1.axpy(-oldeps, w);
+                w2.axpy(-delta, w);
+                w.modifyAll(DIVIDE.second(gamma));
+
+                w.axpy(phi, solution);
+
+                estimate = phibar * scale;
+
+                iterations++;
+
+                if (this.isDebugPrinterSet()) {
+                    this.debug(iterations, estimate / normRHS, solution);
+                }
+
+            } while (beta != ZERO && iterations < limit && !Double.isNaN(estimate) && !accuracy.isSmall(normRHS, estimate));
+
+            // The (true) residual, also the starting point if restarted
+
+            normErr = KrylovSubspaceSolver.residual(equations, solution, r1);
+
+            if (!(normErr < previous)) {
+                break; // Stagnation
+            }
+        }
+
+        return normErr / normRHS;
+    }
+
+    /**
+     * With null the default, Jacobi using the absolute values of the diagonal elements, is used.
+     */
+    @Override
+    protected void setPreconditioner(final Preconditioner preconditioner) {
+        super.setPreconditioner(preconditioner != null ? preconditioner : new JacobiPreconditioner(true));
+    }
+
+}
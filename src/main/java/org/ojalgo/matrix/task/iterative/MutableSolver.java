@@ -67,11 +67,13 @@ public abstract class MutableSolver<D extends IterativeSolverTask & IterativeSol
         }
         boolean retVal = myRows.add(row);
         Collections.sort(myRows);
+        myDelegate.invalidatePreconditioner();
         return retVal;
     }
 
     public void clear() {
         myRows.clear();
+        myDelegate.invalidatePreconditioner();
     }
 
     public double[] getRHS() {
@@ -79,7 +81,9 @@ public abstract class MutableSolver<D extends IterativeSolverTask & IterativeSol
     }
 
     public boolean remove(final Equation row) {
-        return myRows.remove(row);
+        boolean retVal = myRows.remove(row);
+        myDelegate.invalidatePreconditioner();
+        return retVal;
     }
 
     /**
@@ -124,4 +128,16 @@ public abstract class MutableSolver<D extends IterativeSolverTask & IterativeSol
         myDelegate.setIterationsLimit(iterationsLimit);
     }
 
+    @Override
+    protected void setPreconditioner(final Preconditioner preconditioner) {
+        super.setPreconditioner(preconditioner);
+        myDelegate.setPreconditioner(preconditioner);
+    }
+
+    @Override
+    protected void setPreconditionerReused(final boolean reused) {
+        super.setPreconditionerReused(reused);
+        myDelegate.setPreconditionerReused(reused);
+    }
+
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import java.util.List;
+
+import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * An approximation [M] of the equation system body [A] such that [M][z]=[r] is cheap to solve. Used by the
+ * iterative solvers to speed up convergence. Configure it using
+ * {@link IterativeSolverTask.Configurator#preconditioner(Preconditioner)}.
+ * <p>
+ * The equations are identified by {@link Equation#index}, and that index is also used to identify the
+ * corresponding variable (the diagonal element). Only the square sub-system formed by the equations present
+ * is considered – elements in columns that do not correspond to any of the equations are ignored.
+ * <p>
+ * Preparing (factorising) the preconditioner may be expensive. By default it is prepared again for each
+ * solve, as the solver can't tell if the equation bodies have been modified in place. With
+ * {@link IterativeSolverTask.Configurator#reusePreconditioner(boolean)} switched on, a solver reuses the
+ * prepared preconditioner as long as it is called with the same list of equations, and that list has not
+ * been modified via {@link MutableSolver#add(Equation)}, {@link MutableSolver#remove(Equation)} or
+ * {@link MutableSolver#clear()}. Typically that means it is reused when
+ * {@link MutableSolver#resolve(PhysicalStore, Access1D)} is called repeatedly with different right hand
+ * sides.
+ * <p>
+ * Instances are stateful and should not be shared between solvers.
+ *
+ * @author apete
+ */
+public interface Preconditioner {
+
+    /**
+     * The diagonal blocks, of the given size, are factorised (dense LU). With block size 1 this is the same
+     * as {@link #jacobi()}.
+     */
+    static Preconditioner blockJacobi(final int blockSize) {
+        return new BlockJacobiPreconditioner(blockSize);
+    }
+
+    /**
+     * Zero fill-in incomplete Cholesky, IC(0). Intended for symmetric positive definite systems. If the
+     * factorisation breaks down the diagonal is progressively shifted until it succeeds.
+     */
+    static Preconditioner incompleteCholesky() {
+        return new IncompleteCholesky();
+    }
+
+    /**
+     * Zero fill-in incomplete LU, ILU(0). Works for general (unsymmetric) systems, but note that the
+     * resulting preconditioner is unsymmetric and should not be used with {@link ConjugateGradientSolver}.
+     */
+    static Preconditioner incompleteLU() {
+        return new IncompleteLU();
+    }
+
+    /**
+     * Diagonal scaling
+     */
+    static Preconditioner jacobi() {
+        return new JacobiPreconditioner();
+    }
+
+    /**
+     * Symmetric successive over-relaxation, SSOR. The relaxation factor should be in the range (0,2) – 1.0
+     * gives symmetric Gauss-Seidel.
+     */
+    static Preconditioner ssor(final double relaxation) {
+        return new SSORPreconditioner(relaxation);
+    }
+
+    /**
+     * Solve [M][z]=[r] – the elements corresponding to the equations prepared for are set. Other elements in
+     * the output are not touched.
+     *
+     * @param input The residual [r]
+     * @param output The preconditioned residual [z]
+     */
+    void apply(Access1D<?> input, PhysicalStore<Double> output);
+
+    /**
+     * Set up, typically factorise, the preconditioner for these equations.
+     *
+     * @param equations The rows of the equation system body
+     * @param dim The total number of variables (the length of a solution vector)
+     */
+    void prepare(List<Equation> equations, int dim);
+
+}
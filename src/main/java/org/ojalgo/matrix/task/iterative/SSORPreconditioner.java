@@ -0,0 +1,99 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+/**
+ * Symmetric successive over-relaxation: [M] = ([D] + ω[L]) [D]<sup>-1</sup> ([D] + ω[U]) / (ω(2-ω)), where
+ * [D], [L] and [U] are the diagonal, strictly lower and strictly upper triangular parts of [A]. There is
+ * nothing to factorise – applying it is one forward and one backward sweep.
+ *
+ * @author apete
+ */
+final class SSORPreconditioner extends SparsePreconditioner {
+
+    private double[] myDiagonalValues;
+    private final double myRelaxation;
+
+    SSORPreconditioner(final double relaxation) {
+        super();
+        if (relaxation <= ZERO || relaxation >= TWO) {
+            throw new IllegalArgumentException("The relaxation factor must be in the range (0,2)!");
+        }
+        myRelaxation = relaxation;
+    }
+
+    @Override
+    void factorise() {
+
+        int dim = this.getDim();
+        int[] diagonal = this.getDiagonal();
+        double[] values = this.getValues();
+
+        myDiagonalValues = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            double value = values[diagonal[i]];
+            myDiagonalValues[i] = value != ZERO ? value : ONE;
+        }
+    }
+
+    @Override
+    void solve(final double[] vector) {
+
+        int[] pointers = this.getPointers();
+        int[] columns = this.getColumns();
+        int[] diagonal = this.getDiagonal();
+        double[] values = this.getValues();
+        double[] diagonalValues = myDiagonalValues;
+        double omega = myRelaxation;
+
+        int dim = this.getDim();
+
+        for (int i = 0; i < dim; i++) {
+            double value = vector[i];
+            for (int p = pointers[i]; p < diagonal[i]; p++) {
+                value -= omega * values[p] * vector[columns[p]];
+            }
+            vector[i] = value / diagonalValues[i];
+        }
+
+        for (int i = 0; i < dim; i++) {
+            vector[i] *= diagonalValues[i];
+        }
+
+        double scale = omega * (TWO - omega);
+
+        for (int i = dim - 1; i >= 0; i--) {
+            double value = vector[i];
+            for (int p = diagonal[i] + 1; p < pointers[i + 1]; p++) {
+                value -= omega * values[p] * vector[columns[p]];
+            }
+            vector[i] = value / diagonalValues[i];
+        }
+
+        for (int i = 0; i < dim; i++) {
+            vector[i] *= scale;
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.ElementView1D;
+
+/**
+ * Common base for the preconditioners that need the (local) sparse structure of [A]. Preparing copies the
+ * equations to compressed sparse row form, with local indices, sorted columns and the diagonal element
+ * always present. Applying maps between the global (equation index) and the local indices.
+ *
+ * @author apete
+ */
+abstract class SparsePreconditioner implements Preconditioner {
+
+    private int[] myColumns;
+    private int[] myDiagonal;
+    private int[] myIndices = new int[0];
+    private int[] myLocal = new int[0];
+    private int[] myPointers;
+    private double[] myValues;
+    private double[] myWork;
+
+    SparsePreconditioner() {
+        super();
+    }
+
+    public final void apply(final Access1D<?> input, final PhysicalStore<Double> output) {
+
+        int[] indices = myIndices;
+        double[] work = myWork;
+
+        for (int k = 0; k < indices.length; k++) {
+            work[k] = input.doubleValue(indices[k]);
+        }
+
+        this.solve(work);
+
+        for (int k = 0; k < indices.length; k++) {
+            output.set(indices[k], work[k]);
+        }
+    }
+
+    public final void prepare(final List<Equation> equations, final int dim) {
+
+        int nbEquations = equations.size();
+
+        if (myLocal.length != dim) {
+            myLocal = new int[dim];
+            Arrays.fill(myLocal, -1);
+        }
+        int[] local = myLocal;
+
+        myIndices = new int[nbEquations];
+        for (int k = 0; k < nbEquations; k++) {
+            int index = equations.get(k).index;
+            myIndices[k] = index;
+            local[index] = k;
+        }
+
+        int[] pointers = new int[nbEquations + 1];
+        for (int k = 0; k < nbEquations; k++) {
+            int count = 0;
+            boolean diagonal = false;
+            for (ElementView1D<?, ?> element : equations.get(k).getBody().nonzeros()) {
+                int j = local[Math.toIntExact(element.index())];
+                if (j >= 0 && element.doubleValue() != ZERO) {
+                    count++;
+                    diagonal |= j == k;
+                }
+            }
+            pointers[k + 1] = pointers[k] + (diagonal ? count : count + 1);
+        }
+
+        int[] columns = new int[pointers[nbEquations]];
+        double[] values = new double[pointers[nbEquations]];
+        int[] diagonal = new int[nbEquations];
+
+        for (int k = 0; k < nbEquations; k++) {
+
+            int first = pointers[k];
+            int limit = pointers[k + 1];
+            int pos = first;
+            boolean found = false;
+
+            for (ElementView1D<?, ?> element : equations.get(k).getBody().nonzeros()) {
+                int j = local[Math.toIntExact(element.index())];
+                double value = element.doubleValue();
+                if (j >= 0 && value != ZERO) {
+                    columns[pos] = j;
+                    values[pos++] = value;
+                    found |= j == k;
+                }
+            }
+            if (!found) {
+                columns[pos] = k;
+                values[pos] = ZERO;
+            }
+
+            // Insertion sort – typically already sorted
+            for (int p = first + 1; p < limit; p++) {
+                int col = columns[p];
+                double val = values[p];
+                int q = p - 1;
+                while (q >= first && columns[q] > col) {
+                    columns[q + 1] = columns[q];
+                    values[q + 1] = values[q];
+                    q--;
+                }
+                columns[q + 1] = col;
+                values[q + 1] = val;
+            }
+
+            for (int p = first; p < limit; p++) {
+                if (columns[p] == k) {
+                    diagonal[k] = p;
+                }
+            }
+        }
+
+        for (int k = 0; k < nbEquations; k++) {
+            local[myIndices[k]] = -1;
+        }
+
+        myPointers = pointers;
+        myColumns = columns;
+        myValues = values;
+        myDiagonal = diagonal;
+        myWork = new double[nbEquations];
+
+        this.factorise();
+    }
+
+    /**
+     * Called after the structure has been (re)built
+     */
+    abstract void factorise();
+
+    final int[] getColumns() {
+        return myColumns;
+    }
+
+    /**
+     * @return The positions of the diagonal elements
+     */
+    final int[] getDiagonal() {
+        return myDiagonal;
+    }
+
+    final int getDim() {
+        return myIndices.length;
+    }
+
+    final int[] getPointers() {
+        return myPointers;
+    }
+
+    final double[] getValues() {
+        return myValues;
+    }
+
+    /**
+     * Solve [M][z]=[r] in place, using local indices
+     */
+    abstract void solve(double[] vector);
+
+}
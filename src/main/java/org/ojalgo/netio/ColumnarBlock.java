@@ -0,0 +1,441 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A fixed capacity block of primitive columns – the unit of storage of {@link ColumnarWriter} and
+ * {@link ColumnarReader}. Floating point columns ({@link Type#DOUBLE} and {@link Type#FLOAT}) are backed by
+ * double[] and integral columns ({@link Type#INT} and {@link Type#LONG}) by long[]. Each block also keeps
+ * (per column) the minimum and maximum values. Those are stored in a header, before the (compressed) data, so
+ * that blocks can be skipped without being read or decompressed.
+ * <p>
+ * Instances are reused by the readers and writers – don't hold on to them.
+ *
+ * @author apete
+ */
+public final class ColumnarBlock {
+
+    public enum Codec {
+
+        /**
+         * java.util.zip deflate, using the fastest setting
+         */
+        DEFLATE,
+
+        /**
+         * No compression
+         */
+        NONE;
+
+    }
+
+    public enum Type {
+
+        DOUBLE(8, false), FLOAT(4, false), INT(4, true), LONG(8, true);
+
+        final int bytes;
+        final boolean integral;
+
+        Type(final int bytes, final boolean integral) {
+            this.bytes = bytes;
+            this.integral = integral;
+        }
+
+    }
+
+    private final int myCapacity;
+    private final double[][] myDoubles;
+    private final long[][] myLongs;
+    private final long[] myMaximum;
+    private final long[] myMinimum;
+    private final Type[] myTypes;
+    /**
+     * Encode/decode work area, and the compressed data
+     */
+    private byte[] myPacked = new byte[0];
+    private int myPackedLength = 0;
+    private final byte[] myRaw;
+    int size = 0;
+
+    ColumnarBlock(final Type[] types, final int capacity) {
+
+        super();
+
+        myTypes = types;
+        myCapacity = capacity;
+
+        int nbColumns = types.length;
+        int rowBytes = 0;
+
+        myDoubles = new double[nbColumns][];
+        myLongs = new long[nbColumns][];
+        for (int c = 0; c < nbColumns; c++) {
+            if (types[c].integral) {
+                myLongs[c] = new long[capacity];
+            } else {
+                myDoubles[c] = new double[capacity];
+            }
+            rowBytes += types[c].bytes;
+        }
+
+        myMinimum = new long[nbColumns];
+        myMaximum = new long[nbColumns];
+
+        myRaw = new byte[rowBytes * capacity];
+    }
+
+    public int capacity() {
+        return myCapacity;
+    }
+
+    public int countColumns() {
+        return myTypes.length;
+    }
+
+    /**
+     * The backing array of a floating point column. Only the first {@link #size()} elements are valid.
+     */
+    public double[] doubles(final int column) {
+        return myDoubles[column];
+    }
+
+    public double doubleValue(final int column, final int row) {
+        return myTypes[column].integral ? myLongs[column][row] : myDoubles[column][row];
+    }
+
+    /**
+     * For integral columns the value is converted, and for very large values that may be inexact.
+     */
+    public double getMaximum(final int column) {
+        return myTypes[column].integral ? myMaximum[column] : Double.longBitsToDouble(myMaximum[column]);
+    }
+
+    /**
+     * For integral columns the value is converted, and for very large values that may be inexact.
+     */
+    public double getMinimum(final int column) {
+        return myTypes[column].integral ? myMinimum[column] : Double.longBitsToDouble(myMinimum[column]);
+    }
+
+    public Type getType(final int column) {
+        return myTypes[column];
+    }
+
+    /**
+     * The backing array of an integral column. Only the first {@link #size()} elements are valid.
+     */
+    public long[] longs(final int column) {
+        return myLongs[column];
+    }
+
+    public long longValue(final int column, final int row) {
+        return myTypes[column].integral ? myLongs[column][row] : (long) myDoubles[column][row];
+    }
+
+    public void set(final int column, final int row, final double value) {
+        if (myTypes[column].integral) {
+            myLongs[column][row] = (long) value;
+        } else {
+            myDoubles[column][row] = value;
+        }
+    }
+
+    public void set(final int column, final int row, final long value) {
+        if (myTypes[column].integral) {
+            myLongs[column][row] = value;
+        } else {
+            myDoubles[column][row] = value;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarBlock [size=" + size + ", capacity=" + myCapacity + ", types=" + Arrays.toString(myTypes) + "]";
+    }
+
+    private int pack(final Codec codec, final Deflater deflater) {
+
+        int length = this.shuffle();
+
+        if (codec == Codec.DEFLATE) {
+
+            deflater.reset();
+            deflater.setInput(myRaw, 0, length);
+            deflater.finish();
+
+            int packed = 0;
+            while (!deflater.finished()) {
+                if (packed == myPacked.length) {
+                    myPacked = Arrays.copyOf(myPacked, Math.max(1024, 2 * myPacked.length));
+                }
+                packed += deflater.deflate(myPacked, packed, myPacked.length - packed);
+            }
+            return packed;
+
+        } else {
+
+            if (myPacked.length < length) {
+                myPacked = new byte[length];
+            }
+            System.arraycopy(myRaw, 0, myPacked, 0, length);
+            return length;
+        }
+    }
+
+    /**
+     * Column by column, and within each column the values are byte-shuffled (all the first bytes, then all the
+     * second bytes...) – similar values then result in long runs of similar bytes that compress well.
+     *
+     * @return The number of bytes used
+     */
+    private int shuffle() {
+
+        int offset = 0;
+
+        for (int c = 0; c < myTypes.length; c++) {
+
+            Type type = myTypes[c];
+            int width = type.bytes;
+
+            for (int r = 0; r < size; r++) {
+
+                long bits;
+                switch (type) {
+                case DOUBLE:
+                    bits = Double.doubleToRawLongBits(myDoubles[c][r]);
+                    break;
+                case FLOAT:
+                    bits = Float.floatToRawIntBits((float) myDoubles[c][r]);
+                    break;
+                default:
+                    bits = myLongs[c][r];
+                    break;
+                }
+
+                for (int b = 0, pos = offset + r; b < width; b++, pos += size) {
+                    myRaw[pos] = (byte) (bits >>> 8 * (width - 1 - b));
+                }
+            }
+
+            offset += width * size;
+        }
+
+        return offset;
+    }
+
+    private void statistics() {
+
+        for (int c = 0; c < myTypes.length; c++) {
+
+            if (myTypes[c].integral) {
+
+                long[] values = myLongs[c];
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (int r = 0; r < size; r++) {
+                    min = Math.min(min, values[r]);
+                    max = Math.max(max, values[r]);
+                }
+                myMinimum[c] = min;
+                myMaximum[c] = max;
+
+            } else {
+
+                // FLOAT columns are stored rounded – the statistics must match what is read back
+                boolean rounded = myTypes[c] == Type.FLOAT;
+
+                double[] values = myDoubles[c];
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int r = 0; r < size; r++) {
+                    double value = rounded ? (float) values[r] : values[r];
+                    if (value < min) {
+                        min = value;
+                    }
+                    if (value > max) {
+                        max = value;
+                    }
+                }
+                myMinimum[c] = Double.doubleToRawLongBits(min);
+                myMaximum[c] = Double.doubleToRawLongBits(max);
+            }
+        }
+    }
+
+    private void unshuffle() {
+
+        int offset = 0;
+
+        for (int c = 0; c < myTypes.length; c++) {
+
+            Type type = myTypes[c];
+            int width = type.bytes;
+
+            for (int r = 0; r < size; r++) {
+
+                long bits = 0L;
+                for (int b = 0, pos = offset + r; b < width; b++, pos += size) {
+                    bits = bits << 8 | myRaw[pos] & 0xFF;
+                }
+
+                switch (type) {
+                case DOUBLE:
+                    myDoubles[c][r] = Double.longBitsToDouble(bits);
+                    break;
+                case FLOAT:
+                    myDoubles[c][r] = Float.intBitsToFloat((int) bits);
+                    break;
+                case INT:
+                    myLongs[c][r] = (int) bits;
+                    break;
+                default:
+                    myLongs[c][r] = bits;
+                    break;
+                }
+            }
+
+            offset += width * size;
+        }
+    }
+
+    /**
+     * Decompress and decode the data read by {@link #readData(DataInput)}
+     */
+    void decode(final Codec codec, final Inflater inflater) {
+
+        int length = 0;
+        for (int c = 0; c < myTypes.length; c++) {
+            length += myTypes[c].bytes * size;
+        }
+
+        if (codec == Codec.DEFLATE) {
+            inflater.reset();
+            inflater.setInput(myPacked, 0, myPackedLength);
+            try {
+                int unpacked = 0;
+                while (unpacked < length && !inflater.finished()) {
+                    int count = inflater.inflate(myRaw, unpacked, length - unpacked);
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    unpacked += count;
+                }
+                if (unpacked != length) {
+                    throw new IllegalStateException("Corrupt block!");
+                }
+            } catch (DataFormatException cause) {
+                throw new IllegalStateException(cause);
+            }
+        } else {
+            System.arraycopy(myPacked, 0, myRaw, 0, length);
+        }
+
+        this.unshuffle();
+    }
+
+    /**
+     * Reads the (compressed) data that follows the header. Call this or {@link #skipData(DataInput)} after
+     * each {@link #readHeader(DataInput)}.
+     */
+    void readData(final DataInput input) throws IOException {
+        input.readFully(myPacked, 0, myPackedLength);
+    }
+
+    /**
+     * Reads the block size, the length of the (compressed) data and the minimum and maximum values, but not
+     * the data itself.
+     *
+     * @return false on EOF
+     */
+    boolean readHeader(final DataInput input) throws IOException {
+
+        int rows;
+        try {
+            rows = input.readInt();
+        } catch (EOFException cause) {
+            return false;
+        }
+
+        int length = input.readInt();
+        if (myPacked.length < length) {
+            myPacked = new byte[length];
+        }
+        myPackedLength = length;
+
+        for (int c = 0; c < myTypes.length; c++) {
+            myMinimum[c] = input.readLong();
+            myMaximum[c] = input.readLong();
+        }
+
+        size = rows;
+
+        return true;
+    }
+
+    /**
+     * Skips the (compressed) data that follows the header.
+     */
+    void skipData(final DataInput input) throws IOException {
+        for (int remaining = myPackedLength; remaining > 0;) {
+            int skipped = input.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * Encode, compress and write: a header with the block size, the length of the (compressed) data and the
+     * minimum and maximum value of each column – and then the data.
+     */
+    void write(final DataOutput output, final Codec codec, final Deflater deflater) throws IOException {
+
+        this.statistics();
+
+        int length = this.pack(codec, deflater);
+
+        output.writeInt(size);
+        output.writeInt(length);
+
+        for (int c = 0; c < myTypes.length; c++) {
+            output.writeLong(myMinimum[c]);
+            output.writeLong(myMaximum[c]);
+        }
+
+        output.write(myPacked, 0, length);
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+/**
+ * Maps items to/from rows of a {@link ColumnarBlock}. This is the {@link ColumnarWriter} and
+ * {@link ColumnarReader} equivalent of {@link DataInterpreter} – only applicable to types that can be
+ * represented as a fixed number of primitive values.
+ *
+ * @author apete
+ */
+public interface ColumnarInterpreter<T> {
+
+    /**
+     * Create an item from the values in the specified row.
+     */
+    T deserialize(ColumnarBlock block, int row);
+
+    /**
+     * The number and types of the columns. Must always return the same.
+     */
+    ColumnarBlock.Type[] getColumnTypes();
+
+    /**
+     * Set the values of the specified row – all columns.
+     */
+    void serialize(T item, ColumnarBlock block, int row);
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Predicate;
+import java.util.zip.Inflater;
+
+import org.ojalgo.netio.ColumnarBlock.Codec;
+
+/**
+ * Reads files written by {@link ColumnarWriter}. Items can be read one at the time using {@link #read()},
+ * but the main feature is to read whole (decoded) blocks using {@link #readBlock()} or
+ * {@link #readBlock(Predicate)} – the values are then available as primitive arrays.
+ *
+ * @author apete
+ */
+public final class ColumnarReader<T> implements FromFileReader<T> {
+
+    public static <T> ColumnarReader<T> of(final File file, final ColumnarInterpreter<T> interpreter) {
+        return new ColumnarReader<>(FromFileReader.input(file), interpreter);
+    }
+
+    public static <T> ColumnarReader<T> of(final InMemoryFile file, final ColumnarInterpreter<T> interpreter) {
+        return new ColumnarReader<>(file.newInputStream(), interpreter);
+    }
+
+    private final ColumnarBlock myBlock;
+    private final Codec myCodec;
+    private final Inflater myInflater;
+    private final DataInputStream myInput;
+    private final ColumnarInterpreter<T> myInterpreter;
+    private int myRow = 0;
+
+    public ColumnarReader(final InputStream inputStream, final ColumnarInterpreter<T> interpreter) {
+
+        super();
+
+        myInput = new DataInputStream(new BufferedInputStream(inputStream));
+        myInterpreter = interpreter;
+
+        ColumnarBlock.Type[] types = interpreter.getColumnTypes();
+
+        try {
+
+            if (myInput.readInt() != ColumnarWriter.MAGIC) {
+                throw new IllegalStateException("Not a columnar file!");
+            }
+
+            myCodec = Codec.values()[myInput.readByte()];
+            int blockSize = myInput.readInt();
+
+            int nbColumns = myInput.readInt();
+            if (nbColumns != types.length) {
+                throw new IllegalStateException("Incompatible columns!");
+            }
+            for (int c = 0; c < nbColumns; c++) {
+                if (myInput.readByte() != types[c].ordinal()) {
+                    throw new IllegalStateException("Incompatible columns!");
+                }
+            }
+
+            myBlock = new ColumnarBlock(types, blockSize);
+
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+
+        myInflater = myCodec == Codec.DEFLATE ? new Inflater() : null;
+    }
+
+    public void close() throws IOException {
+        if (myInflater != null) {
+            myInflater.end();
+        }
+        myInput.close();
+    }
+
+    public T read() {
+
+        if (myRow >= myBlock.size && this.readBlock() == null) {
+            return null;
+        }
+
+        return myInterpreter.deserialize(myBlock, myRow++);
+    }
+
+    /**
+     * @return The next block, or null if there are no more. Any rows of the previous block, not yet returned
+     *         by {@link #read()}, are skipped.
+     */
+    public ColumnarBlock readBlock() {
+        return this.readBlock(null);
+    }
+
+    /**
+     * Blocks that the filter rejects are skipped without their data being read, decompressed or decoded.
+     * When the filter is evaluated only the size, minimum and maximum values (the block header) are
+     * available – not the actual column values.
+     *
+     * @param filter Decides if a block should be decoded, or skipped. May be null.
+     * @return The next accepted block, or null if there are no more.
+     */
+    public ColumnarBlock readBlock(final Predicate<ColumnarBlock> filter) {
+
+        myRow = 0;
+
+        try {
+
+            while (myBlock.readHeader(myInput)) {
+                if (filter == null || filter.test(myBlock)) {
+                    myBlock.readData(myInput);
+                    myBlock.decode(myCodec, myInflater);
+                    return myBlock;
+                }
+                myBlock.skipData(myInput);
+            }
+
+            myBlock.size = 0;
+            return null;
+
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import org.ojalgo.netio.ColumnarBlock.Codec;
+
+/**
+ * Writes items in blocks of primitive columns – a compact binary format for numeric data. Each block is
+ * (optionally) compressed and has a header with per column minimum and maximum values. Read the files with
+ * {@link ColumnarReader}.
+ *
+ * @author apete
+ */
+public final class ColumnarWriter<T> implements ToFileWriter<T> {
+
+    static final int DEFAULT_BLOCK_SIZE = 4096;
+    static final int MAGIC = 0x434F4C42;
+
+    public static <T> ColumnarWriter<T> of(final File file, final ColumnarInterpreter<T> interpreter) {
+        return new ColumnarWriter<>(ToFileWriter.output(file), interpreter, DEFAULT_BLOCK_SIZE, Codec.DEFLATE);
+    }
+
+    public static <T> ColumnarWriter<T> of(final File file, final ColumnarInterpreter<T> interpreter, final int blockSize, final Codec codec) {
+        return new ColumnarWriter<>(ToFileWriter.output(file), interpreter, blockSize, codec);
+    }
+
+    public static <T> ColumnarWriter<T> of(final InMemoryFile file, final ColumnarInterpreter<T> interpreter, final int blockSize, final Codec codec) {
+        return new ColumnarWriter<>(file.newOutputStream(), interpreter, blockSize, codec);
+    }
+
+    private final ColumnarBlock myBlock;
+    private final Codec myCodec;
+    private final Deflater myDeflater;
+    private final ColumnarInterpreter<T> myInterpreter;
+    private final DataOutputStream myOutput;
+
+    /**
+     * @param outputStream Where to write
+     * @param interpreter Maps items to rows
+     * @param blockSize The (max) number of rows in each block
+     * @param codec The compression codec
+     */
+    public ColumnarWriter(final OutputStream outputStream, final ColumnarInterpreter<T> interpreter, final int blockSize, final Codec codec) {
+
+        super();
+
+        myOutput = new DataOutputStream(new BufferedOutputStream(outputStream));
+        myInterpreter = interpreter;
+        myCodec = codec;
+        myDeflater = codec == Codec.DEFLATE ? new Deflater(Deflater.BEST_SPEED) : null;
+
+        ColumnarBlock.Type[] types = interpreter.getColumnTypes();
+        myBlock = new ColumnarBlock(types, blockSize);
+
+        try {
+            myOutput.writeInt(MAGIC);
+            myOutput.writeByte(codec.ordinal());
+            myOutput.writeInt(blockSize);
+            myOutput.writeInt(types.length);
+            for (int c = 0; c < types.length; c++) {
+                myOutput.writeByte(types[c].ordinal());
+            }
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+    }
+
+    public void close() throws IOException {
+        try {
+            if (myBlock.size > 0) {
+                this.flush();
+            }
+        } finally {
+            if (myDeflater != null) {
+                myDeflater.end();
+            }
+            myOutput.close();
+        }
+    }
+
+    public void write(final T itemToWrite) {
+
+        myInterpreter.serialize(itemToWrite, myBlock, myBlock.size);
+
+        if (++myBlock.size == myBlock.capacity()) {
+            try {
+                this.flush();
+            } catch (IOException cause) {
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        myBlock.write(myOutput, myCodec, myDeflater);
+        myBlock.size = 0;
+    }
+
+}
@@ -21,13 +21,26 @@
  */
 package org.ojalgo.netio;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.ojalgo.ProgrammingError;
+import org.ojalgo.concurrent.ProcessingService;
 import org.ojalgo.netio.EnumeratedColumnsParser.LineView;
 import org.ojalgo.type.context.TypeContext;
+import org.ojalgo.type.management.Throughput;
 
 public final class EnumeratedColumnsParser implements BasicParser<LineView> {
 
@@ -63,7 +76,7 @@ public final class EnumeratedColumnsParser implements BasicParser<LineView> {
     public static abstract class LineView {
 
         final char delimiter;
-        transient String line = null;
+        transient CharSequence line = null;
         final int numberOfColumns;
 
         @SuppressWarnings("unused")
@@ -80,9 +93,17 @@ public final class EnumeratedColumnsParser implements BasicParser<LineView> {
         }
 
         public final double doubleValue(final Enum<?> column) {
-            final String tmpStringValue = this.get(column.ordinal());
-            if ((tmpStringValue != null) && (tmpStringValue.length() > 0)) {
-                return Double.parseDouble(tmpStringValue);
+            return this.doubleValue(column.ordinal());
+        }
+
+        /**
+         * Parsed directly from the line, without first extracting the field as a {@link String}.
+         */
+        public final double doubleValue(final int column) {
+            int begin = this.begin(column);
+            int end = this.end(column);
+            if (begin < end) {
+                return TypeParser.parseDouble(line, begin, end);
             } else {
                 return Double.NaN;
             }
@@ -110,7 +131,9 @@ public final class EnumeratedColumnsParser implements BasicParser<LineView> {
             }
         }
 
-        public abstract String get(final int column);
+        public String get(final int column) {
+            return line.subSequence(this.begin(column), this.end(column)).toString();
+        }
 
         public final long intValue(final Enum<?> column) {
             final String tmpStringValue = this.get(column.ordinal());
@@ -126,9 +149,17 @@ public final class EnumeratedColumnsParser implements BasicParser<LineView> {
         }
 
         public final long longValue(final Enum<?> column) {
-            final String tmpStringValue = this.get(column.ordinal());
-            if ((tmpStringValue != null) && (tmpStringValue.length() > 0)) {
-                return Long.parseLong(tmpStringValue);
+            return this.longValue(column.ordinal());
+        }
+
+        /**
+         * Parsed directly from the line, without first extracting the field as a {@link String}.
+         */
+        public final long longValue(final int column) {
+            int begin = this.begin(column);
+            int end = this.end(column);
+            if (begin < end) {
+                return TypeParser.parseLong(line, begin, end);
             } else {
                 return 0L;
             }
@@ -143,7 +174,17 @@ public final class EnumeratedColumnsParser implements BasicParser<LineView> {
             }
         }
 
-        abstract boolean index(final String line, Supplier<String> lineSupplier);
+        /**
+         * The index of the first character of the column value (within the current line)
+         */
+        abstract int begin(int column);
+
+        /**
+         * The index after the last character of the column value (within the current line)
+         */
+        abstract int end(int column);
+
+        abstract boolean index(final CharSequence line, Supplier<String> lineSupplier);
 
     }
 
@@ -198,23 +239,29 @@ public final class EnumeratedColumnsParser implements BasicParser<LineView> {
         }
 
         @Override
-        public String get(final int column) {
-            return line.substring(myIndices[column] + 1, myIndices[column + 1]);
+        int begin(final int column) {
+            return myIndices[column] + 1;
+        }
+
+        @Override
+        int end(final int column) {
+            return myIndices[column + 1];
         }
 
         @Override
-        boolean index(final String line, final Supplier<String> lineSupplier) {
+        boolean index(final CharSequence line, final Supplier<String> lineSupplier) {
 
             int tmpIndex = 0;
-            int tmpPosition = -1;
-            myIndices[tmpIndex] = tmpPosition;
+            int tmpLength = line.length();
+            myIndices[tmpIndex] = -1;
 
-            while ((tmpPosition = line.indexOf(delimiter, ++tmpPosition)) >= 0) {
-                myIndices[++tmpIndex] = tmpPosition;
+            for (int i = 0; i < tmpLength; i++) {
+                if (line.charAt(i) == delimiter) {
+                    myIndices[++tmpIndex] = i;
+                }
             }
 
-            tmpPosition = line.length();
-            myIndices[++tmpIndex] = tmpPosition;
+            myIndices[++tmpIndex] = tmpLength;
 
             this.line = line;
 
@@ -224,35 +271,42 @@ public final class EnumeratedColumnsParser implements BasicParser<LineView> {
 
     static class QuotedViewStrategy extends LineView {
 
+        private static final char QUOTE = '"';
+
         private final int[] myIndices;
-        private final String mySplitter;
 
         QuotedViewStrategy(final int numberOfColumns, final char delimiter) {
 
             super(numberOfColumns, delimiter);
 
             myIndices = new int[numberOfColumns + 1];
-            mySplitter = String.valueOf(new char[] { '"', delimiter, '"' });
         }
 
         @Override
-        public String get(final int column) {
-            return line.substring(myIndices[column] + 3, myIndices[column + 1]);
+        int begin(final int column) {
+            return myIndices[column] + 3;
         }
 
         @Override
-        boolean index(final String line, final Supplier<String> lineSupplier) {
+        int end(final int column) {
+            return myIndices[column + 1];
+        }
+
+        @Override
+        boolean index(final CharSequence line, final Supplier<String> lineSupplier) {
 
             int tmpIndex = 0;
-            int tmpPosition = -2;
-            myIndices[tmpIndex] = tmpPosition;
+            int tmpLength = line.length();
+            myIndices[tmpIndex] = -2;
 
-            while ((tmpPosition = line.indexOf(mySplitter, ++tmpPosition)) >= 0) {
-                myIndices[++tmpIndex] = tmpPosition;
+            // Look for the quote-delimiter-quote sequence
+            for (int i = 0, limit = tmpLength - 2; i < limit; i++) {
+                if (line.charAt(i) == QUOTE && line.charAt(i + 1) == delimiter && line.charAt(i + 2) == QUOTE) {
+                    myIndices[++tmpIndex] = i;
+                }
             }
 
-            tmpPosition = line.length() - 1;
-            myIndices[++tmpIndex] = tmpPosition;
+            myIndices[++tmpIndex] = tmpLength - 1;
 
             this.line = line;
 
@@ -280,18 +334,28 @@ public final class EnumeratedColumnsParser implements BasicParser<LineView> {
         @Override
         public String get(final int column) {
             if (myEscaped) {
-                return line.substring(myBegin[column], myEnd[column]).replace("\"\"", "\"");
+                return super.get(column).replace("\"\"", "\"");
             } else {
-                return line.substring(myBegin[column], myEnd[column]);
+                return super.get(column);
             }
         }
 
         @Override
-        boolean index(final String line, final Supplier<String> lineSupplier) {
+        int begin(final int column) {
+            return myBegin[column];
+        }
+
+        @Override
+        int end(final int column) {
+            return myEnd[column];
+        }
+
+        @Override
+        boolean index(final CharSequence line, final Supplier<String> lineSupplier) {
 
             myEscaped = false;
 
-            String tmpLine = line;
+            CharSequence tmpLine = line;
 
             int c = 0;
             myBegin[0] = 0;
@@ -322,7 +386,7 @@ public final class EnumeratedColumnsParser implements BasicParser<LineView> {
                         }
                         String nextPart = lineSupplier.get();
                         if (nextPart != null) {
-                            tmpLine = tmpLine + '\n' + nextPart;
+                            tmpLine = tmpLine.toString() + '\n' + nextPart;
                         } else {
                             return false;
                         }
@@ -371,6 +435,118 @@ public final class EnumeratedColumnsParser implements BasicParser<LineView> {
 
     }
 
+    /**
+     * A line aligned part of a file: [begin,end) in bytes
+     */
+    static final class Chunk {
+
+        final long begin;
+        final long end;
+
+        Chunk(final long begin, final long end) {
+            super();
+            this.begin = begin;
+            this.end = end;
+        }
+
+    }
+
+    /**
+     * Parses the lines of a memory mapped {@link Chunk}. Each instance has its own {@link LineView} and
+     * {@link Consumer}, and reuses its (growing) character buffer for every line. Bytes are assumed to be
+     * ASCII – lines containing anything else are decoded as UTF-8 (allocating a {@link String}).
+     */
+    static final class ChunkParser {
+
+        private char[] myChars = new char[256];
+        private final Consumer<LineView> myConsumer;
+        private CharArraySegment mySegment = CharArraySegment.valueOf(myChars, 0, 0);
+        private final LineView myView;
+
+        ChunkParser(final LineView view, final Consumer<LineView> consumer) {
+            super();
+            myView = view;
+            myConsumer = consumer;
+        }
+
+        /**
+         * @return The number of lines consumed
+         */
+        long parse(final ByteBuffer buffer) {
+
+            long retVal = 0L;
+
+            int limit = buffer.limit();
+            int lineBegin = 0;
+            int length = 0;
+            boolean ascii = true;
+
+            for (int i = 0; i < limit; i++) {
+                byte current = buffer.get(i);
+                if (current == '\n') {
+                    if (this.line(buffer, lineBegin, length, ascii)) {
+                        retVal++;
+                    }
+                    lineBegin = i + 1;
+                    length = 0;
+                    ascii = true;
+                } else {
+                    if (length == myChars.length) {
+                        this.grow();
+                    }
+                    myChars[length++] = (char) current;
+                    ascii &= current >= 0;
+                }
+            }
+
+            if (lineBegin < limit && this.line(buffer, lineBegin, length, ascii)) {
+                retVal++;
+            }
+
+            return retVal;
+        }
+
+        private void grow() {
+            myChars = Arrays.copyOf(myChars, 2 * myChars.length);
+            mySegment = CharArraySegment.valueOf(myChars, 0, 0);
+        }
+
+        private boolean line(final ByteBuffer buffer, final int begin, final int length, final boolean ascii) {
+
+            int end = length;
+            if (end > 0 && myChars[end - 1] == '\r') {
+                end--;
+            }
+
+            if (end == 0 || myChars[0] == '#') {
+                return false;
+            }
+
+            CharSequence line;
+            if (ascii) {
+                mySegment.end = end;
+                line = mySegment;
+            } else {
+                byte[] bytes = new byte[end];
+                for (int i = 0; i < end; i++) {
+                    bytes[i] = buffer.get(begin + i);
+                }
+                line = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            if (myView.index(line, null)) {
+                myConsumer.accept(myView);
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+    }
+
+    static final long MAX_CHUNK_SIZE = 1L << 26;
+    static final long MIN_CHUNK_SIZE = 1L << 16;
+
     public static EnumeratedColumnsParser.Builder make(final Class<? extends Enum<?>> columns) {
         return new EnumeratedColumnsParser.Builder(columns.getFields().length);
     }
@@ -379,15 +555,129 @@ public final class EnumeratedColumnsParser implements BasicParser<LineView> {
         return new EnumeratedColumnsParser.Builder(numberOfColumns);
     }
 
+    /**
+     * Splits the file in line aligned chunks – more chunks than workers to even out the load, but large
+     * enough to amortise the cost of mapping them.
+     */
+    static Queue<Chunk> split(final FileChannel channel, final boolean skipHeader, final int parallelism) throws IOException {
+
+        long size = channel.size();
+        long nominal = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size / (4L * parallelism)));
+
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+        Queue<Chunk> retVal = new ConcurrentLinkedQueue<>();
+
+        long begin = skipHeader ? EnumeratedColumnsParser.next(channel, 0L, buffer) : 0L;
+
+        while (begin < size) {
+            long end = Math.min(size, EnumeratedColumnsParser.next(channel, begin + nominal - 1L, buffer));
+            retVal.add(new Chunk(begin, end));
+            begin = end;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * @return The position after the first line break at or after the specified position, or the size of
+     *         the file if there is no such line break.
+     */
+    private static long next(final FileChannel channel, final long position, final ByteBuffer buffer) throws IOException {
+
+        long size = channel.size();
+        long current = position;
+
+        while (current < size) {
+
+            buffer.clear();
+            int read = channel.read(buffer, current);
+            if (read <= 0) {
+                break;
+            }
+
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return current + i + 1L;
+                }
+            }
+
+            current += read;
+        }
+
+        return size;
+    }
+
+    private final int myColumns;
+    private final char myDelimiter;
     private final LineView myLineView;
+    private final ParseStrategy myStrategy;
 
     EnumeratedColumnsParser(final int columns, final char delimiter, final ParseStrategy strategy) {
 
         super();
 
+        myColumns = columns;
+        myDelimiter = delimiter;
+        myStrategy = strategy;
+
         myLineView = strategy.make(columns, delimiter);
     }
 
+    /**
+     * @see #parse(File, boolean, int, Throughput, Supplier)
+     */
+    public void parse(final File file, final boolean skipHeader, final int parallelism, final Supplier<Consumer<LineView>> consumerFactory) {
+        this.parse(file, skipHeader, parallelism, null, consumerFactory);
+    }
+
+    /**
+     * Parse the file using multiple threads. The file is memory mapped and split in line aligned chunks that
+     * are then processed concurrently. Lines are parsed directly from the mapped bytes – there is no
+     * {@link String} per line nor per field, and {@link LineView#doubleValue(int)} and
+     * {@link LineView#longValue(int)} parse the numbers in place.
+     * <p>
+     * Each worker thread has its own {@link LineView} and its own {@link Consumer} (from the factory). The
+     * {@link LineView} instance is reused for every line, and the order in which lines are consumed is
+     * unspecified. The file is assumed to be ASCII or UTF-8 encoded, and line breaks within quoted values are
+     * not supported (with the {@link ParseStrategy#RFC4180} strategy that results in an exception).
+     *
+     * @param file The file to parse
+     * @param skipHeader Skip the first line
+     * @param parallelism The number of worker threads
+     * @param statistics Optional (may be null). The number of consumed lines is added to it.
+     * @param consumerFactory Called once per worker thread
+     */
+    public void parse(final File file, final boolean skipHeader, final int parallelism, final Throughput statistics,
+            final Supplier<Consumer<LineView>> consumerFactory) {
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            Queue<Chunk> chunks = EnumeratedColumnsParser.split(channel, skipHeader, parallelism);
+
+            ProcessingService.INSTANCE.run(Math.max(1, Math.min(parallelism, chunks.size())), () -> {
+
+                ChunkParser parser = new ChunkParser(myStrategy.make(myColumns, myDelimiter), consumerFactory.get());
+
+                Chunk chunk;
+                while ((chunk = chunks.poll()) != null) {
+                    try {
+                        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.begin, chunk.end - chunk.begin);
+                        long count = parser.parse(buffer);
+                        if (statistics != null) {
+                            statistics.add(count);
+                        }
+                    } catch (IOException cause) {
+                        throw new UncheckedIOException(cause);
+                    }
+                }
+            });
+
+        } catch (IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
     public LineView parse(final String line) {
         return this.parseLine(line, null);
     }
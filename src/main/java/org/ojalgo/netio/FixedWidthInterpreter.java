@@ -0,0 +1,180 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.ojalgo.type.keyvalue.EntryPair;
+import org.ojalgo.type.keyvalue.KeyValue;
+
+/**
+ * Maps items to/from fixed size records at absolute positions in a {@link ByteBuffer} – used by
+ * {@link MappedReader} and {@link MappedWriter}. Using the {@link ByteBuffer} default (big-endian) byte order
+ * the records are binary compatible with what a {@link DataInterpreter} would read/write using the
+ * corresponding {@link java.io.DataInput}/{@link java.io.DataOutput} methods.
+ *
+ * @author apete
+ */
+public interface FixedWidthInterpreter<T> {
+
+    FixedWidthInterpreter<Integer> INT = new FixedWidthInterpreter<>() {
+
+        public Integer deserialize(final ByteBuffer buffer, final int position) {
+            return Integer.valueOf(buffer.getInt(position));
+        }
+
+        public int getRecordSize() {
+            return Integer.BYTES;
+        }
+
+        public void serialize(final Integer item, final ByteBuffer buffer, final int position) {
+            buffer.putInt(position, item.intValue());
+        }
+
+    };
+
+    FixedWidthInterpreter<Long> LONG = new FixedWidthInterpreter<>() {
+
+        public Long deserialize(final ByteBuffer buffer, final int position) {
+            return Long.valueOf(buffer.getLong(position));
+        }
+
+        public int getRecordSize() {
+            return Long.BYTES;
+        }
+
+        public void serialize(final Long item, final ByteBuffer buffer, final int position) {
+            buffer.putLong(position, item.longValue());
+        }
+
+    };
+
+    /**
+     * Records of {@code length} doubles
+     */
+    static FixedWidthInterpreter<double[]> newDoubleArray(final int length) {
+
+        return new FixedWidthInterpreter<>() {
+
+            public double[] deserialize(final ByteBuffer buffer, final int position) {
+                double[] retVal = new double[length];
+                for (int i = 0; i < length; i++) {
+                    retVal[i] = buffer.getDouble(position + i * Double.BYTES);
+                }
+                return retVal;
+            }
+
+            public int getRecordSize() {
+                return length * Double.BYTES;
+            }
+
+            public void serialize(final double[] item, final ByteBuffer buffer, final int position) {
+                for (int i = 0; i < length; i++) {
+                    buffer.putDouble(position + i * Double.BYTES, item[i]);
+                }
+            }
+
+        };
+    }
+
+    /**
+     * Records of {@code length} floats
+     */
+    static FixedWidthInterpreter<float[]> newFloatArray(final int length) {
+
+        return new FixedWidthInterpreter<>() {
+
+            public float[] deserialize(final ByteBuffer buffer, final int position) {
+                float[] retVal = new float[length];
+                for (int i = 0; i < length; i++) {
+                    retVal[i] = buffer.getFloat(position + i * Float.BYTES);
+                }
+                return retVal;
+            }
+
+            public int getRecordSize() {
+                return length * Float.BYTES;
+            }
+
+            public void serialize(final float[] item, final ByteBuffer buffer, final int position) {
+                for (int i = 0; i < length; i++) {
+                    buffer.putFloat(position + i * Float.BYTES, item[i]);
+                }
+            }
+
+        };
+    }
+
+    /**
+     * Same record layout as {@link DataInterpreter#newScoredDual(DataInterpreter)}
+     */
+    static <T> FixedWidthInterpreter<EntryPair.KeyedPrimitive<KeyValue.Dual<T>>> newScoredDual(final FixedWidthInterpreter<T> keyInterpreter) {
+
+        int keySize = keyInterpreter.getRecordSize();
+
+        return new FixedWidthInterpreter<>() {
+
+            public EntryPair.KeyedPrimitive<KeyValue.Dual<T>> deserialize(final ByteBuffer buffer, final int position) {
+                T first = keyInterpreter.deserialize(buffer, position);
+                T second = keyInterpreter.deserialize(buffer, position + keySize);
+                return EntryPair.of(first, second, buffer.getFloat(position + 2 * keySize));
+            }
+
+            public int getRecordSize() {
+                return 2 * keySize + Float.BYTES;
+            }
+
+            public void serialize(final EntryPair.KeyedPrimitive<KeyValue.Dual<T>> item, final ByteBuffer buffer, final int position) {
+                KeyValue.Dual<T> key = item.getKey();
+                keyInterpreter.serialize(key.first, buffer, position);
+                keyInterpreter.serialize(key.second, buffer, position + keySize);
+                buffer.putFloat(position + 2 * keySize, item.floatValue());
+            }
+
+        };
+    }
+
+    /**
+     * Create an item from the record at the (absolute) position – must not modify the buffer's position.
+     */
+    T deserialize(ByteBuffer buffer, int position);
+
+    /**
+     * The number of bytes of each record. Must always return the same.
+     */
+    int getRecordSize();
+
+    default MappedReader<T> newReader(final File file) {
+        return MappedReader.of(file, this);
+    }
+
+    default MappedWriter<T> newWriter(final File file) {
+        return MappedWriter.of(file, this);
+    }
+
+    /**
+     * Write the record at the (absolute) position – must not modify the buffer's position.
+     */
+    void serialize(T item, ByteBuffer buffer, int position);
+
+}
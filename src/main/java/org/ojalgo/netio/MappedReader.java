@@ -0,0 +1,132 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads fixed size records from a memory mapped file – no copying through stream buffers, and random access
+ * by record index. The primitive bulk getters copy the values directly from the mapped memory. Re-reading a
+ * file (that fits in the page cache) is then about as fast as reading from memory.
+ * <p>
+ * The sequential {@link #read()} is not thread safe, but {@link #get(long)} and the bulk getters are.
+ *
+ * @author apete
+ */
+public final class MappedReader<T> implements FromFileReader<T> {
+
+    /**
+     * The max size of each mapped region
+     */
+    static final long WINDOW_SIZE = 1L << 30;
+
+    public static <T> MappedReader<T> of(final File file, final FixedWidthInterpreter<T> interpreter) {
+        try {
+            return new MappedReader<>(FileChannel.open(file.toPath(), StandardOpenOption.READ), interpreter, WINDOW_SIZE);
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private final long myCount;
+    private final FixedWidthInterpreter<T> myInterpreter;
+    private final RecordMapping myMapping;
+    private long myPosition = 0L;
+
+    MappedReader(final FileChannel channel, final FixedWidthInterpreter<T> interpreter, final long windowSize) throws IOException {
+
+        super();
+
+        myInterpreter = interpreter;
+        myMapping = new RecordMapping(channel, FileChannel.MapMode.READ_ONLY, interpreter.getRecordSize(), windowSize);
+        myCount = channel.size() / interpreter.getRecordSize();
+    }
+
+    public void close() throws IOException {
+        myMapping.close();
+    }
+
+    /**
+     * The number of (complete) records in the file
+     */
+    public long count() {
+        return myCount;
+    }
+
+    /**
+     * Random access
+     */
+    public T get(final long index) {
+        if (index < 0L || index >= myCount) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        return myInterpreter.deserialize(myMapping.window(index), myMapping.offset(index));
+    }
+
+    /**
+     * Bulk copy of {@code length} doubles starting at the first byte of record {@code index}. The record size
+     * must be a multiple of 8 (typically records are arrays of doubles).
+     */
+    public void getDoubles(final long index, final double[] destination, final int offset, final int length) {
+        myMapping.bulk(index, length, Double.BYTES, (view, done, count) -> view.asDoubleBuffer().get(destination, offset + done, count));
+    }
+
+    /**
+     * @see #getDoubles(long, double[], int, int)
+     */
+    public void getFloats(final long index, final float[] destination, final int offset, final int length) {
+        myMapping.bulk(index, length, Float.BYTES, (view, done, count) -> view.asFloatBuffer().get(destination, offset + done, count));
+    }
+
+    /**
+     * @see #getDoubles(long, double[], int, int)
+     */
+    public void getInts(final long index, final int[] destination, final int offset, final int length) {
+        myMapping.bulk(index, length, Integer.BYTES, (view, done, count) -> view.asIntBuffer().get(destination, offset + done, count));
+    }
+
+    /**
+     * @see #getDoubles(long, double[], int, int)
+     */
+    public void getLongs(final long index, final long[] destination, final int offset, final int length) {
+        myMapping.bulk(index, length, Long.BYTES, (view, done, count) -> view.asLongBuffer().get(destination, offset + done, count));
+    }
+
+    /**
+     * Set the position (record index) of the next {@link #read()}. Use 0 to re-scan the file.
+     */
+    public void position(final long index) {
+        myPosition = index;
+    }
+
+    public T read() {
+        if (myPosition < myCount) {
+            return this.get(myPosition++);
+        } else {
+            return null;
+        }
+    }
+
+}
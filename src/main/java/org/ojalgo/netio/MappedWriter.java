@@ -0,0 +1,136 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes fixed size records to a memory mapped file. Records are appended using {@link #write(Object)}, or
+ * set at any index using {@link #set(long, Object)}. The regions (windows) of the file before the last one
+ * accessed are memory mapped, while that last region is buffered on the heap (up to {@link #WINDOW_SIZE}
+ * bytes) and written to the file using the channel. Thus the file always has the exact size of the records
+ * written, after {@link #close()}, and nothing needs to be truncated while still mapped (which some
+ * platforms, notably Windows, do not allow).
+ * <p>
+ * Not thread safe.
+ *
+ * @author apete
+ */
+public final class MappedWriter<T> implements ToFileWriter<T> {
+
+    /**
+     * The max size of each mapped region, and of the buffered last region
+     */
+    static final long WINDOW_SIZE = 1L << 26;
+
+    public static <T> MappedWriter<T> of(final File file, final FixedWidthInterpreter<T> interpreter) {
+        try {
+            ToFileWriter.mkdirs(file.getParentFile());
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new MappedWriter<>(channel, interpreter, WINDOW_SIZE);
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private long myCount = 0L;
+    private final FixedWidthInterpreter<T> myInterpreter;
+    private final RecordMapping myMapping;
+
+    MappedWriter(final FileChannel channel, final FixedWidthInterpreter<T> interpreter, final long windowSize) {
+
+        super();
+
+        myInterpreter = interpreter;
+        myMapping = new RecordMapping(channel, FileChannel.MapMode.READ_WRITE, interpreter.getRecordSize(), windowSize);
+    }
+
+    public void close() throws IOException {
+        myMapping.flush(myCount);
+        myMapping.close();
+    }
+
+    /**
+     * The number of records written – 1 more than the largest index set.
+     */
+    public long count() {
+        return myCount;
+    }
+
+    /**
+     * Bulk copy of {@code length} doubles starting at the first byte of record {@code index}. The record size
+     * must be a multiple of 8 (typically records are arrays of doubles).
+     */
+    public void putDoubles(final long index, final double[] source, final int offset, final int length) {
+        myMapping.bulk(index, length, Double.BYTES, (view, done, count) -> view.asDoubleBuffer().put(source, offset + done, count));
+        this.extend(index, length * (long) Double.BYTES);
+    }
+
+    /**
+     * @see #putDoubles(long, double[], int, int)
+     */
+    public void putFloats(final long index, final float[] source, final int offset, final int length) {
+        myMapping.bulk(index, length, Float.BYTES, (view, done, count) -> view.asFloatBuffer().put(source, offset + done, count));
+        this.extend(index, length * (long) Float.BYTES);
+    }
+
+    /**
+     * @see #putDoubles(long, double[], int, int)
+     */
+    public void putInts(final long index, final int[] source, final int offset, final int length) {
+        myMapping.bulk(index, length, Integer.BYTES, (view, done, count) -> view.asIntBuffer().put(source, offset + done, count));
+        this.extend(index, length * (long) Integer.BYTES);
+    }
+
+    /**
+     * @see #putDoubles(long, double[], int, int)
+     */
+    public void putLongs(final long index, final long[] source, final int offset, final int length) {
+        myMapping.bulk(index, length, Long.BYTES, (view, done, count) -> view.asLongBuffer().put(source, offset + done, count));
+        this.extend(index, length * (long) Long.BYTES);
+    }
+
+    /**
+     * Random access
+     */
+    public void set(final long index, final T item) {
+        myInterpreter.serialize(item, myMapping.window(index), myMapping.offset(index));
+        myCount = Math.max(myCount, index + 1L);
+    }
+
+    /**
+     * Append
+     */
+    public void write(final T itemToWrite) {
+        this.set(myCount, itemToWrite);
+    }
+
+    private void extend(final long index, final long bytes) {
+        int recordSize = myMapping.getRecordSize();
+        myCount = Math.max(myCount, index + (bytes + recordSize - 1L) / recordSize);
+    }
+
+}
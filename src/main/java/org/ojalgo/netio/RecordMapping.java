@@ -0,0 +1,250 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A file of fixed size records mapped in to memory as a sequence of windows ({@link MappedByteBuffer}:s).
+ * The windows are aligned with the records – a record never spans 2 windows. In
+ * {@link FileChannel.MapMode#READ_WRITE} mode the windows are mapped lazily, but only those that lie before
+ * the last window accessed. That last (tail) window is buffered on the heap and written to the file using
+ * the channel, so that the file never extends beyond the records actually written and never has to be
+ * truncated. In {@link FileChannel.MapMode#READ_ONLY} mode all windows are mapped immediately, and then
+ * (reading) access is thread safe.
+ *
+ * @author apete
+ */
+final class RecordMapping implements Closeable {
+
+    @FunctionalInterface
+    interface Transfer {
+
+        /**
+         * @param view A buffer positioned at the first byte to transfer
+         * @param done The number of elements already transferred
+         * @param count The number of elements to transfer now
+         */
+        void transfer(ByteBuffer view, int done, int count);
+
+    }
+
+    /**
+     * The minimum number of records buffered by the {@link FileChannel.MapMode#READ_WRITE} tail window
+     */
+    private static final int MIN_RECORDS = 8;
+    private static final int WRITE_CHUNK = 1 << 20;
+
+    private final FileChannel myChannel;
+    private final FileChannel.MapMode myMode;
+    private final int myRecordSize;
+    private final int myRecordsPerWindow;
+    /**
+     * In {@link FileChannel.MapMode#READ_WRITE} mode the last window accessed is buffered here, on the heap,
+     * rather than mapped. It's written to the file using {@link FileChannel#write(ByteBuffer, long)} when a
+     * later window is accessed, or on {@link #flush(long)}. Mapping it would extend the file to the full
+     * window size, and a file that is still mapped can't be truncated on all platforms.
+     */
+    private ByteBuffer myTail = null;
+    private int myTailWindow = 0;
+    private final List<MappedByteBuffer> myWindows = new ArrayList<>();
+
+    RecordMapping(final FileChannel channel, final FileChannel.MapMode mode, final int recordSize, final long windowSize) {
+
+        super();
+
+        myChannel = channel;
+        myMode = mode;
+        myRecordSize = recordSize;
+
+        // A multiple of 8 records, so that a window always ends at a primitive element boundary
+        long records = Math.min(windowSize, Integer.MAX_VALUE) / recordSize;
+        myRecordsPerWindow = (int) Math.max(8L, records & ~7L);
+
+        if (mode == FileChannel.MapMode.READ_ONLY) {
+            try {
+                long count = channel.size() / recordSize;
+                if (count > 0L) {
+                    this.window(count - 1L);
+                }
+            } catch (IOException cause) {
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
+    public void close() throws IOException {
+        myWindows.clear();
+        myChannel.close();
+    }
+
+    private void write(final ByteBuffer tail, final int bytes) throws IOException {
+
+        long position = (long) myTailWindow * myRecordsPerWindow * myRecordSize;
+
+        // In chunks, the channel copies heap buffers to (cached) temporary direct buffers of the same size
+        for (int done = 0; done < bytes;) {
+            ByteBuffer chunk = tail.duplicate();
+            chunk.limit(Math.min(bytes, done + WRITE_CHUNK));
+            chunk.position(done);
+            done += myChannel.write(chunk, position + done);
+        }
+    }
+
+    /**
+     * Transfer {@code length} elements of size {@code width}, starting at the first byte of record
+     * {@code index}, window by window.
+     */
+    void bulk(final long index, final int length, final int width, final Transfer transfer) {
+
+        if (myRecordSize % width != 0) {
+            throw new IllegalStateException("The record size must be a multiple of the element size!");
+        }
+
+        long record = index;
+        int done = 0;
+
+        while (done < length) {
+
+            long records = ((length - done) * (long) width + myRecordSize - 1L) / myRecordSize;
+
+            ByteBuffer window = this.window(record, record + records - 1L);
+            int offset = this.offset(record);
+
+            int count = Math.min(length - done, (window.limit() - offset) / width);
+            if (count <= 0) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            ByteBuffer view = window.duplicate();
+            view.position(offset);
+            transfer.transfer(view, done, count);
+
+            done += count;
+            record = (record / myRecordsPerWindow + 1L) * myRecordsPerWindow;
+        }
+    }
+
+    /**
+     * Write the buffered tail window to the file – only the part holding the first {@code count} records
+     * (in total, not only in the tail window), so that the file size is exactly {@code count} records.
+     */
+    void flush(final long count) throws IOException {
+        long bytes = (count - (long) myTailWindow * myRecordsPerWindow) * myRecordSize;
+        this.write(myTail, (int) Math.max(0L, Math.min(bytes, myTail != null ? myTail.capacity() : 0)));
+    }
+
+    int getRecordSize() {
+        return myRecordSize;
+    }
+
+    /**
+     * The byte offset of the record within its window
+     */
+    int offset(final long index) {
+        return (int) (index % myRecordsPerWindow) * myRecordSize;
+    }
+
+    /**
+     * The window containing the record
+     */
+    ByteBuffer window(final long index) {
+        return this.window(index, index);
+    }
+
+    /**
+     * The window containing the first record, mapped (or buffered) to also contain the last record or the
+     * rest of the window – whichever comes first.
+     */
+    ByteBuffer window(final long first, final long last) {
+
+        int window = (int) (first / myRecordsPerWindow);
+        long windowBytes = (long) myRecordsPerWindow * myRecordSize;
+
+        try {
+
+            if (myMode == FileChannel.MapMode.READ_ONLY) {
+
+                while (window >= myWindows.size()) {
+                    long position = myWindows.size() * windowBytes;
+                    long length = Math.max(0L, Math.min(windowBytes, myChannel.size() - position));
+                    myWindows.add(myChannel.map(myMode, position, length));
+                }
+
+                return myWindows.get(window);
+            }
+
+            if (window < myTailWindow) {
+
+                while (window >= myWindows.size()) {
+                    myWindows.add(null);
+                }
+
+                MappedByteBuffer retVal = myWindows.get(window);
+                if (retVal == null) {
+                    // Entirely before the tail window – does not extend the file beyond the tail
+                    retVal = myChannel.map(myMode, window * windowBytes, windowBytes);
+                    myWindows.set(window, retVal);
+                }
+                return retVal;
+            }
+
+            if (window > myTailWindow) {
+                this.write(myTail, myTail != null ? myTail.capacity() : 0);
+                if (myTail != null) {
+                    Arrays.fill(myTail.array(), (byte) 0);
+                }
+                myTailWindow = window;
+            }
+
+            long end = Math.min(last, (window + 1L) * myRecordsPerWindow - 1L);
+            int needed = (int) (end % myRecordsPerWindow) + 1;
+
+            if (myTail == null || myTail.capacity() < needed * myRecordSize) {
+
+                int buffered = myTail != null ? myTail.capacity() / myRecordSize : 0;
+                int records = Math.max(needed, Math.max(MIN_RECORDS, buffered + buffered));
+                records = Math.min(myRecordsPerWindow, (records + 7) & ~7);
+
+                ByteBuffer tail = ByteBuffer.allocate(records * myRecordSize);
+                if (myTail != null) {
+                    tail.put(myTail.array());
+                    tail.clear();
+                }
+                myTail = tail;
+            }
+
+            return myTail;
+
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+    }
+
+}
@@ -27,10 +27,146 @@ import java.util.function.ToLongFunction;
 
 public class TypeParser {
 
-    public static ToDoubleFunction<CharSequence> DOUBLE = value -> Double.parseDouble(value.toString());
+    private static final long EXACT_LIMIT = 1L << 53;
+
+    private static final double[] POWERS_OF_TEN = { 1E0, 1E1, 1E2, 1E3, 1E4, 1E5, 1E6, 1E7, 1E8, 1E9, 1E10, 1E11, 1E12, 1E13, 1E14, 1E15, 1E16, 1E17, 1E18,
+            1E19, 1E20, 1E21, 1E22 };
+
+    public static ToDoubleFunction<CharSequence> DOUBLE = value -> TypeParser.parseDouble(value, 0, value.length());
 
     public static ToIntFunction<CharSequence> INT = value -> Integer.parseInt(value.toString());
 
-    public static ToLongFunction<CharSequence> LONG = value -> Long.parseLong(value.toString());
+    public static ToLongFunction<CharSequence> LONG = value -> TypeParser.parseLong(value, 0, value.length());
+
+    /**
+     * Same result as {@link Double#parseDouble(String)} on the specified range of characters, but without
+     * first creating a {@link String} for the common case of plain decimal numbers (optional sign, digits,
+     * optional decimal point and exponent) with at most 15-16 significant digits. Those are converted
+     * exactly, with a single (correctly rounded) floating point operation. Everything else is delegated to
+     * {@link Double#parseDouble(String)}.
+     */
+    public static double parseDouble(final CharSequence text, final int begin, final int end) {
+
+        int i = begin;
+
+        boolean negative = false;
+        if (i < end) {
+            char first = text.charAt(i);
+            if (first == '-') {
+                negative = true;
+                i++;
+            } else if (first == '+') {
+                i++;
+            }
+        }
+
+        long mantissa = 0L;
+        int exponent = 0;
+        boolean digits = false;
+        boolean decimals = false;
+
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = 10L * mantissa + (c - '0');
+                if (mantissa > EXACT_LIMIT) {
+                    return Double.parseDouble(text.subSequence(begin, end).toString());
+                }
+                if (decimals) {
+                    exponent--;
+                }
+                digits = true;
+            } else if (c == '.' && !decimals) {
+                decimals = true;
+            } else {
+                break;
+            }
+        }
+
+        if (!digits) {
+            return Double.parseDouble(text.subSequence(begin, end).toString());
+        }
+
+        if (i < end) {
+
+            char c = text.charAt(i);
+            if (c != 'e' && c != 'E' || ++i >= end) {
+                return Double.parseDouble(text.subSequence(begin, end).toString());
+            }
+
+            boolean negativeExponent = false;
+            c = text.charAt(i);
+            if (c == '-') {
+                negativeExponent = true;
+                i++;
+            } else if (c == '+') {
+                i++;
+            }
+
+            if (i >= end || end - i > 3) {
+                return Double.parseDouble(text.subSequence(begin, end).toString());
+            }
+
+            int explicit = 0;
+            for (; i < end; i++) {
+                c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    return Double.parseDouble(text.subSequence(begin, end).toString());
+                }
+                explicit = 10 * explicit + (c - '0');
+            }
+
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+
+        double retVal;
+        if (exponent == 0) {
+            retVal = mantissa;
+        } else if (exponent > 0 && exponent < POWERS_OF_TEN.length) {
+            retVal = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            retVal = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return Double.parseDouble(text.subSequence(begin, end).toString());
+        }
+
+        return negative ? -retVal : retVal;
+    }
+
+    /**
+     * Same result as {@link Long#parseLong(String)} on the specified range of characters, but without first
+     * creating a {@link String} (unless there is a problem).
+     */
+    public static long parseLong(final CharSequence text, final int begin, final int end) {
+
+        int i = begin;
+
+        boolean negative = false;
+        if (i < end) {
+            char first = text.charAt(i);
+            if (first == '-') {
+                negative = true;
+                i++;
+            } else if (first == '+') {
+                i++;
+            }
+        }
+
+        if (i >= end || end - i > 18) {
+            // Possible overflow, or nothing to parse
+            return Long.parseLong(text.subSequence(begin, end).toString());
+        }
+
+        long retVal = 0L;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return Long.parseLong(text.subSequence(begin, end).toString());
+            }
+            retVal = 10L * retVal + (c - '0');
+        }
+
+        return negative ? -retVal : retVal;
+    }
 
 }
@@ -0,0 +1,598 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Activity based bound propagation. The linear constraints are copied to primitive arrays (row-wise, with a
+ * column-wise index). Only constraints affected by a bound change are (re)queued for propagation. The
+ * min/max activity of a constraint, given the current variable bounds, is calculated from scratch each time
+ * it is used – with infinite bounds counted separately. Updating the activities incrementally would let
+ * large (finite) bounds cancel, and rounding errors accumulate, possibly tightening bounds wrongly.
+ * <p>
+ * Changes can be recorded and undone: {@link #mark()} sets the state to return to, and {@link #undo()}
+ * restores it exactly. That is what makes it useful both for probing, in {@link ModelPresolver}, and for
+ * the per node propagation of the branch-and-bound search.
+ * <p>
+ * The constraint structure is read-only and shared between instances created with {@link #copy()}, the
+ * bounds, queue and trail are not.
+ *
+ * @author apete
+ */
+public final class BoundPropagator {
+
+    static final double FEASIBILITY = 1E-6;
+    static final double INFINITY = 1E15;
+    static final double INTEGRALITY = 1E-6;
+    /**
+     * Terms, of the activities, larger than this are not subtracted from the activity to get the residual –
+     * the residual is summed instead.
+     */
+    static final double LARGE = 1E6;
+    /**
+     * The relative improvement required for an (implied) bound on a continuous variable to be accepted.
+     * Without this a sequence of ever smaller improvements could go on for a long time.
+     */
+    static final double MIN_IMPROVEMENT = 1E-3;
+    static final double ZERO_FACTOR = 1E-12;
+
+    private static boolean isInfinite(final double bound) {
+        return Math.abs(bound) >= INFINITY;
+    }
+
+    static double tolerance(final double tolerance, final double value) {
+        return tolerance * Math.max(ONE, Math.abs(value));
+    }
+
+    private final int[][] myColumnPositions;
+    private final int[][] myColumnRows;
+    private final boolean[] myExcluded;
+    private final boolean[] myInteger;
+    private final double[] myLower;
+    private final double[] myMaxActivity;
+    private final int[] myMaxInfinite;
+    private final double[] myMinActivity;
+    private final int[] myMinInfinite;
+    private final boolean[] myQueued;
+    private final int[] myQueue;
+    private int myQueueHead = 0;
+    private int myQueueSize = 0;
+    private final double[][] myRowFactors;
+    private final int[][] myRowIndices;
+    private final double[] myRowLower;
+    private final double[] myRowUpper;
+    private int[] myTrail;
+    private double[] myTrailLower;
+    private int myTrailSize = 0;
+    private double[] myTrailUpper;
+    private final double[] myUpper;
+    private long myWork = 0L;
+
+    private BoundPropagator(final BoundPropagator shared) {
+
+        super();
+
+        myColumnPositions = shared.myColumnPositions;
+        myColumnRows = shared.myColumnRows;
+        myInteger = shared.myInteger;
+        myRowFactors = shared.myRowFactors;
+        myRowIndices = shared.myRowIndices;
+        myRowLower = shared.myRowLower;
+        myRowUpper = shared.myRowUpper;
+
+        myExcluded = shared.myExcluded.clone();
+        myLower = shared.myLower.clone();
+        myUpper = shared.myUpper.clone();
+
+        int nbRows = myRowIndices.length;
+
+        myMinActivity = new double[nbRows];
+        myMaxActivity = new double[nbRows];
+        myMinInfinite = new int[nbRows];
+        myMaxInfinite = new int[nbRows];
+        myQueue = new int[Math.max(1, nbRows)];
+        myQueued = new boolean[nbRows];
+
+        myTrail = new int[16];
+        myTrailLower = new double[16];
+        myTrailUpper = new double[16];
+    }
+
+    /**
+     * All rows are initially queued for propagation.
+     *
+     * @param rows The (linear) constraints
+     * @param integer Which variables are integer
+     * @param lower The variable lower bounds (copied)
+     * @param upper The variable upper bounds (copied)
+     */
+    public BoundPropagator(final List<Expression> rows, final boolean[] integer, final double[] lower, final double[] upper) {
+
+        super();
+
+        int nbVars = integer.length;
+        int nbRows = rows.size();
+
+        myInteger = integer.clone();
+        myLower = lower.clone();
+        myUpper = upper.clone();
+
+        myRowIndices = new int[nbRows][];
+        myRowFactors = new double[nbRows][];
+        myRowLower = new double[nbRows];
+        myRowUpper = new double[nbRows];
+
+        int[] counts = new int[nbVars];
+
+        for (int i = 0; i < nbRows; i++) {
+
+            Expression expression = rows.get(i);
+
+            Map<Integer, Double> lookup = new HashMap<>();
+            expression.forEachLinearFactor(false, (index, factor) -> {
+                if (Math.abs(factor) > ZERO_FACTOR) {
+                    lookup.put(index, factor);
+                }
+            });
+
+            int[] indices = lookup.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            double[] factors = new double[indices.length];
+            for (int p = 0; p < indices.length; p++) {
+                factors[p] = lookup.get(indices[p]);
+                counts[indices[p]]++;
+            }
+
+            myRowIndices[i] = indices;
+            myRowFactors[i] = factors;
+            myRowLower[i] = expression.getLowerLimit(false, Double.NEGATIVE_INFINITY);
+            myRowUpper[i] = expression.getUpperLimit(false, Double.POSITIVE_INFINITY);
+        }
+
+        myColumnRows = new int[nbVars][];
+        myColumnPositions = new int[nbVars][];
+        for (int j = 0; j < nbVars; j++) {
+            myColumnRows[j] = new int[counts[j]];
+            myColumnPositions[j] = new int[counts[j]];
+        }
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < nbRows; i++) {
+            int[] indices = myRowIndices[i];
+            for (int p = 0; p < indices.length; p++) {
+                int j = indices[p];
+                myColumnRows[j][counts[j]] = i;
+                myColumnPositions[j][counts[j]] = p;
+                counts[j]++;
+            }
+        }
+
+        myExcluded = new boolean[nbRows];
+        myMinActivity = new double[nbRows];
+        myMaxActivity = new double[nbRows];
+        myMinInfinite = new int[nbRows];
+        myMaxInfinite = new int[nbRows];
+        myQueue = new int[Math.max(1, nbRows)];
+        myQueued = new boolean[nbRows];
+
+        myTrail = new int[16];
+        myTrailLower = new double[16];
+        myTrailUpper = new double[16];
+
+        for (int i = 0; i < nbRows; i++) {
+            this.enqueue(i);
+        }
+    }
+
+    /**
+     * A new instance sharing the (read-only) constraint structure, and with a copy of the current bounds.
+     * The queue and the trail are not copied – they start out empty.
+     */
+    public BoundPropagator copy() {
+        return new BoundPropagator(this);
+    }
+
+    /**
+     * @return The number of bound changes since {@link #mark()}
+     */
+    public int countChanged() {
+        return myTrailSize;
+    }
+
+    /**
+     * @return The variable (index) of the i:th bound change since {@link #mark()}. The same variable may
+     *         occur more than once.
+     */
+    public int getChanged(final int i) {
+        return myTrail[i];
+    }
+
+    public double getLower(final int col) {
+        return myLower[col];
+    }
+
+    public double getUpper(final int col) {
+        return myUpper[col];
+    }
+
+    public boolean isInteger(final int col) {
+        return myInteger[col];
+    }
+
+    /**
+     * Discard the recorded changes – {@link #undo()} will return to the current state.
+     */
+    public void mark() {
+        myTrailSize = 0;
+    }
+
+    /**
+     * Propagate from the queued constraints until the queue is empty. When the work budget is exhausted
+     * the remaining queued constraints are dropped.
+     *
+     * @param budget The amount of work allowed (roughly the number of constraint coefficients looked at)
+     * @return false if infeasibility was detected
+     */
+    public boolean propagate(final long budget) {
+
+        long limit = myWork + budget;
+
+        while (myQueueSize > 0) {
+
+            int row = this.dequeue();
+
+            if (myWork >= limit || myExcluded[row]) {
+                continue;
+            }
+
+            if (!this.propagate(row)) {
+                this.clear();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Set new bounds for a variable, and queue the constraints it is part of for propagation.
+     *
+     * @return false if the bounds are inconsistent (the state is then not changed)
+     */
+    public boolean setBounds(final int col, final double lower, final double upper) {
+
+        if (lower > upper + BoundPropagator.tolerance(FEASIBILITY, upper)) {
+            return false;
+        }
+
+        double newLower = Math.min(lower, upper);
+        double oldLower = myLower[col];
+        double oldUpper = myUpper[col];
+
+        if (newLower == oldLower && upper == oldUpper) {
+            return true;
+        }
+
+        this.record(col);
+        myLower[col] = newLower;
+        myUpper[col] = upper;
+
+        for (int row : myColumnRows[col]) {
+            this.enqueue(row);
+        }
+
+        return true;
+    }
+
+    /**
+     * Return to the state at the most recent {@link #mark()}. Any queued constraints are dropped.
+     */
+    public void undo() {
+
+        for (int t = myTrailSize - 1; t >= 0; t--) {
+            int col = myTrail[t];
+            myLower[col] = myTrailLower[t];
+            myUpper[col] = myTrailUpper[t];
+        }
+
+        this.clear();
+        this.mark();
+    }
+
+    private void calculateActivity(final int row) {
+
+        int[] indices = myRowIndices[row];
+        double[] factors = myRowFactors[row];
+
+        double min = ZERO;
+        double max = ZERO;
+        int minInf = 0;
+        int maxInf = 0;
+
+        for (int p = 0; p < indices.length; p++) {
+            int j = indices[p];
+            double factor = factors[p];
+            double lo = factor > ZERO ? myLower[j] : myUpper[j];
+            double hi = factor > ZERO ? myUpper[j] : myLower[j];
+            if (BoundPropagator.isInfinite(lo)) {
+                minInf++;
+            } else {
+                min += factor * lo;
+            }
+            if (BoundPropagator.isInfinite(hi)) {
+                maxInf++;
+            } else {
+                max += factor * hi;
+            }
+        }
+
+        myMinActivity[row] = min;
+        myMaxActivity[row] = max;
+        myMinInfinite[row] = minInf;
+        myMaxInfinite[row] = maxInf;
+    }
+
+    private void clear() {
+        while (myQueueSize > 0) {
+            this.dequeue();
+        }
+    }
+
+    private int dequeue() {
+        int row = myQueue[myQueueHead];
+        myQueueHead = (myQueueHead + 1) % myQueue.length;
+        myQueueSize--;
+        myQueued[row] = false;
+        return row;
+    }
+
+    private void enqueue(final int row) {
+        if (!myQueued[row] && !myExcluded[row]) {
+            myQueued[row] = true;
+            myQueue[(myQueueHead + myQueueSize) % myQueue.length] = row;
+            myQueueSize++;
+        }
+    }
+
+    private boolean isInfeasible(final int row) {
+        if (myMinInfinite[row] == 0 && myMinActivity[row] > myRowUpper[row] + BoundPropagator.tolerance(FEASIBILITY, myRowUpper[row])) {
+            return true;
+        }
+        if (myMaxInfinite[row] == 0 && myMaxActivity[row] < myRowLower[row] - BoundPropagator.tolerance(FEASIBILITY, myRowLower[row])) {
+            return true;
+        }
+        return false;
+    }
+
+    private boolean propagate(final int row) {
+
+        int[] indices = myRowIndices[row];
+        double[] factors = myRowFactors[row];
+        double rowLower = myRowLower[row];
+        double rowUpper = myRowUpper[row];
+
+        myWork += indices.length;
+
+        this.calculateActivity(row);
+
+        if (this.isInfeasible(row)) {
+            return false;
+        }
+
+        double min = myMinActivity[row];
+        double max = myMaxActivity[row];
+        int minInf = myMinInfinite[row];
+        int maxInf = myMaxInfinite[row];
+
+        boolean upperSet = rowUpper < INFINITY && minInf <= 1;
+        boolean lowerSet = rowLower > -INFINITY && maxInf <= 1;
+
+        if (!upperSet && !lowerSet) {
+            return true;
+        }
+
+        for (int p = 0; p < indices.length; p++) {
+
+            int j = indices[p];
+            double factor = factors[p];
+            int changes = myTrailSize;
+
+            if (Math.abs(factor) <= ZERO_FACTOR || myLower[j] == myUpper[j]) {
+                continue;
+            }
+
+            double lo = factor > ZERO ? myLower[j] : myUpper[j];
+            double hi = factor > ZERO ? myUpper[j] : myLower[j];
+            boolean loInf = BoundPropagator.isInfinite(lo);
+            boolean hiInf = BoundPropagator.isInfinite(hi);
+
+            if (upperSet && (minInf == 0 || minInf == 1 && loInf)) {
+                double residual = loInf ? min : this.residual(row, p, min, factor * lo, true);
+                double bound = (rowUpper - residual) / factor;
+                if (Math.abs(bound) < INFINITY && !(factor > ZERO ? this.tightenUpper(j, bound) : this.tightenLower(j, bound))) {
+                    return false;
+                }
+            }
+
+            if (lowerSet && (maxInf == 0 || maxInf == 1 && hiInf)) {
+                double residual = hiInf ? max : this.residual(row, p, max, factor * hi, false);
+                double bound = (rowLower - residual) / factor;
+                if (Math.abs(bound) < INFINITY && !(factor > ZERO ? this.tightenLower(j, bound) : this.tightenUpper(j, bound))) {
+                    return false;
+                }
+            }
+
+            if (myTrailSize != changes) {
+                // The variable was tightened – recalculate rather than update the activities
+                this.calculateActivity(row);
+            }
+            min = myMinActivity[row];
+            max = myMaxActivity[row];
+            minInf = myMinInfinite[row];
+            maxInf = myMaxInfinite[row];
+        }
+
+        return !this.isInfeasible(row);
+    }
+
+    /**
+     * The min/max activity of a row, excluding the p:th term. Infinite bounds are not expected among the
+     * other terms.
+     */
+    private double residual(final int row, final int p, final double activity, final double term, final boolean min) {
+
+        if (Math.abs(term) <= LARGE) {
+            return activity - term;
+        }
+
+        int[] indices = myRowIndices[row];
+        double[] factors = myRowFactors[row];
+
+        double retVal = ZERO;
+        for (int q = 0; q < indices.length; q++) {
+            if (q != p) {
+                int j = indices[q];
+                double factor = factors[q];
+                retVal += factor * (factor > ZERO == min ? myLower[j] : myUpper[j]);
+            }
+        }
+        return retVal;
+    }
+
+    private void record(final int col) {
+        if (myTrailSize == myTrail.length) {
+            int capacity = 2 * myTrailSize;
+            myTrail = Arrays.copyOf(myTrail, capacity);
+            myTrailLower = Arrays.copyOf(myTrailLower, capacity);
+            myTrailUpper = Arrays.copyOf(myTrailUpper, capacity);
+        }
+        myTrail[myTrailSize] = col;
+        myTrailLower[myTrailSize] = myLower[col];
+        myTrailUpper[myTrailSize] = myUpper[col];
+        myTrailSize++;
+    }
+
+    /**
+     * Exclude a (redundant) row from further propagation.
+     */
+    void exclude(final int row) {
+        myExcluded[row] = true;
+    }
+
+    int[] getColumnPositions(final int col) {
+        return myColumnPositions[col];
+    }
+
+    int[] getColumnRows(final int col) {
+        return myColumnRows[col];
+    }
+
+    /**
+     * The row's coefficients – the array may be modified, but then {@link #update(int)} must be called.
+     */
+    double[] getRowFactors(final int row) {
+        return myRowFactors[row];
+    }
+
+    int[] getRowIndices(final int row) {
+        return myRowIndices[row];
+    }
+
+    double getRowLower(final int row) {
+        return myRowLower[row];
+    }
+
+    double getRowUpper(final int row) {
+        return myRowUpper[row];
+    }
+
+    long getWork() {
+        return myWork;
+    }
+
+    /**
+     * Modify a row's limits.
+     */
+    void setRowLimits(final int row, final double lower, final double upper) {
+        myRowLower[row] = lower;
+        myRowUpper[row] = upper;
+        this.enqueue(row);
+    }
+
+    /**
+     * @return false if infeasibility was detected
+     */
+    boolean tightenLower(final int col, final double bound) {
+
+        double value = myInteger[col] ? Math.ceil(bound - INTEGRALITY) : bound;
+        double old = myLower[col];
+        double upper = myUpper[col];
+
+        if (myInteger[col] ? value <= old : !BoundPropagator.isInfinite(old) && value - old <= MIN_IMPROVEMENT * Math.max(ONE, Math.abs(old))) {
+            return true;
+        }
+
+        if (value > upper - BoundPropagator.tolerance(ZERO_FACTOR, upper)) {
+            if (value > upper + BoundPropagator.tolerance(FEASIBILITY, upper)) {
+                return false;
+            }
+            value = upper;
+        }
+
+        return this.setBounds(col, value, upper);
+    }
+
+    /**
+     * @return false if infeasibility was detected
+     */
+    boolean tightenUpper(final int col, final double bound) {
+
+        double value = myInteger[col] ? Math.floor(bound + INTEGRALITY) : bound;
+        double old = myUpper[col];
+        double lower = myLower[col];
+
+        if (myInteger[col] ? value >= old : !BoundPropagator.isInfinite(old) && old - value <= MIN_IMPROVEMENT * Math.max(ONE, Math.abs(old))) {
+            return true;
+        }
+
+        if (value < lower + BoundPropagator.tolerance(ZERO_FACTOR, lower)) {
+            if (value < lower - BoundPropagator.tolerance(FEASIBILITY, lower)) {
+                return false;
+            }
+            value = lower;
+        }
+
+        return this.setBounds(col, lower, value);
+    }
+
+    /**
+     * Queue a row for propagation, after its coefficients were modified.
+     */
+    void update(final int row) {
+        this.enqueue(row);
+    }
+
+}
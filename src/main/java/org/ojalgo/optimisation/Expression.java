@@ -77,6 +77,29 @@ import org.ojalgo.type.context.NumberContext;
  */
 public final class Expression extends ModelEntity<Expression> {
 
+    @FunctionalInterface
+    public interface LinearFactorCallback {
+
+        /**
+         * @param index The (model) variable index
+         * @param factor The factor
+         */
+        void call(int index, double factor);
+
+    }
+
+    @FunctionalInterface
+    public interface QuadraticFactorCallback {
+
+        /**
+         * @param row The (model) variable index of the row
+         * @param column The (model) variable index of the column
+         * @param factor The factor
+         */
+        void call(int row, int column, double factor);
+
+    }
+
     private BigDecimal myConstant = null;
     private transient boolean myInfeasible = false;
     private transient Boolean myInteger = null;
@@ -111,11 +134,19 @@ public final class Expression extends ModelEntity<Expression> {
 
             myShallowCopy = false;
 
-            myLinear = new HashMap<>();
-            myLinear.putAll(expressionToCopy.getLinear());
+            Map<IntIndex, BigDecimal> linear = expressionToCopy.getLinear();
+            Map<IntRowColumn, BigDecimal> quadratic = expressionToCopy.getQuadratic();
 
-            myQuadratic = new HashMap<>();
-            myQuadratic.putAll(expressionToCopy.getQuadratic());
+            if (linear instanceof PrimitiveFactorMap) {
+                myLinear = PrimitiveFactorMap.newLinear();
+                myQuadratic = PrimitiveFactorMap.newQuadratic();
+            } else {
+                myLinear = new HashMap<>();
+                myQuadratic = new HashMap<>();
+            }
+
+            myLinear.putAll(linear);
+            myQuadratic.putAll(quadratic);
 
         } else {
 
@@ -142,8 +173,13 @@ public final class Expression extends ModelEntity<Expression> {
 
         myShallowCopy = false;
 
-        myLinear = new HashMap<>();
-        myQuadratic = new HashMap<>();
+        if (model.options.compact) {
+            myLinear = PrimitiveFactorMap.newLinear();
+            myQuadratic = PrimitiveFactorMap.newQuadratic();
+        } else {
+            myLinear = new HashMap<>();
+            myQuadratic = new HashMap<>();
+        }
     }
 
     /**
@@ -157,7 +193,7 @@ public final class Expression extends ModelEntity<Expression> {
      * @see #add(Variable, Comparable)
      */
     public Expression add(final int index, final double value) {
-        return this.add(index, BigDecimal.valueOf(value));
+        return this.add(myModel.getVariable(index), value);
     }
 
     /**
@@ -171,21 +207,21 @@ public final class Expression extends ModelEntity<Expression> {
      * @see #add(Variable, Comparable)
      */
     public Expression add(final int row, final int column, final double value) {
-        return this.add(row, column, BigDecimal.valueOf(value));
+        return this.add(new IntRowColumn(row, column), value);
     }
 
     /**
      * @see #add(Variable, Comparable)
      */
     public Expression add(final int row, final int column, final long value) {
-        return this.add(row, column, BigDecimal.valueOf(value));
+        return this.add(new IntRowColumn(row, column), value);
     }
 
     /**
      * @see #add(Variable, Comparable)
      */
     public Expression add(final int index, final long value) {
-        return this.add(index, BigDecimal.valueOf(value));
+        return this.add(myModel.getVariable(index), value);
     }
 
     /**
@@ -210,6 +246,15 @@ public final class Expression extends ModelEntity<Expression> {
      */
     @Deprecated
     public Expression add(final IntIndex key, final double value) {
+        if (myLinear instanceof PrimitiveFactorMap) {
+            double primitive = ModelEntity.toDouble(value);
+            if (key != null && !Double.isNaN(primitive)) {
+                if (((PrimitiveFactorMap<IntIndex>) myLinear).add(key, primitive) != PrimitiveMath.ZERO) {
+                    myModel.addReference(key);
+                }
+                return this;
+            }
+        }
         return this.add(key, BigDecimal.valueOf(value));
     }
 
@@ -226,7 +271,7 @@ public final class Expression extends ModelEntity<Expression> {
      */
     @Deprecated
     public Expression add(final IntIndex row, final IntIndex column, final double value) {
-        return this.add(row, column, BigDecimal.valueOf(value));
+        return this.add(new IntRowColumn(row, column), value);
     }
 
     /**
@@ -234,7 +279,7 @@ public final class Expression extends ModelEntity<Expression> {
      */
     @Deprecated
     public Expression add(final IntIndex row, final IntIndex column, final long value) {
-        return this.add(row, column, BigDecimal.valueOf(value));
+        return this.add(new IntRowColumn(row, column), value);
     }
 
     /**
@@ -242,6 +287,9 @@ public final class Expression extends ModelEntity<Expression> {
      */
     @Deprecated
     public Expression add(final IntIndex key, final long value) {
+        if (myLinear instanceof PrimitiveFactorMap) {
+            return this.add(key, (double) value);
+        }
         return this.add(key, BigDecimal.valueOf(value));
     }
 
@@ -267,6 +315,16 @@ public final class Expression extends ModelEntity<Expression> {
      */
     @Deprecated
     public Expression add(final IntRowColumn key, final double value) {
+        if (myQuadratic instanceof PrimitiveFactorMap) {
+            double primitive = ModelEntity.toDouble(value);
+            if (key != null && !Double.isNaN(primitive)) {
+                if (((PrimitiveFactorMap<IntRowColumn>) myQuadratic).add(key, primitive) != PrimitiveMath.ZERO) {
+                    myModel.addReference(key.row());
+                    myModel.addReference(key.column());
+                }
+                return this;
+            }
+        }
         return this.add(key, BigDecimal.valueOf(value));
     }
 
@@ -275,6 +333,9 @@ public final class Expression extends ModelEntity<Expression> {
      */
     @Deprecated
     public Expression add(final IntRowColumn key, final long value) {
+        if (myQuadratic instanceof PrimitiveFactorMap) {
+            return this.add(key, (double) value);
+        }
         return this.add(key, BigDecimal.valueOf(value));
     }
 
@@ -289,14 +350,14 @@ public final class Expression extends ModelEntity<Expression> {
      * @see #add(Variable, Comparable)
      */
     public Expression add(final Variable variable, final double value) {
-        return this.add(variable, BigDecimal.valueOf(value));
+        return this.add(variable.getIndex(), value);
     }
 
     /**
      * @see #add(Variable, Comparable)
      */
     public Expression add(final Variable variable, final long value) {
-        return this.add(variable, BigDecimal.valueOf(value));
+        return this.add(variable.getIndex(), value);
     }
 
     /**
@@ -310,14 +371,14 @@ public final class Expression extends ModelEntity<Expression> {
      * @see #add(Variable, Comparable)
      */
     public Expression add(final Variable variable1, final Variable variable2, final double value) {
-        return this.add(variable1, variable2, BigDecimal.valueOf(value));
+        return this.add(variable1.getIndex().index, variable2.getIndex().index, value);
     }
 
     /**
      * @see #add(Variable, Comparable)
      */
     public Expression add(final Variable variable1, final Variable variable2, final long value) {
-        return this.add(variable1, variable2, BigDecimal.valueOf(value));
+        return this.add(variable1.getIndex().index, variable2.getIndex().index, value);
     }
 
     @Override
@@ -438,11 +499,19 @@ public final class Expression extends ModelEntity<Expression> {
     }
 
     public double doubleValue(final IntIndex key, final boolean adjusted) {
-        return this.get(key, adjusted).doubleValue();
+        if (myLinear instanceof PrimitiveFactorMap) {
+            return this.convert(((PrimitiveFactorMap<IntIndex>) myLinear).doubleValue(key), adjusted);
+        } else {
+            return this.get(key, adjusted).doubleValue();
+        }
     }
 
     public double doubleValue(final IntRowColumn key, final boolean adjusted) {
-        return this.get(key, adjusted).doubleValue();
+        if (myQuadratic instanceof PrimitiveFactorMap) {
+            return this.convert(((PrimitiveFactorMap<IntRowColumn>) myQuadratic).doubleValue(key), adjusted);
+        } else {
+            return this.get(key, adjusted).doubleValue();
+        }
     }
 
     public void enforce(final NumberContext enforcer) {
@@ -479,6 +548,42 @@ public final class Expression extends ModelEntity<Expression> {
         return retVal;
     }
 
+    /**
+     * Calls the callback once for each (non-zero) linear factor. When the factors are stored as primitive
+     * double values, see {@link Optimisation.Options#compact}, no {@link BigDecimal} or key instances are
+     * created.
+     */
+    public void forEachLinearFactor(final boolean adjusted, final LinearFactorCallback callback) {
+        if (myLinear instanceof PrimitiveFactorMap) {
+            PrimitiveFactorMap<IntIndex> linear = (PrimitiveFactorMap<IntIndex>) myLinear;
+            for (int i = 0, limit = linear.size(); i < limit; i++) {
+                callback.call((int) linear.indexAt(i), this.convert(linear.valueAt(i), adjusted));
+            }
+        } else {
+            for (Entry<IntIndex, BigDecimal> entry : myLinear.entrySet()) {
+                callback.call(entry.getKey().index, this.convert(entry.getValue(), adjusted).doubleValue());
+            }
+        }
+    }
+
+    /**
+     * @see #forEachLinearFactor(boolean, LinearFactorCallback)
+     */
+    public void forEachQuadraticFactor(final boolean adjusted, final QuadraticFactorCallback callback) {
+        if (myQuadratic instanceof PrimitiveFactorMap) {
+            PrimitiveFactorMap<IntRowColumn> quadratic = (PrimitiveFactorMap<IntRowColumn>) myQuadratic;
+            for (int i = 0, limit = quadratic.size(); i < limit; i++) {
+                long index = quadratic.indexAt(i);
+                callback.call((int) (index >>> 32), (int) index, this.convert(quadratic.valueAt(i), adjusted));
+            }
+        } else {
+            for (Entry<IntRowColumn, BigDecimal> entry : myQuadratic.entrySet()) {
+                IntRowColumn key = entry.getKey();
+                callback.call(key.row, key.column, this.convert(entry.getValue(), adjusted).doubleValue());
+            }
+        }
+    }
+
     public BigDecimal get(final IntIndex key) {
         return this.get(key, false);
     }
@@ -679,7 +784,7 @@ public final class Expression extends ModelEntity<Expression> {
      * @see #set(Variable, Comparable)
      */
     public Expression set(final int index, final double value) {
-        return this.set(index, BigDecimal.valueOf(value));
+        return this.set(myModel.getVariable(index), value);
     }
 
     /**
@@ -693,21 +798,21 @@ public final class Expression extends ModelEntity<Expression> {
      * @see #set(Variable, Comparable)
      */
     public Expression set(final int row, final int column, final double value) {
-        return this.set(row, column, BigDecimal.valueOf(value));
+        return this.set(new IntRowColumn(row, column), value);
     }
 
     /**
      * @see #set(Variable, Comparable)
      */
     public Expression set(final int row, final int column, final long value) {
-        return this.set(row, column, BigDecimal.valueOf(value));
+        return this.set(new IntRowColumn(row, column), value);
     }
 
     /**
      * @see #set(Variable, Comparable)
      */
     public Expression set(final int index, final long value) {
-        return this.set(index, BigDecimal.valueOf(value));
+        return this.set(myModel.getVariable(index), value);
     }
 
     /**
@@ -737,6 +842,16 @@ public final class Expression extends ModelEntity<Expression> {
      */
     @Deprecated
     public Expression set(final IntIndex key, final double value) {
+        if (myLinear instanceof PrimitiveFactorMap) {
+            double primitive = ModelEntity.toDouble(value);
+            if (key != null && !Double.isNaN(primitive)) {
+                ((PrimitiveFactorMap<IntIndex>) myLinear).set(key, primitive);
+                if (primitive != PrimitiveMath.ZERO) {
+                    myModel.addReference(key);
+                }
+                return this;
+            }
+        }
         return this.set(key, BigDecimal.valueOf(value));
     }
 
@@ -753,7 +868,7 @@ public final class Expression extends ModelEntity<Expression> {
      */
     @Deprecated
     public Expression set(final IntIndex row, final IntIndex column, final double value) {
-        return this.set(row, column, BigDecimal.valueOf(value));
+        return this.set(new IntRowColumn(row, column), value);
     }
 
     /**
@@ -761,7 +876,7 @@ public final class Expression extends ModelEntity<Expression> {
      */
     @Deprecated
     public Expression set(final IntIndex row, final IntIndex column, final long value) {
-        return this.set(row, column, BigDecimal.valueOf(value));
+        return this.set(new IntRowColumn(row, column), value);
     }
 
     /**
@@ -769,6 +884,9 @@ public final class Expression extends ModelEntity<Expression> {
      */
     @Deprecated
     public Expression set(final IntIndex key, final long value) {
+        if (myLinear instanceof PrimitiveFactorMap) {
+            return this.set(key, (double) value);
+        }
         return this.set(key, BigDecimal.valueOf(value));
     }
 
@@ -800,6 +918,17 @@ public final class Expression extends ModelEntity<Expression> {
      */
     @Deprecated
     public Expression set(final IntRowColumn key, final double value) {
+        if (myQuadratic instanceof PrimitiveFactorMap) {
+            double primitive = ModelEntity.toDouble(value);
+            if (key != null && !Double.isNaN(primitive)) {
+                ((PrimitiveFactorMap<IntRowColumn>) myQuadratic).set(key, primitive);
+                if (primitive != PrimitiveMath.ZERO) {
+                    myModel.addReference(key.row());
+                    myModel.addReference(key.column());
+                }
+                return this;
+            }
+        }
         return this.set(key, BigDecimal.valueOf(value));
     }
 
@@ -808,6 +937,9 @@ public final class Expression extends ModelEntity<Expression> {
      */
     @Deprecated
     public Expression set(final IntRowColumn key, final long value) {
+        if (myQuadratic instanceof PrimitiveFactorMap) {
+            return this.set(key, (double) value);
+        }
         return this.set(key, BigDecimal.valueOf(value));
     }
 
@@ -822,14 +954,14 @@ public final class Expression extends ModelEntity<Expression> {
      * @see #set(Variable, Comparable)
      */
     public Expression set(final Variable variable, final double value) {
-        return this.set(variable, BigDecimal.valueOf(value));
+        return this.set(variable.getIndex(), value);
     }
 
     /**
      * @see #set(Variable, Comparable)
      */
     public Expression set(final Variable variable, final long value) {
-        return this.set(variable, BigDecimal.valueOf(value));
+        return this.set(variable.getIndex(), value);
     }
 
     /**
@@ -843,14 +975,14 @@ public final class Expression extends ModelEntity<Expression> {
      * @see #set(Variable, Comparable)
      */
     public Expression set(final Variable variable1, final Variable variable2, final double value) {
-        return this.set(variable1, variable2, BigDecimal.valueOf(value));
+        return this.set(variable1.getIndex().index, variable2.getIndex().index, value);
     }
 
     /**
      * @see #set(Variable, Comparable)
      */
     public Expression set(final Variable variable1, final Variable variable2, final long value) {
-        return this.set(variable1, variable2, BigDecimal.valueOf(value));
+        return this.set(variable1.getIndex().index, variable2.getIndex().index, value);
     }
 
     /**
@@ -967,6 +1099,22 @@ public final class Expression extends ModelEntity<Expression> {
         return value;
     }
 
+    private double convert(final double value, final boolean adjusted) {
+
+        if (!adjusted || value == PrimitiveMath.ZERO) {
+            return value;
+        }
+
+        int tmpAdjExp = this.getAdjustmentExponent();
+        if (tmpAdjExp > 0) {
+            return value * PrimitiveMath.POWER.invoke(PrimitiveMath.TEN, tmpAdjExp);
+        } else if (tmpAdjExp < 0) {
+            return value / PrimitiveMath.POWER.invoke(PrimitiveMath.TEN, -tmpAdjExp);
+        }
+
+        return value;
+    }
+
     private BigDecimal getConstant() {
         return myConstant != null ? myConstant : BigMath.ZERO;
     }
@@ -131,17 +131,31 @@ public abstract class IntermediateSolver implements Optimisation.Solver {
 
     public void update(final Variable variable) {
 
-        if (myInPlaceUpdatesOK && mySolver instanceof UpdatableSolver && variable.isFixed()) {
+        if (myInPlaceUpdatesOK && mySolver instanceof UpdatableSolver) {
             UpdatableSolver updatableSolver = (UpdatableSolver) mySolver;
 
             int indexInSolver = this.getIntegration().getIndexInSolver(myModel, variable);
-            double fixedValue = variable.getValue().doubleValue();
 
-            if (updatableSolver.fixVariable(indexInSolver, fixedValue)) {
-                // Solver updated in-place
-                return;
+            if (variable.isFixed()) {
+
+                double fixedValue = variable.getValue().doubleValue();
+
+                if (updatableSolver.fixVariable(indexInSolver, fixedValue)) {
+                    // Solver updated in-place
+                    return;
+                }
+                myInPlaceUpdatesOK = false;
+
+            } else if (indexInSolver >= 0) {
+
+                double lower = variable.getLowerLimit(false, Double.NEGATIVE_INFINITY);
+                double upper = variable.getUpperLimit(false, Double.POSITIVE_INFINITY);
+
+                if (updatableSolver.updateRange(indexInSolver, lower, upper)) {
+                    // Solver updated in-place
+                    return;
+                }
             }
-            myInPlaceUpdatesOK = false;
         }
 
         // Solver will be re-generated
@@ -188,6 +202,25 @@ public abstract class IntermediateSolver implements Optimisation.Solver {
         }
     }
 
+    /**
+     * Build the underlying solver now, rather than with the next call to {@link #solve(Optimisation.Result)}.
+     * The model is presolved first, the same way as when solving.
+     *
+     * @return The solver, or null if no solver is needed (the model is infeasible, unbounded or fixed)
+     */
+    protected Optimisation.Solver buildSolver() {
+
+        if (mySolver == null && ExpressionsBasedModel.PRESOLVERS.size() > 0) {
+            myModel.presolve();
+        }
+
+        if (myModel.isInfeasible() || myModel.isUnbounded() || myModel.isFixed()) {
+            return null;
+        }
+
+        return this.getSolver();
+    }
+
     protected int getIndexInSolver(final int globalModelIndex) {
         Variable variable = myModel.getVariable(globalModelIndex);
         ExpressionsBasedModel.Integration<?> integration = this.getIntegration();
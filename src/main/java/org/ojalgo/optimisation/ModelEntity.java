@@ -44,6 +44,8 @@ public abstract class ModelEntity<ME extends ModelEntity<ME>> implements Optimis
 
     private static final BigDecimal LARGEST = new BigDecimal(Double.toString(PrimitiveMath.MACHINE_LARGEST), new MathContext(8, RoundingMode.DOWN));
     private static final BigDecimal SMALLEST = new BigDecimal(Double.toString(PrimitiveMath.MACHINE_SMALLEST), new MathContext(8, RoundingMode.UP));
+    private static final double LARGEST_DOUBLE = LARGEST.doubleValue();
+    private static final double SMALLEST_DOUBLE = SMALLEST.doubleValue();
 
     static final NumberContext PRINT = NumberContext.of(6);
     static final int RANGE = 8;
@@ -83,6 +85,23 @@ public abstract class ModelEntity<ME extends ModelEntity<ME>> implements Optimis
         return candidate;
     }
 
+    /**
+     * The primitive counterpart to {@link #toBigDecimal(Comparable)}. Returns NaN for values that can't be
+     * handled that way (too large, infinite or NaN) – use {@link #toBigDecimal(Comparable)} for those.
+     */
+    static double toDouble(final double number) {
+
+        double magnitude = Math.abs(number);
+
+        if (!(magnitude < LARGEST_DOUBLE)) {
+            return Double.NaN;
+        }
+        if (magnitude <= SMALLEST_DOUBLE) {
+            return PrimitiveMath.ZERO;
+        }
+        return number;
+    }
+
     private transient int myAdjustmentExponent = Integer.MIN_VALUE;
     private BigDecimal myContributionWeight = null;
     private BigDecimal myLowerLimit = null;
@@ -0,0 +1,921 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+import static org.ojalgo.optimisation.BoundPropagator.FEASIBILITY;
+import static org.ojalgo.optimisation.BoundPropagator.ZERO_FACTOR;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ojalgo.array.ArrayR064;
+import org.ojalgo.structure.Structure1D.IntIndex;
+import org.ojalgo.type.TypeUtils;
+
+/**
+ * A presolver that, contrary to the {@link ExpressionsBasedModel.Presolver} instances in {@link Presolvers},
+ * works on the model as a whole. The linear constraints are copied to primitive double arrays, and the
+ * reductions are repeated until nothing more is found:
+ * <ol>
+ * <li>Activity based bound propagation – the constraints' min/max activities imply variable bounds, and
+ * constraints that can never be violated are redundant.
+ * <li>Coefficient tightening – the coefficients of binary variables in single sided constraints are
+ * reduced so that the LP relaxation gets tighter, while the integer feasible set remains the same.
+ * <li>Duplicate (parallel) constraints are merged into one.
+ * <li>Dominated columns – variables that no constraint prevents from moving towards the objective function
+ * optimal bound are fixed at that bound (dual fixing).
+ * <li>Duplicate columns – pairs of variables with identical columns and objective function weights are
+ * merged into one.
+ * <li>Probing on binary variables – tentatively fixing a binary at 0 and at 1, and propagating, may prove
+ * that one of the values is infeasible, or imply bounds valid regardless of the value.
+ * </ol>
+ * The reductions are written back to the model (variable bounds, fixed variables, redundant constraints,
+ * modified constraint coefficients and limits). Most of them are valid in the original variable space, but
+ * some (the merged duplicate columns) are not. Those are recorded and undone, in reverse order, by
+ * {@link #postsolve(Optimisation.Result)}.
+ * <p>
+ * The model is modified in place. Note that a shallow copy, such as {@link ExpressionsBasedModel#simplify()}
+ * returns, shares its expressions' coefficients with the model it was copied from – presolve a deep copy
+ * if that model must remain unchanged.
+ * <p>
+ * Variables that are part of quadratic expressions, the objective function expressions or special ordered
+ * sets are never fixed or merged using the dual arguments.
+ *
+ * @author apete
+ */
+public final class ModelPresolver {
+
+    /**
+     * Two variables, with identical columns (including the objective function weight), replaced by one
+     * variable (the kept one) representing their sum. The removed variable is fixed at zero in the reduced
+     * model. When postsolving the sum is split between the two, within their respective (original) bounds,
+     * and with integer values if the variables are integer.
+     */
+    static final class DuplicateColumns implements Reduction {
+
+        private final boolean myInteger;
+        private final int myKept;
+        private final double myKeptLower;
+        private final double myKeptUpper;
+        private final int myRemoved;
+        private final double myRemovedLower;
+        private final double myRemovedUpper;
+
+        DuplicateColumns(final int kept, final double keptLower, final double keptUpper, final int removed, final double removedLower,
+                final double removedUpper, final boolean integer) {
+            super();
+            myInteger = integer;
+            myKept = kept;
+            myKeptLower = keptLower;
+            myKeptUpper = keptUpper;
+            myRemoved = removed;
+            myRemovedLower = removedLower;
+            myRemovedUpper = removedUpper;
+        }
+
+        public void postsolve(final double[] solution) {
+
+            double sum = myInteger ? Math.rint(solution[myKept]) : solution[myKept];
+
+            double kept;
+            if (Double.isFinite(myRemovedLower)) {
+                kept = ModelPresolver.clamp(sum - myRemovedLower, myKeptLower, myKeptUpper);
+            } else if (Double.isFinite(myRemovedUpper)) {
+                kept = ModelPresolver.clamp(sum - myRemovedUpper, myKeptLower, myKeptUpper);
+            } else {
+                kept = ModelPresolver.clamp(sum, myKeptLower, myKeptUpper);
+            }
+
+            solution[myKept] = kept;
+            solution[myRemoved] = sum - kept;
+        }
+
+        public void presolve(final double[] solution) {
+            solution[myKept] += solution[myRemoved];
+            solution[myRemoved] = ZERO;
+        }
+
+    }
+
+    /**
+     * A reduction that changes the meaning of the model variables, and therefore has to be undone to get a
+     * solution to the original model.
+     */
+    interface Reduction {
+
+        /**
+         * Transform a solution to the reduced model back to the original model (in place).
+         */
+        void postsolve(double[] solution);
+
+        /**
+         * Transform a solution to the original model to the reduced model (in place).
+         */
+        void presolve(double[] solution);
+
+    }
+
+    private static final int MAX_PASSES = 32;
+    private static final int MAX_PROBED = 2_000;
+
+    static double clamp(final double value, final double lower, final double upper) {
+        return Math.max(lower, Math.min(value, upper));
+    }
+
+    private static BigDecimal toBigDecimal(final double value, final boolean integer) {
+        if (integer && Math.abs(value) < Long.MAX_VALUE) {
+            return BigDecimal.valueOf(Math.round(value));
+        } else {
+            return BigDecimal.valueOf(value);
+        }
+    }
+
+    private final double[] myCost;
+    private boolean myInfeasible = false;
+    private final boolean[] myInteger;
+    private final boolean[] myLocked;
+    private final ExpressionsBasedModel myModel;
+    /**
+     * The bounds that will be written back to the model. Redundancy and coefficient tightening must only
+     * depend on these, or the model could lose constraints that are needed to imply the bounds that were
+     * used.
+     */
+    private final double[] myModelLower;
+    private final double[] myModelUpper;
+    private int myNbDominatedColumns = 0;
+    private int myNbDuplicateColumns = 0;
+    private int myNbDuplicateRows = 0;
+    private int myNbProbed = 0;
+    private int myNbProbingFixed = 0;
+    private int myNbRedundantRows = 0;
+    private int myNbTightenedBounds = 0;
+    private int myNbTightenedFactors = 0;
+    /**
+     * The bounds valid for all feasible solutions – the implied bounds. Used for propagation and probing.
+     */
+    private final BoundPropagator myPropagator;
+    private final List<Reduction> myReductions = new ArrayList<>();
+    private final boolean[] myRemoved;
+    private final Expression[] myRowExpressions;
+    private final boolean[] myRowModified;
+    private final boolean[] myRowRedundant;
+
+    /**
+     * Uses a snapshot, taken here, of the globally registered {@link ExpressionsBasedModel.Presolver}
+     * instances to find the special ordered sets.
+     */
+    public ModelPresolver(final ExpressionsBasedModel model) {
+        this(model, new ArrayList<>(ExpressionsBasedModel.PRESOLVERS));
+    }
+
+    /**
+     * @param presolvers The {@link ExpressionsBasedModel.Presolver} instances that apply to the model. The
+     *        variables of any {@link SpecialOrderedSet} among them are never fixed or merged.
+     */
+    public ModelPresolver(final ExpressionsBasedModel model, final Collection<? extends ExpressionsBasedModel.Presolver> presolvers) {
+
+        super();
+
+        myModel = model;
+
+        int nbVars = model.countVariables();
+
+        myModelLower = new double[nbVars];
+        myModelUpper = new double[nbVars];
+        myInteger = new boolean[nbVars];
+        myLocked = new boolean[nbVars];
+        myRemoved = new boolean[nbVars];
+        myCost = new double[nbVars];
+
+        boolean relaxed = model.isRelaxed();
+        boolean max = model.getOptimisationSense() == Optimisation.Sense.MAX;
+
+        for (int j = 0; j < nbVars; j++) {
+            Variable variable = model.getVariable(j);
+            myModelLower[j] = variable.getLowerLimit(false, Double.NEGATIVE_INFINITY);
+            myModelUpper[j] = variable.getUpperLimit(false, Double.POSITIVE_INFINITY);
+            myInteger[j] = !relaxed && variable.isInteger();
+            BigDecimal weight = variable.getContributionWeight();
+            if (weight != null) {
+                myCost[j] = max ? -weight.doubleValue() : weight.doubleValue();
+            }
+        }
+
+        List<Expression> rows = new ArrayList<>();
+
+        for (Expression expression : model.getExpressions()) {
+
+            boolean row = expression.isConstraint() && !expression.isRedundant() && !expression.isInfeasible();
+
+            if (expression.isObjective() || expression.countQuadraticFactors() > 0) {
+                // Variables in objective function expressions or quadratic expressions have no simple cost
+                expression.forEachLinearFactor(false, (index, factor) -> myLocked[index] = true);
+                expression.forEachQuadraticFactor(false, (row1, col1, factor) -> {
+                    myLocked[row1] = true;
+                    myLocked[col1] = true;
+                });
+                row &= expression.countQuadraticFactors() == 0;
+            }
+
+            if (row) {
+                rows.add(expression);
+            }
+        }
+
+        for (ExpressionsBasedModel.Presolver presolver : presolvers) {
+            if (presolver instanceof SpecialOrderedSet) {
+                for (IntIndex index : ((SpecialOrderedSet) presolver).getSequence()) {
+                    if (index.index < nbVars) {
+                        myLocked[index.index] = true;
+                    }
+                }
+            }
+        }
+
+        int nbRows = rows.size();
+
+        myRowExpressions = rows.toArray(new Expression[nbRows]);
+        myRowRedundant = new boolean[nbRows];
+        myRowModified = new boolean[nbRows];
+
+        myPropagator = new BoundPropagator(rows, myInteger, myModelLower, myModelUpper);
+    }
+
+    public int countReductions() {
+        return myNbTightenedBounds + myNbRedundantRows + myNbTightenedFactors + myNbDuplicateRows + myNbDominatedColumns + myNbDuplicateColumns
+                + myNbProbingFixed;
+    }
+
+    /**
+     * @return true if the model was proven infeasible
+     */
+    public boolean isInfeasible() {
+        return myInfeasible;
+    }
+
+    /**
+     * Transform a solution to the original model to the corresponding solution to the reduced model. Merged
+     * (duplicate) columns get the sum of the pair's values, and the removed variable is zero. Use
+     * {@link #postsolve(Optimisation.Result)} to get back a complete solution to the original model.
+     */
+    public Optimisation.Result map(final Optimisation.Result original) {
+
+        if (myReductions.isEmpty()) {
+            return original;
+        }
+
+        double[] solution = original.toRawCopy1D();
+        for (Reduction reduction : myReductions) {
+            reduction.presolve(solution);
+        }
+        return original.withSolution(ArrayR064.wrap(solution));
+    }
+
+    /**
+     * Transform a solution to the reduced model back to a solution to the original model.
+     */
+    public Optimisation.Result postsolve(final Optimisation.Result reduced) {
+
+        if (myReductions.isEmpty()) {
+            return reduced;
+        }
+
+        double[] solution = reduced.toRawCopy1D();
+        for (int r = myReductions.size() - 1; r >= 0; r--) {
+            myReductions.get(r).postsolve(solution);
+        }
+        return reduced.withSolution(ArrayR064.wrap(solution));
+    }
+
+    /**
+     * Perform the reductions and write the results back to the model.
+     *
+     * @return true if the model was modified
+     */
+    public boolean presolve() {
+
+        long nnz = 0L;
+        for (int i = 0; i < myRowExpressions.length; i++) {
+            nnz += myPropagator.getRowIndices(i).length;
+        }
+
+        boolean probed = false;
+
+        for (int pass = 0; pass < MAX_PASSES && !myInfeasible; pass++) {
+
+            int before = this.countReductions();
+
+            this.propagate(20L * nnz + 10_000L);
+            this.identifyRedundant();
+            this.tightenFactors();
+            this.identifyDuplicateRows();
+            this.fixDominatedColumns();
+            this.identifyDuplicateColumns();
+
+            if (!myInfeasible && this.countReductions() == before && !probed) {
+                this.probe(100L * nnz + 100_000L);
+                probed = true;
+            }
+
+            if (this.countReductions() == before) {
+                break;
+            }
+        }
+
+        if (myInfeasible) {
+            myModel.setInfeasible();
+            return true;
+        }
+
+        return this.writeBack();
+    }
+
+    @Override
+    public String toString() {
+        return TypeUtils.format(
+                "Presolve: bounds={} redundant={} factors={} duplicate rows={} dominated columns={} duplicate columns={} probed={} probing fixed={}",
+                myNbTightenedBounds, myNbRedundantRows, myNbTightenedFactors, myNbDuplicateRows, myNbDominatedColumns, myNbDuplicateColumns,
+                myNbProbed, myNbProbingFixed);
+    }
+
+    /**
+     * The bounds implied since the propagator was marked are counted, and adopted as the bounds that will be
+     * written back to the model.
+     */
+    private void adopt() {
+
+        for (int t = 0, limit = myPropagator.countChanged(); t < limit; t++) {
+
+            int col = myPropagator.getChanged(t);
+            double lower = myPropagator.getLower(col);
+            double upper = myPropagator.getUpper(col);
+
+            myNbTightenedBounds++;
+
+            if (lower == upper) {
+                myModelLower[col] = myModelUpper[col] = lower;
+            } else {
+                if (lower > myModelLower[col] && (myInteger[col] || Double.isFinite(myModelLower[col]))) {
+                    myModelLower[col] = lower;
+                }
+                if (upper < myModelUpper[col] && (myInteger[col] || Double.isFinite(myModelUpper[col]))) {
+                    myModelUpper[col] = upper;
+                }
+            }
+        }
+
+        myPropagator.mark();
+    }
+
+    /**
+     * A column (variable) is fixed at the bound favoured by the objective function, if no constraint
+     * prevents it from moving towards that bound.
+     */
+    private void fixDominatedColumns() {
+
+        for (int j = 0; j < myCost.length && !myInfeasible; j++) {
+
+            if (myLocked[j] || myRemoved[j] || myModelLower[j] >= myModelUpper[j]) {
+                continue;
+            }
+
+            int downLocks = 0;
+            int upLocks = 0;
+
+            int[] rows = myPropagator.getColumnRows(j);
+            int[] positions = myPropagator.getColumnPositions(j);
+            for (int c = 0; c < rows.length; c++) {
+                int i = rows[c];
+                if (!myRowRedundant[i]) {
+                    double factor = myPropagator.getRowFactors(i)[positions[c]];
+                    boolean lowerRow = myPropagator.getRowLower(i) > Double.NEGATIVE_INFINITY;
+                    boolean upperRow = myPropagator.getRowUpper(i) < Double.POSITIVE_INFINITY;
+                    if (factor > ZERO) {
+                        downLocks += lowerRow ? 1 : 0;
+                        upLocks += upperRow ? 1 : 0;
+                    } else {
+                        downLocks += upperRow ? 1 : 0;
+                        upLocks += lowerRow ? 1 : 0;
+                    }
+                }
+            }
+
+            double cost = myCost[j];
+
+            if (cost >= ZERO && downLocks == 0 && Double.isFinite(myModelLower[j]) && myPropagator.getLower(j) <= myModelLower[j]) {
+                myNbDominatedColumns++;
+                this.fix(j, myModelLower[j]);
+            } else if (cost <= ZERO && upLocks == 0 && Double.isFinite(myModelUpper[j]) && myPropagator.getUpper(j) >= myModelUpper[j]) {
+                myNbDominatedColumns++;
+                this.fix(j, myModelUpper[j]);
+            }
+        }
+    }
+
+    private void fix(final int col, final double value) {
+        if (!myPropagator.setBounds(col, value, value)) {
+            myInfeasible = true;
+        }
+        myModelLower[col] = myModelUpper[col] = value;
+    }
+
+    /**
+     * Columns with identical (non-redundant) constraint coefficients, the same objective function weight
+     * and the same integrality.
+     */
+    private void identifyDuplicateColumns() {
+
+        Map<Long, List<Integer>> candidates = new HashMap<>();
+
+        for (int j = 0; j < myCost.length; j++) {
+            if (this.isMergeable(j)) {
+                long key = 31L * Double.hashCode(myCost[j]) + (myInteger[j] ? 1 : 0);
+                int[] rows = myPropagator.getColumnRows(j);
+                int[] positions = myPropagator.getColumnPositions(j);
+                for (int c = 0; c < rows.length; c++) {
+                    key = 31L * key + rows[c];
+                    key = 31L * key + Double.hashCode(myPropagator.getRowFactors(rows[c])[positions[c]]);
+                }
+                candidates.computeIfAbsent(key, k -> new ArrayList<>()).add(j);
+            }
+        }
+
+        for (List<Integer> group : candidates.values()) {
+            if (group.size() > 1) {
+                int kept = group.get(0);
+                for (int g = 1, limit = group.size(); g < limit; g++) {
+                    int removed = group.get(g);
+                    if (this.isMergeable(kept) && this.isMergeable(removed) && this.isSameColumn(kept, removed)) {
+                        this.merge(kept, removed);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Parallel constraints – one is a multiple of the other. The limits are combined in one of them, and
+     * the other is marked as redundant.
+     */
+    private void identifyDuplicateRows() {
+
+        Map<Long, List<Integer>> candidates = new HashMap<>();
+
+        for (int i = 0; i < myRowExpressions.length; i++) {
+            int[] indices = myPropagator.getRowIndices(i);
+            if (!myRowRedundant[i] && indices.length > 1 && !myRowExpressions[i].isObjective()) {
+                double[] factors = myPropagator.getRowFactors(i);
+                double scale = ONE / factors[0];
+                long key = indices.length;
+                for (int p = 0; p < indices.length; p++) {
+                    key = 31L * key + indices[p];
+                    key = 31L * key + Math.round(factors[p] * scale * 1E6);
+                }
+                candidates.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        for (List<Integer> group : candidates.values()) {
+            if (group.size() > 1) {
+                int kept = group.get(0);
+                for (int g = 1, limit = group.size(); g < limit && !myInfeasible; g++) {
+                    int other = group.get(g);
+                    double ratio = myPropagator.getRowFactors(kept)[0] / myPropagator.getRowFactors(other)[0];
+                    if (this.isParallel(kept, other, ratio)) {
+                        this.mergeRows(kept, other, ratio);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Constraints that can never be violated, given the variable bounds that will remain in the model.
+     */
+    private void identifyRedundant() {
+
+        for (int i = 0; i < myRowExpressions.length; i++) {
+
+            if (myRowRedundant[i]) {
+                continue;
+            }
+
+            int[] indices = myPropagator.getRowIndices(i);
+            double[] factors = myPropagator.getRowFactors(i);
+            double rowLower = myPropagator.getRowLower(i);
+            double rowUpper = myPropagator.getRowUpper(i);
+
+            double min = ZERO;
+            double max = ZERO;
+            for (int p = 0; p < indices.length; p++) {
+                int j = indices[p];
+                double factor = factors[p];
+                if (factor > ZERO) {
+                    min += factor * myModelLower[j];
+                    max += factor * myModelUpper[j];
+                } else {
+                    min += factor * myModelUpper[j];
+                    max += factor * myModelLower[j];
+                }
+            }
+
+            boolean lowerRedundant = rowLower == Double.NEGATIVE_INFINITY
+                    || !Double.isNaN(min) && min >= rowLower - BoundPropagator.tolerance(ZERO_FACTOR, rowLower);
+            boolean upperRedundant = rowUpper == Double.POSITIVE_INFINITY
+                    || !Double.isNaN(max) && max <= rowUpper + BoundPropagator.tolerance(ZERO_FACTOR, rowUpper);
+
+            if (lowerRedundant && upperRedundant) {
+                myRowRedundant[i] = true;
+                myPropagator.exclude(i);
+                myNbRedundantRows++;
+            }
+        }
+    }
+
+    private boolean isMergeable(final int col) {
+
+        if (myLocked[col] || myRemoved[col] || myModelLower[col] >= myModelUpper[col]) {
+            return false;
+        }
+
+        // Redundant constraints are still checked by the model, and would see the unmerged variables
+        for (int row : myPropagator.getColumnRows(col)) {
+            if (myRowRedundant[row]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isParallel(final int row1, final int row2, final double ratio) {
+
+        int[] indices1 = myPropagator.getRowIndices(row1);
+        int[] indices2 = myPropagator.getRowIndices(row2);
+
+        if (!Arrays.equals(indices1, indices2) || myRowRedundant[row1] || myRowRedundant[row2]) {
+            return false;
+        }
+
+        double[] factors1 = myPropagator.getRowFactors(row1);
+        double[] factors2 = myPropagator.getRowFactors(row2);
+
+        for (int p = 0; p < factors1.length; p++) {
+            double scaled = factors2[p] * ratio;
+            if (Math.abs(factors1[p] - scaled) > BoundPropagator.tolerance(ZERO_FACTOR, factors1[p])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isSameColumn(final int col1, final int col2) {
+
+        if (myInteger[col1] != myInteger[col2] || Math.abs(myCost[col1] - myCost[col2]) > BoundPropagator.tolerance(ZERO_FACTOR, myCost[col1])) {
+            return false;
+        }
+
+        int[] rows1 = myPropagator.getColumnRows(col1);
+        int[] rows2 = myPropagator.getColumnRows(col2);
+
+        if (!Arrays.equals(rows1, rows2)) {
+            return false;
+        }
+
+        int[] positions1 = myPropagator.getColumnPositions(col1);
+        int[] positions2 = myPropagator.getColumnPositions(col2);
+
+        for (int c = 0; c < rows1.length; c++) {
+            double factor1 = myPropagator.getRowFactors(rows1[c])[positions1[c]];
+            double factor2 = myPropagator.getRowFactors(rows2[c])[positions2[c]];
+            if (Math.abs(factor1 - factor2) > BoundPropagator.tolerance(ZERO_FACTOR, factor1)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void merge(final int kept, final int removed) {
+
+        if (myInteger[kept]) {
+            // Fractional bounds on integer variables would otherwise split an integer sum into fractional values
+            for (int col : new int[] { kept, removed }) {
+                myModelLower[col] = Math.ceil(myModelLower[col] - BoundPropagator.INTEGRALITY);
+                myModelUpper[col] = Math.floor(myModelUpper[col] + BoundPropagator.INTEGRALITY);
+            }
+        }
+
+        myReductions.add(new DuplicateColumns(kept, myModelLower[kept], myModelUpper[kept], removed, myModelLower[removed], myModelUpper[removed],
+                myInteger[kept]));
+
+        double lower = myPropagator.getLower(kept) + myPropagator.getLower(removed);
+        double upper = myPropagator.getUpper(kept) + myPropagator.getUpper(removed);
+
+        myPropagator.setBounds(removed, ZERO, ZERO);
+        myPropagator.setBounds(kept, lower, upper);
+
+        myModelLower[kept] += myModelLower[removed];
+        myModelUpper[kept] += myModelUpper[removed];
+        myModelLower[removed] = myModelUpper[removed] = ZERO;
+        myRemoved[removed] = true;
+
+        myNbDuplicateColumns++;
+    }
+
+    private void mergeRows(final int kept, final int other, final double ratio) {
+
+        double otherLower = myPropagator.getRowLower(other);
+        double otherUpper = myPropagator.getRowUpper(other);
+
+        double lower = ratio > ZERO ? otherLower * ratio : otherUpper * ratio;
+        double upper = ratio > ZERO ? otherUpper * ratio : otherLower * ratio;
+
+        lower = Math.max(lower, myPropagator.getRowLower(kept));
+        upper = Math.min(upper, myPropagator.getRowUpper(kept));
+
+        if (lower > upper) {
+            if (lower - upper > BoundPropagator.tolerance(FEASIBILITY, upper)) {
+                myInfeasible = true;
+                return;
+            }
+            lower = upper;
+        }
+
+        myPropagator.setRowLimits(kept, lower, upper);
+        myRowModified[kept] = true;
+
+        myRowRedundant[other] = true;
+        myPropagator.exclude(other);
+        myNbDuplicateRows++;
+    }
+
+    private void probe(final long budget) {
+
+        List<Integer> binaries = new ArrayList<>();
+        for (int j = 0; j < myCost.length; j++) {
+            if (myInteger[j] && !myRemoved[j] && myPropagator.getLower(j) == ZERO && myPropagator.getUpper(j) == ONE
+                    && myPropagator.getColumnRows(j).length > 0) {
+                binaries.add(j);
+            }
+        }
+        // Binaries in many constraints first – more likely to imply something
+        binaries.sort((j1, j2) -> Integer.compare(myPropagator.getColumnRows(j2).length, myPropagator.getColumnRows(j1).length));
+
+        int nbVars = myCost.length;
+        int[] stamp = new int[nbVars];
+        double[] lower0 = new double[nbVars];
+        double[] upper0 = new double[nbVars];
+
+        long limit = myPropagator.getWork() + budget;
+        long branchBudget = Math.max(1_000L, budget / Math.max(1, Math.min(MAX_PROBED, binaries.size())) / 2L);
+
+        for (int b = 0, nbBinaries = Math.min(MAX_PROBED, binaries.size()); b < nbBinaries && myPropagator.getWork() < limit && !myInfeasible; b++) {
+
+            int j = binaries.get(b);
+            if (myPropagator.getLower(j) != ZERO || myPropagator.getUpper(j) != ONE) {
+                continue;
+            }
+
+            myNbProbed++;
+
+            // x = 0
+            myPropagator.mark();
+            myPropagator.setBounds(j, ZERO, ZERO);
+            boolean feasible0 = myPropagator.propagate(branchBudget);
+            for (int t = 0, nbChanged = myPropagator.countChanged(); t < nbChanged; t++) {
+                int col = myPropagator.getChanged(t);
+                stamp[col] = b + 1;
+                lower0[col] = myPropagator.getLower(col);
+                upper0[col] = myPropagator.getUpper(col);
+            }
+            myPropagator.undo();
+
+            // x = 1
+            myPropagator.setBounds(j, ONE, ONE);
+            boolean feasible1 = myPropagator.propagate(branchBudget);
+            int nbChanged = 0;
+            int[] changed = new int[myPropagator.countChanged()];
+            double[] lower = new double[changed.length];
+            double[] upper = new double[changed.length];
+            for (int t = 0; t < changed.length; t++) {
+                int col = myPropagator.getChanged(t);
+                if (col != j && stamp[col] == b + 1) {
+                    stamp[col] = 0;
+                    changed[nbChanged] = col;
+                    lower[nbChanged] = Math.min(lower0[col], myPropagator.getLower(col));
+                    upper[nbChanged] = Math.max(upper0[col], myPropagator.getUpper(col));
+                    nbChanged++;
+                }
+            }
+            myPropagator.undo();
+
+            if (!feasible0 && !feasible1) {
+                myInfeasible = true;
+            } else if (!feasible0) {
+                myNbProbingFixed++;
+                this.fix(j, ONE);
+            } else if (!feasible1) {
+                myNbProbingFixed++;
+                this.fix(j, ZERO);
+            } else {
+                // Bounds implied by both x = 0 and x = 1 are valid regardless
+                boolean feasible = true;
+                for (int c = 0; c < nbChanged && feasible; c++) {
+                    int col = changed[c];
+                    if (lower[c] > myPropagator.getLower(col)) {
+                        feasible = myPropagator.tightenLower(col, lower[c]);
+                    }
+                    if (upper[c] < myPropagator.getUpper(col) && feasible) {
+                        feasible = myPropagator.tightenUpper(col, upper[c]);
+                    }
+                }
+                if (feasible) {
+                    this.adopt();
+                } else {
+                    myInfeasible = true;
+                }
+            }
+
+            if (!myInfeasible) {
+                this.propagate(branchBudget);
+            }
+        }
+    }
+
+    /**
+     * Activity based bound propagation for the queued constraints. The implied bounds are adopted.
+     */
+    private void propagate(final long budget) {
+        myPropagator.mark();
+        if (myPropagator.propagate(budget)) {
+            this.adopt();
+        } else {
+            myInfeasible = true;
+        }
+    }
+
+    /**
+     * Coefficient tightening for binary variables in single sided constraints, see class documentation.
+     */
+    private void tightenFactors() {
+
+        for (int i = 0; i < myRowExpressions.length; i++) {
+
+            double rowLower = myPropagator.getRowLower(i);
+            double rowUpper = myPropagator.getRowUpper(i);
+
+            boolean upperRow = rowUpper < Double.POSITIVE_INFINITY && rowLower == Double.NEGATIVE_INFINITY;
+            boolean lowerRow = rowLower > Double.NEGATIVE_INFINITY && rowUpper == Double.POSITIVE_INFINITY;
+
+            if (myRowRedundant[i] || !upperRow && !lowerRow || myRowExpressions[i].isObjective()) {
+                continue;
+            }
+
+            int[] indices = myPropagator.getRowIndices(i);
+            double[] factors = myPropagator.getRowFactors(i);
+            double sign = upperRow ? ONE : NEG;
+
+            // Work with the constraint as: sum(a*x) <= limit
+            double limit = upperRow ? rowUpper : -rowLower;
+            double max = ZERO;
+            for (int p = 0; p < indices.length; p++) {
+                int j = indices[p];
+                double factor = sign * factors[p];
+                max += factor > ZERO ? factor * myModelUpper[j] : factor * myModelLower[j];
+            }
+
+            if (!Double.isFinite(max) || max <= limit + BoundPropagator.tolerance(ZERO_FACTOR, limit)) {
+                continue;
+            }
+
+            boolean modified = false;
+
+            for (int p = 0; p < indices.length; p++) {
+
+                int j = indices[p];
+
+                if (!myInteger[j] || myRemoved[j] || myModelLower[j] != ZERO || myModelUpper[j] != ONE) {
+                    continue;
+                }
+
+                double factor = sign * factors[p];
+                double tolerance = BoundPropagator.tolerance(FEASIBILITY, limit);
+
+                if (factor > ZERO && max - factor < limit - tolerance) {
+                    // x = 0 makes the constraint redundant
+                    double delta = limit - (max - factor);
+                    factors[p] = sign * (factor - delta);
+                    limit -= delta;
+                    max -= delta;
+                    modified = true;
+                    myNbTightenedFactors++;
+                } else if (factor < ZERO && max + factor < limit - tolerance) {
+                    // x = 1 makes the constraint redundant
+                    double delta = limit - (max + factor);
+                    factors[p] = sign * (factor + delta);
+                    modified = true;
+                    myNbTightenedFactors++;
+                }
+            }
+
+            if (modified) {
+                if (upperRow) {
+                    myPropagator.setRowLimits(i, rowLower, limit);
+                } else {
+                    myPropagator.setRowLimits(i, -limit, rowUpper);
+                }
+                myPropagator.update(i);
+                myRowModified[i] = true;
+            }
+        }
+    }
+
+    private boolean writeBack() {
+
+        boolean retVal = false;
+
+        for (int j = 0; j < myCost.length; j++) {
+
+            Variable variable = myModel.getVariable(j);
+
+            double lower = variable.getLowerLimit(false, Double.NEGATIVE_INFINITY);
+            double upper = variable.getUpperLimit(false, Double.POSITIVE_INFINITY);
+
+            if (myModelLower[j] == lower && myModelUpper[j] == upper) {
+                continue;
+            }
+
+            retVal = true;
+
+            if (myModelLower[j] == myModelUpper[j]) {
+                variable.setFixed(ModelPresolver.toBigDecimal(myModelLower[j], myInteger[j]));
+            } else {
+                if (myModelLower[j] != lower) {
+                    variable.lower(Double.isFinite(myModelLower[j]) ? ModelPresolver.toBigDecimal(myModelLower[j], myInteger[j]) : null);
+                }
+                if (myModelUpper[j] != upper) {
+                    variable.upper(Double.isFinite(myModelUpper[j]) ? ModelPresolver.toBigDecimal(myModelUpper[j], myInteger[j]) : null);
+                }
+            }
+        }
+
+        for (int i = 0; i < myRowExpressions.length; i++) {
+
+            Expression expression = myRowExpressions[i];
+
+            if (myRowRedundant[i]) {
+
+                expression.setRedundant();
+                retVal = true;
+
+            } else if (myRowModified[i]) {
+
+                int[] indices = myPropagator.getRowIndices(i);
+                double[] factors = myPropagator.getRowFactors(i);
+                for (int p = 0; p < indices.length; p++) {
+                    Variable variable = myModel.getVariable(indices[p]);
+                    if (expression.get(variable).doubleValue() != factors[p]) {
+                        expression.set(variable, factors[p]);
+                    }
+                }
+
+                double rowLower = myPropagator.getRowLower(i);
+                double rowUpper = myPropagator.getRowUpper(i);
+                expression.lower(Double.isFinite(rowLower) ? BigDecimal.valueOf(rowLower) : null);
+                expression.upper(Double.isFinite(rowUpper) ? BigDecimal.valueOf(rowUpper) : null);
+
+                retVal = true;
+            }
+        }
+
+        return retVal;
+    }
+
+}
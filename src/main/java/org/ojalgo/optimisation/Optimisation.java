@@ -201,6 +201,14 @@ public interface Optimisation {
 
     public static final class Options implements Optimisation {
 
+        /**
+         * Should {@link ExpressionsBasedModel} store the expression factors (the model parameters) as
+         * primitive double values in sorted arrays, rather than as {@link BigDecimal} in hash maps? This
+         * reduces memory use and model building time significantly for large models, but limits the precision
+         * of the parameters to that of double. Has to be set before any expressions are added to the model.
+         */
+        public boolean compact = false;
+
         /**
          * This may turn on various experimental features. If you do not know exactly what you want to turn
          * on, for the specific version you're using, then always leave this 'false'.
@@ -0,0 +1,378 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import org.ojalgo.structure.Structure1D;
+import org.ojalgo.structure.Structure1D.IntIndex;
+import org.ojalgo.structure.Structure2D.IntRowColumn;
+
+/**
+ * A {@link Map} of {@link Expression} factors that stores the keys as sorted long indices and the values as
+ * primitive double – no boxed keys and no {@link BigDecimal} instances are kept. {@link BigDecimal} values
+ * are created on demand, when accessed via the {@link Map} API. Use {@link #doubleValue(Object)},
+ * {@link #set(Object, double)}, {@link #add(Object, double)} or {@link #indexAt(int)}/{@link #valueAt(int)}
+ * to avoid that.
+ * <p>
+ * Lookup is a binary search and insertion/removal may need to shift the elements. Appending (setting
+ * factors in increasing variable index order) is cheap.
+ *
+ * @author apete
+ */
+final class PrimitiveFactorMap<K> extends AbstractMap<K, BigDecimal> {
+
+    final class FactorEntry implements Map.Entry<K, BigDecimal> {
+
+        private final int myPosition;
+
+        FactorEntry(final int position) {
+            super();
+            myPosition = position;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+            return Objects.equals(this.getKey(), other.getKey()) && Objects.equals(this.getValue(), other.getValue());
+        }
+
+        public K getKey() {
+            return myMapper.toKey(myIndices[myPosition]);
+        }
+
+        public BigDecimal getValue() {
+            return BigDecimal.valueOf(myValues[myPosition]);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(this.getKey()) ^ Objects.hashCode(this.getValue());
+        }
+
+        public BigDecimal setValue(final BigDecimal value) {
+            BigDecimal retVal = this.getValue();
+            myValues[myPosition] = value.doubleValue();
+            return retVal;
+        }
+
+        @Override
+        public String toString() {
+            return this.getKey() + "=" + this.getValue();
+        }
+
+    }
+
+    static final Structure1D.IndexMapper<IntIndex> LINEAR = new Structure1D.IndexMapper<>() {
+
+        public long toIndex(final IntIndex key) {
+            return key.index;
+        }
+
+        public IntIndex toKey(final long index) {
+            return IntIndex.of((int) index);
+        }
+
+    };
+
+    static final Structure1D.IndexMapper<IntRowColumn> QUADRATIC = new Structure1D.IndexMapper<>() {
+
+        public long toIndex(final IntRowColumn key) {
+            return (long) key.row << 32 | key.column & 0xFFFFFFFFL;
+        }
+
+        public IntRowColumn toKey(final long index) {
+            return new IntRowColumn((int) (index >>> 32), (int) index);
+        }
+
+    };
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    static PrimitiveFactorMap<IntIndex> newLinear() {
+        return new PrimitiveFactorMap<>(LINEAR);
+    }
+
+    static PrimitiveFactorMap<IntRowColumn> newQuadratic() {
+        return new PrimitiveFactorMap<>(QUADRATIC);
+    }
+
+    private long[] myIndices;
+    private final Structure1D.IndexMapper<K> myMapper;
+    private int mySize = 0;
+    private double[] myValues;
+
+    PrimitiveFactorMap(final Structure1D.IndexMapper<K> mapper) {
+
+        super();
+
+        myMapper = mapper;
+
+        myIndices = new long[INITIAL_CAPACITY];
+        myValues = new double[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public void clear() {
+        mySize = 0;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return this.search(key) >= 0;
+    }
+
+    /**
+     * @return The value as a primitive double, or 0.0 if there is no such key.
+     */
+    public double doubleValue(final Object key) {
+        int position = this.search(key);
+        return position >= 0 ? myValues[position] : 0.0;
+    }
+
+    @Override
+    public Set<Map.Entry<K, BigDecimal>> entrySet() {
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<Map.Entry<K, BigDecimal>> iterator() {
+                return new Iterator<>() {
+
+                    private int myExpectedSize = mySize;
+                    private int myNext = 0;
+
+                    public boolean hasNext() {
+                        return myNext < mySize;
+                    }
+
+                    public Map.Entry<K, BigDecimal> next() {
+                        if (myExpectedSize != mySize) {
+                            throw new ConcurrentModificationException();
+                        }
+                        if (myNext >= mySize) {
+                            throw new NoSuchElementException();
+                        }
+                        return new FactorEntry(myNext++);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (myNext <= 0) {
+                            throw new IllegalStateException();
+                        }
+                        PrimitiveFactorMap.this.removeAt(--myNext);
+                        myExpectedSize = mySize;
+                    }
+
+                };
+            }
+
+            @Override
+            public int size() {
+                return mySize;
+            }
+
+        };
+    }
+
+    @Override
+    public BigDecimal get(final Object key) {
+        int position = this.search(key);
+        return position >= 0 ? BigDecimal.valueOf(myValues[position]) : null;
+    }
+
+    @Override
+    public BigDecimal put(final K key, final BigDecimal value) {
+
+        double newValue = value.doubleValue();
+
+        int position = this.search(myMapper.toIndex(key));
+
+        if (position >= 0) {
+            BigDecimal retVal = BigDecimal.valueOf(myValues[position]);
+            myValues[position] = newValue;
+            return retVal;
+        }
+
+        this.insertAt(-(position + 1), myMapper.toIndex(key), newValue);
+
+        return null;
+    }
+
+    @Override
+    public void putAll(final Map<? extends K, ? extends BigDecimal> map) {
+        if (map instanceof PrimitiveFactorMap && mySize == 0) {
+            PrimitiveFactorMap<?> other = (PrimitiveFactorMap<?>) map;
+            myIndices = Arrays.copyOf(other.myIndices, Math.max(other.mySize, INITIAL_CAPACITY));
+            myValues = Arrays.copyOf(other.myValues, Math.max(other.mySize, INITIAL_CAPACITY));
+            mySize = other.mySize;
+        } else {
+            super.putAll(map);
+        }
+    }
+
+    @Override
+    public BigDecimal remove(final Object key) {
+
+        int position = this.search(key);
+
+        if (position >= 0) {
+            BigDecimal retVal = BigDecimal.valueOf(myValues[position]);
+            this.removeAt(position);
+            return retVal;
+        }
+
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return mySize;
+    }
+
+    private void insertAt(final int position, final long index, final double value) {
+
+        if (mySize == myIndices.length) {
+            int capacity = 2 * mySize;
+            myIndices = Arrays.copyOf(myIndices, capacity);
+            myValues = Arrays.copyOf(myValues, capacity);
+        }
+
+        if (position < mySize) {
+            System.arraycopy(myIndices, position, myIndices, position + 1, mySize - position);
+            System.arraycopy(myValues, position, myValues, position + 1, mySize - position);
+        }
+
+        myIndices[position] = index;
+        myValues[position] = value;
+        mySize++;
+    }
+
+    private void removeAt(final int position) {
+
+        int nbMoved = mySize - position - 1;
+
+        if (nbMoved > 0) {
+            System.arraycopy(myIndices, position + 1, myIndices, position, nbMoved);
+            System.arraycopy(myValues, position + 1, myValues, position, nbMoved);
+        }
+
+        mySize--;
+    }
+
+    /**
+     * Same as {@link Arrays#binarySearch(long[], int, int, long)}, but checks the last element first – the
+     * typical case when building is to append.
+     */
+    private int search(final long index) {
+
+        if (mySize == 0 || myIndices[mySize - 1] < index) {
+            return -(mySize + 1);
+        }
+
+        return Arrays.binarySearch(myIndices, 0, mySize, index);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int search(final Object key) {
+        if (key instanceof IntIndex && myMapper == LINEAR || key instanceof IntRowColumn && myMapper == QUADRATIC) {
+            return this.search(myMapper.toIndex((K) key));
+        }
+        return -1;
+    }
+
+    /**
+     * Primitive alternative to get-add-put – a resulting 0.0 value removes the key.
+     *
+     * @return The new value
+     */
+    double add(final K key, final double value) {
+
+        long index = myMapper.toIndex(key);
+        int position = this.search(index);
+
+        if (position >= 0) {
+            double retVal = myValues[position] + value;
+            if (retVal != 0.0) {
+                myValues[position] = retVal;
+            } else {
+                this.removeAt(position);
+            }
+            return retVal;
+        }
+
+        if (value != 0.0) {
+            this.insertAt(-(position + 1), index, value);
+        }
+
+        return value;
+    }
+
+    /**
+     * @return The primitive index (encoded key) at the specified position
+     */
+    long indexAt(final int position) {
+        return myIndices[position];
+    }
+
+    /**
+     * Primitive alternative to {@link #put(Object, BigDecimal)} – a 0.0 value removes the key.
+     */
+    void set(final K key, final double value) {
+
+        long index = myMapper.toIndex(key);
+        int position = this.search(index);
+
+        if (position >= 0) {
+            if (value != 0.0) {
+                myValues[position] = value;
+            } else {
+                this.removeAt(position);
+            }
+        } else if (value != 0.0) {
+            this.insertAt(-(position + 1), index, value);
+        }
+    }
+
+    /**
+     * @return The value at the specified position
+     */
+    double valueAt(final int position) {
+        return myValues[position];
+    }
+
+}
@@ -122,4 +122,11 @@ class SpecialOrderedSet extends ExpressionsBasedModel.Presolver {
         return didFixVariable;
     }
 
+    /**
+     * The variables, in order, that make up this set
+     */
+    IntIndex[] getSequence() {
+        return mySequence;
+    }
+
 }
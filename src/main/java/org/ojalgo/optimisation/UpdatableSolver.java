@@ -44,6 +44,18 @@ public interface UpdatableSolver extends Optimisation.Solver {
         return Collections.emptySet();
     }
 
+    /**
+     * Only relevant for basis based (simplex) solvers. Returns a copy of the current, optimal, basis – the
+     * solver specific indices of the basic variables. That's indices in the range of the
+     * {@link #getEntityMap()} variables, possibly followed by artificial variables.
+     *
+     * @return The basis, or null if not available
+     * @see #setBasis(int...)
+     */
+    default int[] getBasis() {
+        return null;
+    }
+
     ExpressionsBasedModel.EntityMap getEntityMap();
 
     /**
@@ -66,6 +78,18 @@ public interface UpdatableSolver extends Optimisation.Solver {
         return this.getEntityMap() != null;
     }
 
+    /**
+     * Warm start. Supply a basis, typically obtained from {@link #getBasis()} of another solver instance
+     * with the same structure (but possibly different variable bounds), that the next solve should start
+     * from.
+     *
+     * @param basis The, solver specific, indices of the basic variables
+     * @return true if setting the basis is supported and the basis was accepted, otherwise false
+     */
+    default boolean setBasis(final int... basis) {
+        return false;
+    }
+
     /**
      * A generalisation of {@link #fixVariable(int, double)} where the new/updated lower and upper bounds do
      * not need to be equal.
@@ -586,9 +586,8 @@ public abstract class ConvexSolver extends GenericSolver {
 
                 Expression expression = tmpEqExpr.get(i).compensate(fixedVariables);
 
-                for (IntIndex key : expression.getLinearKeySet()) {
-                    mtrxAE.set(i, sourceModel.indexOfFreeVariable(key.index), expression.get(key, true));
-                }
+                int row = i;
+                expression.forEachLinearFactor(true, (index, factor) -> mtrxAE.set(row, sourceModel.indexOfFreeVariable(index), factor));
 
                 mtrxBE.set(i, 0, expression.getUpperLimit(true, Double.POSITIVE_INFINITY));
             }
@@ -603,31 +602,26 @@ public abstract class ConvexSolver extends GenericSolver {
 
         PhysicalStore<Double> mtrxQ = null;
         if (tmpObjExpr.isAnyQuadraticFactorNonZero()) {
-            mtrxQ = Primitive64Store.FACTORY.make(nbVariables, nbVariables);
+            PhysicalStore<Double> store = Primitive64Store.FACTORY.make(nbVariables, nbVariables);
 
-            for (IntRowColumn key : tmpObjExpr.getQuadraticKeySet()) {
-                int row = sourceModel.indexOfFreeVariable(key.row);
-                int col = sourceModel.indexOfFreeVariable(key.column);
+            tmpObjExpr.forEachQuadraticFactor(true, (index1, index2, value) -> {
+                int row = sourceModel.indexOfFreeVariable(index1);
+                int col = sourceModel.indexOfFreeVariable(index2);
 
-                BigDecimal factor = max ? tmpObjExpr.get(key, true).negate() : tmpObjExpr.get(key, true);
+                double factor = max ? -value : value;
 
-                mtrxQ.add(row, col, factor);
-                mtrxQ.add(col, row, factor);
-            }
+                store.add(row, col, factor);
+                store.add(col, row, factor);
+            });
+
+            mtrxQ = store;
         }
 
         PhysicalStore<Double> mtrxC = null;
         if (tmpObjExpr.isAnyLinearFactorNonZero()) {
-            mtrxC = Primitive64Store.FACTORY.make(nbVariables, 1);
-            if (max) {
-                for (IntIndex key : tmpObjExpr.getLinearKeySet()) {
-                    mtrxC.set(sourceModel.indexOfFreeVariable(key.index), 0, tmpObjExpr.get(key, true));
-                }
-            } else {
-                for (IntIndex key : tmpObjExpr.getLinearKeySet()) {
-                    mtrxC.set(sourceModel.indexOfFreeVariable(key.index), 0, tmpObjExpr.get(key, true).negate());
-                }
-            }
+            PhysicalStore<Double> store = Primitive64Store.FACTORY.make(nbVariables, 1);
+            tmpObjExpr.forEachLinearFactor(true, (index, factor) -> store.set(sourceModel.indexOfFreeVariable(index), 0, max ? factor : -factor));
+            mtrxC = store;
         }
 
         if (mtrxQ == null && mtrxC == null) {
@@ -666,9 +660,7 @@ public abstract class ConvexSolver extends GenericSolver {
                 for (int i = 0; i < nbUpExpr; i++) {
                     SparseArray<Double> rowAI = mtrxAI.addRow();
                     Expression expression = tmpUpExpr.get(i).compensate(fixedVariables);
-                    for (IntIndex key : expression.getLinearKeySet()) {
-                        rowAI.set(sourceModel.indexOfFreeVariable(key.index), expression.doubleValue(key, true));
-                    }
+                    expression.forEachLinearFactor(true, (index, factor) -> rowAI.set(sourceModel.indexOfFreeVariable(index), factor));
                     mtrxBI.set(i, 0, expression.getUpperLimit(true, Double.POSITIVE_INFINITY));
                 }
             }
@@ -686,9 +678,7 @@ public abstract class ConvexSolver extends GenericSolver {
                 for (int i = 0; i < nbLoExpr; i++) {
                     SparseArray<Double> rowAI = mtrxAI.addRow();
                     Expression expression = tmpLoExpr.get(i).compensate(fixedVariables);
-                    for (IntIndex key : expression.getLinearKeySet()) {
-                        rowAI.set(sourceModel.indexOfFreeVariable(key.index), -expression.doubleValue(key, true));
-                    }
+                    expression.forEachLinearFactor(true, (index, factor) -> rowAI.set(sourceModel.indexOfFreeVariable(index), -factor));
                     mtrxBI.set(nbUpExpr + nbUpVar + i, 0, -expression.getLowerLimit(true, Double.NEGATIVE_INFINITY));
                 }
             }
@@ -736,6 +726,9 @@ public abstract class ConvexSolver extends GenericSolver {
 
         ConstraintsMap constraintsMap = retVal.getConstraintsMap();
 
+        // With compact (primitive double) parameters there is nothing to gain from going via BigDecimal
+        boolean compact = sourceModel.options.compact;
+
         // Q & C
 
         Expression tmpObjExpr = sourceModel.objective().compensate(fixedVariables);
@@ -744,31 +737,49 @@ public abstract class ConvexSolver extends GenericSolver {
 
         if (tmpObjExpr.isAnyQuadraticFactorNonZero()) {
 
-            for (IntRowColumn key : tmpObjExpr.getQuadraticKeySet()) {
-                int row = sourceModel.indexOfFreeVariable(key.row);
-                int col = sourceModel.indexOfFreeVariable(key.column);
+            if (compact) {
+
+                tmpObjExpr.forEachQuadraticFactor(true, (index1, index2, value) -> {
+                    int row = sourceModel.indexOfFreeVariable(index1);
+                    int col = sourceModel.indexOfFreeVariable(index2);
 
-                BigDecimal factor = max ? tmpObjExpr.get(key, true).negate() : tmpObjExpr.get(key, true);
+                    double factor = max ? -value : value;
+
+                    retVal.addObjective(row, col, factor);
+                    retVal.addObjective(col, row, factor);
+                });
+
+            } else {
 
-                retVal.addObjective(row, col, factor);
-                retVal.addObjective(col, row, factor);
-                didSet = true;
+                for (IntRowColumn key : tmpObjExpr.getQuadraticKeySet()) {
+                    int row = sourceModel.indexOfFreeVariable(key.row);
+                    int col = sourceModel.indexOfFreeVariable(key.column);
+
+                    BigDecimal factor = max ? tmpObjExpr.get(key, true).negate() : tmpObjExpr.get(key, true);
+
+                    retVal.addObjective(row, col, factor);
+                    retVal.addObjective(col, row, factor);
+                }
             }
+
+            didSet = true;
         }
 
         if (tmpObjExpr.isAnyLinearFactorNonZero()) {
 
-            if (max) {
+            if (compact) {
+                tmpObjExpr.forEachLinearFactor(true, (index, factor) -> retVal.setObjective(sourceModel.indexOfFreeVariable(index), max ? factor : -factor));
+            } else if (max) {
                 for (IntIndex key : tmpObjExpr.getLinearKeySet()) {
                     retVal.setObjective(sourceModel.indexOfFreeVariable(key.index), tmpObjExpr.get(key, true));
-                    didSet = true;
                 }
             } else {
                 for (IntIndex key : tmpObjExpr.getLinearKeySet()) {
                     retVal.setObjective(sourceModel.indexOfFreeVariable(key.index), tmpObjExpr.get(key, true).negate());
-                    didSet = true;
                 }
             }
+
+            didSet = true;
         }
 
         if (!didSet) {
@@ -788,8 +799,13 @@ public abstract class ConvexSolver extends GenericSolver {
 
             Expression expression = tmpEqExpr.get(i).compensate(fixedVariables);
 
-            for (IntIndex key : expression.getLinearKeySet()) {
-                retVal.setAE(i, sourceModel.indexOfFreeVariable(key.index), expression.get(key, true));
+            if (compact) {
+                int row = i;
+                expression.forEachLinearFactor(true, (index, factor) -> retVal.setAE(row, sourceModel.indexOfFreeVariable(index), factor));
+            } else {
+                for (IntIndex key : expression.getLinearKeySet()) {
+                    retVal.setAE(i, sourceModel.indexOfFreeVariable(key.index), expression.get(key, true));
+                }
             }
 
             retVal.setBE(i, expression.getUpperLimit(true, BigMath.SMALLEST_POSITIVE_INFINITY));
@@ -803,8 +819,13 @@ public abstract class ConvexSolver extends GenericSolver {
 
         for (int i = 0; i < nbUpExpr; i++) {
             Expression expression = tmpUpExpr.get(i).compensate(fixedVariables);
-            for (IntIndex key : expression.getLinearKeySet()) {
-                retVal.setAI(base + i, sourceModel.indexOfFreeVariable(key.index), expression.get(key, true));
+            if (compact) {
+                int row = base + i;
+                expression.forEachLinearFactor(true, (index, factor) -> retVal.setAI(row, sourceModel.indexOfFreeVariable(index), factor));
+            } else {
+                for (IntIndex key : expression.getLinearKeySet()) {
+                    retVal.setAI(base + i, sourceModel.indexOfFreeVariable(key.index), expression.get(key, true));
+                }
             }
             retVal.setBI(base + i, expression.getUpperLimit(true, BigMath.SMALLEST_POSITIVE_INFINITY));
             constraintsMap.setEntry(nbEqExpr + base + i, expression, ConstraintType.UPPER, false);
@@ -823,8 +844,13 @@ public abstract class ConvexSolver extends GenericSolver {
 
         for (int i = 0; i < nbLoExpr; i++) {
             Expression expression = tmpLoExpr.get(i).compensate(fixedVariables);
-            for (IntIndex key : expression.getLinearKeySet()) {
-                retVal.setAI(base + i, sourceModel.indexOfFreeVariable(key.index), expression.get(key, true).negate());
+            if (compact) {
+                int row = base + i;
+                expression.forEachLinearFactor(true, (index, factor) -> retVal.setAI(row, sourceModel.indexOfFreeVariable(index), -factor));
+            } else {
+                for (IntIndex key : expression.getLinearKeySet()) {
+                    retVal.setAI(base + i, sourceModel.indexOfFreeVariable(key.index), expression.get(key, true).negate());
+                }
             }
             retVal.setBI(base + i, expression.getLowerLimit(true, BigMath.SMALLEST_NEGATIVE_INFINITY).negate());
             constraintsMap.setEntry(nbEqExpr + base + i, expression, ConstraintType.UPPER, true);
@@ -25,14 +25,12 @@ import static org.ojalgo.function.constant.PrimitiveMath.ZERO;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.LongAdder;
 
-import org.ojalgo.concurrent.MultiviewSet;
 import org.ojalgo.concurrent.ProcessingService;
+import org.ojalgo.concurrent.WorkStealingQueues;
 import org.ojalgo.function.multiary.MultiaryFunction;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.Primitive64Store;
@@ -41,6 +39,7 @@ import org.ojalgo.netio.CharacterRing;
 import org.ojalgo.netio.CharacterRing.RingLogger;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.GenericSolver;
+import org.ojalgo.optimisation.ModelPresolver;
 import org.ojalgo.optimisation.Optimisation;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.type.CalendarDateDuration;
@@ -80,6 +79,7 @@ public final class IntegerSolver extends GenericSolver {
         private final LongAdder myExhausted = new LongAdder();
         private final LongAdder myInfeasible = new LongAdder();
         private final LongAdder myInteger = new LongAdder();
+        private final LongAdder myPropagated = new LongAdder();
 
         @Override
         public String toString() {
@@ -90,6 +90,8 @@ public final class IntegerSolver extends GenericSolver {
             builder.append(myExhausted);
             builder.append(", S=");
             builder.append(myInfeasible);
+            builder.append(", P=");
+            builder.append(myPropagated);
             builder.append(", A=");
             builder.append(myAbandoned);
             builder.append("]");
@@ -114,7 +116,7 @@ public final class IntegerSolver extends GenericSolver {
         }
 
         long countSkippedNodes() {
-            return myAbandoned.longValue();
+            return myAbandoned.longValue() + myPropagated.longValue();
         }
 
         long countTotalNodes() {
@@ -154,6 +156,14 @@ public final class IntegerSolver extends GenericSolver {
             return true;
         }
 
+        /**
+         * Node proven infeasible by bound propagation – its LP was never built.
+         */
+        boolean propagated() {
+            myPropagated.increment();
+            return true;
+        }
+
     }
 
     public static final ModelIntegration INTEGRATION = new ModelIntegration();
@@ -162,6 +172,20 @@ public final class IntegerSolver extends GenericSolver {
         return new IntegerSolver(model);
     }
 
+    /**
+     * Adds the node to the worker's queue. The parent basis is only kept (for warm starting) if there are
+     * fewer than warmStartLimit nodes in that queue already. Only the worker itself adds to its queue, so
+     * no more than warmStartLimit deferred nodes per worker ever hold a basis – any other deferred node
+     * holds nothing that grows with the number of constraints, and is cold started.
+     */
+    static void defer(final NodeKey node, final int structure, final int[] basis, final WorkStealingQueues<NodeKey>.Worker worker,
+            final int warmStartLimit) {
+        if (worker.size() < warmStartLimit) {
+            node.setParentBasis(structure, basis);
+        }
+        worker.offer(node);
+    }
+
     static void flush(final RingLogger buffer, final BasicLogger receiver) {
         if (buffer != null && receiver != null) {
             buffer.flush(receiver);
@@ -169,17 +193,33 @@ public final class IntegerSolver extends GenericSolver {
     }
 
     private volatile Optimisation.Result myBestResultSoFar = null;
-    private final MultiviewSet<NodeKey> myDeferredNodes = new MultiviewSet<>();
     private final MultiaryFunction.TwiceDifferentiable<Double> myFunction;
     private final ExpressionsBasedModel myIntegerModel;
     private final boolean myMinimisation;
     private final NodeStatistics myNodeStatistics = new NodeStatistics();
+    private final ModelPresolver myPresolver;
 
     IntegerSolver(final ExpressionsBasedModel model) {
 
         super(model.options);
 
-        myIntegerModel = model.simplify();
+        ExpressionsBasedModel simplified = model.simplify();
+
+        if (model.options.integer().isPresolve()) {
+            // The simplified model shares its expressions' factors with the user's model
+            simplified = simplified.copy(false, false);
+            myPresolver = new ModelPresolver(simplified);
+            if (myPresolver.presolve()) {
+                simplified = simplified.simplify();
+            }
+            if (this.isLogDebug()) {
+                this.log(myPresolver.toString());
+            }
+        } else {
+            myPresolver = null;
+        }
+
+        myIntegerModel = simplified;
         myFunction = myIntegerModel.limitObjective(null, null).toFunction();
 
         myMinimisation = myIntegerModel.getOptimisationSense() == Optimisation.Sense.MIN;
@@ -188,7 +228,14 @@ public final class IntegerSolver extends GenericSolver {
     @Override
     public Result solve(final Result kickStarter) {
 
+        if (myPresolver != null && myPresolver.isInfeasible()) {
+            return this.getBestResultSoFar().withState(State.INFEASIBLE);
+        }
+
         Result point = kickStarter != null ? kickStarter : myIntegerModel.getVariableValues();
+        if (myPresolver != null && point != null) {
+            point = myPresolver.map(point);
+        }
 
         ModelStrategy strategy = options.integer().newModelStrategy(myIntegerModel).initialise(myFunction, point);
 
@@ -209,47 +256,66 @@ public final class IntegerSolver extends GenericSolver {
         ExpressionsBasedModel rootModel = myIntegerModel.snapshot();
         rootNode.setNodeState(rootModel, strategy);
 
+        // Built after the root cuts are added – each worker gets its own copy
+        NodePropagator propagator = new NodePropagator(myIntegerModel, strategy);
+
         RingLogger rootPrinter = this.newPrinter();
 
-        AtomicBoolean solverNormalExit = new AtomicBoolean(this.compute(rootNode, rootModel.prepare(NodeSolver::new), rootPrinter, strategy));
+        // Each worker has its own queue of deferred nodes, and steals from the others when that is empty
+        WorkStealingQueues<NodeKey> deferredNodes = new WorkStealingQueues<>(strategy.getWorkerPriorities());
+
+        AtomicBoolean solverNormalExit = new AtomicBoolean(
+                this.compute(rootNode, rootModel.prepare(NodeSolver::new), rootPrinter, strategy, deferredNodes.worker(0), propagator.copy()));
         rootNode.dispose();
 
-        Map<Comparator<NodeKey>, MultiviewSet<NodeKey>.PrioritisedView> views = new ConcurrentHashMap<>();
+        List<WorkStealingQueues<NodeKey>.Worker> workers = deferredNodes.workers();
 
-        ProcessingService.INSTANCE.process(strategy.getWorkerPriorities(), workerStrategy -> {
+        // All workers need to run at the same time – an idle worker's queue is otherwise only drained by stealing
+        ProcessingService.INSTANCE.process(workers, workers.size(), worker -> {
 
             boolean workerNormalExit = solverNormalExit.get();
 
-            MultiviewSet<NodeKey>.PrioritisedView view = views.computeIfAbsent(workerStrategy, myDeferredNodes::newView);
-
             RingLogger nodePrinter = this.newPrinter();
+            NodePropagator nodePropagator = propagator.copy();
 
             NodeKey node = null;
-            while (workerNormalExit && solverNormalExit.get() && !myDeferredNodes.isEmpty()) {
-                if ((node = view.poll()) != null) {
+            while (workerNormalExit && solverNormalExit.get() && (node = worker.take()) != null) {
+
+                try {
 
                     if (!this.isIterationAllowed()) {
                         workerNormalExit = false;
                     } else if (!strategy.isGoodEnough(myBestResultSoFar, node.objective)) {
                         workerNormalExit = myNodeStatistics.abandoned();
+                    } else if (!nodePropagator.propagate(node, strategy)) {
+                        // Infeasible by propagation alone – no need to build the node's LP
+                        strategy.markInfeasible(node, myBestResultSoFar != null);
+                        workerNormalExit = myNodeStatistics.propagated();
                     } else {
                         ExpressionsBasedModel nodeModel = myIntegerModel.snapshot();
-                        node.setNodeState(nodeModel, strategy);
                         NodeSolver nodeSolver = nodeModel.prepare(NodeSolver::new);
-                        workerNormalExit &= this.compute(node, nodeSolver, nodePrinter, strategy);
+                        node.setNodeState(nodeSolver, strategy);
+                        workerNormalExit &= this.compute(node, nodeSolver, nodePrinter, strategy, worker, nodePropagator);
                     }
 
                     node.dispose();
+
+                } finally {
+                    worker.done();
                 }
 
                 if (!workerNormalExit) {
                     solverNormalExit.set(workerNormalExit);
                 }
             }
+
+            if (node == null && Thread.currentThread().isInterrupted()) {
+                // take() returned null because the thread was interrupted, not because the search is complete
+                solverNormalExit.set(false);
+            }
         });
 
-        views.clear();
-        myDeferredNodes.clear();
+        deferredNodes.clear();
 
         if (this.isLogProgress()) {
             this.logProgress(this.countIterations(), this.getClassSimpleName(), this.getDuration());
@@ -257,6 +323,10 @@ public final class IntegerSolver extends GenericSolver {
 
         Optimisation.Result bestSolutionFound = this.getBestResultSoFar();
 
+        if (myPresolver != null) {
+            bestSolutionFound = myPresolver.postsolve(bestSolutionFound);
+        }
+
         if (bestSolutionFound.getState().isFeasible()) {
             if (solverNormalExit.get()) {
                 return bestSolutionFound.withState(State.OPTIMAL);
@@ -414,7 +484,8 @@ public final class IntegerSolver extends GenericSolver {
         return retVal;
     }
 
-    boolean compute(final NodeKey nodeKey, final NodeSolver nodeSolver, final RingLogger nodePrinter, final ModelStrategy strategy) {
+    boolean compute(final NodeKey nodeKey, final NodeSolver nodeSolver, final RingLogger nodePrinter, final ModelStrategy strategy,
+            final WorkStealingQueues<NodeKey>.Worker worker, final NodePropagator propagator) {
 
         if (this.isLogDebug()) {
             nodePrinter.println();
@@ -423,9 +494,20 @@ public final class IntegerSolver extends GenericSolver {
             nodePrinter.println(this.toString());
         }
 
+        if (!propagator.propagate(nodeKey, strategy)) {
+            if (this.isLogDebug()) {
+                nodePrinter.println("Infeasible by bound propagation - stop this branch!");
+                IntegerSolver.flush(nodePrinter, myIntegerModel.options.logger_appender);
+            }
+            nodeSolver.dispose();
+            strategy.markInfeasible(nodeKey, myBestResultSoFar != null);
+            return myNodeStatistics.propagated();
+        }
+
         if (nodeKey.index >= 0) {
             nodeKey.enforceBounds(nodeSolver, strategy);
         }
+        propagator.enforce(nodeSolver);
 
         Optimisation.Result bestEstimate = this.getBestEstimate();
         Optimisation.Result nodeResult = nodeSolver.solve(bestEstimate);
@@ -520,7 +602,7 @@ public final class IntegerSolver extends GenericSolver {
             double displacement = nodeKey.getMinimumDisplacement(branchIntegerIndex, variableValue);
             if (strategy.isCutRatherThanBranch(displacement, myBestResultSoFar != null)) {
                 if (nodeSolver.generateCuts(strategy)) {
-                    return this.compute(nodeKey, nodeSolver, nodePrinter, strategy);
+                    return this.compute(nodeKey, nodeSolver, nodePrinter, strategy, worker, propagator);
                 }
                 strategy.cutting = false;
             }
@@ -529,12 +611,18 @@ public final class IntegerSolver extends GenericSolver {
         NodeKey lowerBranch = nodeKey.createLowerBranch(branchIntegerIndex, variableValue, tmpSolutionValue);
         NodeKey upperBranch = nodeKey.createUpperBranch(branchIntegerIndex, variableValue, tmpSolutionValue);
 
+        // The branches only reference this node for their bounds
+        nodeKey.dispose();
+
+        int[] parentBasis = nodeSolver.getBasis();
+        int parentStructure = parentBasis != null ? nodeSolver.getStructure() : 0;
+
         if (!strategy.isDirect(lowerBranch, myBestResultSoFar != null)) {
-            myDeferredNodes.add(lowerBranch);
+            IntegerSolver.defer(lowerBranch, parentStructure, parentBasis, worker, strategy.getWarmStartLimit());
             lowerBranch = null;
         }
         if (lowerBranch != null || !strategy.isDirect(upperBranch, myBestResultSoFar != null)) {
-            myDeferredNodes.add(upperBranch);
+            IntegerSolver.defer(upperBranch, parentStructure, parentBasis, worker, strategy.getWarmStartLimit());
             upperBranch = null;
         }
 
@@ -546,10 +634,10 @@ public final class IntegerSolver extends GenericSolver {
 
         boolean retVal = true;
         if (lowerBranch != null) {
-            retVal = retVal && this.compute(lowerBranch, nodeSolver, nodePrinter, strategy);
+            retVal = retVal && this.compute(lowerBranch, nodeSolver, nodePrinter, strategy, worker, propagator);
         }
         if (upperBranch != null) {
-            retVal = retVal && this.compute(upperBranch, nodeSolver, nodePrinter, strategy);
+            retVal = retVal && this.compute(upperBranch, nodeSolver, nodePrinter, strategy, worker, propagator);
         }
         return retVal;
     }
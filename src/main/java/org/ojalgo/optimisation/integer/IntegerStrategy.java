@@ -32,6 +32,7 @@ import org.ojalgo.concurrent.Parallelism;
 import org.ojalgo.function.constant.BigMath;
 import org.ojalgo.function.constant.PrimitiveMath;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.ModelPresolver;
 import org.ojalgo.optimisation.integer.ModelStrategy.DefaultStrategy;
 import org.ojalgo.type.context.NumberContext;
 
@@ -44,10 +45,13 @@ public interface IntegerStrategy {
         private final GMICutConfiguration myGMICutConfiguration;
         private final NumberContext myIntegralityTolerance;
         private final IntSupplier myParallelism;
+        private final boolean myPresolve;
         private final Comparator<NodeKey>[] myPriorityDefinitions;
+        private final int myWarmStartLimit;
 
         ConfigurableStrategy(final IntSupplier parallelism, final Comparator<NodeKey>[] definitions, final NumberContext integrality, final NumberContext gap,
-                final BiFunction<ExpressionsBasedModel, IntegerStrategy, ModelStrategy> factory, final GMICutConfiguration configuration) {
+                final BiFunction<ExpressionsBasedModel, IntegerStrategy, ModelStrategy> factory, final GMICutConfiguration configuration,
+                final boolean presolve, final int warmStartLimit) {
 
             super();
 
@@ -57,6 +61,8 @@ public interface IntegerStrategy {
             myGapTolerance = gap;
             myFactory = factory;
             myGMICutConfiguration = configuration;
+            myPresolve = presolve;
+            myWarmStartLimit = warmStartLimit;
         }
 
         /**
@@ -75,7 +81,8 @@ public interface IntegerStrategy {
                 totalDefinitions[additionalDefinitions.length + i] = myPriorityDefinitions[i];
             }
 
-            return new ConfigurableStrategy(myParallelism, totalDefinitions, myIntegralityTolerance, myGapTolerance, myFactory, myGMICutConfiguration);
+            return new ConfigurableStrategy(myParallelism, totalDefinitions, myIntegralityTolerance, myGapTolerance, myFactory, myGMICutConfiguration, myPresolve,
+                    myWarmStartLimit);
         }
 
         public NumberContext getGapTolerance() {
@@ -99,6 +106,14 @@ public interface IntegerStrategy {
             return retVal;
         }
 
+        public int getWarmStartLimit() {
+            return myWarmStartLimit;
+        }
+
+        public boolean isPresolve() {
+            return myPresolve;
+        }
+
         public ModelStrategy newModelStrategy(final ExpressionsBasedModel model) {
             return myFactory.apply(model, this);
         }
@@ -107,29 +122,58 @@ public interface IntegerStrategy {
          * Change the MIP gap
          */
         public ConfigurableStrategy withGapTolerance(final NumberContext newTolerance) {
-            return new ConfigurableStrategy(myParallelism, myPriorityDefinitions, myIntegralityTolerance, newTolerance, myFactory, myGMICutConfiguration);
+            return new ConfigurableStrategy(myParallelism, myPriorityDefinitions, myIntegralityTolerance, newTolerance, myFactory, myGMICutConfiguration, myPresolve,
+                    myWarmStartLimit);
         }
 
         public ConfigurableStrategy withGMICutConfiguration(final GMICutConfiguration newConfiguration) {
-            return new ConfigurableStrategy(myParallelism, myPriorityDefinitions, myIntegralityTolerance, myGapTolerance, myFactory, newConfiguration);
+            return new ConfigurableStrategy(myParallelism, myPriorityDefinitions, myIntegralityTolerance, myGapTolerance, myFactory, newConfiguration, myPresolve,
+                    myWarmStartLimit);
         }
 
         public ConfigurableStrategy withModelStrategyFactory(final BiFunction<ExpressionsBasedModel, IntegerStrategy, ModelStrategy> newFactory) {
-            return new ConfigurableStrategy(myParallelism, myPriorityDefinitions, myIntegralityTolerance, myGapTolerance, newFactory, myGMICutConfiguration);
+            return new ConfigurableStrategy(myParallelism, myPriorityDefinitions, myIntegralityTolerance, myGapTolerance, newFactory, myGMICutConfiguration, myPresolve,
+                    myWarmStartLimit);
         }
 
         /**
-         * How many threads will be used? Perhaps use {@link Parallelism} to obtain a suitable value.
+         * How many threads will be used? Perhaps use {@link Parallelism} to obtain a suitable value. This is
+         * independent of the number of priority definitions – they are cycled through to give each worker
+         * (thread) one.
          */
         public ConfigurableStrategy withParallelism(final IntSupplier newParallelism) {
-            return new ConfigurableStrategy(newParallelism, myPriorityDefinitions, myIntegralityTolerance, myGapTolerance, myFactory, myGMICutConfiguration);
+            return new ConfigurableStrategy(newParallelism, myPriorityDefinitions, myIntegralityTolerance, myGapTolerance, myFactory, myGMICutConfiguration, myPresolve,
+                    myWarmStartLimit);
+        }
+
+        /**
+         * Should the (whole) model presolver, {@link ModelPresolver}, be used before the branch-and-bound
+         * search starts? It tightens bounds and coefficients, removes redundant and duplicate constraints and
+         * variables, and probes binary variables. This can make a big difference for large 0/1 models, but
+         * is a waste of time for small ones.
+         */
+        public ConfigurableStrategy withPresolve(final boolean newPresolve) {
+            return new ConfigurableStrategy(myParallelism, myPriorityDefinitions, myIntegralityTolerance, myGapTolerance, myFactory, myGMICutConfiguration,
+                    newPresolve, myWarmStartLimit);
         }
 
         /**
          * Replace the priority definitions with these ones.
          */
         public ConfigurableStrategy withPriorityDefinitions(final Comparator<NodeKey>... newDefinitions) {
-            return new ConfigurableStrategy(myParallelism, newDefinitions, myIntegralityTolerance, myGapTolerance, myFactory, myGMICutConfiguration);
+            return new ConfigurableStrategy(myParallelism, newDefinitions, myIntegralityTolerance, myGapTolerance, myFactory, myGMICutConfiguration, myPresolve,
+                    myWarmStartLimit);
+        }
+
+        /**
+         * How many of the nodes waiting in a worker's queue may keep their parent node's simplex basis (to
+         * be warm started from it)? Each such basis has one entry per constraint, so this limits the memory
+         * used for bases regardless of how many nodes are deferred. Nodes deferred beyond this limit are
+         * cold started. Setting it to 0 turns warm starting of deferred nodes off.
+         */
+        public ConfigurableStrategy withWarmStartLimit(final int newLimit) {
+            return new ConfigurableStrategy(myParallelism, myPriorityDefinitions, myIntegralityTolerance, myGapTolerance, myFactory, myGMICutConfiguration,
+                    myPresolve, newLimit);
         }
 
     }
@@ -188,7 +232,7 @@ public interface IntegerStrategy {
         NumberContext integrality = NumberContext.of(12, 8);
         NumberContext gap = NumberContext.of(7, 8);
 
-        return new ConfigurableStrategy(Parallelism.CORES.require(4), definitions, integrality, gap, DefaultStrategy::new, new GMICutConfiguration());
+        return new ConfigurableStrategy(Parallelism.CORES.require(4), definitions, integrality, gap, DefaultStrategy::new, new GMICutConfiguration(), false, 64);
     }
 
     /**
@@ -210,11 +254,29 @@ public interface IntegerStrategy {
     NumberContext getIntegralityTolerance();
 
     /**
-     * There will be 1 worker thread per item in the returned {@link List}. The {@link Comparator} instances
-     * need not be unique. Used to prioritise among the nodes waiting to be evaluated.
+     * There will be 1 worker thread per item in the returned {@link List}, all running at the same time,
+     * regardless of the number of CPU cores. The {@link Comparator} instances need not be unique. Each worker has its own queue of nodes
+     * waiting to be evaluated, prioritised using its {@link Comparator}, and steals from the other workers'
+     * queues when its own is empty.
      */
     List<Comparator<NodeKey>> getWorkerPriorities();
 
+    /**
+     * The maximum number of deferred nodes, per worker queue, that keep their parent node's simplex basis
+     * for warm starting. Any other deferred node is cold started. Default is the same as {@link #DEFAULT}.
+     */
+    default int getWarmStartLimit() {
+        return DEFAULT.getWarmStartLimit();
+    }
+
+    /**
+     * Should the {@link ModelPresolver} be used on the model before the branch-and-bound search starts?
+     * Default is not to.
+     */
+    default boolean isPresolve() {
+        return false;
+    }
+
     ModelStrategy newModelStrategy(final ExpressionsBasedModel model);
 
 }
@@ -223,10 +223,18 @@ public abstract class ModelStrategy implements IntegerStrategy {
         return myStrategy.getIntegralityTolerance();
     }
 
+    public int getWarmStartLimit() {
+        return myStrategy.getWarmStartLimit();
+    }
+
     public List<Comparator<NodeKey>> getWorkerPriorities() {
         return myWorkerPriorities;
     }
 
+    public boolean isPresolve() {
+        return myStrategy.isPresolve();
+    }
+
     public ModelStrategy newModelStrategy(final ExpressionsBasedModel model) {
         return myStrategy.newModelStrategy(model);
     }
@@ -29,36 +29,13 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
-import org.ojalgo.array.operation.COPY;
 import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.Variable;
-import org.ojalgo.type.ObjectPool;
 import org.ojalgo.type.context.NumberContext;
 
 public final class NodeKey implements Comparable<NodeKey> {
 
-    static final class IntArrayPool extends ObjectPool<int[]> {
-
-        private final int myArrayLength;
-
-        IntArrayPool(final int arrayLength) {
-            super();
-            myArrayLength = arrayLength;
-        }
-
-        @Override
-        protected int[] newObject() {
-            return new int[myArrayLength];
-        }
-
-        @Override
-        protected void reset(final int[] object) {
-            // No need to do anything. All values explicitly set when reused.
-        }
-
-    }
-
     public static final Comparator<NodeKey> EARLIEST_SEQUENCE = Comparator.comparingLong((final NodeKey nk) -> nk.sequence).reversed();
     public static final Comparator<NodeKey> LARGEST_DISPLACEMENT = Comparator.comparingDouble((final NodeKey nk) -> nk.displacement);
     public static final Comparator<NodeKey> LATEST_SEQUENCE = Comparator.comparingLong((final NodeKey nk) -> nk.sequence);
@@ -95,29 +72,50 @@ public final class NodeKey implements Comparable<NodeKey> {
      */
     public final long sequence;
 
-    private final IntArrayPool myIntArrayPool;
-    private final int[] myLowerBounds;
+    /**
+     * The optimal basis of the parent node problem, if available. Shared (read-only) with the sibling node.
+     * Only a limited number of deferred nodes keep it, see {@link IntegerStrategy#getWarmStartLimit()}.
+     */
+    private int[] myBasis = null;
+    /**
+     * The bound (on the branched on variable) introduced with this node.
+     */
+    private final int myBound;
+    /**
+     * Is {@link #myBound} an upper bound (lower branch) or a lower bound (upper branch)?
+     */
+    private final boolean myBoundIsUpper;
+    /**
+     * The root node has the bounds of the integer model. Any other node has them only while it is being
+     * evaluated. They are materialised, from the root node's bounds and the chain of parent nodes, when
+     * needed and released again by {@link #dispose()}.
+     */
+    private int[] myLowerBounds;
+    private final NodeKey myParent;
     private final boolean mySignChanged;
-    private final int[] myUpperBounds;
+    /**
+     * Identifies the structure of the solver {@link #myBasis} is valid for.
+     */
+    private int myStructure = 0;
+    private int[] myUpperBounds;
 
-    private NodeKey(final int[] lowerBounds, final int[] upperBounds, final long parentSequenceNumber, final int integerIndexBranchedOn,
-            final double branchVariableDisplacement, final double parentObjectiveFunctionValue, final boolean signChanged, final IntArrayPool pool) {
+    private NodeKey(final NodeKey parentNode, final int integerIndexBranchedOn, final int bound, final boolean upper,
+            final double branchVariableDisplacement, final double parentObjectiveFunctionValue, final boolean signChanged) {
 
         super();
 
         sequence = SEQUENCE_GENERATOR.incrementAndGet();
 
-        myLowerBounds = lowerBounds;
-        myUpperBounds = upperBounds;
+        myParent = parentNode;
+        myBound = bound;
+        myBoundIsUpper = upper;
 
-        parent = parentSequenceNumber;
+        parent = parentNode.sequence;
         index = integerIndexBranchedOn;
         displacement = branchVariableDisplacement;
         objective = parentObjectiveFunctionValue;
 
         mySignChanged = signChanged;
-
-        myIntArrayPool = pool;
     }
 
     NodeKey(final ExpressionsBasedModel integerModel) {
@@ -129,10 +127,8 @@ public final class NodeKey implements Comparable<NodeKey> {
         List<Variable> integerVariables = integerModel.getIntegerVariables();
         int nbIntegerVariables = integerVariables.size();
 
-        myIntArrayPool = new IntArrayPool(nbIntegerVariables);
-
-        myLowerBounds = myIntArrayPool.borrow();
-        myUpperBounds = myIntArrayPool.borrow();
+        myLowerBounds = new int[nbIntegerVariables];
+        myUpperBounds = new int[nbIntegerVariables];
 
         for (int i = 0; i < nbIntegerVariables; i++) {
             Variable variable = integerVariables.get(i);
@@ -152,6 +148,10 @@ public final class NodeKey implements Comparable<NodeKey> {
             }
         }
 
+        myParent = null;
+        myBound = 0;
+        myBoundIsUpper = false;
+
         parent = sequence;
         index = -1;
         displacement = NaN;
@@ -206,6 +206,8 @@ public final class NodeKey implements Comparable<NodeKey> {
         retVal.append(' ');
         retVal.append('[');
 
+        this.materialise();
+
         if (myLowerBounds.length > 0) {
             this.append(retVal, 0);
         }
@@ -229,17 +231,83 @@ public final class NodeKey implements Comparable<NodeKey> {
 
     private double feasible(final int idx, final double value, final boolean validate) {
 
-        double feasibilityAdjusted = Math.min(Math.max(myLowerBounds[idx], value), myUpperBounds[idx]);
+        double feasibilityAdjusted = Math.min(Math.max(this.lower(idx), value), this.upper(idx));
 
         if (validate && FEASIBILITY.isDifferent(feasibilityAdjusted, value)) {
-            BasicLogger.error("Obviously infeasible value {}: {} <= {} <= {} @ {}", idx, myLowerBounds[idx], value, myUpperBounds[idx], this);
+            BasicLogger.error("Obviously infeasible value {}: {} <= {} <= {} @ {}", idx, this.lower(idx), value, this.upper(idx), this);
         }
 
         return feasibilityAdjusted;
     }
 
+    /**
+     * Bounds only ever get tighter going down the tree, so the first (deepest) bound found, on the way up to
+     * the root, is the one in effect.
+     */
+    int lower(final int idx) {
+
+        if (myLowerBounds != null) {
+            return myLowerBounds[idx];
+        }
+
+        NodeKey node = this;
+        while (node.myParent != null) {
+            if (node.index == idx && !node.myBoundIsUpper) {
+                return node.myBound;
+            }
+            node = node.myParent;
+        }
+
+        return node.myLowerBounds[idx];
+    }
+
+    private void materialise() {
+
+        if (myLowerBounds != null) {
+            return;
+        }
+
+        NodeKey root = myParent;
+        while (root.myParent != null) {
+            root = root.myParent;
+        }
+
+        int[] lowerBounds = root.myLowerBounds.clone();
+        int[] upperBounds = root.myUpperBounds.clone();
+
+        for (NodeKey node = this; node.myParent != null; node = node.myParent) {
+            if (node.myBoundIsUpper) {
+                upperBounds[node.index] = Math.min(upperBounds[node.index], node.myBound);
+            } else {
+                lowerBounds[node.index] = Math.max(lowerBounds[node.index], node.myBound);
+            }
+        }
+
+        myLowerBounds = lowerBounds;
+        myUpperBounds = upperBounds;
+    }
+
+    int upper(final int idx) {
+
+        if (myUpperBounds != null) {
+            return myUpperBounds[idx];
+        }
+
+        NodeKey node = this;
+        while (node.myParent != null) {
+            if (node.index == idx && node.myBoundIsUpper) {
+                return node.myBound;
+            }
+            node = node.myParent;
+        }
+
+        return node.myUpperBounds[idx];
+    }
+
     long calculateTreeSize() {
 
+        this.materialise();
+
         long retVal = 1L;
 
         for (int i = 0, limit = myLowerBounds.length; i < limit; i++) {
@@ -250,68 +318,74 @@ public final class NodeKey implements Comparable<NodeKey> {
     }
 
     int[] copyLowerBounds() {
-        return COPY.invoke(myLowerBounds, myIntArrayPool.borrow());
+        this.materialise();
+        return myLowerBounds.clone();
     }
 
     int[] copyUpperBounds() {
-        return COPY.invoke(myUpperBounds, myIntArrayPool.borrow());
+        this.materialise();
+        return myUpperBounds.clone();
     }
 
     NodeKey createLowerBranch(final int branchIntegerIndex, final double value, final double objVal) {
 
-        int[] tmpLBs = this.copyLowerBounds();
-        int[] tmpUBs = this.copyUpperBounds();
+        int lowerBound = this.lower(branchIntegerIndex);
+        int upperBound = this.upper(branchIntegerIndex);
 
         int floorValue = (int) Math.floor(this.feasible(branchIntegerIndex, value, false));
 
-        int oldVal = tmpUBs[branchIntegerIndex];
-
-        if (floorValue >= tmpUBs[branchIntegerIndex] && floorValue > tmpLBs[branchIntegerIndex]) {
-            tmpUBs[branchIntegerIndex] = floorValue - 1;
+        int newVal;
+        if (floorValue >= upperBound && floorValue > lowerBound) {
+            newVal = floorValue - 1;
         } else {
-            tmpUBs[branchIntegerIndex] = floorValue;
+            newVal = floorValue;
         }
 
-        int newVal = tmpUBs[branchIntegerIndex];
+        boolean changed = upperBound > 0 && newVal <= 0;
 
-        boolean changed = oldVal > 0 && newVal <= 0;
-
-        return new NodeKey(tmpLBs, tmpUBs, sequence, branchIntegerIndex, value - floorValue, objVal, changed, myIntArrayPool);
+        return new NodeKey(this, branchIntegerIndex, newVal, true, value - floorValue, objVal, changed);
     }
 
     NodeKey createUpperBranch(final int branchIntegerIndex, final double value, final double objVal) {
 
-        int[] tmpLBs = this.copyLowerBounds();
-        int[] tmpUBs = this.copyUpperBounds();
+        int lowerBound = this.lower(branchIntegerIndex);
+        int upperBound = this.upper(branchIntegerIndex);
 
         int ceilValue = (int) Math.ceil(this.feasible(branchIntegerIndex, value, false));
 
-        int oldVal = tmpLBs[branchIntegerIndex];
-
-        if (ceilValue <= tmpLBs[branchIntegerIndex] && ceilValue < tmpUBs[branchIntegerIndex]) {
-            tmpLBs[branchIntegerIndex] = ceilValue + 1;
+        int newVal;
+        if (ceilValue <= lowerBound && ceilValue < upperBound) {
+            newVal = ceilValue + 1;
         } else {
-            tmpLBs[branchIntegerIndex] = ceilValue;
+            newVal = ceilValue;
         }
 
-        int newVal = tmpLBs[branchIntegerIndex];
-
-        boolean changed = oldVal < 0 && newVal >= 0;
+        boolean changed = lowerBound < 0 && newVal >= 0;
 
-        return new NodeKey(tmpLBs, tmpUBs, sequence, branchIntegerIndex, ceilValue - value, objVal, changed, myIntArrayPool);
+        return new NodeKey(this, branchIntegerIndex, newVal, false, ceilValue - value, objVal, changed);
     }
 
+    /**
+     * Releases what is only needed while the node is being evaluated. Nodes further down the tree only
+     * reference this node for its (single) bound change.
+     */
     void dispose() {
-        myIntArrayPool.giveBack(myLowerBounds);
-        myIntArrayPool.giveBack(myUpperBounds);
+        if (myParent != null) {
+            myLowerBounds = null;
+            myUpperBounds = null;
+        }
+        myBasis = null;
     }
 
     void enforceBounds(final ExpressionsBasedModel model, final int idx, final ModelStrategy strategy) {
+        this.enforceBounds(model.getVariable(strategy.getIndex(idx)), idx);
+    }
+
+    void enforceBounds(final Variable variable, final int idx) {
 
         BigDecimal lowerBound = this.getLowerBound(idx);
         BigDecimal upperBound = this.getUpperBound(idx);
 
-        Variable variable = model.getVariable(strategy.getIndex(idx));
         variable.lower(lowerBound);
         variable.upper(upperBound);
 
@@ -324,18 +398,8 @@ public final class NodeKey implements Comparable<NodeKey> {
 
     void enforceBounds(final NodeSolver nodeSolver, final ModelStrategy strategy) {
 
-        BigDecimal lowerBound = this.getLowerBound(index);
-        BigDecimal upperBound = this.getUpperBound(index);
-
         Variable variable = nodeSolver.getVariable(strategy.getIndex(index));
-        variable.lower(lowerBound);
-        variable.upper(upperBound);
-
-        BigDecimal value = variable.getValue();
-        if (value != null) {
-            // Re-setting will ensure the new bounds are not violated
-            variable.setValue(value);
-        }
+        this.enforceBounds(variable, index);
 
         if (this.isSignChanged()) {
             nodeSolver.reset();
@@ -345,6 +409,7 @@ public final class NodeKey implements Comparable<NodeKey> {
     }
 
     boolean equals(final int[] lowerBounds, final int[] upperBounds) {
+        this.materialise();
         if (!Arrays.equals(myLowerBounds, lowerBounds) || !Arrays.equals(myUpperBounds, upperBounds)) {
             return false;
         }
@@ -352,7 +417,7 @@ public final class NodeKey implements Comparable<NodeKey> {
     }
 
     BigDecimal getLowerBound(final int idx) {
-        int tmpLower = myLowerBounds[idx];
+        int tmpLower = this.lower(idx);
         if (tmpLower != Integer.MIN_VALUE) {
             return new BigDecimal(tmpLower);
         }
@@ -361,27 +426,66 @@ public final class NodeKey implements Comparable<NodeKey> {
 
     double getMinimumDisplacement(final int idx, final double value) {
 
+        // Typically called for all integer variables of the node being evaluated
+        this.materialise();
+
         double feasibleValue = this.feasible(idx, value, true);
 
         return Math.abs(feasibleValue - Math.rint(feasibleValue));
     }
 
     BigDecimal getUpperBound(final int idx) {
-        int tmpUpper = myUpperBounds[idx];
+        int tmpUpper = this.upper(idx);
         if (tmpUpper != Integer.MAX_VALUE) {
             return new BigDecimal(tmpUpper);
         }
         return null;
     }
 
+    boolean hasParentBasis() {
+        return myBasis != null;
+    }
+
     boolean isSignChanged() {
         return mySignChanged;
     }
 
+    /**
+     * Remember the parent node's (optimal) basis, so that this node's problem can be warm started from it.
+     * The basis array is not modified and may be shared by the two sibling nodes.
+     */
+    void setParentBasis(final int structure, final int[] basis) {
+        if (basis != null) {
+            myBasis = basis;
+            myStructure = structure;
+        }
+    }
+
     void setNodeState(final ExpressionsBasedModel model, final ModelStrategy strategy) {
+        this.materialise();
         for (int i = 0; i < strategy.countIntegerVariables(); i++) {
             this.enforceBounds(model, i, strategy);
         }
     }
 
+    /**
+     * If there is a parent basis, and the node solver accepts it, the node solver is built (with the model's
+     * current bounds) before the node specific bounds are set, and then updated in-place. Otherwise the
+     * bounds are only set on the model.
+     */
+    void setNodeState(final NodeSolver nodeSolver, final ModelStrategy strategy) {
+
+        boolean warm = myBasis != null && nodeSolver.warmStart(myStructure, myBasis);
+
+        this.materialise();
+
+        for (int i = 0; i < strategy.countIntegerVariables(); i++) {
+            Variable variable = nodeSolver.getVariable(strategy.getIndex(i));
+            this.enforceBounds(variable, i);
+            if (warm) {
+                nodeSolver.update(variable);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.ojalgo.optimisation.BoundPropagator;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Variable;
+
+/**
+ * Activity based bound propagation, using a {@link BoundPropagator}, for the branch-and-bound nodes. The
+ * root node is propagated once, and that state is cached (marked). A node that is a direct child of the
+ * node propagated most recently (continuing down the same branch) starts from its parent's state – only the
+ * constraints touching the branched on variable are queued. Any other node starts over from the cached root
+ * node state (undoing the recorded changes, not rebuilding anything) and applies the node's bounds.
+ * <p>
+ * If propagation shows that the node is infeasible it can be pruned without ever building and solving its
+ * LP. Otherwise the implied integer variable bounds are pushed to the node's LP.
+ * <p>
+ * One instance is shared (read-only) structure plus a workspace. Use {@link #copy()} to get one instance per
+ * worker thread.
+ */
+final class NodePropagator {
+
+    private static double lower(final int bound) {
+        return bound != Integer.MIN_VALUE ? bound : Double.NEGATIVE_INFINITY;
+    }
+
+    private static double upper(final int bound) {
+        return bound != Integer.MAX_VALUE ? bound : Double.POSITIVE_INFINITY;
+    }
+
+    private boolean myFeasible = true;
+    private long myNode = -1L;
+    private final BoundPropagator myPropagator;
+    private final boolean myRootFeasible;
+    /**
+     * The integer variables with bounds tightened by the root node propagation
+     */
+    private final int[] myRootTightened;
+    private final long myWorkLimit;
+
+    private NodePropagator(final NodePropagator shared) {
+
+        super();
+
+        myPropagator = shared.myPropagator.copy();
+        myRootFeasible = shared.myRootFeasible;
+        myRootTightened = shared.myRootTightened;
+        myWorkLimit = shared.myWorkLimit;
+    }
+
+    NodePropagator(final ExpressionsBasedModel model, final ModelStrategy strategy) {
+
+        super();
+
+        int nbVars = model.countVariables();
+
+        boolean[] integer = new boolean[nbVars];
+        for (int i = 0, limit = strategy.countIntegerVariables(); i < limit; i++) {
+            integer[strategy.getIndex(i)] = true;
+        }
+
+        double[] lower = new double[nbVars];
+        double[] upper = new double[nbVars];
+        for (int j = 0; j < nbVars; j++) {
+            Variable variable = model.getVariable(j);
+            lower[j] = variable.getLowerLimit(false, Double.NEGATIVE_INFINITY);
+            upper[j] = variable.getUpperLimit(false, Double.POSITIVE_INFINITY);
+        }
+
+        List<Expression> rows = new ArrayList<>();
+        model.constraints().forEach(constraint -> {
+            if (constraint.isFunctionLinear()) {
+                rows.add(constraint);
+            }
+        });
+
+        long nnz = 0L;
+        for (Expression row : rows) {
+            nnz += row.getLinearKeySet().size();
+        }
+
+        // Per node propagation should be cheap compared to solving the node's LP
+        myWorkLimit = 10L * nnz + 1_000L;
+
+        myPropagator = new BoundPropagator(rows, integer, lower, upper);
+
+        myRootFeasible = myPropagator.propagate(100L * myWorkLimit);
+        myRootTightened = this.changed().toArray();
+
+        myPropagator.mark();
+    }
+
+    private IntStream changed() {
+        return IntStream.range(0, myPropagator.countChanged()).map(myPropagator::getChanged).filter(myPropagator::isInteger).distinct();
+    }
+
+    private int enforce(final NodeSolver nodeSolver, final int col) {
+
+        Variable variable = nodeSolver.getVariable(col);
+
+        double lower = variable.getLowerLimit(false, Double.NEGATIVE_INFINITY);
+        double upper = variable.getUpperLimit(false, Double.POSITIVE_INFINITY);
+
+        double implied = myPropagator.getLower(col);
+        boolean changed = false;
+        if (implied > lower && Math.abs(implied) < Long.MAX_VALUE) {
+            variable.lower(BigDecimal.valueOf((long) implied));
+            changed = true;
+        }
+        implied = myPropagator.getUpper(col);
+        if (implied < upper && Math.abs(implied) < Long.MAX_VALUE) {
+            variable.upper(BigDecimal.valueOf((long) implied));
+            changed = true;
+        }
+
+        if (!changed) {
+            return 0;
+        }
+
+        BigDecimal value = variable.getValue();
+        if (value != null) {
+            // Re-setting will ensure the new bounds are not violated
+            variable.setValue(value);
+        }
+        nodeSolver.update(variable);
+
+        return 1;
+    }
+
+    /**
+     * A new instance sharing the (read-only) constraint structure and the cached root node state, but with
+     * its own workspace.
+     */
+    NodePropagator copy() {
+        return new NodePropagator(this);
+    }
+
+    /**
+     * Tighten the node solver's integer variable bounds to what was implied by the most recent
+     * {@link #propagate(NodeKey, ModelStrategy)}. Only the variables actually changed by propagation are
+     * looked at.
+     *
+     * @return The number of bounds that were tightened
+     */
+    int enforce(final NodeSolver nodeSolver) {
+
+        int retVal = 0;
+
+        for (int t = 0; t < myRootTightened.length; t++) {
+            retVal += this.enforce(nodeSolver, myRootTightened[t]);
+        }
+        for (int t = 0, limit = myPropagator.countChanged(); t < limit; t++) {
+            int col = myPropagator.getChanged(t);
+            if (myPropagator.isInteger(col)) {
+                retVal += this.enforce(nodeSolver, col);
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Apply the node's integer variable bounds, and propagate. Repeated calls for the same node return the
+     * same result without doing the work again.
+     *
+     * @return false if the node is infeasible
+     */
+    boolean propagate(final NodeKey node, final ModelStrategy strategy) {
+
+        if (node.sequence == myNode) {
+            return myFeasible;
+        }
+
+        boolean child = myFeasible && node.index >= 0 && node.parent == myNode;
+
+        myNode = node.sequence;
+
+        if (!myRootFeasible) {
+            return myFeasible = false;
+        }
+
+        if (child) {
+            // Continue from the parent's state – only the branched on variable changed
+            int j = strategy.getIndex(node.index);
+            double lower = Math.max(NodePropagator.lower(node.lower(node.index)), myPropagator.getLower(j));
+            double upper = Math.min(NodePropagator.upper(node.upper(node.index)), myPropagator.getUpper(j));
+            return myFeasible = myPropagator.setBounds(j, lower, upper) && myPropagator.propagate(myWorkLimit);
+        }
+
+        myPropagator.undo();
+
+        int[] lowerBounds = node.copyLowerBounds();
+        int[] upperBounds = node.copyUpperBounds();
+
+        for (int i = 0; i < lowerBounds.length; i++) {
+
+            int j = strategy.getIndex(i);
+
+            double lower = Math.max(NodePropagator.lower(lowerBounds[i]), myPropagator.getLower(j));
+            double upper = Math.min(NodePropagator.upper(upperBounds[i]), myPropagator.getUpper(j));
+
+            if (!myPropagator.setBounds(j, lower, upper)) {
+                return myFeasible = false;
+            }
+        }
+
+        return myFeasible = myPropagator.propagate(myWorkLimit);
+    }
+
+}
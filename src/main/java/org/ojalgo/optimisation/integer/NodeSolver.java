@@ -57,10 +57,88 @@ public final class NodeSolver extends IntermediateSolver {
     private static final NumberContext PARAMETERS = NumberContext.of(12);
     private static final NumberContext SCALE = NumberContext.of(14);
 
+    /**
+     * Identifies the structure of a solver – which model variables and constraints the solver's variables and
+     * constraints correspond to. Solvers with the same structure (but different variable bounds) can share
+     * basis.
+     */
+    static int structure(final ExpressionsBasedModel.EntityMap entityMap) {
+
+        int retVal = 1;
+
+        for (int j = 0, limit = entityMap.countModelVariables(); j < limit; j++) {
+            retVal = 31 * retVal + entityMap.indexOf(j);
+        }
+
+        for (int i = 0, limit = entityMap.countConstraints(); i < limit; i++) {
+            EntryPair<ModelEntity<?>, ConstraintType> constraint = entityMap.getConstraintMap(i);
+            if (constraint != null) {
+                retVal = 31 * retVal + constraint.left().getName().hashCode();
+                retVal = 31 * retVal + constraint.right().ordinal();
+            } else {
+                retVal = 31 * retVal;
+            }
+        }
+
+        return retVal;
+    }
+
     NodeSolver(final ExpressionsBasedModel model) {
         super(model);
     }
 
+    /**
+     * @return The optimal basis of the most recently solved node problem, or null if not available.
+     */
+    int[] getBasis() {
+
+        if (this.isSolved() && this.getSolver() instanceof UpdatableSolver) {
+            return ((UpdatableSolver) this.getSolver()).getBasis();
+        }
+
+        return null;
+    }
+
+    /**
+     * @return A key identifying the structure of the current solver, see
+     *         {@link #structure(ExpressionsBasedModel.EntityMap)}.
+     */
+    int getStructure() {
+
+        if (this.isSolved() && this.getSolver() instanceof UpdatableSolver) {
+            ExpressionsBasedModel.EntityMap entityMap = ((UpdatableSolver) this.getSolver()).getEntityMap();
+            if (entityMap != null) {
+                return NodeSolver.structure(entityMap);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Build the solver, from the model as is, and supply it with a basis to start from. The basis is only
+     * accepted if the solver has the same structure as the one the basis was taken from. Any node specific
+     * variable bounds should then be set using {@link #update(Variable)}, allowing the solver to be updated
+     * in-place.
+     *
+     * @return true if the solver accepted the basis, otherwise false (and the solver is reset)
+     */
+    boolean warmStart(final int structure, final int[] basis) {
+
+        Solver solver = this.buildSolver();
+
+        if (solver instanceof UpdatableSolver) {
+            UpdatableSolver updatable = (UpdatableSolver) solver;
+            ExpressionsBasedModel.EntityMap entityMap = updatable.getEntityMap();
+            if (entityMap != null && NodeSolver.structure(entityMap) == structure && updatable.setBasis(basis)) {
+                return true;
+            }
+        }
+
+        this.reset();
+        return false;
+    }
+
     boolean generateCuts(final ModelStrategy strategy) {
         boolean retVal = this.generateCuts(strategy, this.getModel());
         if (retVal) {
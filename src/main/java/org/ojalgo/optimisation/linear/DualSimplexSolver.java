@@ -36,6 +36,10 @@ final class DualSimplexSolver extends SimplexSolver {
 
     public Result solve(final Result kickStarter) {
 
+        if (this.isWarmStart()) {
+            return this.solveWarm(kickStarter);
+        }
+
         IterDescr iteration = this.prepareToIterate(false, false);
 
         this.doDualIterations(iteration);
@@ -44,6 +48,8 @@ final class DualSimplexSolver extends SimplexSolver {
             this.setState(Optimisation.State.OPTIMAL);
         }
 
+        this.reportStatistics();
+
         return this.extractResult();
     }
 
@@ -0,0 +1,711 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import static org.ojalgo.function.constant.PrimitiveMath.ZERO;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import org.ojalgo.array.SparseArray;
+import org.ojalgo.array.SparseArray.NonzeroView;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.transformation.InvertibleFactor;
+
+/**
+ * Sparse LU factorisation of a simplex basis, [L][U] = [B] (with row and column permutations), that is
+ * updated using the Forrest-Tomlin method when a column of the basis is exchanged. Each update replaces a
+ * column of [U], and appends a row-eta factor [R] that restores its triangular form, so that
+ * [U]<sup>-1</sup>[R][L]<sup>-1</sup> = [B]<sup>-1</sup>.
+ * <p>
+ * The initial factorisation uses Markowitz pivoting (with threshold partial pivoting). The basis is
+ * refactorised when the number of updates, or the fill-in, grows too large, or when numerical drift is
+ * detected.
+ * <p>
+ * Until the first (re)factorisation the basis is the identity matrix.
+ *
+ * @author apete
+ */
+final class ForrestTomlinLU implements InvertibleFactor<Double> {
+
+    /**
+     * Growable sparse vector
+     */
+    static final class Entries {
+
+        int[] index = new int[4];
+        int size = 0;
+        double[] value = new double[4];
+
+        void add(final int idx, final double val) {
+            if (size == index.length) {
+                index = Arrays.copyOf(index, size * 2);
+                value = Arrays.copyOf(value, size * 2);
+            }
+            index[size] = idx;
+            value[size] = val;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int find(final int idx) {
+            for (int k = 0; k < size; k++) {
+                if (index[k] == idx) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+
+        void remove(final int idx) {
+            int k = this.find(idx);
+            if (k >= 0) {
+                size--;
+                index[k] = index[size];
+                value[k] = value[size];
+            }
+        }
+
+    }
+
+    /**
+     * A sequence of elementary (eta) factors, each identified by a pivot index and stored as a sparse
+     * vector. Column etas (as in [L]<sup>-1</sup>) update the other elements using the pivot element, row
+     * etas (as in [R]) update the pivot element using the other elements.
+     */
+    static final class EtaFile {
+
+        private final boolean myColumns;
+        private int[] myIndex = new int[16];
+        private int[] myPivot = new int[4];
+        private int mySize = 0;
+        private int[] myStart = new int[] { 0, 0, 0, 0, 0 };
+        private double[] myValue = new double[16];
+
+        EtaFile(final boolean columns) {
+            super();
+            myColumns = columns;
+        }
+
+        void append(final int idx, final double val) {
+            int count = myStart[mySize];
+            if (count == myIndex.length) {
+                myIndex = Arrays.copyOf(myIndex, count * 2);
+                myValue = Arrays.copyOf(myValue, count * 2);
+            }
+            myIndex[count] = idx;
+            myValue[count] = val;
+            myStart[mySize] = count + 1;
+        }
+
+        /**
+         * [v] = [E][v]
+         */
+        void apply(final double[] v) {
+            for (int e = 0; e < mySize; e++) {
+                int pivot = myPivot[e];
+                if (myColumns) {
+                    double vp = v[pivot];
+                    if (vp != ZERO) {
+                        for (int k = myStart[e]; k < myStart[e + 1]; k++) {
+                            v[myIndex[k]] -= myValue[k] * vp;
+                        }
+                    }
+                } else {
+                    double vp = v[pivot];
+                    for (int k = myStart[e]; k < myStart[e + 1]; k++) {
+                        vp -= myValue[k] * v[myIndex[k]];
+                    }
+                    v[pivot] = vp;
+                }
+            }
+        }
+
+        /**
+         * [v] = [E]<sup>T</sup>[v]
+         */
+        void applyTransposed(final double[] v) {
+            for (int e = mySize - 1; e >= 0; e--) {
+                int pivot = myPivot[e];
+                if (myColumns) {
+                    double vp = v[pivot];
+                    for (int k = myStart[e]; k < myStart[e + 1]; k++) {
+                        vp -= myValue[k] * v[myIndex[k]];
+                    }
+                    v[pivot] = vp;
+                } else {
+                    double vp = v[pivot];
+                    if (vp != ZERO) {
+                        for (int k = myStart[e]; k < myStart[e + 1]; k++) {
+                            v[myIndex[k]] -= myValue[k] * vp;
+                        }
+                    }
+                }
+            }
+        }
+
+        void clear() {
+            mySize = 0;
+        }
+
+        int count() {
+            return myStart[mySize];
+        }
+
+        /**
+         * Start a new eta factor (entries are then added using {@link #append(int, double)}).
+         */
+        void open(final int pivot) {
+            if (mySize + 1 == myPivot.length) {
+                myPivot = Arrays.copyOf(myPivot, myPivot.length * 2);
+                myStart = Arrays.copyOf(myStart, myStart.length * 2);
+            }
+            myPivot[mySize] = pivot;
+            myStart[mySize + 1] = myStart[mySize];
+            mySize++;
+        }
+
+    }
+
+    /**
+     * Relative tolerance when comparing the new diagonal element of [U], calculated by the Forrest-Tomlin
+     * update, with what it should be according to the (ftran:ed) entering column.
+     */
+    private static final double DRIFT = 1E-9;
+    /**
+     * Refactorise when the number of nonzeros in [U] and [R] has grown this much compared to the initial
+     * factorisation.
+     */
+    private static final double FILL = 2.0;
+    /**
+     * Refactorise after this many updates.
+     */
+    private static final int MAX_UPDATES = 100;
+    /**
+     * The number of (eligible) columns to search for a Markowitz pivot.
+     */
+    private static final int SEARCH_LIMIT = 4;
+    /**
+     * Smaller (absolute) values are treated as zero.
+     */
+    private static final double SMALL = 1E-14;
+    /**
+     * Threshold partial pivoting, a pivot candidate must be at least this large relative to the largest
+     * (absolute) value in its column.
+     */
+    private static final double THRESHOLD = 0.1;
+
+    private static int first(final boolean[] done) {
+        for (int i = 0; i < done.length; i++) {
+            if (!done[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void link(final int p, final int count, final int[] head, final int[] next, final int[] prev) {
+        next[p] = head[count];
+        prev[p] = -1;
+        if (head[count] >= 0) {
+            prev[head[count]] = p;
+        }
+        head[count] = p;
+    }
+
+    private static void unlink(final int p, final int count, final int[] head, final int[] next, final int[] prev) {
+        if (prev[p] >= 0) {
+            next[prev[p]] = next[p];
+        } else {
+            head[count] = next[p];
+        }
+        if (next[p] >= 0) {
+            prev[next[p]] = prev[p];
+        }
+    }
+
+    private final double[] myDiagonal;
+    private final int myDim;
+    private int myFillLimit;
+    private final EtaFile myL = new EtaFile(true);
+    /**
+     * The position, in the pivot sequence, of each basis column.
+     */
+    private final int[] myOrder;
+    private final EtaFile myR = new EtaFile(false);
+    /**
+     * The basis column pivoted on at each step. Updates leave -1 "holes" in the sequence.
+     */
+    private final int[] mySequenceColumn;
+    /**
+     * The row pivoted on at each step.
+     */
+    private final int[] mySequenceRow;
+    private int mySequenceSize;
+    private final double[] mySpike;
+    /**
+     * The off-diagonal elements of [U] by column. The index of each entry is a row.
+     */
+    private final Entries[] myUColumns;
+    /**
+     * The off-diagonal elements of [U] by row. The index of each entry is a basis column.
+     */
+    private final Entries[] myURows;
+    private int myUpdates;
+    private final double[] myWork1;
+    private final double[] myWork2;
+
+    ForrestTomlinLU(final int dim) {
+
+        super();
+
+        myDim = dim;
+
+        myDiagonal = new double[dim];
+        myOrder = new int[dim];
+        mySequenceColumn = new int[dim + MAX_UPDATES];
+        mySequenceRow = new int[dim + MAX_UPDATES];
+
+        myUColumns = new Entries[dim];
+        myURows = new Entries[dim];
+        for (int i = 0; i < dim; i++) {
+            myUColumns[i] = new Entries();
+            myURows[i] = new Entries();
+        }
+
+        mySpike = new double[dim];
+        myWork1 = new double[dim];
+        myWork2 = new double[dim];
+
+        this.reset();
+    }
+
+    public void btran(final PhysicalStore<Double> arg) {
+
+        double[] c = myWork1;
+        double[] w = myWork2;
+
+        for (int p = 0; p < myDim; p++) {
+            c[p] = arg.doubleValue(p);
+        }
+
+        this.solveTransposedU(c, w);
+        myR.applyTransposed(w);
+        myL.applyTransposed(w);
+
+        for (int i = 0; i < myDim; i++) {
+            arg.set(i, w[i]);
+        }
+    }
+
+    public long countColumns() {
+        return myDim;
+    }
+
+    public long countRows() {
+        return myDim;
+    }
+
+    public void ftran(final PhysicalStore<Double> arg) {
+
+        double[] v = myWork1;
+        double[] x = myWork2;
+
+        for (int i = 0; i < myDim; i++) {
+            v[i] = arg.doubleValue(i);
+        }
+
+        myL.apply(v);
+        myR.apply(v);
+        this.solveU(v, x);
+
+        for (int p = 0; p < myDim; p++) {
+            arg.set(p, x[p]);
+        }
+    }
+
+    private int countU() {
+        int retVal = myDim;
+        for (int p = 0; p < myDim; p++) {
+            retVal += myUColumns[p].size;
+        }
+        return retVal;
+    }
+
+    /**
+     * [U][x] = [v] - [v] is indexed by row and destroyed, [x] is indexed by basis column.
+     */
+    private void solveU(final double[] v, final double[] x) {
+        for (int k = mySequenceSize - 1; k >= 0; k--) {
+            int p = mySequenceColumn[k];
+            if (p >= 0) {
+                double xp = v[mySequenceRow[k]] / myDiagonal[p];
+                x[p] = xp;
+                if (xp != ZERO) {
+                    Entries column = myUColumns[p];
+                    for (int e = 0; e < column.size; e++) {
+                        v[column.index[e]] -= column.value[e] * xp;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * [U]<sup>T</sup>[w] = [c] - [c] is indexed by basis column, [w] by row.
+     */
+    private void solveTransposedU(final double[] c, final double[] w) {
+        for (int k = 0; k < mySequenceSize; k++) {
+            int p = mySequenceColumn[k];
+            if (p >= 0) {
+                double wr = c[p];
+                Entries column = myUColumns[p];
+                for (int e = 0; e < column.size; e++) {
+                    wr -= column.value[e] * w[column.index[e]];
+                }
+                w[mySequenceRow[k]] = wr / myDiagonal[p];
+            }
+        }
+    }
+
+    /**
+     * Reset to the identity matrix
+     */
+    void reset() {
+
+        myL.clear();
+        myR.clear();
+
+        for (int i = 0; i < myDim; i++) {
+            myUColumns[i].clear();
+            myURows[i].clear();
+            myDiagonal[i] = 1.0;
+            myOrder[i] = i;
+            mySequenceColumn[i] = i;
+            mySequenceRow[i] = i;
+        }
+        mySequenceSize = myDim;
+
+        myUpdates = 0;
+        myFillLimit = (int) (FILL * myDim);
+    }
+
+    /**
+     * (Re)factorise the basis.
+     *
+     * @param basis The basis columns (sparse)
+     */
+    void reset(final IntFunction<SparseArray<Double>> basis) {
+
+        int m = myDim;
+
+        // The active submatrix, row-wise with values and column-wise only the structure
+
+        Entries[] rows = new Entries[m];
+        Entries[] columns = new Entries[m];
+        for (int i = 0; i < m; i++) {
+            rows[i] = new Entries();
+            columns[i] = new Entries();
+        }
+
+        for (int p = 0; p < m; p++) {
+            for (NonzeroView<Double> nz : basis.apply(p).nonzeros()) {
+                double value = nz.doubleValue();
+                if (Math.abs(value) > SMALL) {
+                    int i = Math.toIntExact(nz.index());
+                    rows[i].add(p, value);
+                    columns[p].add(i, ZERO);
+                }
+            }
+        }
+
+        // Columns bucketed by count
+
+        int[] head = new int[m + 1];
+        int[] next = new int[m];
+        int[] prev = new int[m];
+        Arrays.fill(head, -1);
+        for (int p = 0; p < m; p++) {
+            ForrestTomlinLU.link(p, columns[p].size, head, next, prev);
+        }
+
+        int[] scatter = new int[m];
+        Arrays.fill(scatter, -1);
+
+        boolean[] doneRows = new boolean[m];
+        boolean[] doneColumns = new boolean[m];
+
+        myL.clear();
+        myR.clear();
+        for (int i = 0; i < m; i++) {
+            myUColumns[i].clear();
+            myURows[i].clear();
+        }
+
+        for (int k = 0; k < m; k++) {
+
+            // Markowitz pivot search
+
+            int pivotRow = -1;
+            int pivotCol = -1;
+            double pivotVal = ZERO;
+            long bestCost = Long.MAX_VALUE;
+
+            int searched = 0;
+            for (int count = 1; count <= m && searched < SEARCH_LIMIT && bestCost > 0L; count++) {
+                for (int p = head[count]; p >= 0 && searched < SEARCH_LIMIT && bestCost > 0L; p = next[p]) {
+
+                    Entries column = columns[p];
+
+                    double largest = ZERO;
+                    for (int e = 0; e < column.size; e++) {
+                        Entries row = rows[column.index[e]];
+                        largest = Math.max(largest, Math.abs(row.value[row.find(p)]));
+                    }
+
+                    boolean eligible = false;
+                    for (int e = 0; e < column.size; e++) {
+                        int i = column.index[e];
+                        Entries row = rows[i];
+                        double value = row.value[row.find(p)];
+                        double magnitude = Math.abs(value);
+                        if (magnitude > SMALL && magnitude >= THRESHOLD * largest) {
+                            eligible = true;
+                            long cost = (long) (row.size - 1) * (count - 1);
+                            if (cost < bestCost || cost == bestCost && magnitude > Math.abs(pivotVal)) {
+                                bestCost = cost;
+                                pivotRow = i;
+                                pivotCol = p;
+                                pivotVal = value;
+                            }
+                        }
+                    }
+
+                    if (eligible) {
+                        searched++;
+                    }
+                }
+            }
+
+            if (pivotCol < 0) {
+                // Numerically singular - the remaining (dependent) columns are factorised as if they were unit
+                // columns, same as exchanging them for slack variables. The simplex algorithm is then likely to
+                // exchange them again.
+                pivotRow = ForrestTomlinLU.first(doneRows);
+                pivotCol = ForrestTomlinLU.first(doneColumns);
+                pivotVal = 1.0;
+                Entries column = columns[pivotCol];
+                for (int e = 0; e < column.size; e++) {
+                    rows[column.index[e]].remove(pivotCol);
+                }
+                ForrestTomlinLU.unlink(pivotCol, column.size, head, next, prev);
+                column.clear();
+            } else {
+                ForrestTomlinLU.unlink(pivotCol, columns[pivotCol].size, head, next, prev);
+            }
+
+            mySequenceRow[k] = pivotRow;
+            mySequenceColumn[k] = pivotCol;
+            myOrder[pivotCol] = k;
+            myDiagonal[pivotCol] = pivotVal;
+            doneRows[pivotRow] = true;
+            doneColumns[pivotCol] = true;
+
+            // The pivot row becomes a row of U
+
+            Entries pivotEntries = rows[pivotRow];
+            pivotEntries.remove(pivotCol);
+
+            for (int e = 0; e < pivotEntries.size; e++) {
+                int p = pivotEntries.index[e];
+                double value = pivotEntries.value[e];
+                myURows[pivotRow].add(p, value);
+                myUColumns[p].add(pivotRow, value);
+                ForrestTomlinLU.unlink(p, columns[p].size, head, next, prev);
+                columns[p].remove(pivotRow);
+                ForrestTomlinLU.link(p, columns[p].size, head, next, prev);
+            }
+
+            // Eliminate the pivot column from the other rows
+
+            Entries pivotColumn = columns[pivotCol];
+            boolean opened = false;
+
+            for (int e = 0; e < pivotColumn.size; e++) {
+                int i = pivotColumn.index[e];
+                if (i == pivotRow) {
+                    continue;
+                }
+
+                Entries row = rows[i];
+                int pos = row.find(pivotCol);
+                double multiplier = row.value[pos] / pivotVal;
+                row.size--;
+                row.index[pos] = row.index[row.size];
+                row.value[pos] = row.value[row.size];
+
+                if (!opened) {
+                    myL.open(pivotRow);
+                    opened = true;
+                }
+                myL.append(i, multiplier);
+
+                for (int f = 0; f < row.size; f++) {
+                    scatter[row.index[f]] = f;
+                }
+
+                for (int f = 0; f < pivotEntries.size; f++) {
+                    int p = pivotEntries.index[f];
+                    double update = multiplier * pivotEntries.value[f];
+                    int at = scatter[p];
+                    if (at >= 0) {
+                        row.value[at] -= update;
+                    } else {
+                        row.add(p, -update);
+                        ForrestTomlinLU.unlink(p, columns[p].size, head, next, prev);
+                        columns[p].add(i, ZERO);
+                        ForrestTomlinLU.link(p, columns[p].size, head, next, prev);
+                    }
+                }
+
+                for (int f = 0; f < row.size; f++) {
+                    scatter[row.index[f]] = -1;
+                }
+            }
+
+            pivotColumn.clear();
+            pivotEntries.clear();
+        }
+
+        mySequenceSize = m;
+        myUpdates = 0;
+        myFillLimit = (int) (FILL * (this.countU() + myL.count()));
+    }
+
+    /**
+     * Update the factorisation to reflect a replaced column in the basis.
+     *
+     * @param basis The basis columns, with the column already exchanged. Only used if the basis is
+     *        refactorised.
+     * @param index The index, of the column, that was exchanged.
+     * @param values The (non zero) values of that column.
+     */
+    void update(final IntFunction<SparseArray<Double>> basis, final int index, final SparseArray<Double> values) {
+
+        if (myUpdates >= MAX_UPDATES || this.countU() + myL.count() + myR.count() > myFillLimit) {
+            this.reset(basis);
+            return;
+        }
+
+        int m = myDim;
+
+        // The spike, [R][L]^-1 times the entering column
+
+        double[] spike = mySpike;
+        Arrays.fill(spike, ZERO);
+        for (NonzeroView<Double> nz : values.nonzeros()) {
+            spike[Math.toIntExact(nz.index())] = nz.doubleValue();
+        }
+        myL.apply(spike);
+        myR.apply(spike);
+
+        // The diagonal element of the updated U should be this
+
+        double[] v = myWork1;
+        double[] x = myWork2;
+        System.arraycopy(spike, 0, v, 0, m);
+        this.solveU(v, x);
+        double expected = myDiagonal[index] * x[index];
+
+        int position = myOrder[index];
+        int pivotRow = mySequenceRow[position];
+
+        // Remove the exchanged column from U
+
+        Entries column = myUColumns[index];
+        for (int e = 0; e < column.size; e++) {
+            myURows[column.index[e]].remove(index);
+        }
+        column.clear();
+
+        // Eliminate the pivot row using the rows further down the pivot sequence
+
+        double[] row = myWork1;
+        Arrays.fill(row, ZERO);
+
+        Entries pivotEntries = myURows[pivotRow];
+        for (int e = 0; e < pivotEntries.size; e++) {
+            int p = pivotEntries.index[e];
+            row[p] = pivotEntries.value[e];
+            myUColumns[p].remove(pivotRow);
+        }
+        pivotEntries.clear();
+
+        myR.open(pivotRow);
+
+        for (int k = position + 1; k < mySequenceSize; k++) {
+            int p = mySequenceColumn[k];
+            if (p >= 0 && row[p] != ZERO) {
+                int r = mySequenceRow[k];
+                double multiplier = row[p] / myDiagonal[p];
+                row[p] = ZERO;
+                myR.append(r, multiplier);
+                spike[pivotRow] -= multiplier * spike[r];
+                Entries other = myURows[r];
+                for (int e = 0; e < other.size; e++) {
+                    row[other.index[e]] -= multiplier * other.value[e];
+                }
+            }
+        }
+
+        double diagonal = spike[pivotRow];
+
+        if (Math.abs(diagonal) <= SMALL || Math.abs(diagonal - expected) > DRIFT * Math.max(1.0, Math.abs(expected))) {
+            this.reset(basis);
+            return;
+        }
+
+        // The spike becomes the new column of U, last in the pivot sequence
+
+        for (int i = 0; i < m; i++) {
+            double value = spike[i];
+            if (i != pivotRow && Math.abs(value) > SMALL) {
+                column.add(i, value);
+                myURows[i].add(index, value);
+            }
+        }
+        myDiagonal[index] = diagonal;
+
+        mySequenceColumn[position] = -1;
+        mySequenceRow[position] = -1;
+        mySequenceColumn[mySequenceSize] = index;
+        mySequenceRow[mySequenceSize] = pivotRow;
+        myOrder[index] = mySequenceSize;
+        mySequenceSize++;
+
+        myUpdates++;
+    }
+
+}
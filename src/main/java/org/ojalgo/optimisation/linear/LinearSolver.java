@@ -26,7 +26,9 @@ import static org.ojalgo.function.constant.PrimitiveMath.*;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import org.ojalgo.ProgrammingError;
@@ -52,8 +54,80 @@ import org.ojalgo.type.IndexSelector;
 
 public abstract class LinearSolver extends GenericSolver implements UpdatableSolver {
 
+    /**
+     * How the (new) simplex solver selects the entering variable in primal iterations, and the exiting
+     * variable in dual iterations.
+     */
+    public enum Pricing {
+
+        /**
+         * Largest reduced cost (primal) and largest infeasibility (dual).
+         */
+        DANTZIG,
+        /**
+         * Dantzig pricing scaled by approximate reference framework weights – both primal and dual.
+         */
+        DEVEX,
+        /**
+         * Dual steepest edge, with exact weight updates when the simplex store can supply the required
+         * (extra) ftran. Otherwise the weights are updated as with {@link #DEVEX}. Primal iterations use
+         * {@link #DEVEX}.
+         */
+        STEEPEST_EDGE;
+
+    }
+
     public static final class Configuration {
 
+        private int myPartialPricing = 0;
+        private Pricing myPricing = Pricing.DANTZIG;
+        private Consumer<LinearSolver.Statistics> myStatistics = null;
+
+        public int getPartialPricing() {
+            return myPartialPricing;
+        }
+
+        public Pricing getPricing() {
+            return myPricing;
+        }
+
+        /**
+         * Partial pricing – when looking for an entering variable (primal iterations) only price the
+         * nonbasic variables in sections of this size, starting where the previous search ended. The first
+         * section that contains a candidate decides. Intended for models with many more variables than
+         * constraints. Zero (or negative) means full pricing, which is the default.
+         */
+        public Configuration partialPricing(final int sectionSize) {
+            myPartialPricing = sectionSize;
+            return this;
+        }
+
+        /**
+         * Only used by the new/experimental simplex solvers (see {@link Optimisation.Options#experimental}).
+         * The default is {@link Pricing#DANTZIG}.
+         */
+        public Configuration pricing(final Pricing pricing) {
+            Objects.requireNonNull(pricing);
+            myPricing = pricing;
+            return this;
+        }
+
+        /**
+         * Will be called with the iteration statistics of each completed (new/experimental) simplex solve.
+         * Note that it may be called from multiple threads, as the same configuration is typically shared by
+         * all node solvers of an integer model.
+         */
+        public Configuration statistics(final Consumer<LinearSolver.Statistics> consumer) {
+            myStatistics = consumer;
+            return this;
+        }
+
+        void report(final LinearSolver.Statistics statistics) {
+            if (myStatistics != null) {
+                myStatistics.accept(statistics);
+            }
+        }
+
     }
 
     /**
@@ -250,6 +324,55 @@ public abstract class LinearSolver extends GenericSolver implements UpdatableSol
 
     }
 
+    /**
+     * Iteration counts and timing of a simplex solve, see {@link Configuration#statistics(Consumer)}.
+     */
+    public static final class Statistics {
+
+        /**
+         * The number of dual simplex iterations.
+         */
+        public final int dual;
+        /**
+         * Total time, in nanoseconds, of the iterations (including pricing and weight updates).
+         */
+        public final long nanos;
+        /**
+         * The number of primal simplex iterations.
+         */
+        public final int primal;
+        public final Pricing pricing;
+        public final Optimisation.State state;
+
+        Statistics(final Pricing pricing, final int dual, final int primal, final long nanos, final Optimisation.State state) {
+            super();
+            this.pricing = pricing;
+            this.dual = dual;
+            this.primal = primal;
+            this.nanos = nanos;
+            this.state = state;
+        }
+
+        public int countIterations() {
+            return dual + primal;
+        }
+
+        /**
+         * Average time, in nanoseconds, per iteration.
+         */
+        public double getNanosPerIteration() {
+            int iterations = this.countIterations();
+            return iterations > 0 ? (double) nanos / iterations : ZERO;
+        }
+
+        @Override
+        public String toString() {
+            return pricing + " " + state + " dual=" + dual + " primal=" + primal + " time=" + nanos / 1_000_000L + "ms (" + Math.round(this.getNanosPerIteration())
+                    + "ns/iteration)";
+        }
+
+    }
+
     static abstract class Builder<B extends LinearSolver.Builder<B>> extends GenericSolver.Builder<B, LinearSolver> {
 
         Builder() {
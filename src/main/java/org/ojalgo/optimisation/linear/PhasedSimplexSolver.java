@@ -36,6 +36,10 @@ final class PhasedSimplexSolver extends SimplexSolver {
     @Override
     public Result solve(final Result kickStarter) {
 
+        if (this.isWarmStart()) {
+            return this.solveWarm(kickStarter);
+        }
+
         this.initiatePhase1();
 
         IterDescr iteration = this.prepareToIterate(false, true);
@@ -46,6 +50,8 @@ final class PhasedSimplexSolver extends SimplexSolver {
 
         this.doPrimalIterations(iteration); // Phase-2
 
+        this.reportStatistics();
+
         return this.extractResult();
     }
 
@@ -36,6 +36,10 @@ final class PrimalSimplexSolver extends SimplexSolver {
 
     public Result solve(final Result kickStarter) {
 
+        if (this.isWarmStart()) {
+            return this.solveWarm(kickStarter);
+        }
+
         IterDescr iteration = this.prepareToIterate(true, false);
 
         this.doPrimalIterations(iteration);
@@ -44,6 +48,8 @@ final class PrimalSimplexSolver extends SimplexSolver {
             this.setState(Optimisation.State.FAILED);
         }
 
+        this.reportStatistics();
+
         return this.extractResult();
     }
 
@@ -25,6 +25,7 @@ import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.function.IntFunction;
 
 import org.ojalgo.array.SparseArray;
 import org.ojalgo.equation.Equation;
@@ -73,13 +74,17 @@ final class RevisedStore extends SimplexStore {
      */
     private final PhysicalStore<Double> d;
     private final PhysicalStore<Double> l;
-    private final MatrixStore<Double> myBasis;
+    private final IntFunction<SparseArray<Double>> myBasis;
     private final ColumnsSupplier<Double> myConstraintsBody;
     private final ColumnsSupplier.SingleView<Double> myConstraintsColumn;
     private final Primitive64Store myConstraintsRHS;
     private Primitive64Store myCopiedObjective = null;
-    private final ProductFormInverse myInvBasis;
+    private final ForrestTomlinLU myInvBasis;
     private final Primitive64Store myObjective;
+    /**
+     * Work column for {@link #calculateSteepestEdge(double[])}
+     */
+    private Primitive64Store myTau = null;
     /**
      * cost reducer
      */
@@ -117,8 +122,8 @@ final class RevisedStore extends SimplexStore {
         a = RevisedStore.newColumn(n - m);
         r = RevisedStore.newColumn(n - m);
 
-        myBasis = myConstraintsBody.columns(included);
-        myInvBasis = new ProductFormInverse(m, TWO_THIRDS); // TODO The scaling threshold should be much smaller
+        myBasis = j -> myConstraintsBody.getColumn(included[j]);
+        myInvBasis = new ForrestTomlinLU(m);
     }
 
     private void doExclTranspMult(final MatrixStore<Double> lambda, final PhysicalStore<Double> results) {
@@ -219,6 +224,29 @@ final class RevisedStore extends SimplexStore {
         myInvBasis.ftran(myConstraintsColumn, y);
     }
 
+    @Override
+    double calculateSteepestEdge(final double[] tau) {
+
+        if (myTau == null) {
+            myTau = RevisedStore.newColumn(m);
+        }
+
+        double retVal = ZERO;
+        for (int i = 0; i < m; i++) {
+            double rho = z.doubleValue(i);
+            myTau.set(i, rho);
+            retVal += rho * rho;
+        }
+
+        myInvBasis.ftran(myTau);
+
+        for (int i = 0; i < m; i++) {
+            tau[i] = myTau.doubleValue(i);
+        }
+
+        return retVal;
+    }
+
     @Override
     Mutate2D constraintsBody() {
         return myConstraintsBody;
@@ -0,0 +1,208 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.optimisation.linear.LinearSolver.Pricing;
+import org.ojalgo.optimisation.linear.SimplexSolver.EnterInfo;
+import org.ojalgo.optimisation.linear.SimplexSolver.ExitInfo;
+import org.ojalgo.optimisation.linear.SimplexSolver.IterDescr;
+
+/**
+ * Pricing weights for {@link SimplexSolver}. The dual weights are indexed by basis position (the exit
+ * candidates), and the primal weights by nonbasic position (the enter candidates). Both positions are
+ * retained when a variable enters/exits the basis, the entering variable takes the exiting variable's basis
+ * position and vice versa.
+ *
+ * @author apete
+ */
+final class SimplexPricing {
+
+    private final double[] myDualWeights;
+    private int myOffset = 0;
+    private final double[] myPrimalWeights;
+    private final Pricing myRule;
+    private final int mySectionSize;
+    private final double[] myTau;
+
+    SimplexPricing(final LinearSolver.Configuration configuration, final int nbIncluded, final int nbExcluded) {
+
+        super();
+
+        myRule = configuration.getPricing();
+
+        int partial = configuration.getPartialPricing();
+        mySectionSize = partial > 0 ? Math.min(partial, nbExcluded) : nbExcluded;
+
+        if (myRule != Pricing.DANTZIG) {
+            myDualWeights = new double[nbIncluded];
+            myPrimalWeights = new double[nbExcluded];
+        } else {
+            myDualWeights = null;
+            myPrimalWeights = null;
+        }
+
+        if (myRule == Pricing.STEEPEST_EDGE) {
+            myTau = new double[nbIncluded];
+        } else {
+            myTau = null;
+        }
+
+        this.reset();
+    }
+
+    /**
+     * @param ji Basis position
+     * @param infeasibility Primal infeasibility
+     * @return The exit candidate's score – largest wins
+     */
+    double dual(final int ji, final double infeasibility) {
+        if (myDualWeights != null) {
+            return infeasibility * infeasibility / myDualWeights[ji];
+        } else {
+            return Math.abs(infeasibility);
+        }
+    }
+
+    Pricing getRule() {
+        return myRule;
+    }
+
+    /**
+     * Where (at what position in the list of nonbasic variables) the next pricing pass should start.
+     */
+    int offset() {
+        return myOffset;
+    }
+
+    /**
+     * @param je Nonbasic position
+     * @param reducedCost Reduced cost (dual infeasibility)
+     * @return The enter candidate's score – largest wins
+     */
+    double primal(final int je, final double reducedCost) {
+        if (myPrimalWeights != null) {
+            return reducedCost * reducedCost / myPrimalWeights[je];
+        } else {
+            return Math.abs(reducedCost);
+        }
+    }
+
+    /**
+     * Reset the weights to 1.0 – the reference framework is the current basis.
+     */
+    void reset() {
+        if (myDualWeights != null) {
+            Arrays.fill(myDualWeights, ONE);
+            Arrays.fill(myPrimalWeights, ONE);
+        }
+        myOffset = 0;
+    }
+
+    /**
+     * The number of nonbasic variables to price before an enter candidate may be selected.
+     */
+    int section() {
+        return mySectionSize;
+    }
+
+    /**
+     * Partial pricing – the next pass should start where this one ended.
+     */
+    void setOffset(final int offset) {
+        myOffset = offset;
+    }
+
+    /**
+     * Update the weights to reflect the basis change. Must be called before the simplex store is pivoted,
+     * when both the primal (column) and dual (row) directions are available.
+     */
+    void update(final IterDescr iteration, final SimplexStore simplex) {
+
+        if (myDualWeights == null || !iteration.isBasisUpdate()) {
+            return;
+        }
+
+        EnterInfo enter = iteration.enter;
+        ExitInfo exit = iteration.exit;
+
+        int r = exit.index;
+        int q = enter.index;
+
+        double alphaR = simplex.getTableauElement(r, enter);
+        if (alphaR != ZERO) {
+
+            double weightR = myDualWeights[r];
+
+            boolean exact = false;
+            if (myRule == Pricing.STEEPEST_EDGE) {
+                double norm = simplex.calculateSteepestEdge(myTau);
+                if (!Double.isNaN(norm)) {
+                    weightR = norm;
+                    exact = true;
+                }
+            }
+
+            for (int i = 0; i < myDualWeights.length; i++) {
+                if (i != r) {
+                    double ratio = simplex.getTableauElement(i, enter) / alphaR;
+                    if (ratio != ZERO) {
+                        double ratio2 = ratio * ratio;
+                        if (exact) {
+                            double weight = myDualWeights[i] - TWO * ratio * myTau[i] + ratio2 * weightR;
+                            myDualWeights[i] = Math.max(weight, ratio2);
+                        } else {
+                            myDualWeights[i] = Math.max(myDualWeights[i], ratio2 * weightR);
+                        }
+                    }
+                }
+            }
+
+            if (exact) {
+                myDualWeights[r] = weightR / (alphaR * alphaR);
+            } else {
+                myDualWeights[r] = Math.max(weightR / (alphaR * alphaR), ONE);
+            }
+        }
+
+        double alphaQ = simplex.getTableauElement(exit, q);
+        if (alphaQ != ZERO) {
+
+            double weightQ = myPrimalWeights[q];
+
+            for (int je = 0; je < myPrimalWeights.length; je++) {
+                if (je != q) {
+                    double ratio = simplex.getTableauElement(exit, je) / alphaQ;
+                    if (ratio != ZERO) {
+                        myPrimalWeights[je] = Math.max(myPrimalWeights[je], ratio * ratio * weightQ);
+                    }
+                }
+            }
+
+            myPrimalWeights[q] = Math.max(weightQ / (alphaQ * alphaQ), ONE);
+        }
+    }
+
+}
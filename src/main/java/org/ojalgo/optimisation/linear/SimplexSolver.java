@@ -283,15 +283,43 @@ abstract class SimplexSolver extends LinearSolver {
     }
 
     private static final NumberContext ALGORITHM = NumberContext.of(8).withMode(RoundingMode.HALF_DOWN);
+    /**
+     * Same threshold as used when searching for entering (primal) / exiting (dual) candidates.
+     */
+    private static final double DUAL_FEASIBILITY = 1E-10;
+
+    private int myDualIterations = 0;
+    private long myIterationsStart = 0L;
+    private final SimplexPricing myPricing;
+    private int myPrimalIterations = 0;
 
+    /**
+     * Set when the bounds have been shifted (first time the solver iterates). After that the bounds stored in
+     * {@link #mySimplex} are relative to {@link #mySolutionShift}.
+     */
+    private boolean myShifted = false;
     private final SimplexStore mySimplex;
     private final double[] mySolutionShift;
     private double myValueShift = ZERO;
+    /**
+     * A basis to (re)start from, supplied before the solver has iterated, see {@link #setBasis(int...)}.
+     */
+    private int[] myWarmBasis = null;
+    /**
+     * The next solve should continue from the current (or supplied) basis rather than start over.
+     */
+    private boolean myWarmStart = false;
 
     SimplexSolver(final Optimisation.Options solverOptions, final SimplexStore simplexStore) {
         super(solverOptions);
         mySimplex = simplexStore;
         mySolutionShift = new double[simplexStore.n];
+        myPricing = new SimplexPricing(solverOptions.linear(), simplexStore.m, simplexStore.excluded.length);
+    }
+
+    @Override
+    public final boolean fixVariable(final int index, final double value) {
+        return this.updateRange(index, value, value);
     }
 
     @Override
@@ -315,6 +343,15 @@ abstract class SimplexSolver extends LinearSolver {
         return mySimplex.generateCutCandidates(solution, integer, negated, options.integer().getIntegralityTolerance(), fractionality);
     }
 
+    @Override
+    public final int[] getBasis() {
+        if (myShifted && this.getState().isOptimal()) {
+            return mySimplex.included.clone();
+        } else {
+            return null;
+        }
+    }
+
     @Override
     public LinearStructure getEntityMap() {
         return mySimplex.structure;
@@ -343,6 +380,85 @@ abstract class SimplexSolver extends LinearSolver {
         }
     }
 
+    /**
+     * Only possible before the solver has iterated. The basis is not applied until the next solve, and then
+     * only if it turns out to be dual feasible. If not, the solver falls back to its normal algorithm
+     * (starting from that basis).
+     */
+    @Override
+    public final boolean setBasis(final int... basis) {
+
+        if (myShifted || basis.length != mySimplex.m) {
+            return false;
+        }
+
+        for (int i = 0; i < basis.length; i++) {
+            if (basis[i] < 0 || basis[i] >= mySimplex.n) {
+                return false;
+            }
+        }
+
+        myWarmBasis = basis;
+        myWarmStart = true;
+
+        return true;
+    }
+
+    /**
+     * Before the solver has iterated this simply redefines the bounds. After an optimal solution has been
+     * found the bounds are modified in-place, keeping the basis (and its dual feasibility). The next solve
+     * then re-optimises using dual simplex iterations starting from that basis.
+     */
+    @Override
+    public final boolean updateRange(final int index, final double lower, final double upper) {
+
+        if (index < 0 || index >= mySimplex.structure.countModelVariables() || lower > upper) {
+            return false;
+        }
+
+        double[] lowerBounds = mySimplex.getLowerBounds();
+        double[] upperBounds = mySimplex.getUpperBounds();
+
+        if (!myShifted) {
+            lowerBounds[index] = lower;
+            upperBounds[index] = upper;
+            return true;
+        }
+
+        if (!this.getState().isOptimal()) {
+            return false;
+        }
+
+        double shift = mySolutionShift[index];
+        ColumnState columnState = mySimplex.getColumnState(index);
+
+        if (columnState == ColumnState.LOWER && !Double.isFinite(lower) || columnState == ColumnState.UPPER && !Double.isFinite(upper)) {
+            // Would have to switch bound, and that may break dual feasibility
+            return false;
+        }
+
+        lowerBounds[index] = lower - shift;
+        upperBounds[index] = upper - shift;
+
+        if (columnState == ColumnState.UNBOUNDED) {
+            if (Double.isFinite(lower)) {
+                mySimplex.lower(index);
+                columnState = ColumnState.LOWER;
+            } else if (Double.isFinite(upper)) {
+                mySimplex.upper(index);
+                columnState = ColumnState.UPPER;
+            }
+        }
+
+        if (columnState != ColumnState.BASIS) {
+            this.shift(index, columnState);
+        }
+
+        myWarmStart = true;
+
+        return true;
+    }
+
     private Access1D<?> extractMultipliers() {
 
         Access1D<Double> duals = mySimplex.sliceDualVariables();
@@ -405,7 +521,7 @@ abstract class SimplexSolver extends LinearSolver {
             exit = iteration.exit;
         }
 
-        double largest = 1E-10;
+        double largest = ZERO;
         int[] included = mySimplex.included;
         for (int ji = 0, limit = included.length; ji < limit; ji++) {
             int j = included[ji];
@@ -417,7 +533,9 @@ abstract class SimplexSolver extends LinearSolver {
                 this.log(1, "{}({}) {}", j, ji, candidate);
             }
 
-            if (magnitude > largest) {
+            double score = magnitude > DUAL_FEASIBILITY ? myPricing.dual(ji, candidate) : ZERO;
+
+            if (score > largest) {
 
                 if (exit != null) {
 
@@ -436,7 +554,7 @@ abstract class SimplexSolver extends LinearSolver {
                     }
                 }
 
-                largest = magnitude;
+                largest = score;
                 retVal = true;
             }
         }
@@ -480,9 +598,20 @@ abstract class SimplexSolver extends LinearSolver {
         }
 
         int n = mySimplex.structure.countVariables();
-        double largest = 1E-10;
+        double largest = ZERO;
         int[] excluded = mySimplex.excluded;
-        for (int je = 0; je < excluded.length; je++) {
+
+        // Partial pricing: the nonbasic variables are priced in sections, and the first section with a candidate decides
+        int nbExcluded = excluded.length;
+        int offset = myPricing.offset();
+        int section = myPricing.section();
+        int priced = 0;
+
+        while (priced < nbExcluded && !(retVal && priced % section == 0)) {
+
+            int je = (offset + priced) % nbExcluded;
+            priced++;
+
             int j = excluded[je];
             if (j < n) {
 
@@ -494,7 +623,9 @@ abstract class SimplexSolver extends LinearSolver {
                     this.log(1, "{}({}) {} @ {}", j, je, candidate, columnState);
                 }
 
-                if (magnitude > largest) {
+                double score = magnitude > DUAL_FEASIBILITY ? myPricing.primal(je, candidate) : ZERO;
+
+                if (score > largest) {
 
                     if (candidate <= ZERO && columnState != ColumnState.UPPER) {
 
@@ -509,7 +640,7 @@ abstract class SimplexSolver extends LinearSolver {
                             }
                         }
 
-                        largest = magnitude;
+                        largest = score;
                         retVal = true;
 
                     } else if (candidate >= ZERO && columnState != ColumnState.LOWER) {
@@ -525,13 +656,17 @@ abstract class SimplexSolver extends LinearSolver {
                             }
                         }
 
-                        largest = magnitude;
+                        largest = score;
                         retVal = true;
                     }
                 }
             }
         }
 
+        if (enter != null && nbExcluded > 0) {
+            myPricing.setOffset((offset + priced) % nbExcluded);
+        }
+
         if (iteration != null && this.isLogDebug()) {
             this.log("==>> {}", enter);
         }
@@ -587,6 +722,13 @@ abstract class SimplexSolver extends LinearSolver {
         }
     }
 
+    private void resetStatistics() {
+        myPricing.reset();
+        myDualIterations = 0;
+        myPrimalIterations = 0;
+        myIterationsStart = System.nanoTime();
+    }
+
     private void shift(final int column, final ColumnState state) {
 
         double shift = ZERO;
@@ -667,6 +809,51 @@ abstract class SimplexSolver extends LinearSolver {
         }
     }
 
+    /**
+     * Like {@link #shiftBounds(boolean, boolean)} but places the non-basic variables at the bound dictated by
+     * the sign of their reduced cost. If that is not possible for all variables (the basis is not dual
+     * feasible) nothing is changed and false is returned.
+     */
+    private boolean shiftBoundsDualFeasible() {
+
+        mySimplex.calculateIteration();
+
+        int[] excluded = mySimplex.excluded;
+
+        for (int je = 0, limit = excluded.length; je < limit; je++) {
+            int j = excluded[je];
+
+            double rc = mySimplex.getReducedCost(je);
+
+            if (rc > DUAL_FEASIBILITY && !Double.isFinite(mySimplex.getLowerBound(j))) {
+                return false;
+            }
+            if (rc < -DUAL_FEASIBILITY && !Double.isFinite(mySimplex.getUpperBound(j))) {
+                return false;
+            }
+        }
+
+        for (int je = 0, limit = excluded.length; je < limit; je++) {
+            int j = excluded[je];
+
+            double rc = mySimplex.getReducedCost(je);
+            double lb = mySimplex.getLowerBound(j);
+            double ub = mySimplex.getUpperBound(j);
+
+            if (rc < ZERO && Double.isFinite(ub) || !Double.isFinite(lb) && Double.isFinite(ub)) {
+                mySimplex.upper(j);
+                this.shift(j, ColumnState.UPPER);
+            } else if (Double.isFinite(lb)) {
+                mySimplex.lower(j);
+                this.shift(j, ColumnState.LOWER);
+            } else {
+                mySimplex.unbounded(j);
+            }
+        }
+
+        return true;
+    }
+
     private Optimisation.Result solveUnconstrained() {
 
         int nbVars = mySimplex.n;
@@ -967,6 +1154,60 @@ abstract class SimplexSolver extends LinearSolver {
         return this;
     }
 
+    /**
+     * Is there a basis, either the current one or one that was supplied, that the next solve should continue
+     * from?
+     */
+    final boolean isWarmStart() {
+        return myWarmStart;
+    }
+
+    /**
+     * Re-optimise starting from the current (or supplied) basis. The basis is assumed to be dual feasible, and
+     * the primal infeasibilities (caused by modified bounds) are resolved using dual simplex iterations.
+     * Should any dual infeasibilities remain they are taken care of by primal iterations.
+     */
+    final Result solveWarm(final Result kickStarter) {
+
+        myWarmStart = false;
+
+        if (myWarmBasis != null) {
+
+            this.basis(myWarmBasis);
+            myWarmBasis = null;
+
+            if (!this.shiftBoundsDualFeasible()) {
+                // Continue from the supplied basis using the solver's normal algorithm
+                return this.solve(kickStarter);
+            }
+
+            myShifted = true;
+        }
+
+        this.setState(State.VALID);
+
+        mySimplex.calculateIteration();
+
+        this.resetIterationsCount();
+        this.resetStatistics();
+
+        if (this.isLogDebug()) {
+            this.logCurrentState();
+        }
+
+        IterDescr iteration = new IterDescr(mySimplex);
+
+        this.doDualIterations(iteration);
+
+        if (this.getState().isFeasible()) {
+            this.doPrimalIterations(iteration);
+        }
+
+        this.reportStatistics();
+
+        return this.extractResult();
+    }
+
     final void doDualIterations(final IterDescr iteration) {
 
         boolean done = false;
@@ -982,11 +1223,13 @@ abstract class SimplexSolver extends LinearSolver {
 
                     if (iteration.isBasisUpdate()) {
                         mySimplex.calculatePrimalDirection(iteration.enter);
+                        myPricing.update(iteration, mySimplex);
                     }
 
                     this.update(iteration);
 
                     this.incrementIterationsCount();
+                    myDualIterations++;
 
                 } else {
 
@@ -1024,11 +1267,13 @@ abstract class SimplexSolver extends LinearSolver {
 
                     if (iteration.isBasisUpdate()) {
                         mySimplex.calculateDualDirection(iteration.exit);
+                        myPricing.update(iteration, mySimplex);
                     }
 
                     this.update(iteration);
 
                     this.incrementIterationsCount();
+                    myPrimalIterations++;
 
                 } else {
 
@@ -1092,6 +1337,7 @@ abstract class SimplexSolver extends LinearSolver {
     final IterDescr prepareToIterate(final boolean prioritiseFeasibility, final boolean modifyObjective) {
 
         this.shiftBounds(prioritiseFeasibility, modifyObjective);
+        myShifted = true;
 
         if (mySimplex.m == 0) {
             this.solveUnconstrained(); // TODO return?
@@ -1100,6 +1346,7 @@ abstract class SimplexSolver extends LinearSolver {
         mySimplex.calculateIteration();
 
         this.resetIterationsCount();
+        this.resetStatistics();
 
         if (this.isLogDebug()) {
             this.logCurrentState();
@@ -1108,6 +1355,21 @@ abstract class SimplexSolver extends LinearSolver {
         return new IterDescr(mySimplex);
     }
 
+    /**
+     * Report (and log) iteration counts and timing, see {@link LinearSolver.Configuration#statistics(java.util.function.Consumer)}.
+     */
+    final void reportStatistics() {
+
+        LinearSolver.Statistics statistics = new LinearSolver.Statistics(myPricing.getRule(), myDualIterations, myPrimalIterations,
+                System.nanoTime() - myIterationsStart, this.getState());
+
+        if (this.isLogProgress()) {
+            this.log("{}: {}", this.getClass().getSimpleName(), statistics);
+        }
+
+        options.linear().report(statistics);
+    }
+
     void switchToPhase2() {
         mySimplex.restoreObjective();
         mySimplex.calculateIteration();
@@ -133,11 +133,8 @@ abstract class SimplexStore {
 
         for (int i = 0; i < nbUpConstr; i++) {
             Expression expression = upperConstraints.get(i);
-            for (IntIndex key : expression.getLinearKeySet()) {
-                int column = model.indexOfFreeVariable(key);
-                double factor = expression.doubleValue(key, true);
-                mtrxA.set(i, column, factor);
-            }
+            int row = i;
+            expression.forEachLinearFactor(true, (index, factor) -> mtrxA.set(row, model.indexOfFreeVariable(index), factor));
             mtrxA.set(i, nbProbVars + i, ONE);
             mtrxB.set(i, expression.getUpperLimit(true, POSITIVE_INFINITY));
             lowerBounds[nbProbVars + i] = ZERO;
@@ -147,11 +144,8 @@ abstract class SimplexStore {
 
         for (int i = 0; i < nbLoConstr; i++) {
             Expression expression = lowerConstraints.get(i);
-            for (IntIndex key : expression.getLinearKeySet()) {
-                int column = model.indexOfFreeVariable(key);
-                double factor = expression.doubleValue(key, true);
-                mtrxA.set(nbUpConstr + i, column, factor);
-            }
+            int row = nbUpConstr + i;
+            expression.forEachLinearFactor(true, (index, factor) -> mtrxA.set(row, model.indexOfFreeVariable(index), factor));
             mtrxA.set(nbUpConstr + i, nbProbVars + nbUpConstr + i, ONE);
             mtrxB.set(nbUpConstr + i, expression.getLowerLimit(true, NEGATIVE_INFINITY));
             lowerBounds[nbProbVars + nbUpConstr + i] = NEGATIVE_INFINITY;
@@ -161,11 +155,8 @@ abstract class SimplexStore {
 
         for (int i = 0; i < nbEqConstr; i++) {
             Expression expression = equalityConstraints.get(i);
-            for (IntIndex key : expression.getLinearKeySet()) {
-                int column = model.indexOfFreeVariable(key);
-                double factor = expression.doubleValue(key, true);
-                mtrxA.set(nbUpConstr + nbLoConstr + i, column, factor);
-            }
+            int row = nbUpConstr + nbLoConstr + i;
+            expression.forEachLinearFactor(true, (index, factor) -> mtrxA.set(row, model.indexOfFreeVariable(index), factor));
             mtrxA.set(nbUpConstr + nbLoConstr + i, nbProbVars + nbSlckVars + i, ONE);
             mtrxB.set(nbUpConstr + nbLoConstr + i, expression.getUpperLimit(true, ZERO));
             lowerBounds[nbProbVars + nbSlckVars + i] = ZERO;
@@ -182,10 +173,7 @@ abstract class SimplexStore {
 
         structure.setObjectiveAdjustmentFactor(objective.getAdjustmentFactor());
         boolean negate = model.getOptimisationSense() == Optimisation.Sense.MAX;
-        for (IntIndex key : objective.getLinearKeySet()) {
-            double weight = objective.doubleValue(key, true);
-            mtrxC.set(model.indexOfFreeVariable(key), negate ? -weight : weight);
-        }
+        objective.forEachLinearFactor(true, (index, weight) -> mtrxC.set(model.indexOfFreeVariable(index), negate ? -weight : weight));
 
         return simplex;
     }
@@ -291,6 +279,18 @@ abstract class SimplexStore {
 
     abstract void calculatePrimalDirection(EnterInfo enter);
 
+    /**
+     * Dual steepest edge support. Assuming {@link #calculateDualDirection(ExitInfo)} was just called, with
+     * [&rho;] being the exit row of the basis inverse, calculate [&tau;] = [B]<sup>-1</sup>[&rho;] and return
+     * ||[&rho;]||<sup>2</sup>.
+     *
+     * @param tau Indexed by basis position
+     * @return The squared norm of the basis inverse row, or NaN if this is not supported
+     */
+    double calculateSteepestEdge(final double[] tau) {
+        return NaN;
+    }
+
     /**
      * The simplex' constraints body (including the parts corresponding to slack and artificial variables).
      */
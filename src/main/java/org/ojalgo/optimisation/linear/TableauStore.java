@@ -452,8 +452,29 @@ final class TableauStore extends SimplexStore implements Access2D<Double>, Mutat
 
         super.resetBasis(newBasis);
 
-        for (int i = 0; i < newBasis.length; i++) {
-            this.pivot(i, newBasis[i]);
+        // Partial pivoting – the basis need not be ordered to match the rows
+        boolean[] pivoted = new boolean[m];
+
+        for (int k = 0; k < newBasis.length; k++) {
+            int col = newBasis[k];
+
+            int row = -1;
+            double largest = ZERO;
+            for (int i = 0; i < m; i++) {
+                double value = ABS.invoke(myTableau[i][col]);
+                if (!pivoted[i] && value > largest) {
+                    row = i;
+                    largest = value;
+                }
+            }
+
+            if (row < 0) {
+                throw new IllegalStateException("Singular basis!");
+            }
+
+            this.pivot(row, col);
+            pivoted[row] = true;
+            included[row] = col;
         }
     }
 
@@ -0,0 +1,404 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link SIMD} implemented using the Vector API, {@code jdk.incubator.vector}, with the preferred (widest)
+ * species of the running hardware.
+ *
+ * @author apete
+ */
+final class SIMDVector extends SIMD {
+
+    private static final VectorSpecies<Float> R032 = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> R064 = DoubleVector.SPECIES_PREFERRED;
+
+    SIMDVector() {
+        super();
+    }
+
+    @Override
+    void add(final double[] data, final int first, final int limit, final double left, final double[] right) {
+        DoubleVector broadcast = DoubleVector.broadcast(R064, left);
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            broadcast.add(DoubleVector.fromArray(R064, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left + right[i];
+        }
+    }
+
+    @Override
+    void add(final double[] data, final int first, final int limit, final double[] left, final double right) {
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            DoubleVector.fromArray(R064, left, i).add(right).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] + right;
+        }
+    }
+
+    @Override
+    void add(final double[] data, final int first, final int limit, final double[] left, final double[] right) {
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            DoubleVector.fromArray(R064, left, i).add(DoubleVector.fromArray(R064, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] + right[i];
+        }
+    }
+
+    @Override
+    void add(final float[] data, final int first, final int limit, final float left, final float[] right) {
+        FloatVector broadcast = FloatVector.broadcast(R032, left);
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            broadcast.add(FloatVector.fromArray(R032, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left + right[i];
+        }
+    }
+
+    @Override
+    void add(final float[] data, final int first, final int limit, final float[] left, final float right) {
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            FloatVector.fromArray(R032, left, i).add(right).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] + right;
+        }
+    }
+
+    @Override
+    void add(final float[] data, final int first, final int limit, final float[] left, final float[] right) {
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            FloatVector.fromArray(R032, left, i).add(FloatVector.fromArray(R032, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] + right[i];
+        }
+    }
+
+    @Override
+    void axpy(final double[] y, final int basey, final double a, final double[] x, final int basex, final int first, final int limit) {
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            DoubleVector.fromArray(R064, x, basex + i).mul(a).add(DoubleVector.fromArray(R064, y, basey + i)).intoArray(y, basey + i);
+        }
+        for (; i < limit; i++) {
+            y[basey + i] += a * x[basex + i];
+        }
+    }
+
+    @Override
+    void axpy(final float[] y, final int basey, final float a, final float[] x, final int basex, final int first, final int limit) {
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            FloatVector.fromArray(R032, x, basex + i).mul(a).add(FloatVector.fromArray(R032, y, basey + i)).intoArray(y, basey + i);
+        }
+        for (; i < limit; i++) {
+            y[basey + i] += a * x[basex + i];
+        }
+    }
+
+    @Override
+    void divide(final double[] data, final int first, final int limit, final double left, final double[] right) {
+        DoubleVector broadcast = DoubleVector.broadcast(R064, left);
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            broadcast.div(DoubleVector.fromArray(R064, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left / right[i];
+        }
+    }
+
+    @Override
+    void divide(final double[] data, final int first, final int limit, final double[] left, final double right) {
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            DoubleVector.fromArray(R064, left, i).div(right).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] / right;
+        }
+    }
+
+    @Override
+    void divide(final double[] data, final int first, final int limit, final double[] left, final double[] right) {
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            DoubleVector.fromArray(R064, left, i).div(DoubleVector.fromArray(R064, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] / right[i];
+        }
+    }
+
+    @Override
+    void divide(final float[] data, final int first, final int limit, final float left, final float[] right) {
+        FloatVector broadcast = FloatVector.broadcast(R032, left);
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            broadcast.div(FloatVector.fromArray(R032, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left / right[i];
+        }
+    }
+
+    @Override
+    void divide(final float[] data, final int first, final int limit, final float[] left, final float right) {
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            FloatVector.fromArray(R032, left, i).div(right).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] / right;
+        }
+    }
+
+    @Override
+    void divide(final float[] data, final int first, final int limit, final float[] left, final float[] right) {
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            FloatVector.fromArray(R032, left, i).div(FloatVector.fromArray(R032, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] / right[i];
+        }
+    }
+
+    @Override
+    double dot(final double[] array1, final int offset1, final double[] array2, final int offset2, final int first, final int limit) {
+        DoubleVector sum = DoubleVector.zero(R064);
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            sum = DoubleVector.fromArray(R064, array1, offset1 + i).mul(DoubleVector.fromArray(R064, array2, offset2 + i)).add(sum);
+        }
+        double retVal = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < limit; i++) {
+            retVal += array1[offset1 + i] * array2[offset2 + i];
+        }
+        return retVal;
+    }
+
+    @Override
+    float dot(final float[] array1, final int offset1, final float[] array2, final int offset2, final int first, final int limit) {
+        FloatVector sum = FloatVector.zero(R032);
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            sum = FloatVector.fromArray(R032, array1, offset1 + i).mul(FloatVector.fromArray(R032, array2, offset2 + i)).add(sum);
+        }
+        float retVal = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < limit; i++) {
+            retVal += array1[offset1 + i] * array2[offset2 + i];
+        }
+        return retVal;
+    }
+
+    @Override
+    void multiply(final double[] data, final int first, final int limit, final double left, final double[] right) {
+        DoubleVector broadcast = DoubleVector.broadcast(R064, left);
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            broadcast.mul(DoubleVector.fromArray(R064, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left * right[i];
+        }
+    }
+
+    @Override
+    void multiply(final double[] data, final int first, final int limit, final double[] left, final double right) {
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            DoubleVector.fromArray(R064, left, i).mul(right).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] * right;
+        }
+    }
+
+    @Override
+    void multiply(final double[] data, final int first, final int limit, final double[] left, final double[] right) {
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            DoubleVector.fromArray(R064, left, i).mul(DoubleVector.fromArray(R064, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] * right[i];
+        }
+    }
+
+    @Override
+    void multiply(final float[] data, final int first, final int limit, final float left, final float[] right) {
+        FloatVector broadcast = FloatVector.broadcast(R032, left);
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            broadcast.mul(FloatVector.fromArray(R032, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left * right[i];
+        }
+    }
+
+    @Override
+    void multiply(final float[] data, final int first, final int limit, final float[] left, final float right) {
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            FloatVector.fromArray(R032, left, i).mul(right).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] * right;
+        }
+    }
+
+    @Override
+    void multiply(final float[] data, final int first, final int limit, final float[] left, final float[] right) {
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            FloatVector.fromArray(R032, left, i).mul(FloatVector.fromArray(R032, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] * right[i];
+        }
+    }
+
+    @Override
+    void negate(final double[] data, final int first, final int limit, final double[] values) {
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            DoubleVector.fromArray(R064, values, i).neg().intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = -values[i];
+        }
+    }
+
+    @Override
+    void negate(final float[] data, final int first, final int limit, final float[] values) {
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            FloatVector.fromArray(R032, values, i).neg().intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = -values[i];
+        }
+    }
+
+    @Override
+    void subtract(final double[] data, final int first, final int limit, final double left, final double[] right) {
+        DoubleVector broadcast = DoubleVector.broadcast(R064, left);
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            broadcast.sub(DoubleVector.fromArray(R064, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left - right[i];
+        }
+    }
+
+    @Override
+    void subtract(final double[] data, final int first, final int limit, final double[] left, final double right) {
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            DoubleVector.fromArray(R064, left, i).sub(right).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] - right;
+        }
+    }
+
+    @Override
+    void subtract(final double[] data, final int first, final int limit, final double[] left, final double[] right) {
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            DoubleVector.fromArray(R064, left, i).sub(DoubleVector.fromArray(R064, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] - right[i];
+        }
+    }
+
+    @Override
+    void subtract(final float[] data, final int first, final int limit, final float left, final float[] right) {
+        FloatVector broadcast = FloatVector.broadcast(R032, left);
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            broadcast.sub(FloatVector.fromArray(R032, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left - right[i];
+        }
+    }
+
+    @Override
+    void subtract(final float[] data, final int first, final int limit, final float[] left, final float right) {
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            FloatVector.fromArray(R032, left, i).sub(right).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] - right;
+        }
+    }
+
+    @Override
+    void subtract(final float[] data, final int first, final int limit, final float[] left, final float[] right) {
+        int i = first;
+        for (int bound = first + R032.loopBound(limit - first); i < bound; i += R032.length()) {
+            FloatVector.fromArray(R032, left, i).sub(FloatVector.fromArray(R032, right, i)).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] = left[i] - right[i];
+        }
+    }
+
+    @Override
+    double sumOfScaledSquares(final double[] data, final double scale, final int first, final int limit) {
+        DoubleVector sum = DoubleVector.zero(R064);
+        int i = first;
+        for (int bound = first + R064.loopBound(limit - first); i < bound; i += R064.length()) {
+            DoubleVector scaled = DoubleVector.fromArray(R064, data, i).div(scale);
+            sum = scaled.mul(scaled).add(sum);
+        }
+        double retVal = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < limit; i++) {
+            double tmpVal = data[i] / scale;
+            retVal += tmpVal * tmpVal;
+        }
+        return retVal;
+    }
+
+}
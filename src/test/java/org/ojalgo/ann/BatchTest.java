@@ -22,6 +22,8 @@
 package org.ojalgo.ann;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -30,8 +32,14 @@ import org.ojalgo.ann.ArtificialNeuralNetwork.Activator;
 import org.ojalgo.array.ArrayR064;
 import org.ojalgo.data.DataBatch;
 import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.random.Uniform;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Access2D.RowView;
+import org.ojalgo.type.context.NumberContext;
 
 public class BatchTest extends ANNTest {
 
@@ -47,6 +55,46 @@ public class BatchTest extends ANNTest {
     @TempDir
     File dirBatchTest;
 
+    /**
+     * The (matrix based) batch weights/bias update should match the element-wise definition when all batch
+     * instances are different.
+     */
+    @Test
+    public void testAdjustBatchOfDifferent() {
+
+        int nbInputs = 7;
+        int nbOutputs = 5;
+        double learningRate = -0.1;
+        double dropoutsFactor = 0.8;
+
+        CalculationLayer layer = new CalculationLayer(Primitive64Store.FACTORY, nbInputs, nbOutputs, Activator.SIGMOID);
+        layer.randomise();
+
+        MatrixStore<Double> weights = layer.getLogicalWeights().copy();
+
+        Primitive64Store input = Primitive64Store.FACTORY.makeFilled(BATCH_SIZE, nbInputs, Uniform.standard());
+        Primitive64Store output = Primitive64Store.FACTORY.make(BATCH_SIZE, nbOutputs);
+        layer.invoke(input, output);
+
+        PhysicalStore<Double> gradient = Primitive64Store.FACTORY.makeFilled(nbOutputs, BATCH_SIZE, Uniform.standard());
+
+        layer.adjust(input, output, null, gradient, learningRate, dropoutsFactor, null);
+
+        // The gradient has now been multiplied by the activator derivative – same as in adjust(...)
+        PhysicalStore<Double> expected = weights.copy();
+        for (int j = 0; j < nbOutputs; j++) {
+            for (int b = 0; b < BATCH_SIZE; b++) {
+                double ratedGradient = learningRate * gradient.doubleValue(j, b);
+                expected.add(nbInputs, j, ratedGradient);
+                for (int i = 0; i < nbInputs; i++) {
+                    expected.add(i, j, ratedGradient * (input.doubleValue(b, i) / dropoutsFactor));
+                }
+            }
+        }
+
+        TestUtils.assertEquals(expected, layer.getLogicalWeights());
+    }
+
     @Test
     public void testInvoke() {
 
@@ -75,6 +123,128 @@ public class BatchTest extends ANNTest {
         }
     }
 
+    /**
+     * With Hogwild style parallel training there are no guarantees regarding the exact results, but the
+     * training should still work.
+     */
+    @Test
+    public void testTrainHogwild() {
+
+        int nbBatches = 200;
+
+        ArtificialNeuralNetwork ann = ArtificialNeuralNetwork.builder(NB_INPUTS).layer(8, Activator.TANH).layer(NB_OUTPUTS, Activator.SOFTMAX).get();
+        NetworkTrainer trainer = ann.newTrainer(BATCH_SIZE).rate(0.05).parallelism(4).hogwild();
+        NetworkInvoker invoker = ann.newInvoker(BATCH_SIZE);
+
+        List<Access1D<Double>> inputs = new ArrayList<>();
+        List<Access1D<Double>> targets = new ArrayList<>();
+
+        for (int b = 0; b < nbBatches; b++) {
+
+            Primitive64Store input = Primitive64Store.FACTORY.makeFilled(BATCH_SIZE, NB_INPUTS, Uniform.standard());
+            Primitive64Store target = Primitive64Store.FACTORY.make(BATCH_SIZE, NB_OUTPUTS);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                target.set(i, input.doubleValue(i, 0) > input.doubleValue(i, 1) ? 0 : 1, 1.0);
+            }
+
+            inputs.add(input);
+            targets.add(target);
+        }
+
+        double initialError = 0.0;
+        for (int b = 0; b < nbBatches; b++) {
+            initialError += trainer.error(targets.get(b), invoker.invoke(inputs.get(b)));
+        }
+
+        for (int e = 0; e < 20; e++) {
+            trainer.train(inputs, targets);
+        }
+
+        double trainedError = 0.0;
+        for (int b = 0; b < nbBatches; b++) {
+            trainedError += trainer.error(targets.get(b), invoker.invoke(inputs.get(b)));
+        }
+
+        if (DEBUG) {
+            BasicLogger.debug("Error before {} and after {} training", initialError, trainedError);
+        }
+
+        TestUtils.assertTrue(trainedError < initialError / 2.0);
+    }
+
+    /**
+     * {@link Access2D#rows()} returns the same (mutable) row view every time. Hogwild training using it must
+     * still train with all the examples, not just the last one, and get (about) as far as training
+     * sequentially.
+     */
+    @Test
+    public void testTrainHogwildRows() {
+
+        int nbExamples = 300;
+
+        ArtificialNeuralNetwork ann1 = ArtificialNeuralNetwork.builder(NB_INPUTS).layer(8, Activator.TANH).layer(NB_OUTPUTS, Activator.SOFTMAX).get();
+        NetworkTrainer trnSqntl = ann1.newTrainer().rate(0.05);
+
+        ArtificialNeuralNetwork ann2 = this.copy(ann1);
+        NetworkTrainer trnHgwld = ann2.newTrainer().rate(0.05).parallelism(4).hogwild();
+
+        Primitive64Store inputs = Primitive64Store.FACTORY.makeFilled(nbExamples, NB_INPUTS, Uniform.standard());
+        Primitive64Store targets = Primitive64Store.FACTORY.make(nbExamples, NB_OUTPUTS);
+        for (int i = 0; i < nbExamples; i++) {
+            targets.set(i, inputs.doubleValue(i, 0) > inputs.doubleValue(i, 1) ? 0 : 1, 1.0);
+        }
+
+        double initialError = this.error(ann1, trnSqntl, inputs, targets);
+
+        for (int e = 0; e < 20; e++) {
+            this.trainRows(trnSqntl, inputs, targets);
+            this.trainRows(trnHgwld, inputs, targets);
+        }
+
+        double sequentialError = this.error(ann1, trnSqntl, inputs, targets);
+        double hogwildError = this.error(ann2, trnHgwld, inputs, targets);
+
+        if (DEBUG) {
+            BasicLogger.debug("Error initially {}, after sequential {} and after Hogwild {} training", initialError, sequentialError, hogwildError);
+        }
+
+        TestUtils.assertTrue(sequentialError < initialError / 2.0);
+        TestUtils.assertTrue(hogwildError < (initialError + sequentialError) / 2.0);
+    }
+
+    /**
+     * Training using multiple threads, where each batch is split among the workers, should give the same
+     * results as training in one thread.
+     */
+    @Test
+    public void testTrainInParallel() {
+
+        ArtificialNeuralNetwork ann1 = BatchTest.generate();
+        NetworkTrainer trnSqntl = ann1.newTrainer(BATCH_SIZE).rate(0.1).ridge(0.001);
+
+        ArtificialNeuralNetwork ann2 = this.copy(ann1);
+        // Parts of different sizes
+        NetworkTrainer trnPrlll = ann2.newTrainer(BATCH_SIZE).rate(0.1).ridge(0.001).parallelism(4);
+
+        for (int l = 0; l < 10; l++) {
+
+            Primitive64Store input = Primitive64Store.FACTORY.makeFilled(BATCH_SIZE, NB_INPUTS, Uniform.standard());
+            Primitive64Store target = Primitive64Store.FACTORY.make(BATCH_SIZE, NB_OUTPUTS);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                target.set(i, (i + l) % NB_OUTPUTS, 1.0);
+            }
+
+            trnSqntl.train(input, target);
+            trnPrlll.train(input, target);
+        }
+
+        List<MatrixStore<Double>> expected = ann1.getWeights();
+        List<MatrixStore<Double>> actual = ann2.getWeights();
+        for (int l = 0; l < expected.size(); l++) {
+            TestUtils.assertEquals(expected.get(l), actual.get(l), NumberContext.of(12));
+        }
+    }
+
     /**
      * Create batches of identical training examples (equivalent to training multiple times using the same
      * examples) and adjust the learning rate to get the exact same results.
@@ -125,4 +295,20 @@ public class BatchTest extends ANNTest {
         return ArtificialNeuralNetwork.from(copyFile);
     }
 
+    private double error(final ArtificialNeuralNetwork network, final NetworkTrainer trainer, final Primitive64Store inputs,
+            final Primitive64Store targets) {
+        NetworkInvoker invoker = network.newInvoker();
+        double retVal = 0.0;
+        for (int i = 0; i < inputs.getRowDim(); i++) {
+            retVal += trainer.error(targets.sliceRow(i), invoker.invoke(inputs.sliceRow(i)));
+        }
+        return retVal;
+    }
+
+    private void trainRows(final NetworkTrainer trainer, final Primitive64Store inputs, final Primitive64Store targets) {
+        Iterable<RowView<Double>> inputRows = inputs.rows();
+        Iterable<RowView<Double>> targetRows = targets.rows();
+        trainer.train(inputRows, targetRows);
+    }
+
 }
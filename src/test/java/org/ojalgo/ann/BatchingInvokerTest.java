@@ -0,0 +1,195 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.ann;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.concurrent.ProcessingService;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Uniform;
+
+public class BatchingInvokerTest extends ANNTest {
+
+    private static List<Primitive64Store> newInputs(final int count) {
+        List<Primitive64Store> retVal = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            retVal.add(Primitive64Store.FACTORY.makeFilled(1, 4, Uniform.standard()));
+        }
+        return retVal;
+    }
+
+    /**
+     * With a single worker and a (very) long max delay the batches should always be full.
+     */
+    @Test
+    public void testBatchesFillUp() {
+
+        ArtificialNeuralNetwork network = BatchTest.generate();
+        network.randomise();
+
+        List<Primitive64Store> inputs = BatchingInvokerTest.newInputs(32);
+
+        try (BatchingInvoker batching = network.newBatchingInvoker(8, 1, 10L, TimeUnit.SECONDS)) {
+
+            List<CompletableFuture<MatrixStore<Double>>> futures = new ArrayList<>();
+            for (Primitive64Store input : inputs) {
+                futures.add(batching.submit(input));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+
+            TestUtils.assertEquals(4L, batching.countBatches());
+        }
+    }
+
+    @Test
+    public void testClosed() {
+
+        BatchingInvoker batching = BatchTest.generate().newBatchingInvoker(4, 2, 100L, TimeUnit.MICROSECONDS);
+        batching.close();
+
+        try {
+            batching.submit(BatchingInvokerTest.newInputs(1).get(0));
+            TestUtils.fail();
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+    }
+
+    /**
+     * Closing while a worker waits for a batch to fill up must not leave the requests it already collected
+     * (or any still queued) pending forever.
+     */
+    @Test
+    public void testCloseWhileCollecting() throws InterruptedException {
+
+        ArtificialNeuralNetwork network = BatchTest.generate();
+        network.randomise();
+
+        List<CompletableFuture<MatrixStore<Double>>> futures = new ArrayList<>();
+
+        BatchingInvoker batching = network.newBatchingInvoker(8, 1, 10L, TimeUnit.SECONDS);
+        for (Primitive64Store input : BatchingInvokerTest.newInputs(3)) {
+            futures.add(batching.submit(input));
+        }
+
+        Thread.sleep(50L);
+        batching.close();
+
+        for (CompletableFuture<MatrixStore<Double>> future : futures) {
+            try {
+                future.get(5L, TimeUnit.SECONDS);
+                TestUtils.fail();
+            } catch (CancellationException | ExecutionException expected) {
+                // Expected
+            } catch (TimeoutException cause) {
+                TestUtils.fail("Request never completed!");
+            }
+        }
+    }
+
+    /**
+     * Concurrent requests from many threads should get the same results as when invoking them one by one.
+     */
+    @Test
+    public void testSameAsInvoker() {
+
+        ArtificialNeuralNetwork network = BatchTest.generate();
+        network.randomise();
+
+        List<Primitive64Store> inputs = BatchingInvokerTest.newInputs(200);
+
+        NetworkInvoker invoker = network.newInvoker();
+        List<MatrixStore<Double>> expected = new ArrayList<>();
+        for (Primitive64Store input : inputs) {
+            expected.add(invoker.invoke(input).copy());
+        }
+
+        MatrixStore<?>[] actual = new MatrixStore<?>[inputs.size()];
+
+        try (BatchingInvoker batching = network.newBatchingInvoker(16, 2, 200L, TimeUnit.MICROSECONDS)) {
+
+            List<Integer> indices = new ArrayList<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                indices.add(i);
+            }
+
+            ProcessingService.INSTANCE.process(indices, 8, i -> actual[i] = batching.invoke(inputs.get(i)));
+        }
+
+        for (int i = 0; i < inputs.size(); i++) {
+            TestUtils.assertEquals(expected.get(i), actual[i]);
+        }
+    }
+
+    /**
+     * An input of the wrong size fails its own request only – the other requests in the same batch still
+     * get their results.
+     */
+    @Test
+    public void testWrongInputSize() throws InterruptedException, ExecutionException {
+
+        ArtificialNeuralNetwork network = BatchTest.generate();
+        network.randomise();
+
+        List<Primitive64Store> inputs = BatchingInvokerTest.newInputs(7);
+
+        NetworkInvoker invoker = network.newInvoker();
+        List<MatrixStore<Double>> expected = new ArrayList<>();
+        for (Primitive64Store input : inputs) {
+            expected.add(invoker.invoke(input).copy());
+        }
+
+        try (BatchingInvoker batching = network.newBatchingInvoker(8, 1, 10L, TimeUnit.MILLISECONDS)) {
+
+            List<CompletableFuture<MatrixStore<Double>>> futures = new ArrayList<>();
+            for (Primitive64Store input : inputs.subList(0, 3)) {
+                futures.add(batching.submit(input));
+            }
+            CompletableFuture<MatrixStore<Double>> wrong = batching.submit(Primitive64Store.FACTORY.makeFilled(1, 3, Uniform.standard()));
+            for (Primitive64Store input : inputs.subList(3, 7)) {
+                futures.add(batching.submit(input));
+            }
+
+            try {
+                wrong.get();
+                TestUtils.fail();
+            } catch (ExecutionException cause) {
+                TestUtils.assertTrue(cause.getCause() instanceof IllegalArgumentException);
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                TestUtils.assertEquals(expected.get(i), futures.get(i).get());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.ann;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.ann.ArtificialNeuralNetwork.Activator;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
+
+public class OptimiserTest extends ANNTest {
+
+    private static final int BATCH_SIZE = 10;
+    private static final NumberContext EQUALITY = NumberContext.of(12);
+    private static final int NB_BATCHES = 50;
+    private static final int NB_INPUTS = 4;
+    private static final int NB_OUTPUTS = 2;
+
+    static ArtificialNeuralNetwork copy(final ArtificialNeuralNetwork network) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            network.writeTo(new DataOutputStream(bytes));
+            return ArtificialNeuralNetwork.from(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+    }
+
+    static ArtificialNeuralNetwork generate() {
+        ArtificialNeuralNetwork retVal = ArtificialNeuralNetwork.builder(NB_INPUTS).layer(8, Activator.TANH).layer(NB_OUTPUTS, Activator.SOFTMAX).get();
+        retVal.randomise();
+        return retVal;
+    }
+
+    private static void assertSameWeights(final ArtificialNeuralNetwork expected, final ArtificialNeuralNetwork actual) {
+        List<MatrixStore<Double>> weightsE = expected.getWeights();
+        List<MatrixStore<Double>> weightsA = actual.getWeights();
+        for (int l = 0; l < weightsE.size(); l++) {
+            TestUtils.assertEquals(weightsE.get(l), weightsA.get(l), EQUALITY);
+        }
+    }
+
+    /**
+     * Train (one epoch at the time) until the average error is below the target, and return the number of
+     * epochs that took.
+     */
+    private static int epochsToReach(final ArtificialNeuralNetwork network, final NetworkTrainer trainer, final double target, final int maxEpochs) {
+
+        List<Primitive64Store> inputs = new ArrayList<>();
+        List<Primitive64Store> targets = new ArrayList<>();
+        OptimiserTest.generateData(inputs, targets);
+
+        NetworkInvoker invoker = network.newInvoker(BATCH_SIZE);
+
+        for (int e = 0; e < maxEpochs; e++) {
+
+            trainer.train(inputs, targets);
+
+            double error = 0.0;
+            for (int b = 0; b < NB_BATCHES; b++) {
+                error += trainer.error(targets.get(b), invoker.invoke(inputs.get(b)));
+            }
+            error /= NB_BATCHES * BATCH_SIZE;
+
+            if (error < target) {
+                return e + 1;
+            }
+        }
+
+        return maxEpochs;
+    }
+
+    /**
+     * Class 0 if the first input is larger than the second, otherwise class 1. The data is always the same.
+     */
+    private static void generateData(final List<Primitive64Store> inputs, final List<Primitive64Store> targets) {
+
+        int seed = 0;
+
+        for (int b = 0; b < NB_BATCHES; b++) {
+
+            Primitive64Store input = Primitive64Store.FACTORY.make(BATCH_SIZE, NB_INPUTS);
+            Primitive64Store target = Primitive64Store.FACTORY.make(BATCH_SIZE, NB_OUTPUTS);
+
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                for (int j = 0; j < NB_INPUTS; j++) {
+                    // Deterministic pseudo random numbers in [-1,1)
+                    seed = seed * 1103515245 + 12345;
+                    input.set(i, j, ((seed >>> 8) & 0xFFFF) / 32768.0 - 1.0);
+                }
+                target.set(i, input.doubleValue(i, 0) > input.doubleValue(i, 1) ? 0 : 1, 1.0);
+            }
+
+            inputs.add(input);
+            targets.add(target);
+        }
+    }
+
+    /**
+     * On the first step the bias corrected moment estimates are the gradient and its square, and the step is
+     * (close to) the learning rate in the direction opposite to the gradient for every weight.
+     */
+    @Test
+    public void testAdamFirstStep() {
+
+        double rate = 0.001;
+
+        ArtificialNeuralNetwork initial = OptimiserTest.generate();
+
+        ArtificialNeuralNetwork sgd = OptimiserTest.copy(initial);
+        ArtificialNeuralNetwork adam = OptimiserTest.copy(initial);
+
+        Primitive64Store input = Primitive64Store.FACTORY.makeFilled(BATCH_SIZE, NB_INPUTS, Uniform.standard());
+        Primitive64Store target = Primitive64Store.FACTORY.make(BATCH_SIZE, NB_OUTPUTS);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            target.set(i, i % NB_OUTPUTS, 1.0);
+        }
+
+        sgd.newTrainer(BATCH_SIZE).rate(rate).train(input, target);
+        adam.newTrainer(BATCH_SIZE).rate(rate).optimiser(Optimiser.adam()).train(input, target);
+
+        for (int l = 0; l < initial.depth(); l++) {
+
+            MatrixStore<Double> weightsI = initial.getWeights().get(l);
+            MatrixStore<Double> weightsS = sgd.getWeights().get(l);
+            MatrixStore<Double> weightsA = adam.getWeights().get(l);
+
+            for (int i = 0; i < weightsI.getRowDim(); i++) {
+                for (int j = 0; j < weightsI.getColDim(); j++) {
+
+                    double stepS = weightsS.doubleValue(i, j) - weightsI.doubleValue(i, j);
+                    double stepA = weightsA.doubleValue(i, j) - weightsI.doubleValue(i, j);
+
+                    if (Math.abs(stepS) > 1E-9) {
+                        TestUtils.assertEquals(Math.signum(stepS) * rate, stepA, NumberContext.of(4));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Measured in number of epochs the adaptive methods should reach a target error faster than plain SGD.
+     */
+    @Test
+    public void testFewerEpochs() {
+
+        double target = 0.05;
+        int maxEpochs = 300;
+
+        ArtificialNeuralNetwork initial = OptimiserTest.generate();
+
+        ArtificialNeuralNetwork sgd = OptimiserTest.copy(initial);
+        int epochsSGD = OptimiserTest.epochsToReach(sgd, sgd.newTrainer(BATCH_SIZE).rate(0.01), target, maxEpochs);
+
+        ArtificialNeuralNetwork adam = OptimiserTest.copy(initial);
+        int epochsAdam = OptimiserTest.epochsToReach(adam, adam.newTrainer(BATCH_SIZE).rate(0.01).optimiser(Optimiser.adam()), target, maxEpochs);
+
+        ArtificialNeuralNetwork rmsprop = OptimiserTest.copy(initial);
+        int epochsRMSProp = OptimiserTest.epochsToReach(rmsprop, rmsprop.newTrainer(BATCH_SIZE).rate(0.01).optimiser(Optimiser.rmsprop()), target,
+                maxEpochs);
+
+        if (DEBUG) {
+            BasicLogger.debug("Epochs: SGD={} Adam={} RMSProp={}", epochsSGD, epochsAdam, epochsRMSProp);
+        }
+
+        TestUtils.assertTrue(epochsAdam < epochsSGD);
+        TestUtils.assertTrue(epochsRMSProp < epochsSGD);
+    }
+
+    /**
+     * Momentum 0.0 is the same as plain SGD, and so is a schedule that is constant.
+     */
+    @Test
+    public void testMomentumZero() {
+
+        ArtificialNeuralNetwork initial = OptimiserTest.generate();
+
+        ArtificialNeuralNetwork expected = OptimiserTest.copy(initial);
+        OptimiserTest.epochsToReach(expected, expected.newTrainer(BATCH_SIZE).rate(0.05), 0.0, 3);
+
+        ArtificialNeuralNetwork sgd = OptimiserTest.copy(initial);
+        OptimiserTest.epochsToReach(sgd, sgd.newTrainer(BATCH_SIZE).rate(0.05).optimiser(Optimiser.sgd().schedule(Optimiser.Schedule.constant())), 0.0, 3);
+
+        ArtificialNeuralNetwork momentum = OptimiserTest.copy(initial);
+        OptimiserTest.epochsToReach(momentum, momentum.newTrainer(BATCH_SIZE).rate(0.05).optimiser(Optimiser.momentum(0.0)), 0.0, 3);
+
+        OptimiserTest.assertSameWeights(expected, sgd);
+        OptimiserTest.assertSameWeights(expected, momentum);
+    }
+
+    @Test
+    public void testSchedules() {
+
+        Optimiser.Schedule step = Optimiser.Schedule.step(10, 0.5);
+        TestUtils.assertEquals(1.0, step.factor(0));
+        TestUtils.assertEquals(1.0, step.factor(9));
+        TestUtils.assertEquals(0.5, step.factor(10));
+        TestUtils.assertEquals(0.25, step.factor(25));
+
+        Optimiser.Schedule cosine = Optimiser.Schedule.cosine(100, 0.1);
+        TestUtils.assertEquals(1.0, cosine.factor(0));
+        TestUtils.assertEquals(0.55, cosine.factor(50));
+        TestUtils.assertEquals(0.1, cosine.factor(100));
+        TestUtils.assertEquals(0.1, cosine.factor(1000));
+
+        Optimiser.Schedule warmUp = Optimiser.Schedule.warmUp(4, step);
+        TestUtils.assertEquals(0.25, warmUp.factor(0));
+        TestUtils.assertEquals(1.0, warmUp.factor(3));
+        TestUtils.assertEquals(1.0, warmUp.factor(13));
+        TestUtils.assertEquals(0.5, warmUp.factor(14));
+    }
+
+}
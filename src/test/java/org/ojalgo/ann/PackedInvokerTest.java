@@ -0,0 +1,144 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.ann;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.ann.ArtificialNeuralNetwork.Activator;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
+
+public class PackedInvokerTest extends ANNTest {
+
+    private static final int BATCH_SIZE = 7;
+    /**
+     * Float precision
+     */
+    private static final NumberContext PRECISION = NumberContext.of(5);
+
+    private static void doTest(final ArtificialNeuralNetwork network) {
+
+        network.randomise();
+
+        int nbInputs = network.countInputNodes();
+        int nbOutputs = network.countOutputNodes();
+
+        NetworkInvoker invoker = network.newInvoker(BATCH_SIZE);
+        PackedInvoker packed = network.newPackedInvoker(BATCH_SIZE);
+
+        Primitive64Store input = Primitive64Store.FACTORY.makeFilled(BATCH_SIZE, nbInputs, Uniform.standard());
+        MatrixStore<Double> expected = invoker.invoke(input);
+
+        double[] inputD = new double[BATCH_SIZE * nbInputs];
+        float[] inputF = new float[BATCH_SIZE * nbInputs];
+        for (int e = 0; e < BATCH_SIZE; e++) {
+            for (int i = 0; i < nbInputs; i++) {
+                inputD[e * nbInputs + i] = input.doubleValue(e, i);
+                inputF[e * nbInputs + i] = (float) input.doubleValue(e, i);
+            }
+        }
+
+        double[] outputD = new double[BATCH_SIZE * nbOutputs];
+        float[] outputF = new float[BATCH_SIZE * nbOutputs];
+
+        packed.invoke(inputD, outputD);
+        packed.invoke(inputF, outputF);
+
+        for (int e = 0; e < BATCH_SIZE; e++) {
+            for (int j = 0; j < nbOutputs; j++) {
+                TestUtils.assertEquals(expected.doubleValue(e, j), outputD[e * nbOutputs + j], PRECISION);
+                TestUtils.assertEquals(expected.doubleValue(e, j), outputF[e * nbOutputs + j], PRECISION);
+            }
+        }
+
+        // Fewer examples than the batch size
+        float[] single = new float[nbOutputs];
+        packed.invoke(Arrays.copyOfRange(inputF, 2 * nbInputs, 3 * nbInputs), single);
+        for (int j = 0; j < nbOutputs; j++) {
+            TestUtils.assertEquals(expected.doubleValue(2, j), single[j], PRECISION);
+        }
+    }
+
+    @Test
+    public void testAllActivators() {
+        PackedInvokerTest.doTest(ArtificialNeuralNetwork.builder(9).layer(11, Activator.RELU).layer(6, Activator.TANH).layer(5, Activator.IDENTITY)
+                .layer(4, Activator.SIGMOID).get());
+        PackedInvokerTest.doTest(ArtificialNeuralNetwork.builder(3).layer(10, Activator.SIGMOID).layer(3, Activator.SOFTMAX).get());
+    }
+
+    /**
+     * Logits above about 88 overflow float exp – the max logit has to be subtracted first.
+     */
+    @Test
+    public void testLargeLogits() {
+
+        ArtificialNeuralNetwork network = ArtificialNeuralNetwork.builder(2).layer(3, Activator.SOFTMAX).get();
+        network.setWeight(0, 0, 0, 1.0);
+        network.setWeight(0, 0, 1, 1.0);
+        network.setWeight(0, 0, 2, 1.0);
+        network.setWeight(0, 1, 0, 0.0);
+        network.setWeight(0, 1, 1, 1.0);
+        network.setWeight(0, 1, 2, -1.0);
+        network.setBias(0, 0, 0.0);
+        network.setBias(0, 1, 0.0);
+        network.setBias(0, 2, 0.0);
+
+        // Logits 500, 501 and 499
+        double[] input = { 500.0, 1.0 };
+
+        MatrixStore<Double> expected = network.newInvoker().invoke(Primitive64Store.FACTORY.rows(input));
+
+        double[] output = new double[3];
+        network.newPackedInvoker(1).invoke(input, output);
+
+        double total = 0.0;
+        for (int j = 0; j < output.length; j++) {
+            TestUtils.assertTrue(Double.isFinite(output[j]));
+            TestUtils.assertEquals(expected.doubleValue(j), output[j], PRECISION);
+            total += output[j];
+        }
+        TestUtils.assertEquals(1.0, total, PRECISION);
+    }
+
+    @Test
+    public void testTooManyExamples() {
+
+        PackedInvoker packed = ArtificialNeuralNetwork.builder(3).layer(2).get().newPackedInvoker(2);
+
+        TestUtils.assertEquals(3, packed.countInputNodes());
+        TestUtils.assertEquals(2, packed.countOutputNodes());
+
+        packed.invoke(new double[6], new double[4]);
+
+        try {
+            packed.invoke(new double[9], new double[6]);
+            TestUtils.fail();
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+
+/**
+ * The Vector API implementations should produce the same results as the plain Java loops. Only run if
+ * {@code jdk.incubator.vector} is available.
+ */
+public class SIMDTest extends ArrayOperationTests {
+
+    private static final int FIRST = 3;
+    private static final int LIMIT = 1000 - 5;
+    private static final int SIZE = 1000;
+
+    private static void assertEquals(final double[] expected, final double[] actual) {
+        for (int i = 0; i < SIZE; i++) {
+            TestUtils.assertEquals(expected[i], actual[i], 0.0);
+        }
+    }
+
+    private static float[] random32(final Random random) {
+        float[] retVal = new float[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            retVal[i] = (float) random.nextGaussian();
+        }
+        return retVal;
+    }
+
+    private static double[] random64(final Random random) {
+        double[] retVal = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            retVal[i] = random.nextGaussian();
+        }
+        return retVal;
+    }
+
+    private final Random myRandom = new Random(123L);
+
+    @BeforeEach
+    public void assumeAvailable() {
+        Assumptions.assumeTrue(SIMD.INSTANCE != null);
+    }
+
+    @Test
+    public void testAXPY() {
+
+        double[] x64 = SIMDTest.random64(myRandom);
+        double[] expected64 = SIMDTest.random64(myRandom);
+        double[] actual64 = expected64.clone();
+
+        for (int i = FIRST; i < LIMIT; i++) {
+            expected64[2 + i] += 1.5 * x64[i];
+        }
+        SIMD.INSTANCE.axpy(actual64, 2, 1.5, x64, 0, FIRST, LIMIT);
+        SIMDTest.assertEquals(expected64, actual64);
+
+        float[] x32 = SIMDTest.random32(myRandom);
+        float[] expected32 = SIMDTest.random32(myRandom);
+        float[] actual32 = expected32.clone();
+
+        for (int i = FIRST; i < LIMIT; i++) {
+            expected32[2 + i] += 1.5F * x32[i];
+        }
+        SIMD.INSTANCE.axpy(actual32, 2, 1.5F, x32, 0, FIRST, LIMIT);
+        for (int i = 0; i < SIZE; i++) {
+            TestUtils.assertEquals(expected32[i], actual32[i], 1E-6F);
+        }
+    }
+
+    @Test
+    public void testCoreOperations() {
+
+        double[] left64 = SIMDTest.random64(myRandom);
+        double[] right64 = SIMDTest.random64(myRandom);
+        double[] expected64 = new double[SIZE];
+        double[] actual64 = new double[SIZE];
+
+        for (int i = FIRST; i < LIMIT; i++) {
+            expected64[i] = left64[i] + right64[i];
+        }
+        SIMD.INSTANCE.add(actual64, FIRST, LIMIT, left64, right64);
+        SIMDTest.assertEquals(expected64, actual64);
+
+        for (int i = FIRST; i < LIMIT; i++) {
+            expected64[i] = 2.0 - right64[i];
+        }
+        SIMD.INSTANCE.subtract(actual64, FIRST, LIMIT, 2.0, right64);
+        SIMDTest.assertEquals(expected64, actual64);
+
+        for (int i = FIRST; i < LIMIT; i++) {
+            expected64[i] = left64[i] * 3.0;
+        }
+        SIMD.INSTANCE.multiply(actual64, FIRST, LIMIT, left64, 3.0);
+        SIMDTest.assertEquals(expected64, actual64);
+
+        for (int i = FIRST; i < LIMIT; i++) {
+            expected64[i] = left64[i] / right64[i];
+        }
+        SIMD.INSTANCE.divide(actual64, FIRST, LIMIT, left64, right64);
+        SIMDTest.assertEquals(expected64, actual64);
+
+        for (int i = FIRST; i < LIMIT; i++) {
+            expected64[i] = -left64[i];
+        }
+        SIMD.INSTANCE.negate(actual64, FIRST, LIMIT, left64);
+        SIMDTest.assertEquals(expected64, actual64);
+
+        float[] left32 = SIMDTest.random32(myRandom);
+        float[] right32 = SIMDTest.random32(myRandom);
+        float[] expected32 = new float[SIZE];
+        float[] actual32 = new float[SIZE];
+
+        for (int i = FIRST; i < LIMIT; i++) {
+            expected32[i] = left32[i] - right32[i];
+        }
+        SIMD.INSTANCE.subtract(actual32, FIRST, LIMIT, left32, right32);
+        for (int i = 0; i < SIZE; i++) {
+            TestUtils.assertEquals(expected32[i], actual32[i], 0F);
+        }
+
+        for (int i = FIRST; i < LIMIT; i++) {
+            expected32[i] = 2F / right32[i];
+        }
+        SIMD.INSTANCE.divide(actual32, FIRST, LIMIT, 2F, right32);
+        for (int i = 0; i < SIZE; i++) {
+            TestUtils.assertEquals(expected32[i], actual32[i], 0F);
+        }
+    }
+
+    @Test
+    public void testDispatch() {
+
+        double[] left = SIMDTest.random64(myRandom);
+        double[] right = SIMDTest.random64(myRandom);
+        double[] expected = new double[SIZE];
+        double[] actual = new double[SIZE];
+
+        // step > 1 is never vectorised
+        for (int i = FIRST; i < LIMIT; i += 2) {
+            expected[i] = left[i] * right[i];
+        }
+        CorePrimitiveOperation.multiply(actual, FIRST, LIMIT, 2, left, right);
+        SIMDTest.assertEquals(expected, actual);
+
+        TestUtils.assertFalse(SIMD.isElementWise(2, 0, SIMD.THRESHOLD_ELEMENTWISE));
+        TestUtils.assertFalse(SIMD.isElementWise(1, 0, SIMD.THRESHOLD_ELEMENTWISE - 1));
+        TestUtils.assertTrue(SIMD.isElementWise(1, 0, SIMD.THRESHOLD_ELEMENTWISE));
+        TestUtils.assertFalse(SIMD.isReduction(0, SIMD.THRESHOLD_REDUCTION - 1));
+        TestUtils.assertTrue(SIMD.isReduction(0, SIMD.THRESHOLD_REDUCTION));
+    }
+
+    @Test
+    public void testDOT() {
+
+        double[] array1 = SIMDTest.random64(myRandom);
+        double[] array2 = SIMDTest.random64(myRandom);
+
+        double expected64 = DOT.plain(array1, 0, array2, 2, FIRST, LIMIT);
+        double actual64 = SIMD.INSTANCE.dot(array1, 0, array2, 2, FIRST, LIMIT);
+        TestUtils.assertEquals(expected64, actual64, 1E-12);
+
+        float[] array3 = SIMDTest.random32(myRandom);
+        float[] array4 = SIMDTest.random32(myRandom);
+
+        float expected32 = DOT.plain(array3, 2, array4, 0, FIRST, LIMIT);
+        float actual32 = SIMD.INSTANCE.dot(array3, 2, array4, 0, FIRST, LIMIT);
+        TestUtils.assertEquals(expected32, actual32, 1E-3F);
+    }
+
+    @Test
+    public void testNRM2() {
+
+        double[] data = SIMDTest.random64(myRandom);
+
+        double expected = 0.0;
+        for (int i = FIRST; i < LIMIT; i++) {
+            expected += data[i] / 2.0 * (data[i] / 2.0);
+        }
+
+        TestUtils.assertEquals(expected, SIMD.INSTANCE.sumOfScaledSquares(data, 2.0, FIRST, LIMIT), 1E-12);
+        TestUtils.assertEquals(2.0 * Math.sqrt(expected), NRM2.invoke(data, 2.0, FIRST, LIMIT), 1E-12);
+    }
+
+}
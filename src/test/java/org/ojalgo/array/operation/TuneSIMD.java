@@ -0,0 +1,89 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import org.ojalgo.BenchmarkUtils;
+import org.ojalgo.array.ArrayR064;
+import org.ojalgo.random.Uniform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Compares the plain Java loops with the Vector API implementations in {@link SIMD}. The forked JVM is
+ * started with {@code --add-modules jdk.incubator.vector}.
+ *
+ * @author apete
+ */
+@State(Scope.Benchmark)
+public class TuneSIMD {
+
+    public static void main(final String[] args) throws RunnerException {
+        BenchmarkUtils.run(BenchmarkUtils.options().jvmArgsAppend("--add-modules", "jdk.incubator.vector"), TuneSIMD.class);
+    }
+
+    @Param({ "100", "1000", "10000" })
+    public int size;
+
+    public double[] x;
+    public double[] y;
+
+    @Benchmark
+    public double[] axpyPlain() {
+        for (int i = 0; i < size; i++) {
+            y[i] += 0.5 * x[i];
+        }
+        return y;
+    }
+
+    @Benchmark
+    public double[] axpyVector() {
+        SIMD.INSTANCE.axpy(y, 0, 0.5, x, 0, 0, size);
+        return y;
+    }
+
+    @Benchmark
+    public double dotPlain() {
+        return DOT.unrolled04(x, 0, y, 0, 0, size);
+    }
+
+    @Benchmark
+    public double dotVector() {
+        return SIMD.INSTANCE.dot(x, 0, y, 0, 0, size);
+    }
+
+    @Setup
+    public void setup() {
+
+        ArrayR064 tmpX = ArrayR064.make(size);
+        tmpX.fillAll(Uniform.standard());
+        x = tmpX.data;
+
+        ArrayR064 tmpY = ArrayR064.make(size);
+        tmpY.fillAll(Uniform.standard());
+        y = tmpY.data;
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.concurrent;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+
+public class WorkStealingQueuesTest {
+
+    static final int DEPTH = 12;
+
+    /**
+     * Items (integers) form a binary tree – processing item i generates items 2i and 2i+1 until the depth
+     * limit is reached. All items are initially offered to worker 0, so the other workers have to steal. All
+     * items should be processed exactly once, and all workers should terminate.
+     */
+    @Test
+    public void testProcessTree() {
+
+        Comparator<Integer> natural = Comparator.naturalOrder();
+        List<Comparator<Integer>> priorities = List.of(natural, natural.reversed(), natural, natural.reversed());
+
+        WorkStealingQueues<Integer> queues = new WorkStealingQueues<>(priorities);
+        queues.worker(0).offer(1);
+
+        LongAdder counter = new LongAdder();
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+
+        ProcessingService executor = ProcessingService.newInstance("Test-work-stealing");
+
+        executor.process(queues.workers(), priorities.size(), worker -> {
+
+            Integer item = null;
+            while ((item = worker.take()) != null) {
+
+                seen.add(item);
+                counter.increment();
+
+                if (item < 1 << DEPTH - 1) {
+                    worker.offer(2 * item);
+                    worker.offer(2 * item + 1);
+                }
+
+                worker.done();
+            }
+        });
+
+        int expected = (1 << DEPTH) - 1;
+
+        TestUtils.assertEquals(expected, counter.sum());
+        TestUtils.assertEquals(expected, seen.size());
+        TestUtils.assertEquals(expected, Collections.max(seen).intValue());
+        TestUtils.assertTrue(queues.isEmpty());
+    }
+
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.data.batch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.netio.ColumnarBlock;
+import org.ojalgo.netio.ColumnarInterpreter;
+import org.ojalgo.netio.DataInterpreter;
+import org.ojalgo.type.function.AutoConsumer;
+import org.ojalgo.type.function.TwoStepMapper;
+
+public class BatchNodeTest {
+
+    /**
+     * Sums the values (column 1) of the items
+     */
+    static final class Summer implements TwoStepMapper<double[], Double> {
+
+        private double mySum = 0.0;
+
+        public void consume(final double[] item) {
+            mySum += item[1];
+        }
+
+        public Double getResults() {
+            return Double.valueOf(mySum);
+        }
+
+        public void merge(final Double result) {
+            mySum += result.doubleValue();
+        }
+
+        public void reset() {
+            mySum = 0.0;
+        }
+
+    }
+
+    static final ColumnarInterpreter<double[]> COLUMNAR = new ColumnarInterpreter<>() {
+
+        public double[] deserialize(final ColumnarBlock block, final int row) {
+            return new double[] { block.longValue(0, row), block.doubleValue(1, row) };
+        }
+
+        public ColumnarBlock.Type[] getColumnTypes() {
+            return new ColumnarBlock.Type[] { ColumnarBlock.Type.LONG, ColumnarBlock.Type.DOUBLE };
+        }
+
+        public void serialize(final double[] item, final ColumnarBlock block, final int row) {
+            block.set(0, row, (long) item[0]);
+            block.set(1, row, item[1]);
+        }
+
+    };
+
+    static final DataInterpreter<double[]> DATA = new DataInterpreter<>() {
+
+        public double[] deserialize(final DataInput input) throws IOException {
+            return new double[] { input.readLong(), input.readDouble() };
+        }
+
+        public void serialize(final double[] data, final DataOutput output) throws IOException {
+            output.writeLong((long) data[0]);
+            output.writeDouble(data[1]);
+        }
+
+    };
+
+    private static final int SIZE = 100_000;
+
+    private static void doTestGroupBy(final BatchNode<double[]> node) throws Exception {
+
+        BatchNodeTest.fill(node);
+
+        Map<Long, Double> sums = new ConcurrentHashMap<>();
+        Map<Long, Long> counts = new ConcurrentHashMap<>();
+
+        node.groupBy(item -> Long.valueOf((long) item[0] % 1000L), Collectors.summingDouble(item -> item[1]), (key, sum) -> {
+            TestUtils.assertTrue(sums.put(key, sum) == null);
+        });
+        node.groupBy(item -> Long.valueOf((long) item[0] % 1000L), Collectors.counting(), (key, count) -> {
+            TestUtils.assertTrue(counts.put(key, count) == null);
+        });
+
+        TestUtils.assertEquals(1000, sums.size());
+        TestUtils.assertEquals(1000, counts.size());
+
+        for (long key = 0L; key < 1000L; key++) {
+            long count = SIZE / 1000;
+            // Sum of (key + 1000 * k) / 4 for k = 0..count-1
+            double expected = (count * key + 1000.0 * count * (count - 1L) / 2.0) / 4.0;
+            TestUtils.assertEquals(expected, sums.get(Long.valueOf(key)).doubleValue());
+            TestUtils.assertEquals(count, counts.get(Long.valueOf(key)).longValue());
+        }
+    }
+
+    private static void doTestSort(final BatchNode<double[]> node) throws Exception {
+
+        BatchNodeTest.fill(node);
+
+        List<double[]> sorted = new ArrayList<>(SIZE);
+
+        // Descending order of the value
+        node.sort(Comparator.comparingDouble((final double[] item) -> item[1]).reversed(), sorted::add);
+
+        TestUtils.assertEquals(SIZE, sorted.size());
+        for (int i = 0; i < SIZE; i++) {
+            TestUtils.assertEquals(SIZE - 1 - i, (long) sorted.get(i)[0]);
+        }
+    }
+
+    private static void fill(final BatchNode<double[]> node) throws Exception {
+        try (AutoConsumer<double[]> writer = node.newWriter()) {
+            for (int i = 0; i < SIZE; i++) {
+                writer.write(new double[] { i, i / 4.0 });
+            }
+        }
+    }
+
+    private File myDirectory;
+
+    @AfterEach
+    public void dispose() {
+        new BatchManager(myDirectory).dispose();
+    }
+
+    @BeforeEach
+    public void prepare() throws IOException {
+        myDirectory = Files.createTempDirectory("BatchNodeTest").toFile();
+    }
+
+    @Test
+    public void testColumnarSameAsData() throws Exception {
+
+        BatchManager manager = new BatchManager(myDirectory).fragmentation(8).parallelism(2);
+
+        BatchNode<double[]> data = manager.newNodeBuilder("data", DATA).distributor(item -> (int) item[0]).build();
+        BatchNode<double[]> columnar = manager.newNodeBuilder("columnar", COLUMNAR).distributor(item -> (int) item[0]).build();
+
+        BatchNodeTest.fill(data);
+        BatchNodeTest.fill(columnar);
+
+        double expected = (SIZE - 1.0) * SIZE / 8.0;
+
+        TestUtils.assertEquals(expected, data.reduceMapped(Summer::new).doubleValue());
+        TestUtils.assertEquals(expected, columnar.reduceMapped(Summer::new).doubleValue());
+
+        LongAdder count = new LongAdder();
+        columnar.processAll(item -> count.increment());
+        TestUtils.assertEquals(SIZE, count.sum());
+    }
+
+    /**
+     * With a spill threshold smaller than the number of groups per partition
+     */
+    @Test
+    public void testGroupBy() throws Exception {
+
+        BatchManager manager = new BatchManager(myDirectory).fragmentation(4).parallelism(2).spill(100);
+
+        BatchNodeTest.doTestGroupBy(manager.newNodeBuilder("data", DATA).build());
+        BatchNodeTest.doTestGroupBy(manager.newNodeBuilder("columnar", COLUMNAR).build());
+    }
+
+    /**
+     * A pipe on a node that already has data – the spilled items are processed and deleted, the existing
+     * data is not.
+     */
+    @Test
+    public void testPipeKeepsExistingData() throws Exception {
+
+        BatchManager manager = new BatchManager(myDirectory).fragmentation(4).parallelism(2).queue(1024);
+
+        BatchNode<double[]> node = manager.newNodeBuilder("node", COLUMNAR).build();
+
+        BatchNodeTest.fill(node);
+
+        CountDownLatch written = new CountDownLatch(1);
+
+        LongAdder piped = new LongAdder();
+
+        try (AutoConsumer<double[]> pipe = node.newPipe(() -> item -> {
+            try {
+                written.await();
+            } catch (InterruptedException cause) {
+                throw new RuntimeException(cause);
+            }
+            piped.increment();
+        })) {
+
+            for (int i = 0; i < SIZE; i++) {
+                pipe.write(new double[] { i, i / 4.0 });
+            }
+
+            written.countDown();
+        }
+
+        TestUtils.assertEquals(SIZE, piped.sum());
+
+        LongAdder existing = new LongAdder();
+        node.processAll(item -> existing.increment());
+        TestUtils.assertEquals(SIZE, existing.sum());
+    }
+
+    /**
+     * 2 stages where the first is blocked until all items have been written – most items are spilled to
+     * disk.
+     */
+    @Test
+    public void testPipeline() throws Exception {
+
+        BatchManager manager = new BatchManager(myDirectory).fragmentation(4).parallelism(2).queue(1024);
+
+        BatchNode<double[]> first = manager.newNodeBuilder("first", COLUMNAR).build();
+        BatchNode<double[]> second = manager.newNodeBuilder("second", DATA).build();
+
+        CountDownLatch written = new CountDownLatch(1);
+
+        DoubleAdder sum = new DoubleAdder();
+        LongAdder count = new LongAdder();
+
+        try (AutoConsumer<double[]> secondStage = second.newPipe(() -> item -> {
+            sum.add(item[1]);
+            count.increment();
+        }); AutoConsumer<double[]> firstStage = first.newPipe(() -> item -> {
+            try {
+                written.await();
+            } catch (InterruptedException cause) {
+                throw new RuntimeException(cause);
+            }
+            secondStage.write(new double[] { item[0], 2.0 * item[1] });
+        })) {
+
+            for (int i = 0; i < SIZE; i++) {
+                firstStage.write(new double[] { i, i / 4.0 });
+            }
+
+            TestUtils.assertTrue(new File(myDirectory, "first").list().length > 0);
+
+            written.countDown();
+        }
+
+        TestUtils.assertEquals(SIZE, count.sum());
+        TestUtils.assertEquals((SIZE - 1.0) * SIZE / 4.0, sum.sum());
+        TestUtils.assertEquals(0, new File(myDirectory, "first").list().length);
+    }
+
+    @Test
+    public void testProcessBlocks() throws Exception {
+
+        BatchNode<double[]> node = BatchNode.newBuilder(myDirectory, COLUMNAR).fragmentation(4).parallelism(2)
+                .columnar(COLUMNAR, 1000, ColumnarBlock.Codec.DEFLATE).build();
+
+        BatchNodeTest.fill(node);
+
+        DoubleAdder sum = new DoubleAdder();
+        LongAdder count = new LongAdder();
+
+        node.processBlocks(block -> {
+            double[] values = block.doubles(1);
+            for (int r = 0; r < block.size(); r++) {
+                sum.add(values[r]);
+            }
+            count.add(block.size());
+        });
+
+        TestUtils.assertEquals(SIZE, count.sum());
+        TestUtils.assertEquals((SIZE - 1.0) * SIZE / 8.0, sum.sum());
+
+        LongAdder filtered = new LongAdder();
+        node.processBlocks(block -> block.getMinimum(1) >= SIZE / 8.0, block -> {
+            for (int r = 0; r < block.size(); r++) {
+                TestUtils.assertTrue(block.doubles(1)[r] >= SIZE / 8.0);
+            }
+            filtered.add(block.size());
+        });
+
+        TestUtils.assertTrue(filtered.sum() > 0L);
+        TestUtils.assertTrue(filtered.sum() < SIZE);
+    }
+
+    /**
+     * With a spill threshold small enough to require more than 1 merge pass
+     */
+    @Test
+    public void testSort() throws Exception {
+
+        BatchManager manager = new BatchManager(myDirectory).fragmentation(4).parallelism(2).spill(1000);
+
+        BatchNodeTest.doTestSort(manager.newNodeBuilder("data", DATA).build());
+        BatchNodeTest.doTestSort(manager.newNodeBuilder("columnar", COLUMNAR).build());
+    }
+
+}
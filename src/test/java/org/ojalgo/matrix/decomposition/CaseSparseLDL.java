@@ -0,0 +1,243 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * @author apete
+ */
+public class CaseSparseLDL extends MatrixDecompositionTests {
+
+    private static final NumberContext ACCURACY = NumberContext.of(12);
+
+    /**
+     * [H A<sup>T</sup>] [A -δI] – symmetric quasi-definite, indefinite, but factorisable with any symmetric
+     * permutation.
+     */
+    static SparseStore<Double> newKKT(final int nbVars, final int nbCons) {
+
+        int dim = nbVars + nbCons;
+        SparseStore<Double> retVal = SparseStore.R064.make(dim, dim);
+
+        for (int j = 0; j < nbVars; j++) {
+            retVal.set(j, j, 2.0 + j % 3);
+            if (j + 1 < nbVars) {
+                retVal.set(j, j + 1, -0.5);
+                retVal.set(j + 1, j, -0.5);
+            }
+        }
+
+        for (int i = 0; i < nbCons; i++) {
+            for (int k = 0; k < 3; k++) {
+                int j = (7 * i + 11 * k) % nbVars;
+                double value = 1.0 + k;
+                retVal.set(nbVars + i, j, value);
+                retVal.set(j, nbVars + i, value);
+            }
+            retVal.set(nbVars + i, nbVars + i, -0.01);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * 5-point finite difference Laplacian on a size x size grid – symmetric positive definite
+     */
+    static SparseStore<Double> newLaplacian(final int size, final double shift) {
+
+        int dim = size * size;
+        SparseStore<Double> retVal = SparseStore.R064.make(dim, dim);
+
+        for (int j = 0; j < dim; j++) {
+            int x = j % size;
+            int y = j / size;
+            retVal.set(j, j, 4.0 + shift);
+            if (x + 1 < size) {
+                retVal.set(j, j + 1, -1.0);
+                retVal.set(j + 1, j, -1.0);
+            }
+            if (y + 1 < size) {
+                retVal.set(j, j + size, -1.0);
+                retVal.set(j + size, j, -1.0);
+            }
+        }
+
+        return retVal;
+    }
+
+    private static void doTestSolve(final SparseStore<Double> body) {
+
+        int dim = body.getRowDim();
+
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(dim, 2, Uniform.standard());
+
+        LDL<Double> sparse = LDL.SPARSE.make(body);
+        TestUtils.assertTrue(sparse.decompose(body));
+        TestUtils.assertTrue(sparse.isSolvable());
+
+        MatrixStore<Double> solution = sparse.getSolution(rhs);
+
+        TestUtils.assertEquals(rhs, body.multiply(solution), ACCURACY);
+
+        LU<Double> dense = LU.R064.make(body);
+        dense.decompose(body);
+
+        TestUtils.assertEquals(dense.getSolution(rhs), solution, ACCURACY);
+        TestUtils.assertEquals(dense.getDeterminant() / sparse.getDeterminant(), 1.0, ACCURACY);
+    }
+
+    @Test
+    public void testConvexSolverSPD() {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+
+        int nbVars = 50;
+        for (int j = 0; j < nbVars; j++) {
+            model.addVariable("X" + j).lower(0).weight(-(1 + j % 5));
+        }
+
+        Expression objective = model.addExpression("Q").weight(1);
+        for (int j = 0; j < nbVars; j++) {
+            objective.set(j, j, 2.0);
+            if (j + 1 < nbVars) {
+                objective.set(j, j + 1, -0.5);
+                objective.set(j + 1, j, -0.5);
+            }
+        }
+
+        Expression budget = model.addExpression("Budget").upper(nbVars / 2);
+        for (Variable variable : model.getVariables()) {
+            budget.set(variable, 1);
+        }
+
+        Optimisation.Result expected = model.minimise();
+
+        model.options.convex().solverSPD(LDL.SPARSE::make);
+
+        Optimisation.Result actual = model.minimise();
+
+        TestUtils.assertStateNotLessThanOptimal(actual);
+        TestUtils.assertEquals(expected.getValue(), actual.getValue(), NumberContext.of(8));
+        TestUtils.assertEquals(expected, (Access1D<?>) actual, NumberContext.of(6));
+    }
+
+    /**
+     * With the fill-reducing ordering the number of nonzeros in [L] should be well below what the natural
+     * (banded) ordering would give.
+     */
+    @Test
+    public void testFillReduction() {
+
+        int size = 40;
+        SparseStore<Double> body = CaseSparseLDL.newLaplacian(size, 0.0);
+
+        SparseLDL decomposition = new SparseLDL();
+        decomposition.decompose(body);
+
+        long banded = (long) size * size * size;
+        long actual = decomposition.getL().nonzeros().estimateSize();
+
+        TestUtils.assertTrue(decomposition.isPivoted());
+        TestUtils.assertLessThan(banded / 2L, actual);
+    }
+
+    @Test
+    public void testQuasiDefinite() {
+        CaseSparseLDL.doTestSolve(CaseSparseLDL.newKKT(200, 60));
+    }
+
+    @Test
+    public void testReconstruct() {
+
+        SparseStore<Double> body = CaseSparseLDL.newKKT(30, 10);
+
+        LDL<Double> decomposition = LDL.SPARSE.make(body);
+        decomposition.decompose(body);
+
+        TestUtils.assertEquals(body, decomposition.reconstruct(), ACCURACY);
+
+        MatrixStore<Double> identity = Primitive64Store.FACTORY.makeIdentity(body.getRowDim());
+        TestUtils.assertEquals(identity, body.multiply(decomposition.getInverse()), ACCURACY);
+    }
+
+    /**
+     * The symbolic analysis is only redone when the sparsity pattern changes
+     */
+    @Test
+    public void testReuseSymbolicAnalysis() {
+
+        SparseLDL decomposition = new SparseLDL();
+
+        SparseStore<Double> body = CaseSparseLDL.newLaplacian(10, 0.0);
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(body.getRowDim(), 1, Uniform.standard());
+
+        decomposition.decompose(body);
+        TestUtils.assertEquals(1, decomposition.countAnalyses());
+        TestUtils.assertEquals(rhs, body.multiply(decomposition.getSolution(rhs)), ACCURACY);
+
+        body = CaseSparseLDL.newLaplacian(10, 1.5);
+
+        decomposition.decompose(body);
+        TestUtils.assertEquals(1, decomposition.countAnalyses());
+        TestUtils.assertEquals(rhs, body.multiply(decomposition.getSolution(rhs)), ACCURACY);
+
+        body.set(99, 0, 0.5);
+        body.set(0, 99, 0.5);
+
+        decomposition.decompose(body);
+        TestUtils.assertEquals(2, decomposition.countAnalyses());
+        TestUtils.assertEquals(rhs, body.multiply(decomposition.getSolution(rhs)), ACCURACY);
+    }
+
+    @Test
+    public void testSingular() {
+
+        SparseStore<Double> body = CaseSparseLDL.newLaplacian(5, 0.0);
+        for (int j = 0; j < body.getColDim(); j++) {
+            body.set(j, 7, 0.0);
+            body.set(7, j, 0.0);
+        }
+
+        LDL<Double> decomposition = LDL.SPARSE.make(body);
+        decomposition.decompose(body);
+
+        TestUtils.assertFalse(decomposition.isSolvable());
+    }
+
+    @Test
+    public void testSymmetricPositiveDefinite() {
+        CaseSparseLDL.doTestSolve(CaseSparseLDL.newLaplacian(20, 0.0));
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * @author apete
+ */
+public class CaseSparseLU extends MatrixDecompositionTests {
+
+    private static final NumberContext ACCURACY = NumberContext.of(11);
+
+    /**
+     * Unsymmetric, with many zeros on the diagonal, so that row pivoting is necessary.
+     */
+    static SparseStore<Double> newUnsymmetric(final int dim, final long seed) {
+
+        Random random = new Random(seed);
+
+        SparseStore<Double> retVal = SparseStore.R064.make(dim, dim);
+
+        for (int j = 0; j < dim; j++) {
+            if (j % 3 != 0) {
+                retVal.set(j, j, 1.0 + random.nextDouble());
+            }
+            retVal.set((j + 1) % dim, j, 2.0 + random.nextDouble());
+            for (int k = 0; k < 3; k++) {
+                retVal.set(random.nextInt(dim), j, random.nextDouble() - 0.5);
+            }
+        }
+
+        return retVal;
+    }
+
+    private static void doTestSolve(final SparseStore<Double> body) {
+
+        int dim = body.getRowDim();
+
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(dim, 2, Uniform.standard());
+
+        LU<Double> sparse = LU.SPARSE.make(body);
+        TestUtils.assertTrue(sparse.decompose(body));
+        TestUtils.assertTrue(sparse.isSolvable());
+
+        MatrixStore<Double> solution = sparse.getSolution(rhs);
+        TestUtils.assertEquals(rhs, body.multiply(solution), ACCURACY);
+
+        Primitive64Store transposed = rhs.copy();
+        sparse.btran(transposed);
+        TestUtils.assertEquals(rhs, body.transpose().multiply(transposed), ACCURACY);
+
+        LU<Double> dense = LU.R064.make(body);
+        dense.decompose(body);
+
+        TestUtils.assertEquals(dense.getSolution(rhs), solution, ACCURACY);
+        TestUtils.assertEquals(dense.getDeterminant() / sparse.getDeterminant(), 1.0, ACCURACY);
+    }
+
+    @Test
+    public void testLaplacian() {
+        CaseSparseLU.doTestSolve(CaseSparseLDL.newLaplacian(15, 0.0));
+    }
+
+    @Test
+    public void testReconstruct() {
+
+        SparseStore<Double> body = CaseSparseLU.newUnsymmetric(50, 1L);
+
+        LU<Double> decomposition = LU.SPARSE.make(body);
+        decomposition.decompose(body);
+
+        TestUtils.assertTrue(decomposition.isPivoted());
+        TestUtils.assertTrue(LU.equals(body, decomposition, ACCURACY));
+        TestUtils.assertEquals(body, decomposition.reconstruct(), ACCURACY);
+
+        MatrixStore<Double> identity = Primitive64Store.FACTORY.makeIdentity(body.getRowDim());
+        TestUtils.assertEquals(identity, body.multiply(decomposition.getInverse()), ACCURACY);
+    }
+
+    /**
+     * Same pattern, different values, should use the refactorisation path unless a fixed pivot becomes
+     * unacceptable.
+     */
+    @Test
+    public void testRefactorise() {
+
+        SparseLU decomposition = new SparseLU();
+
+        SparseStore<Double> body = CaseSparseLU.newUnsymmetric(200, 2L);
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(body.getRowDim(), 1, Uniform.standard());
+
+        decomposition.decompose(body);
+        TestUtils.assertEquals(1, decomposition.countAnalyses());
+        TestUtils.assertEquals(1, decomposition.countFactorisations());
+        TestUtils.assertEquals(rhs, body.multiply(decomposition.getSolution(rhs)), ACCURACY);
+
+        // Scaled by a constant – same pivots are fine
+        SparseStore<Double> scaled = SparseStore.R064.make(body);
+        body.nonzeros().forEach(nz -> scaled.set(nz.row(), nz.column(), 3.0 * nz.doubleValue()));
+
+        decomposition.decompose(scaled);
+        TestUtils.assertEquals(1, decomposition.countAnalyses());
+        TestUtils.assertEquals(1, decomposition.countFactorisations());
+        TestUtils.assertEquals(rhs, scaled.multiply(decomposition.getSolution(rhs)), ACCURACY);
+
+        // Shrink the first pivot so that it is no longer acceptable
+        int row = decomposition.getPivotOrder()[0];
+        int col = decomposition.getColumnOrder()[0];
+        SparseStore<Double> modified = SparseStore.R064.make(body);
+        body.nonzeros().forEach(nz -> modified.set(nz.row(), nz.column(), nz.row() == row && nz.column() == col ? 1E-9 : nz.doubleValue()));
+
+        decomposition.decompose(modified);
+        TestUtils.assertEquals(1, decomposition.countAnalyses());
+        TestUtils.assertEquals(2, decomposition.countFactorisations());
+        TestUtils.assertEquals(rhs, modified.multiply(decomposition.getSolution(rhs)), ACCURACY);
+
+        // Different pattern
+        decomposition.decompose(CaseSparseLU.newUnsymmetric(200, 3L));
+        TestUtils.assertEquals(2, decomposition.countAnalyses());
+        TestUtils.assertEquals(3, decomposition.countFactorisations());
+    }
+
+    @Test
+    public void testSingular() {
+
+        SparseStore<Double> body = CaseSparseLU.newUnsymmetric(30, 4L);
+        for (int i = 0; i < body.getRowDim(); i++) {
+            body.set(i, 7, 0.0);
+        }
+
+        LU<Double> decomposition = LU.SPARSE.make(body);
+        TestUtils.assertTrue(decomposition.decompose(body));
+
+        TestUtils.assertFalse(decomposition.isSolvable());
+        TestUtils.assertEquals(body.getRowDim() - 1, decomposition.getRank());
+    }
+
+    @Test
+    public void testUnsymmetric() {
+        CaseSparseLU.doTestSolve(CaseSparseLU.newUnsymmetric(500, 5L));
+    }
+
+}
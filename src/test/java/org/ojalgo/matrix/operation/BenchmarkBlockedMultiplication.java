@@ -0,0 +1,92 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.operation;
+
+import org.ojalgo.BenchmarkUtils;
+import org.ojalgo.matrix.store.Primitive32Store;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Normal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Compares the packed/blocked implementation, {@link MultiplyBlocked}, with the (multithreaded) column-wise
+ * AXPY implementation that was previously used for all large matrices.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkBlockedMultiplication {
+
+    public static void main(final String[] args) throws RunnerException {
+        BenchmarkUtils.run(BenchmarkBlockedMultiplication.class);
+    }
+
+    @Param({ "250", "500", "1000", "2000" })
+    public int dim;
+
+    public Primitive32Store left32;
+    public Primitive64Store left64;
+    public Primitive32Store product32;
+    public Primitive64Store product64;
+    public Primitive32Store right32;
+    public Primitive64Store right64;
+
+    @Benchmark
+    public Primitive32Store blocked32() {
+        MultiplyBlocked.fillMxN(product32.data, left32.data, dim, right32.data);
+        return product32;
+    }
+
+    @Benchmark
+    public Primitive64Store blocked64() {
+        MultiplyBlocked.fillMxN(product64.data, left64.data, dim, right64.data);
+        return product64;
+    }
+
+    @Benchmark
+    public Primitive32Store columns32() {
+        MultiplyNeither.fillMxN_MT(product32.data, left32.data, dim, right32.data);
+        return product32;
+    }
+
+    @Benchmark
+    public Primitive64Store columns64() {
+        MultiplyNeither.fillMxN_MT(product64.data, left64.data, dim, right64.data);
+        return product64;
+    }
+
+    @Setup
+    public void setup() {
+
+        left64 = Primitive64Store.FACTORY.makeFilled(dim, dim, Normal.standard());
+        right64 = Primitive64Store.FACTORY.makeFilled(dim, dim, Normal.standard());
+        product64 = Primitive64Store.FACTORY.make(dim, dim);
+
+        left32 = Primitive32Store.FACTORY.makeFilled(dim, dim, Normal.standard());
+        right32 = Primitive32Store.FACTORY.makeFilled(dim, dim, Normal.standard());
+        product32 = Primitive32Store.FACTORY.make(dim, dim);
+    }
+
+}
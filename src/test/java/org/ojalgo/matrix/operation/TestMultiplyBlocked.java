@@ -0,0 +1,107 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.operation;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive32Store;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Normal;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Verify that the packed/blocked implementation produce the same results as the general implementation.
+ * The dimensions are chosen to not be multiples of the micro-kernel size, and to span more than one block in
+ * the "complexity" dimension.
+ */
+public class TestMultiplyBlocked {
+
+    private static final NumberContext ACCURACY_P32 = NumberContext.of(5, 6);
+    private static final NumberContext ACCURACY_P64 = NumberContext.of(12, 14);
+
+    private static final int[] DIMS = new int[] { 1, 3, 17, 130 };
+    private static final int[] COMPLEXITY = new int[] { 1, 15, 16, 37, MultiplyBlocked.KC + 3 };
+
+    @Test
+    public void testPrimitive32() {
+
+        for (int m : DIMS) {
+            for (int c : COMPLEXITY) {
+                for (int n : DIMS) {
+
+                    Primitive32Store left = Primitive32Store.FACTORY.makeFilled(m, c, Normal.standard());
+                    Primitive32Store right = Primitive32Store.FACTORY.makeFilled(c, n, Normal.standard());
+                    MatrixStore<Double> shadedLeft = left.tridiagonal();
+                    MatrixStore<Double> shadedRight = right.tridiagonal();
+
+                    Primitive32Store expected = Primitive32Store.FACTORY.make(m, n);
+                    Primitive32Store actual = Primitive32Store.FACTORY.make(m, n);
+
+                    MultiplyNeither.fillMxN(expected.data, left.data, c, right.data);
+                    MultiplyBlocked.fillMxN(actual.data, left.data, c, right.data);
+                    TestUtils.assertEquals(m + "-" + c + "-" + n, expected, actual, ACCURACY_P32);
+
+                    MultiplyLeft.fillMxN(expected.data, shadedLeft, c, right.data);
+                    MultiplyBlocked.fillMxN(actual.data, shadedLeft, c, right.data);
+                    TestUtils.assertEquals(m + "-" + c + "-" + n, expected, actual, ACCURACY_P32);
+
+                    MultiplyRight.fillMxN(expected.data, left.data, c, shadedRight);
+                    MultiplyBlocked.fillMxN(actual.data, left.data, c, shadedRight);
+                    TestUtils.assertEquals(m + "-" + c + "-" + n, expected, actual, ACCURACY_P32);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPrimitive64() {
+
+        for (int m : DIMS) {
+            for (int c : COMPLEXITY) {
+                for (int n : DIMS) {
+
+                    Primitive64Store left = Primitive64Store.FACTORY.makeFilled(m, c, Normal.standard());
+                    Primitive64Store right = Primitive64Store.FACTORY.makeFilled(c, n, Normal.standard());
+                    MatrixStore<Double> shadedLeft = left.tridiagonal();
+                    MatrixStore<Double> shadedRight = right.tridiagonal();
+
+                    Primitive64Store expected = Primitive64Store.FACTORY.make(m, n);
+                    Primitive64Store actual = Primitive64Store.FACTORY.make(m, n);
+
+                    MultiplyNeither.fillMxN(expected.data, left.data, c, right.data);
+                    MultiplyBlocked.fillMxN(actual.data, left.data, c, right.data);
+                    TestUtils.assertEquals(m + "-" + c + "-" + n, expected, actual, ACCURACY_P64);
+
+                    MultiplyLeft.fillMxN(expected.data, shadedLeft, c, right.data);
+                    MultiplyBlocked.fillMxN(actual.data, shadedLeft, c, right.data);
+                    TestUtils.assertEquals(m + "-" + c + "-" + n, expected, actual, ACCURACY_P64);
+
+                    MultiplyRight.fillMxN(expected.data, left.data, c, shadedRight);
+                    MultiplyBlocked.fillMxN(actual.data, left.data, c, shadedRight);
+                    TestUtils.assertEquals(m + "-" + c + "-" + n, expected, actual, ACCURACY_P64);
+                }
+            }
+        }
+    }
+
+}
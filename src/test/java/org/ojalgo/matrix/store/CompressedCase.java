@@ -0,0 +1,166 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.structure.ElementView2D;
+
+/**
+ * {@link R064CSR} and {@link R064CSC}
+ *
+ * @author apete
+ */
+public class CompressedCase extends MatrixStoreTests {
+
+    private static final int THRESHOLD = CompressedStore.THRESHOLD;
+
+    private static SparseStore<Double> newSparse(final int nbRows, final int nbColumns) {
+
+        SparseStore<Double> retVal = SparseStore.R064.make(nbRows, nbColumns);
+
+        SparsePerformance.fill(retVal);
+        retVal.set(nbRows - 1, nbColumns - 1, 1.0);
+
+        return retVal;
+    }
+
+    private static void doTestProducts(final SparseStore<Double> sparse) {
+
+        PhysicalStore<Double> dense = sparse.copy();
+
+        int nbRows = sparse.getRowDim();
+        int nbColumns = sparse.getColDim();
+
+        for (CompressedStore compressed : new CompressedStore[] { sparse.toCSR(), sparse.toCSC() }) {
+
+            Primitive64Store vector = Primitive64Store.FACTORY.makeFilled(nbColumns, 1, Uniform.standard());
+            Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(nbColumns, 3, Uniform.standard());
+
+            TestUtils.assertEquals(dense.multiply(vector), compressed.multiply(vector));
+            TestUtils.assertEquals(dense.multiply(matrix), compressed.multiply(matrix));
+
+            // Target that is not a Primitive64Store
+            SparseStore<Double> target = SparseStore.R064.make(nbRows, 3);
+            compressed.multiply(matrix, target);
+            TestUtils.assertEquals(dense.multiply(matrix), target);
+
+            Primitive64Store row = Primitive64Store.FACTORY.makeFilled(1, nbRows, Uniform.standard());
+            Primitive64Store rows = Primitive64Store.FACTORY.makeFilled(4, nbRows, Uniform.standard());
+
+            TestUtils.assertEquals(dense.premultiply(row).collect(Primitive64Store.FACTORY), compressed.premultiply(row).collect(Primitive64Store.FACTORY));
+            TestUtils.assertEquals(dense.premultiply(rows).collect(Primitive64Store.FACTORY), compressed.premultiply(rows).collect(Primitive64Store.FACTORY));
+
+            // Transpose-multiply without materialising the transpose
+            Primitive64Store transposed = Primitive64Store.FACTORY.makeFilled(nbRows, 2, Uniform.standard());
+            TestUtils.assertEquals(dense.transpose().multiply(transposed), compressed.transpose().multiply(transposed));
+        }
+    }
+
+    @AfterEach
+    public void resetThreshold() {
+        CompressedStore.THRESHOLD = THRESHOLD;
+    }
+
+    @Test
+    public void testConversion() {
+
+        SparseStore<Double> sparse = CompressedCase.newSparse(37, 23);
+
+        R064CSR csr = sparse.toCSR();
+        R064CSC csc = sparse.toCSC();
+
+        TestUtils.assertEquals(sparse, csr);
+        TestUtils.assertEquals(sparse, csc);
+
+        TestUtils.assertEquals(csc, csr.toCSC());
+        TestUtils.assertEquals(csr, csc.toCSR());
+
+        TestUtils.assertEquals(sparse.transpose(), csr.transpose());
+        TestUtils.assertEquals(sparse.transpose(), csc.transpose());
+
+        TestUtils.assertEquals(sparse.nonzeros().estimateSize(), csr.countNonzeros());
+        TestUtils.assertEquals(sparse.nonzeros().estimateSize(), csc.countNonzeros());
+
+        for (int i = 0; i < sparse.getRowDim(); i++) {
+            TestUtils.assertEquals(sparse.firstInRow(i), csr.firstInRow(i));
+            TestUtils.assertEquals(sparse.limitOfRow(i), csr.limitOfRow(i));
+        }
+        for (int j = 0; j < sparse.getColDim(); j++) {
+            TestUtils.assertEquals(sparse.firstInColumn(j), csc.firstInColumn(j));
+            TestUtils.assertEquals(sparse.limitOfColumn(j), csc.limitOfColumn(j));
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+
+        SparseStore<Double> sparse = SparseStore.R064.make(5, 7);
+
+        R064CSR csr = sparse.toCSR();
+
+        TestUtils.assertEquals(0, csr.countNonzeros());
+        TestUtils.assertFalse(csr.nonzeros().hasNext());
+        TestUtils.assertEquals(sparse, csr);
+        TestUtils.assertEquals(Primitive64Store.FACTORY.make(5, 1), csr.multiply(Primitive64Store.FACTORY.makeFilled(7, 1, Uniform.standard())));
+    }
+
+    @Test
+    public void testNonzeros() {
+
+        SparseStore<Double> sparse = CompressedCase.newSparse(19, 31);
+
+        for (CompressedStore compressed : new CompressedStore[] { sparse.toCSR(), sparse.toCSC() }) {
+
+            int count = 0;
+            for (ElementView2D<Double, ?> nonzero : compressed.nonzeros()) {
+                TestUtils.assertEquals(sparse.doubleValue(nonzero.row(), nonzero.column()), nonzero.doubleValue());
+                TestUtils.assertEquals(nonzero.column() * sparse.countRows() + nonzero.row(), nonzero.index());
+                count++;
+            }
+            TestUtils.assertEquals(compressed.countNonzeros(), count);
+
+            Primitive64Store copy = Primitive64Store.FACTORY.make(sparse.countRows(), sparse.countColumns());
+            compressed.supplyTo(copy);
+            TestUtils.assertEquals(sparse, copy);
+        }
+    }
+
+    @Test
+    public void testProducts() {
+        CompressedCase.doTestProducts(CompressedCase.newSparse(41, 29));
+        CompressedCase.doTestProducts(CompressedCase.newSparse(29, 41));
+    }
+
+    /**
+     * Same, but with the threshold set low enough to force the parallel code paths
+     */
+    @Test
+    public void testProductsParallel() {
+        CompressedStore.THRESHOLD = 8;
+        CompressedCase.doTestProducts(CompressedCase.newSparse(141, 129));
+        CompressedCase.doTestProducts(CompressedCase.newSparse(129, 141));
+    }
+
+}
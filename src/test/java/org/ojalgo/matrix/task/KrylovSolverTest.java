@@ -0,0 +1,148 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.decomposition.LU;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.matrix.task.iterative.BiCGSTABSolver;
+import org.ojalgo.matrix.task.iterative.ConjugateGradientSolver;
+import org.ojalgo.matrix.task.iterative.GMRESSolver;
+import org.ojalgo.matrix.task.iterative.IterativeSolverTask;
+import org.ojalgo.matrix.task.iterative.MINRESSolver;
+import org.ojalgo.matrix.task.iterative.Preconditioner;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * @author apete
+ */
+public class KrylovSolverTest extends MatrixTaskTests {
+
+    private static final NumberContext ACCURACY = NumberContext.of(8);
+
+    /**
+     * [H A<sup>T</sup>] [A -δI] – symmetric indefinite
+     */
+    static SparseStore<Double> newKKT(final int nbVars, final int nbCons) {
+
+        int dim = nbVars + nbCons;
+        SparseStore<Double> retVal = SparseStore.R064.make(dim, dim);
+
+        for (int j = 0; j < nbVars; j++) {
+            retVal.set(j, j, 2.0 + j % 3);
+            if (j + 1 < nbVars) {
+                retVal.set(j, j + 1, -0.5);
+                retVal.set(j + 1, j, -0.5);
+            }
+        }
+
+        for (int i = 0; i < nbCons; i++) {
+            for (int k = 0; k < 3; k++) {
+                int j = (7 * i + 11 * k) % nbVars;
+                double value = 1.0 + k;
+                retVal.set(nbVars + i, j, value);
+                retVal.set(j, nbVars + i, value);
+            }
+            retVal.set(nbVars + i, nbVars + i, -0.01);
+        }
+
+        return retVal;
+    }
+
+    private static void doTest(final IterativeSolverTask solver, final SparseStore<Double> body, final Preconditioner preconditioner) {
+
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(body.countRows(), 1L, Uniform.standard());
+
+        LU<Double> dense = LU.R064.make(body);
+        dense.decompose(body);
+        MatrixStore<Double> expected = dense.getSolution(rhs);
+
+        solver.configurator().preconditioner(preconditioner).accuracy(NumberContext.of(12)).iterations(5_000);
+
+        TestUtils.assertEquals(expected, solver.solve(body, rhs).get(), ACCURACY);
+    }
+
+    @Test
+    public void testBiCGSTAB() {
+
+        SparseStore<Double> body = PreconditionerTest.newConvectionDiffusion(15);
+
+        KrylovSolverTest.doTest(new BiCGSTABSolver(), body, null);
+        KrylovSolverTest.doTest(new BiCGSTABSolver(), body, Preconditioner.incompleteLU());
+        KrylovSolverTest.doTest(new BiCGSTABSolver(), body, Preconditioner.blockJacobi(15));
+    }
+
+    @Test
+    public void testGMRES() {
+
+        SparseStore<Double> body = PreconditionerTest.newConvectionDiffusion(15);
+
+        KrylovSolverTest.doTest(new GMRESSolver(), body, null);
+        KrylovSolverTest.doTest(new GMRESSolver(), body, Preconditioner.incompleteLU());
+        KrylovSolverTest.doTest(new GMRESSolver(), body, Preconditioner.blockJacobi(15));
+    }
+
+    /**
+     * A (very) short restart cycle is slower, but should still converge.
+     */
+    @Test
+    public void testGMRESRestart() {
+
+        SparseStore<Double> body = PreconditionerTest.newConvectionDiffusion(10);
+
+        KrylovSolverTest.doTest(new GMRESSolver(5), body, null);
+        KrylovSolverTest.doTest(new GMRESSolver(1), body, Preconditioner.incompleteLU());
+    }
+
+    @Test
+    public void testMINRES() {
+
+        SparseStore<Double> body = KrylovSolverTest.newKKT(100, 30);
+
+        KrylovSolverTest.doTest(new MINRESSolver(), body, null);
+
+        body = PreconditionerTest.newLaplacian(15);
+
+        KrylovSolverTest.doTest(new MINRESSolver(), body, null);
+        KrylovSolverTest.doTest(new MINRESSolver(), body, Preconditioner.incompleteCholesky());
+        KrylovSolverTest.doTest(new MINRESSolver(), body, Preconditioner.ssor(1.2));
+    }
+
+    /**
+     * All the Krylov subspace solvers should handle a symmetric positive definite system.
+     */
+    @Test
+    public void testSymmetricPositiveDefinite() {
+
+        SparseStore<Double> body = PreconditionerTest.newLaplacian(12);
+
+        KrylovSolverTest.doTest(new ConjugateGradientSolver(), body, Preconditioner.incompleteCholesky());
+        KrylovSolverTest.doTest(new MINRESSolver(), body, Preconditioner.incompleteCholesky());
+        KrylovSolverTest.doTest(new GMRESSolver(), body, Preconditioner.incompleteCholesky());
+        KrylovSolverTest.doTest(new BiCGSTABSolver(), body, Preconditioner.incompleteCholesky());
+    }
+
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.decomposition.LU;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.matrix.task.iterative.ConjugateGradientSolver;
+import org.ojalgo.matrix.task.iterative.JacobiSolver;
+import org.ojalgo.matrix.task.iterative.MutableSolver;
+import org.ojalgo.matrix.task.iterative.Preconditioner;
+import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * @author apete
+ */
+public class PreconditionerTest extends MatrixTaskTests {
+
+    static final class CountingPreconditioner implements Preconditioner {
+
+        private final Preconditioner myDelegate;
+        private final AtomicInteger myPreparations = new AtomicInteger();
+
+        CountingPreconditioner(final Preconditioner delegate) {
+            super();
+            myDelegate = delegate;
+        }
+
+        public void apply(final Access1D<?> input, final PhysicalStore<Double> output) {
+            myDelegate.apply(input, output);
+        }
+
+        public void prepare(final List<Equation> equations, final int dim) {
+            myPreparations.incrementAndGet();
+            myDelegate.prepare(equations, dim);
+        }
+
+        int countPreparations() {
+            return myPreparations.get();
+        }
+
+    }
+
+    static final class Schur extends MutableSolver<ConjugateGradientSolver> {
+
+        Schur(final long size) {
+            super(new ConjugateGradientSolver(), size);
+        }
+
+    }
+
+    private static final NumberContext ACCURACY = NumberContext.of(8);
+
+    /**
+     * Unsymmetric convection-diffusion like operator on a size x size grid – not diagonally dominant enough
+     * for plain Jacobi iterations to converge quickly.
+     */
+    static SparseStore<Double> newConvectionDiffusion(final int size) {
+
+        int dim = size * size;
+        SparseStore<Double> retVal = SparseStore.R064.make(dim, dim);
+
+        for (int j = 0; j < dim; j++) {
+            int x = j % size;
+            int y = j / size;
+            retVal.set(j, j, 4.5);
+            if (x + 1 < size) {
+                retVal.set(j, j + 1, -0.5);
+                retVal.set(j + 1, j, -1.5);
+            }
+            if (y + 1 < size) {
+                retVal.set(j, j + size, -1.0);
+                retVal.set(j + size, j, -1.0);
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * 5-point finite difference Laplacian on a size x size grid – symmetric positive definite, and
+     * increasingly ill-conditioned with size.
+     */
+    static SparseStore<Double> newLaplacian(final int size) {
+
+        int dim = size * size;
+        SparseStore<Double> retVal = SparseStore.R064.make(dim, dim);
+
+        for (int j = 0; j < dim; j++) {
+            int x = j % size;
+            int y = j / size;
+            retVal.set(j, j, 4.0);
+            if (x + 1 < size) {
+                retVal.set(j, j + 1, -1.0);
+                retVal.set(j + 1, j, -1.0);
+            }
+            if (y + 1 < size) {
+                retVal.set(j, j + size, -1.0);
+                retVal.set(j + size, j, -1.0);
+            }
+        }
+
+        return retVal;
+    }
+
+    private static double doConjugateGradient(final SparseStore<Double> body, final MatrixStore<Double> rhs, final Preconditioner preconditioner,
+            final int iterations) {
+
+        Schur solver = new Schur(body.countColumns());
+        solver.configurator().preconditioner(preconditioner).iterations(iterations).accuracy(NumberContext.of(12));
+
+        for (int i = 0; i < body.getRowDim(); i++) {
+            Equation row = Equation.sparse(i, body.getColDim());
+            for (int j = 0; j < body.getColDim(); j++) {
+                double value = body.doubleValue(i, j);
+                if (value != 0.0) {
+                    row.set(j, value);
+                }
+            }
+            solver.add(row);
+        }
+
+        Primitive64Store solution = Primitive64Store.FACTORY.make(body.countColumns(), 1L);
+        return solver.resolve(solution, rhs);
+    }
+
+    /**
+     * Same number of iterations – the better preconditioners should reach a smaller residual.
+     */
+    @Test
+    public void testConjugateGradientConvergence() {
+
+        SparseStore<Double> body = PreconditionerTest.newLaplacian(30);
+        MatrixStore<Double> rhs = Primitive64Store.FACTORY.makeFilled(body.countRows(), 1L, Uniform.standard());
+
+        int iterations = 30;
+
+        double jacobi = PreconditionerTest.doConjugateGradient(body, rhs, Preconditioner.jacobi(), iterations);
+        double cholesky = PreconditionerTest.doConjugateGradient(body, rhs, Preconditioner.incompleteCholesky(), iterations);
+        double ssor = PreconditionerTest.doConjugateGradient(body, rhs, Preconditioner.ssor(1.5), iterations);
+        double block = PreconditionerTest.doConjugateGradient(body, rhs, Preconditioner.blockJacobi(30), iterations);
+
+        if (DEBUG) {
+            BasicLogger.debug("Jacobi={}, IC(0)={}, SSOR={}, Block={}", jacobi, cholesky, ssor, block);
+        }
+
+        TestUtils.assertLessThan(jacobi / 10.0, cholesky);
+        TestUtils.assertLessThan(jacobi / 10.0, ssor);
+        TestUtils.assertLessThan(jacobi, block);
+    }
+
+    @Test
+    public void testConjugateGradientSolution() {
+
+        SparseStore<Double> body = PreconditionerTest.newLaplacian(15);
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(body.countRows(), 1L, Uniform.standard());
+
+        LU<Double> dense = LU.R064.make(body);
+        dense.decompose(body);
+        MatrixStore<Double> expected = dense.getSolution(rhs);
+
+        for (Preconditioner preconditioner : new Preconditioner[] { null, Preconditioner.jacobi(), Preconditioner.incompleteCholesky(),
+                Preconditioner.ssor(1.0), Preconditioner.blockJacobi(5) }) {
+
+            ConjugateGradientSolver solver = new ConjugateGradientSolver();
+            solver.configurator().preconditioner(preconditioner).accuracy(NumberContext.of(12));
+
+            TestUtils.assertEquals(expected, solver.solve(body, rhs).get(), ACCURACY);
+        }
+    }
+
+    /**
+     * Unsymmetric system solved with preconditioned Richardson iterations (the {@link JacobiSolver} with a
+     * preconditioner configured).
+     */
+    @Test
+    public void testJacobiSolverWithIncompleteLU() {
+
+        SparseStore<Double> body = PreconditionerTest.newConvectionDiffusion(10);
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(body.countRows(), 1L, Uniform.standard());
+
+        LU<Double> dense = LU.R064.make(body);
+        dense.decompose(body);
+        MatrixStore<Double> expected = dense.getSolution(rhs);
+
+        JacobiSolver solver = new JacobiSolver();
+        solver.configurator().preconditioner(Preconditioner.incompleteLU()).accuracy(NumberContext.of(12)).iterations(500);
+        TestUtils.assertEquals(expected, solver.solve(body, rhs).get(), ACCURACY);
+
+        solver.configurator().preconditioner(Preconditioner.blockJacobi(10));
+        TestUtils.assertEquals(expected, solver.solve(body, rhs).get(), ACCURACY);
+    }
+
+    /**
+     * By default the preconditioner is prepared for each solve – the equations may be modified in place.
+     */
+    @Test
+    public void testPreparedForEachSolve() {
+
+        SparseStore<Double> body = PreconditionerTest.newLaplacian(10);
+        int dim = body.getRowDim();
+
+        CountingPreconditioner preconditioner = new CountingPreconditioner(Preconditioner.jacobi());
+
+        Schur solver = new Schur(dim);
+        solver.configurator().preconditioner(preconditioner).accuracy(NumberContext.of(12));
+
+        Equation[] rows = new Equation[dim];
+        for (int i = 0; i < dim; i++) {
+            rows[i] = Equation.sparse(i, dim);
+            for (int j = 0; j < dim; j++) {
+                double value = body.doubleValue(i, j);
+                if (value != 0.0) {
+                    rows[i].set(j, value);
+                }
+            }
+            solver.add(rows[i]);
+        }
+
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(dim, 1L, Uniform.standard());
+        Primitive64Store solution = Primitive64Store.FACTORY.make(dim, 1L);
+        solver.resolve(solution, rhs);
+
+        TestUtils.assertEquals(1, preconditioner.countPreparations());
+
+        // Modify the diagonal in place – the list of equations is the same
+        for (int i = 0; i < dim; i++) {
+            rows[i].set(i, 4.0 + i);
+            body.set(i, i, 4.0 + i);
+        }
+
+        LU<Double> dense = LU.R064.make(body);
+        dense.decompose(body);
+
+        solution = Primitive64Store.FACTORY.make(dim, 1L);
+        solver.resolve(solution, rhs);
+        TestUtils.assertEquals(dense.getSolution(rhs), solution, ACCURACY);
+
+        TestUtils.assertEquals(2, preconditioner.countPreparations());
+    }
+
+    /**
+     * With reuse switched on the preconditioner is prepared once, and then reused, as long as the equations
+     * are not modified.
+     */
+    @Test
+    public void testReuseWithMutableSolver() {
+
+        SparseStore<Double> body = PreconditionerTest.newLaplacian(10);
+        int dim = body.getRowDim();
+
+        CountingPreconditioner preconditioner = new CountingPreconditioner(Preconditioner.incompleteCholesky());
+
+        Schur solver = new Schur(dim);
+        solver.configurator().preconditioner(preconditioner).reusePreconditioner(true).accuracy(NumberContext.of(12));
+
+        Equation[] rows = new Equation[dim];
+        for (int i = 0; i < dim; i++) {
+            rows[i] = Equation.sparse(i, dim);
+            for (int j = 0; j < dim; j++) {
+                double value = body.doubleValue(i, j);
+                if (value != 0.0) {
+                    rows[i].set(j, value);
+                }
+            }
+            solver.add(rows[i]);
+        }
+
+        LU<Double> dense = LU.R064.make(body);
+        dense.decompose(body);
+
+        for (int k = 0; k < 3; k++) {
+            Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(dim, 1L, Uniform.standard());
+            Primitive64Store solution = Primitive64Store.FACTORY.make(dim, 1L);
+            solver.resolve(solution, rhs);
+            TestUtils.assertEquals(dense.getSolution(rhs), solution, ACCURACY);
+        }
+
+        TestUtils.assertEquals(1, preconditioner.countPreparations());
+
+        solver.remove(rows[dim - 1]);
+        solver.add(rows[dim - 1]);
+
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(dim, 1L, Uniform.standard());
+        Primitive64Store solution = Primitive64Store.FACTORY.make(dim, 1L);
+        solver.resolve(solution, rhs);
+        TestUtils.assertEquals(dense.getSolution(rhs), solution, ACCURACY);
+
+        TestUtils.assertEquals(2, preconditioner.countPreparations());
+    }
+
+}
@@ -31,9 +31,12 @@ import org.ojalgo.matrix.decomposition.MatrixDecomposition.Solver;
 import org.ojalgo.matrix.decomposition.MatrixDecompositionTests;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.task.iterative.BiCGSTABSolver;
 import org.ojalgo.matrix.task.iterative.ConjugateGradientSolver;
+import org.ojalgo.matrix.task.iterative.GMRESSolver;
 import org.ojalgo.matrix.task.iterative.GaussSeidelSolver;
 import org.ojalgo.matrix.task.iterative.JacobiSolver;
+import org.ojalgo.matrix.task.iterative.MINRESSolver;
 import org.ojalgo.matrix.task.iterative.ParallelGaussSeidelSolver;
 import org.ojalgo.random.Uniform;
 
@@ -60,6 +63,15 @@ public class SolverTest extends MatrixTaskTests {
 
         ConjugateGradientSolver tmpConjugateGradientSolver = new ConjugateGradientSolver();
         TestUtils.assertEquals(tmpExpected, tmpConjugateGradientSolver.solve(tmpA, tmpB).get());
+
+        MINRESSolver tmpMINRESSolver = new MINRESSolver();
+        TestUtils.assertEquals(tmpExpected, tmpMINRESSolver.solve(tmpA, tmpB).get());
+
+        GMRESSolver tmpGMRESSolver = new GMRESSolver();
+        TestUtils.assertEquals(tmpExpected, tmpGMRESSolver.solve(tmpA, tmpB).get());
+
+        BiCGSTABSolver tmpBiCGSTABSolver = new BiCGSTABSolver();
+        TestUtils.assertEquals(tmpExpected, tmpBiCGSTABSolver.solve(tmpA, tmpB).get());
     }
 
     @Test
@@ -0,0 +1,227 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+
+public class ColumnarTest extends NetioTests {
+
+    static final class Tick {
+
+        final int count;
+        final long id;
+        final double price;
+        final float weight;
+
+        Tick(final long id, final double price, final float weight, final int count) {
+            super();
+            this.id = id;
+            this.price = price;
+            this.weight = weight;
+            this.count = count;
+        }
+
+    }
+
+    static final ColumnarInterpreter<Tick> INTERPRETER = new ColumnarInterpreter<>() {
+
+        public Tick deserialize(final ColumnarBlock block, final int row) {
+            return new Tick(block.longValue(0, row), block.doubleValue(1, row), (float) block.doubleValue(2, row), (int) block.longValue(3, row));
+        }
+
+        public ColumnarBlock.Type[] getColumnTypes() {
+            return new ColumnarBlock.Type[] { ColumnarBlock.Type.LONG, ColumnarBlock.Type.DOUBLE, ColumnarBlock.Type.FLOAT, ColumnarBlock.Type.INT };
+        }
+
+        public void serialize(final Tick item, final ColumnarBlock block, final int row) {
+            block.set(0, row, item.id);
+            block.set(1, row, item.price);
+            block.set(2, row, item.weight);
+            block.set(3, row, item.count);
+        }
+
+    };
+
+    static List<Tick> generate(final int size) {
+
+        Random random = new Random(123L);
+
+        List<Tick> retVal = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            retVal.add(new Tick(i - 100L, 100.0 + random.nextGaussian(), random.nextFloat(), random.nextInt() % 10));
+        }
+        return retVal;
+    }
+
+    private static void doTestRoundTrip(final ColumnarBlock.Codec codec) throws Exception {
+
+        List<Tick> expected = ColumnarTest.generate(1000);
+
+        InMemoryFile file = new InMemoryFile();
+
+        try (ColumnarWriter<Tick> writer = ColumnarWriter.of(file, INTERPRETER, 64, codec)) {
+            expected.forEach(writer::write);
+        }
+
+        byte[] contents = file.getContentsAsByteArray();
+
+        try (ColumnarReader<Tick> reader = ColumnarReader.of(new InMemoryFile(contents), INTERPRETER)) {
+            for (Tick tick : expected) {
+                Tick actual = reader.read();
+                TestUtils.assertEquals(tick.id, actual.id);
+                TestUtils.assertEquals(tick.price, actual.price, 0.0);
+                TestUtils.assertEquals(tick.weight, actual.weight, 0.0);
+                TestUtils.assertEquals(tick.count, actual.count);
+            }
+            TestUtils.assertTrue(reader.read() == null);
+        }
+
+        try (ColumnarReader<Tick> reader = ColumnarReader.of(new InMemoryFile(contents), INTERPRETER)) {
+
+            int total = 0;
+            ColumnarBlock block = null;
+            while ((block = reader.readBlock()) != null) {
+
+                double[] prices = block.doubles(1);
+                long[] ids = block.longs(0);
+
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int r = 0; r < block.size(); r++) {
+                    min = Math.min(min, prices[r]);
+                    max = Math.max(max, prices[r]);
+                    TestUtils.assertEquals(total + r - 100L, ids[r]);
+                }
+                TestUtils.assertEquals(min, block.getMinimum(1), 0.0);
+                TestUtils.assertEquals(max, block.getMaximum(1), 0.0);
+                TestUtils.assertEquals(total - 100L, block.getMinimum(0), 0.0);
+
+                total += block.size();
+            }
+            TestUtils.assertEquals(expected.size(), total);
+        }
+    }
+
+    @Test
+    public void testCompression() throws Exception {
+
+        List<Tick> ticks = ColumnarTest.generate(10_000);
+
+        InMemoryFile compressed = new InMemoryFile();
+        try (ColumnarWriter<Tick> writer = ColumnarWriter.of(compressed, INTERPRETER, 1024, ColumnarBlock.Codec.DEFLATE)) {
+            ticks.forEach(writer::write);
+        }
+
+        InMemoryFile uncompressed = new InMemoryFile();
+        try (ColumnarWriter<Tick> writer = ColumnarWriter.of(uncompressed, INTERPRETER, 1024, ColumnarBlock.Codec.NONE)) {
+            ticks.forEach(writer::write);
+        }
+
+        TestUtils.assertTrue(uncompressed.getContentsAsByteArray().length > 10_000 * 24);
+        TestUtils.assertTrue(compressed.getContentsAsByteArray().length < uncompressed.getContentsAsByteArray().length);
+    }
+
+    @Test
+    public void testDeflate() throws Exception {
+        ColumnarTest.doTestRoundTrip(ColumnarBlock.Codec.DEFLATE);
+    }
+
+    /**
+     * Blocks rejected by the filter, based on the block header min/max values, are skipped.
+     */
+    @Test
+    public void testFilter() throws Exception {
+
+        InMemoryFile file = new InMemoryFile();
+
+        try (ColumnarWriter<Tick> writer = ColumnarWriter.of(file, INTERPRETER, 100, ColumnarBlock.Codec.DEFLATE)) {
+            ColumnarTest.generate(1000).forEach(writer::write);
+        }
+
+        try (ColumnarReader<Tick> reader = ColumnarReader.of(file, INTERPRETER)) {
+
+            int count = 0;
+            ColumnarBlock block = null;
+            while ((block = reader.readBlock(b -> b.getMaximum(0) >= 500.0)) != null) {
+                TestUtils.assertTrue(block.longs(0)[0] >= 500L);
+                count++;
+            }
+            TestUtils.assertEquals(4, count);
+        }
+    }
+
+    /**
+     * FLOAT columns are stored rounded, and the min/max values must be those of the rounded values – or a
+     * block containing a matching value could be skipped.
+     */
+    @Test
+    public void testFloatStatistics() throws Exception {
+
+        ColumnarInterpreter<Double> interpreter = new ColumnarInterpreter<>() {
+
+            public Double deserialize(final ColumnarBlock block, final int row) {
+                return block.doubleValue(0, row);
+            }
+
+            public ColumnarBlock.Type[] getColumnTypes() {
+                return new ColumnarBlock.Type[] { ColumnarBlock.Type.FLOAT };
+            }
+
+            public void serialize(final Double item, final ColumnarBlock block, final int row) {
+                block.set(0, row, item.doubleValue());
+            }
+
+        };
+
+        InMemoryFile file = new InMemoryFile();
+
+        try (ColumnarWriter<Double> writer = ColumnarWriter.of(file, interpreter, 16, ColumnarBlock.Codec.NONE)) {
+            writer.write(0.1);
+            writer.write(0.3);
+        }
+
+        // Rounding to float makes the stored value larger than the original
+        double stored = (float) 0.3;
+        TestUtils.assertTrue(stored > 0.3);
+
+        try (ColumnarReader<Double> reader = ColumnarReader.of(file, interpreter)) {
+
+            ColumnarBlock block = reader.readBlock(b -> b.getMaximum(0) >= stored);
+
+            TestUtils.assertTrue(block != null);
+            TestUtils.assertEquals(stored, block.getMaximum(0), 0.0);
+            TestUtils.assertEquals((float) 0.1, block.getMinimum(0), 0.0);
+            TestUtils.assertEquals(stored, block.doubles(0)[1], 0.0);
+        }
+    }
+
+    @Test
+    public void testNone() throws Exception {
+        ColumnarTest.doTestRoundTrip(ColumnarBlock.Codec.NONE);
+    }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.type.keyvalue.EntryPair;
+import org.ojalgo.type.keyvalue.EntryPair.KeyedPrimitive;
+import org.ojalgo.type.keyvalue.KeyValue;
+
+public class MappedTest extends NetioTests {
+
+    /**
+     * Tiny windows (8 records) to test records and bulk transfers spanning multiple windows.
+     */
+    private static final long WINDOW = 8L;
+
+    static File newTemporaryFile() throws IOException {
+        File retVal = File.createTempFile("mapped", ".data");
+        retVal.deleteOnExit();
+        return retVal;
+    }
+
+    static <T> MappedReader<T> newReader(final File file, final FixedWidthInterpreter<T> interpreter) throws IOException {
+        return new MappedReader<>(FileChannel.open(file.toPath(), StandardOpenOption.READ), interpreter, WINDOW);
+    }
+
+    static <T> MappedWriter<T> newWriter(final File file, final FixedWidthInterpreter<T> interpreter) throws IOException {
+        return new MappedWriter<>(FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE), interpreter, WINDOW);
+    }
+
+    @Test
+    public void testBulk() throws IOException {
+
+        int width = 3;
+        int nbRecords = 100;
+
+        FixedWidthInterpreter<double[]> interpreter = FixedWidthInterpreter.newDoubleArray(width);
+
+        double[] values = new double[width * nbRecords];
+        Random random = new Random(123L);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble();
+        }
+
+        File file = MappedTest.newTemporaryFile();
+
+        try (MappedWriter<double[]> writer = MappedTest.newWriter(file, interpreter)) {
+            writer.putDoubles(0L, values, 0, values.length / 2);
+            writer.putDoubles(nbRecords / 2, values, values.length / 2, values.length / 2);
+            TestUtils.assertEquals(nbRecords, writer.count());
+        }
+
+        TestUtils.assertEquals(values.length * Double.BYTES, file.length());
+
+        try (MappedReader<double[]> reader = MappedTest.newReader(file, interpreter)) {
+
+            TestUtils.assertEquals(nbRecords, reader.count());
+
+            double[] all = new double[values.length];
+            reader.getDoubles(0L, all, 0, all.length);
+            for (int i = 0; i < all.length; i++) {
+                TestUtils.assertEquals(values[i], all[i], 0.0);
+            }
+
+            // Offset, and crossing window boundaries
+            double[] some = new double[width * 20];
+            reader.getDoubles(5L, some, 0, some.length);
+            for (int i = 0; i < some.length; i++) {
+                TestUtils.assertEquals(values[5 * width + i], some[i], 0.0);
+            }
+
+            for (int r = 0; r < nbRecords; r++) {
+                double[] record = reader.get(r);
+                for (int j = 0; j < width; j++) {
+                    TestUtils.assertEquals(values[r * width + j], record[j], 0.0);
+                }
+            }
+        }
+    }
+
+    /**
+     * With the default (large) window size the file should never be larger than the records written, and
+     * have the exact size after close – without having to be truncated.
+     */
+    @Test
+    public void testFileSize() throws IOException {
+
+        int nbRecords = 1000;
+
+        FixedWidthInterpreter<double[]> interpreter = FixedWidthInterpreter.newDoubleArray(2);
+
+        File file = MappedTest.newTemporaryFile();
+
+        try (MappedWriter<double[]> writer = MappedWriter.of(file, interpreter)) {
+            for (int i = 0; i < nbRecords; i++) {
+                writer.write(new double[] { i, -i });
+                TestUtils.assertTrue(file.length() <= (i + 1L) * 16L);
+            }
+        }
+
+        TestUtils.assertEquals(nbRecords * 16L, file.length());
+
+        try (MappedReader<double[]> reader = MappedTest.newReader(file, interpreter)) {
+            TestUtils.assertEquals(nbRecords, reader.count());
+            for (int r = 0; r < nbRecords; r++) {
+                double[] record = reader.get(r);
+                TestUtils.assertEquals(r, record[0], 0.0);
+                TestUtils.assertEquals(-r, record[1], 0.0);
+            }
+        }
+    }
+
+    /**
+     * Records set in random order, with tiny windows, so that earlier (mapped) windows are revisited after
+     * later (buffered) ones have been accessed.
+     */
+    @Test
+    public void testRandomAccess() throws IOException {
+
+        int nbRecords = 100;
+
+        FixedWidthInterpreter<double[]> interpreter = FixedWidthInterpreter.newDoubleArray(1);
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < nbRecords; i++) {
+            order.add(Integer.valueOf(i));
+        }
+        Collections.shuffle(order, new Random(123L));
+
+        File file = MappedTest.newTemporaryFile();
+
+        try (MappedWriter<double[]> writer = MappedTest.newWriter(file, interpreter)) {
+            for (Integer index : order) {
+                writer.set(index.longValue(), new double[] { index.doubleValue() });
+            }
+            TestUtils.assertEquals(nbRecords, writer.count());
+        }
+
+        TestUtils.assertEquals(nbRecords * 8L, file.length());
+
+        try (MappedReader<double[]> reader = MappedTest.newReader(file, interpreter)) {
+            for (int r = 0; r < nbRecords; r++) {
+                TestUtils.assertEquals(r, reader.get(r)[0], 0.0);
+            }
+        }
+    }
+
+    /**
+     * Sequential write, random and sequential (repeated) read, and compatibility with {@link DataReader}.
+     */
+    @Test
+    public void testScoredDual() throws IOException {
+
+        int nbRecords = 1000;
+
+        FixedWidthInterpreter<KeyedPrimitive<KeyValue.Dual<Integer>>> interpreter = FixedWidthInterpreter.newScoredDual(FixedWidthInterpreter.INT);
+
+        File file = MappedTest.newTemporaryFile();
+
+        try (MappedWriter<KeyedPrimitive<KeyValue.Dual<Integer>>> writer = MappedWriter.of(file, interpreter)) {
+            for (int i = 0; i < nbRecords; i++) {
+                writer.write(EntryPair.of(Integer.valueOf(i), Integer.valueOf(-i), i / 2F));
+            }
+        }
+
+        TestUtils.assertEquals(nbRecords * 12L, file.length());
+
+        try (MappedReader<KeyedPrimitive<KeyValue.Dual<Integer>>> reader = MappedTest.newReader(file, interpreter)) {
+
+            for (int pass = 0; pass < 2; pass++) {
+                reader.position(0L);
+                int count = 0;
+                KeyedPrimitive<KeyValue.Dual<Integer>> item = null;
+                while ((item = reader.read()) != null) {
+                    TestUtils.assertEquals(count, item.getKey().first.intValue());
+                    TestUtils.assertEquals(-count, item.getKey().second.intValue());
+                    TestUtils.assertEquals(count / 2F, item.floatValue(), 0.0);
+                    count++;
+                }
+                TestUtils.assertEquals(nbRecords, count);
+            }
+
+            TestUtils.assertEquals(777, reader.get(777L).getKey().first.intValue());
+        }
+
+        DataReader.Deserializer<KeyedPrimitive<KeyValue.Dual<Integer>>> deserializer = input -> EntryPair.of(Integer.valueOf(input.readInt()),
+                Integer.valueOf(input.readInt()), input.readFloat());
+
+        try (DataReader<KeyedPrimitive<KeyValue.Dual<Integer>>> reader = DataReader.of(file, deserializer)) {
+            for (int i = 0; i < nbRecords; i++) {
+                KeyedPrimitive<KeyValue.Dual<Integer>> item = reader.read();
+                TestUtils.assertEquals(i, item.getKey().first.intValue());
+                TestUtils.assertEquals(i / 2F, item.floatValue(), 0.0);
+            }
+            TestUtils.assertTrue(reader.read() == null);
+        }
+    }
+
+}
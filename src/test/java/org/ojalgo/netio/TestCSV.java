@@ -22,10 +22,16 @@
 package org.ojalgo.netio;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.junit.jupiter.api.Test;
 import org.ojalgo.TestUtils;
+import org.ojalgo.type.management.Throughput;
 
 public class TestCSV extends NetioTests {
 
@@ -60,6 +66,75 @@ public class TestCSV extends NetioTests {
         TestUtils.assertEquals(22, tmpCounter.get());
     }
 
+    /**
+     * Large enough to be split in many chunks, with header, comment lines, CRLF line breaks and some non-ASCII
+     * characters. The result should be the same regardless of strategy and parallelism.
+     */
+    @Test
+    public void testParallel() throws IOException {
+
+        int nbLines = 100_000;
+
+        File tmpFile = File.createTempFile("parallel", ".csv");
+        tmpFile.deleteOnExit();
+
+        long expectedSum = 0L;
+        double expectedTotal = 0.0;
+        try (PrintWriter writer = new PrintWriter(tmpFile, StandardCharsets.UTF_8)) {
+            writer.print("Index,Value,Text\n");
+            for (int i = 0; i < nbLines; i++) {
+                if (i % 1000 == 0) {
+                    writer.print("# comment\n");
+                }
+                double value = i / 8.0 - 1000.0;
+                writer.print(i + "," + value + "," + (i % 100 == 0 ? "\u00e5\u00e4\u00f6" : "abc") + (i % 3 == 0 ? "\r\n" : "\n"));
+                expectedSum += i;
+                expectedTotal += value;
+            }
+        }
+
+        for (EnumeratedColumnsParser.ParseStrategy strategy : new EnumeratedColumnsParser.ParseStrategy[] { EnumeratedColumnsParser.ParseStrategy.FAST,
+                EnumeratedColumnsParser.ParseStrategy.RFC4180 }) {
+            for (int parallelism = 1; parallelism <= 4; parallelism++) {
+
+                EnumeratedColumnsParser parser = EnumeratedColumnsParser.make(3).strategy(strategy).get();
+
+                Throughput statistics = new Throughput();
+                LongAdder sum = new LongAdder();
+                DoubleAdder total = new DoubleAdder();
+                LongAdder special = new LongAdder();
+
+                parser.parse(tmpFile, true, parallelism, statistics, () -> view -> {
+                    sum.add(view.longValue(0));
+                    total.add(view.doubleValue(1));
+                    if (view.get(2).equals("\u00e5\u00e4\u00f6")) {
+                        special.increment();
+                    }
+                });
+
+                TestUtils.assertEquals(nbLines, statistics.getTotal());
+                TestUtils.assertEquals(expectedSum, sum.sum());
+                TestUtils.assertEquals(expectedTotal, total.sum());
+                TestUtils.assertEquals(nbLines / 100, special.sum());
+            }
+        }
+    }
+
+    @Test
+    public void testParseNumbers() {
+
+        String[] doubles = { "0", "-0", "1", "+1", "-1.5", "3.141592653589793", "1e10", "1E-10", "-2.5e+3", ".5", "5.", "0.1", "123456789012345678",
+                "9007199254740993", "1e300", "4.9e-324", "0.000000000000000000000000001", "NaN", "-Infinity", "1.0E22", "1.7976931348623157E308" };
+        for (String value : doubles) {
+            TestUtils.assertEquals(value, Double.parseDouble(value), TypeParser.parseDouble("x" + value + "y", 1, value.length() + 1), 0.0);
+        }
+
+        String[] longs = { "0", "-1", "+7", "123456789012345678", "9223372036854775807", "-9223372036854775808" };
+        for (String value : longs) {
+            TestUtils.assertEquals(value, Long.parseLong(value), TypeParser.parseLong("x" + value + "y", 1, value.length() + 1));
+        }
+    }
+
     @Test
     public void testQuoted() {
 
@@ -0,0 +1,62 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+
+public class BoundPropagatorTest extends OptimisationTests {
+
+    /**
+     * A variable with large, but finite, bounds contributes a large term to the activities. When those
+     * bounds are tightened the activities must not be left with rounding errors that tighten (integer) bounds
+     * wrongly – here Y <= 3 is valid (X = 0.1, Y = 3, Z = 0.3 is feasible) but Y <= 2 is not.
+     */
+    @Test
+    public void testLargeFiniteBounds() {
+
+        for (double large : new double[] { 1E13, 3E14 }) {
+
+            ExpressionsBasedModel model = new ExpressionsBasedModel();
+            Variable x = model.addVariable("X");
+            Variable y = model.addVariable("Y");
+            Variable z = model.addVariable("Z");
+
+            Expression lowerX = model.addExpression("LowerX").lower(0.1).set(x, 1);
+            Expression sum = model.addExpression("Sum").upper(3.4).set(x, 1).set(y, 1).set(z, 1);
+
+            boolean[] integer = { false, true, false };
+            double[] lower = { -large, 0.0, 0.3 };
+            double[] upper = { large, 10.0, 0.3 };
+
+            BoundPropagator propagator = new BoundPropagator(Arrays.asList(sum, lowerX), integer, lower, upper);
+
+            TestUtils.assertTrue(propagator.propagate(Long.MAX_VALUE));
+
+            TestUtils.assertEquals(0.1, propagator.getLower(0));
+            TestUtils.assertEquals(3.0, propagator.getUpper(1));
+        }
+    }
+
+}
@@ -24,7 +24,10 @@ package org.ojalgo.optimisation;
 import static org.ojalgo.function.constant.BigMath.*;
 
 import java.math.BigDecimal;
+import java.util.AbstractMap;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -35,10 +38,34 @@ import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.optimisation.Optimisation.Result;
 import org.ojalgo.optimisation.linear.LinearSolver;
 import org.ojalgo.structure.Structure1D.IntIndex;
+import org.ojalgo.structure.Structure2D.IntRowColumn;
 import org.ojalgo.type.context.NumberContext;
 
 public class ExpressionsBasedModelTest extends OptimisationTests {
 
+    private static ExpressionsBasedModel buildCompactCase(final boolean compact, final boolean quadratic) {
+
+        Optimisation.Options options = new Optimisation.Options();
+        options.compact = compact;
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel(options);
+
+        Variable x = model.newVariable("X").lower(0).upper(10).weight(-2);
+        Variable y = model.newVariable("Y").lower(0).upper(10).weight(-3);
+        Variable z = model.newVariable("Z").lower(0).upper(10).weight(-1);
+
+        // Not in variable index order
+        model.newExpression("C1").set(z, 1).set(x, 1).set(y, 1).upper(8);
+        model.newExpression("C2").set(y, 2).set(x, 1).lower(2).upper(10);
+        model.newExpression("C3").set(z, 3).set(x, 0.5).add(z, -1).upper(9);
+
+        if (quadratic) {
+            model.newExpression("Q").set(y, y, 1).set(x, x, 1).set(z, z, 0.5).weight(1);
+        }
+
+        return model;
+    }
+
     @Test
     public void testAddingVariableToExpression() {
         ExpressionsBasedModel model = new ExpressionsBasedModel();
@@ -51,6 +78,122 @@ public class ExpressionsBasedModelTest extends OptimisationTests {
         TestUtils.assertEquals(BigDecimal.valueOf(10), x1Result);
     }
 
+    /**
+     * Models built with compact (primitive double) expression factors should behave the same as the usual
+     * ones.
+     */
+    @Test
+    public void testCompactFactors() {
+
+        ExpressionsBasedModel model = ExpressionsBasedModelTest.buildCompactCase(true, false);
+
+        Expression expression = model.getExpression("C3");
+        TestUtils.assertEquals(0.5, expression.get(IntIndex.of(0)).doubleValue());
+        TestUtils.assertEquals(0.0, expression.get(IntIndex.of(1)).doubleValue());
+        TestUtils.assertEquals(2.0, expression.get(IntIndex.of(2)).doubleValue());
+        TestUtils.assertEquals(2, expression.getLinearKeySet().size());
+
+        expression.set(0, 0);
+        TestUtils.assertEquals(1, expression.getLinearKeySet().size());
+        expression.set(0, 0.5);
+        TestUtils.assertEquals(2, expression.getLinearKeySet().size());
+
+        for (boolean quadratic : new boolean[] { false, true }) {
+
+            ExpressionsBasedModel reference = ExpressionsBasedModelTest.buildCompactCase(false, quadratic);
+            ExpressionsBasedModel compact = ExpressionsBasedModelTest.buildCompactCase(true, quadratic);
+
+            Result expected = reference.minimise();
+            Result actual = compact.minimise();
+
+            TestUtils.assertStateNotLessThanOptimal(actual);
+            TestUtils.assertStateAndSolution(expected, actual);
+
+            TestUtils.assertTrue(compact.copy().validate(actual));
+            TestUtils.assertStateAndSolution(expected, compact.copy().minimise());
+        }
+    }
+
+    /**
+     * The {@link Map.Entry} instances of a compact expression should be equal to (and have the same hash code
+     * as) those of an ordinary map with the same contents.
+     */
+    @Test
+    public void testCompactFactorEntries() {
+
+        PrimitiveFactorMap<IntIndex> compact = PrimitiveFactorMap.newLinear();
+        compact.set(IntIndex.of(3), 1.5);
+        compact.set(IntIndex.of(1), -2.0);
+        compact.add(IntIndex.of(7), 0.25);
+
+        Map<IntIndex, BigDecimal> reference = new HashMap<>(compact);
+
+        TestUtils.assertEquals(3, reference.size());
+        TestUtils.assertTrue(reference.equals(compact));
+        TestUtils.assertTrue(compact.equals(reference));
+        TestUtils.assertEquals(reference.hashCode(), compact.hashCode());
+        TestUtils.assertTrue(reference.entrySet().equals(compact.entrySet()));
+
+        for (Map.Entry<IntIndex, BigDecimal> entry : compact.entrySet()) {
+            Map.Entry<IntIndex, BigDecimal> other = new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+            TestUtils.assertTrue(entry.equals(other));
+            TestUtils.assertTrue(other.equals(entry));
+            TestUtils.assertEquals(other.hashCode(), entry.hashCode());
+        }
+    }
+
+    /**
+     * Building with the primitive (double and long) set/add overloads should give the same factors whether
+     * the expressions are compact or not – with compact expressions those overloads never go via
+     * {@link BigDecimal}.
+     */
+    @Test
+    public void testCompactPrimitiveOverloads() {
+
+        Expression[] expressions = new Expression[2];
+
+        for (int m = 0; m < expressions.length; m++) {
+
+            Optimisation.Options options = new Optimisation.Options();
+            options.compact = m == 1;
+
+            ExpressionsBasedModel model = new ExpressionsBasedModel(options);
+
+            Variable x = model.newVariable("X");
+            Variable y = model.newVariable("Y");
+            Variable z = model.newVariable("Z");
+
+            Expression expression = model.newExpression("E");
+
+            expression.set(0, 1.5).set(1, 2L).add(0, 0.5).add(2, 3L);
+            expression.add(y, -2L).set(z, 1.0).add(z, 2.0).add(x, -1.0);
+            expression.set(0, 0, 2.0).set(x, y, 1L).add(0, 0, -2.0).add(1, 2, 0.25).add(y, z, 1L).set(z, z, 4L);
+
+            expressions[m] = expression;
+        }
+
+        Expression reference = expressions[0];
+        Expression compact = expressions[1];
+
+        TestUtils.assertTrue(compact.getLinear() instanceof PrimitiveFactorMap);
+
+        TestUtils.assertEquals(reference.getLinearKeySet(), compact.getLinearKeySet());
+        TestUtils.assertEquals(reference.getQuadraticKeySet(), compact.getQuadraticKeySet());
+        TestUtils.assertEquals(2, compact.getLinearKeySet().size());
+        TestUtils.assertEquals(3, compact.getQuadraticKeySet().size());
+
+        for (IntIndex key : reference.getLinearKeySet()) {
+            TestUtils.assertEquals(reference.get(key).doubleValue(), compact.get(key).doubleValue());
+        }
+        for (IntRowColumn key : reference.getQuadraticKeySet()) {
+            TestUtils.assertEquals(reference.get(key).doubleValue(), compact.get(key).doubleValue());
+        }
+
+        TestUtils.assertEquals(1.0, compact.get(IntIndex.of(0)).doubleValue());
+        TestUtils.assertEquals(3.0, compact.get(IntIndex.of(2)).doubleValue());
+        TestUtils.assertEquals(1.25, compact.get(new IntRowColumn(1, 2)).doubleValue());
+    }
+
     /**
      * https://github.com/optimatika/ojAlgo-extensions/issues/3 <br>
      * "compensating" didn't work because of an incorrectly used stream - did peek(...) instead of map(...).
@@ -0,0 +1,295 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.optimisation.Optimisation.Result;
+import org.ojalgo.optimisation.integer.IntegerStrategy;
+import org.ojalgo.structure.Structure1D.IntIndex;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Solving with {@link IntegerStrategy#isPresolve()} switched on should give the same optimal value as
+ * without, and the (postsolved) solution should be valid for the original model.
+ */
+public class ModelPresolverTest extends OptimisationTests {
+
+    private static final NumberContext ACCURACY = NumberContext.of(8);
+
+    private static void assertSameOptimum(final ExpressionsBasedModel model, final boolean minimise) {
+
+        Result expected = minimise ? model.minimise() : model.maximise();
+
+        model.options.integer(IntegerStrategy.DEFAULT.withPresolve(true));
+        Result actual = minimise ? model.minimise() : model.maximise();
+
+        if (DEBUG) {
+            BasicLogger.debug("Expected: {}", expected);
+            BasicLogger.debug("Actual: {}", actual);
+        }
+
+        TestUtils.assertStateNotLessThanOptimal(actual);
+        TestUtils.assertEquals(expected.getValue(), actual.getValue(), ACCURACY);
+        TestUtils.assertTrue(model.validate(actual));
+    }
+
+    /**
+     * Each variable value individually – within its bounds, and integer if the variable is.
+     */
+    private static void assertWithinBounds(final ExpressionsBasedModel model, final Result solution) {
+        for (int j = 0; j < model.countVariables(); j++) {
+            Variable variable = model.getVariable(j);
+            double value = solution.doubleValue(j);
+            TestUtils.assertTrue(variable.getName(), value >= variable.getLowerLimit().doubleValue() - ACCURACY.epsilon());
+            TestUtils.assertTrue(variable.getName(), value <= variable.getUpperLimit().doubleValue() + ACCURACY.epsilon());
+            if (variable.isInteger()) {
+                TestUtils.assertEquals(variable.getName(), Math.rint(value), value, ACCURACY);
+            }
+        }
+    }
+
+    /**
+     * A small knapsack-like model with parallel constraints, identical columns and binaries that propagation
+     * and probing can fix.
+     */
+    private static ExpressionsBasedModel buildModel() {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+
+        Variable a = model.addVariable("a").binary().weight(5);
+        Variable b = model.addVariable("b").binary().weight(4);
+        Variable c = model.addVariable("c").binary().weight(4);
+        Variable d = model.addVariable("d").binary().weight(3);
+        Variable e = model.addVariable("e").lower(0).upper(10).integer(true).weight(2);
+        Variable f = model.addVariable("f").lower(0).upper(10).integer(true).weight(2);
+
+        Expression capacity = model.addExpression("capacity").upper(12);
+        capacity.set(a, 6).set(b, 5).set(c, 5).set(d, 4).set(e, 1).set(f, 1);
+
+        // Parallel to "capacity", but weaker
+        Expression doubled = model.addExpression("doubled").upper(30);
+        doubled.set(a, 12).set(b, 10).set(c, 10).set(d, 8).set(e, 2).set(f, 2);
+
+        Expression conflict = model.addExpression("conflict").upper(1);
+        conflict.set(a, 1).set(d, 1);
+
+        Expression implication = model.addExpression("implication").lower(0);
+        implication.set(d, 1).set(a, -1);
+
+        return model;
+    }
+
+    /**
+     * Binary variables, with the given weights (in one capacity constraint) and values (objective)
+     */
+    private static ExpressionsBasedModel buildKnapsack(final double capacity, final int[] weights, final int[] values) {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+
+        Expression total = model.addExpression("capacity").upper(capacity);
+        for (int i = 0; i < weights.length; i++) {
+            total.set(model.addVariable("x" + i).binary().weight(values[i]), weights[i]);
+        }
+
+        return model;
+    }
+
+    /**
+     * Two pairs of identical columns, one integer and one continuous, with different (and for the integer
+     * pair fractional) bounds. Every variable of the mapped, and postsolved, solutions is checked – not just
+     * the objective function value.
+     */
+    @Test
+    public void testDuplicateColumns() {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+
+        Variable x = model.addVariable("x").lower(0).upper(2).integer(true).weight(-3);
+        Variable y = model.addVariable("y").lower(0.5).upper(3.5).integer(true).weight(-3);
+        Variable u = model.addVariable("u").lower(0).upper(1.5).weight(-1);
+        Variable v = model.addVariable("v").lower(0).upper(2.5).weight(-1);
+
+        model.addExpression("xy").upper(4).set(x, 1).set(y, 1).set(u, 1).set(v, 1);
+        model.addExpression("uv").upper(6).set(x, 2).set(y, 2).set(u, 1).set(v, 1);
+
+        // A feasible solution where both variables of each pair are non-zero
+        x.setValue(1);
+        y.setValue(1);
+        u.setValue(0.5);
+        v.setValue(1);
+        Result original = model.getVariableValues();
+        TestUtils.assertTrue(model.validate(original));
+
+        ExpressionsBasedModel reduced = model.copy();
+        ModelPresolver presolver = new ModelPresolver(reduced);
+        TestUtils.assertTrue(presolver.presolve());
+        TestUtils.assertTrue(presolver.countReductions() >= 2);
+
+        Result mapped = presolver.map(original);
+        TestUtils.assertEquals(original.count(), mapped.count());
+        TestUtils.assertTrue(reduced.validate(mapped));
+
+        Result postsolved = presolver.postsolve(mapped);
+        ModelPresolverTest.assertWithinBounds(model, postsolved);
+        TestUtils.assertTrue(model.validate(postsolved));
+        TestUtils.assertEquals(2.0, postsolved.doubleValue(0) + postsolved.doubleValue(1), ACCURACY);
+        TestUtils.assertEquals(1.5, postsolved.doubleValue(2) + postsolved.doubleValue(3), ACCURACY);
+
+        Result expected = model.minimise();
+
+        model.options.integer(IntegerStrategy.DEFAULT.withPresolve(true));
+        Result actual = model.minimise();
+
+        TestUtils.assertStateNotLessThanOptimal(actual);
+        TestUtils.assertEquals(expected.getValue(), actual.getValue(), ACCURACY);
+        ModelPresolverTest.assertWithinBounds(model, actual);
+        TestUtils.assertTrue(model.validate(actual));
+    }
+
+    @Test
+    public void testFlugpl() {
+        ModelPresolverTest.assertSameOptimum(ModelFileTest.makeModel("miplib", "flugpl.mps", false), true);
+    }
+
+    @Test
+    public void testInfeasible() {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+
+        Variable x = model.addVariable("x").binary().weight(1);
+        Variable y = model.addVariable("y").binary().weight(1);
+        Variable z = model.addVariable("z").binary().weight(1);
+
+        model.addExpression("xy").lower(1).set(x, 1).set(y, 1);
+        model.addExpression("xz").lower(1).set(x, 1).set(z, -1);
+        model.addExpression("yz").upper(0).set(y, 1).set(z, 1);
+        model.addExpression("notx").upper(0).set(x, 1).set(y, 1).set(z, -1);
+
+        ExpressionsBasedModel copy = model.copy();
+        ModelPresolver presolver = new ModelPresolver(copy);
+        presolver.presolve();
+        TestUtils.assertTrue(presolver.isInfeasible());
+
+        model.options.integer(IntegerStrategy.DEFAULT.withPresolve(true));
+        TestUtils.assertFalse(model.maximise().getState().isFeasible());
+    }
+
+    @Test
+    public void testKnapsack() {
+        ModelPresolverTest.assertSameOptimum(
+                ModelPresolverTest.buildKnapsack(10.0, new int[] { 2, 3, 3, 4, 5, 5, 6 }, new int[] { 3, 4, 4, 5, 6, 6, 7 }), false);
+    }
+
+    /**
+     * The presolvers, in particular the special ordered sets, are those passed to the constructor – not
+     * whatever happens to be registered globally.
+     */
+    /**
+     * Presolve must not modify the user's model (the coefficients, limits and bounds) – solving the same
+     * model again should give the same result.
+     */
+    @Test
+    public void testOriginalModelUnchanged() {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+        Variable x = model.addVariable("X").binary().weight(1);
+        Variable y = model.addVariable("Y").binary().weight(2);
+        Variable z = model.addVariable("Z").lower(0).upper(10).weight(0.1);
+
+        Expression c = model.addExpression("C").upper(4);
+        c.set(x, 3);
+        c.set(y, 2);
+
+        Expression d = model.addExpression("D").upper(10);
+        d.set(x, 1);
+        d.set(z, 1);
+
+        model.options.integer(IntegerStrategy.DEFAULT.withPresolve(true));
+
+        Result first = model.maximise();
+
+        TestUtils.assertEquals(3, c.get(x).doubleValue(), ACCURACY);
+        TestUtils.assertEquals(2, c.get(y).doubleValue(), ACCURACY);
+        TestUtils.assertEquals(4, c.getUpperLimit().doubleValue(), ACCURACY);
+        TestUtils.assertEquals(10, d.getUpperLimit().doubleValue(), ACCURACY);
+        TestUtils.assertEquals(1, x.getUpperLimit().doubleValue(), ACCURACY);
+        TestUtils.assertEquals(10, z.getUpperLimit().doubleValue(), ACCURACY);
+
+        Result second = model.maximise();
+
+        TestUtils.assertStateNotLessThanOptimal(first);
+        TestUtils.assertStateNotLessThanOptimal(second);
+        TestUtils.assertEquals(3.0, first.getValue(), ACCURACY);
+        TestUtils.assertResult(first, second, ACCURACY);
+        TestUtils.assertTrue(model.validate(second));
+    }
+
+    @Test
+    public void testPresolversPassedIn() {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+
+        Variable x = model.addVariable("x").lower(0).upper(5).weight(-1);
+        Variable y = model.addVariable("y").lower(0).upper(5).weight(-1);
+
+        Expression sum = model.addExpression("sum").lower(1).upper(4).set(x, 1).set(y, 1);
+
+        SpecialOrderedSet sos = new SpecialOrderedSet(new IntIndex[] { x.getIndex(), y.getIndex() }, 1, sum);
+
+        ExpressionsBasedModel locked = model.copy();
+        new ModelPresolver(locked, Collections.singletonList(sos)).presolve();
+        TestUtils.assertTrue(locked.getVariable(0).getUpperLimit().signum() > 0);
+        TestUtils.assertTrue(locked.getVariable(1).getUpperLimit().signum() > 0);
+
+        ExpressionsBasedModel merged = model.copy();
+        new ModelPresolver(merged, Collections.emptyList()).presolve();
+        TestUtils.assertTrue(merged.getVariable(0).getUpperLimit().signum() == 0 || merged.getVariable(1).getUpperLimit().signum() == 0);
+    }
+
+    @Test
+    public void testReductions() {
+
+        ExpressionsBasedModel model = ModelPresolverTest.buildModel();
+
+        ModelPresolver presolver = new ModelPresolver(model);
+        TestUtils.assertTrue(presolver.presolve());
+        TestUtils.assertFalse(presolver.isInfeasible());
+
+        if (DEBUG) {
+            BasicLogger.debug(presolver);
+            BasicLogger.debug(model);
+        }
+
+        // a = 1 implies d = 1 (implication) and then a + d = 2 (conflict) – probing fixes a = 0
+        TestUtils.assertEquals(0, model.getVariable(0).getUpperLimit().intValue());
+
+        // The parallel constraint, and one of each pair of identical columns, are removed
+        TestUtils.assertTrue(presolver.countReductions() >= 4);
+
+        ModelPresolverTest.assertSameOptimum(ModelPresolverTest.buildModel(), false);
+    }
+
+}
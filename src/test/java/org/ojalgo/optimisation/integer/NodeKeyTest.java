@@ -0,0 +1,125 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.concurrent.WorkStealingQueues;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+
+public class NodeKeyTest extends OptimisationIntegerTests {
+
+    /**
+     * A node only holds its own bound change. The bounds in effect are resolved via the parent nodes, and
+     * should be the same whether looked up one at the time or materialised all at once.
+     */
+    @Test
+    public void testBoundsResolvedViaParents() {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+        model.addVariable("A").integer(true).lower(0).upper(10);
+        model.addVariable("B").integer(true).lower(-5).upper(5);
+        model.addVariable("C").integer(true).lower(0);
+
+        NodeKey root = new NodeKey(model);
+
+        NodeKey node1 = root.createLowerBranch(0, 6.5, 0.0); // A <= 6
+        NodeKey node2 = node1.createUpperBranch(1, -0.5, 0.0); // B >= 0
+        NodeKey node3 = node2.createLowerBranch(0, 3.2, 0.0); // A <= 3
+        NodeKey node4 = node3.createUpperBranch(2, 7.7, 0.0); // C >= 8
+
+        TestUtils.assertEquals(BigDecimal.valueOf(0), node4.getLowerBound(0));
+        TestUtils.assertEquals(BigDecimal.valueOf(3), node4.getUpperBound(0));
+        TestUtils.assertEquals(BigDecimal.valueOf(0), node4.getLowerBound(1));
+        TestUtils.assertEquals(BigDecimal.valueOf(5), node4.getUpperBound(1));
+        TestUtils.assertEquals(BigDecimal.valueOf(8), node4.getLowerBound(2));
+        TestUtils.assertTrue(node4.getUpperBound(2) == null);
+
+        TestUtils.assertFalse(node4.isSignChanged());
+        TestUtils.assertTrue(node2.isSignChanged());
+        TestUtils.assertFalse(node3.isSignChanged());
+
+        TestUtils.assertTrue(node4.equals(new int[] { 0, 0, 8 }, new int[] { 3, 5, Integer.MAX_VALUE }));
+        TestUtils.assertTrue(node2.equals(new int[] { 0, 0, 0 }, new int[] { 6, 5, Integer.MAX_VALUE }));
+
+        // Releasing a node's materialised bounds does not affect its children, nor the root
+        node2.dispose();
+        root.dispose();
+        TestUtils.assertEquals(BigDecimal.valueOf(6), node2.getUpperBound(0));
+        TestUtils.assertEquals(BigDecimal.valueOf(10), root.getUpperBound(0));
+        TestUtils.assertTrue(node3.equals(new int[] { 0, 0, 0 }, new int[] { 3, 5, Integer.MAX_VALUE }));
+    }
+
+    /**
+     * Only a limited number of the nodes in a worker's queue keep the parent basis. Once the limit is
+     * reached, deferred nodes hold no basis (nothing with one entry per constraint) at all.
+     */
+    @Test
+    public void testDeferredNodesBasisLimited() {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+        model.addVariable("A").integer(true).lower(0).upper(10);
+
+        NodeKey root = new NodeKey(model);
+
+        int[] basis = new int[10_000];
+        int limit = 3;
+
+        WorkStealingQueues<NodeKey> queues = new WorkStealingQueues<>(Collections.singletonList(NodeKey.EARLIEST_SEQUENCE));
+        WorkStealingQueues<NodeKey>.Worker worker = queues.worker(0);
+
+        NodeKey[] nodes = new NodeKey[10];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = root.createLowerBranch(0, 0.5 + i, 0.0);
+            IntegerSolver.defer(nodes[i], 1, basis, worker, limit);
+        }
+
+        for (int i = 0; i < nodes.length; i++) {
+            TestUtils.assertEquals(i < limit, nodes[i].hasParentBasis());
+        }
+
+        // Taking nodes from the queue makes room for new ones to keep a basis, but never more than the limit
+        worker.poll();
+        worker.done();
+
+        NodeKey next = root.createUpperBranch(0, 0.5, 0.0);
+        IntegerSolver.defer(next, 1, basis, worker, limit);
+        TestUtils.assertFalse(next.hasParentBasis());
+
+        queues.clear();
+
+        NodeKey first = root.createUpperBranch(0, 1.5, 0.0);
+        IntegerSolver.defer(first, 1, basis, worker, limit);
+        TestUtils.assertTrue(first.hasParentBasis());
+
+        // A limit of 0 turns warm starting of deferred nodes off
+        NodeKey cold = root.createUpperBranch(0, 2.5, 0.0);
+        IntegerSolver.defer(cold, 1, basis, worker, 0);
+        TestUtils.assertFalse(cold.hasParentBasis());
+
+        queues.clear();
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Variable;
+
+public class NodePropagatorTest extends OptimisationIntegerTests {
+
+    /**
+     * Branching on one variable implies bounds on others, via the constraints, and may make the node
+     * infeasible without the need to solve its LP.
+     */
+    @Test
+    public void testInfeasibleByPropagation() {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+        Variable x = model.addVariable("X").binary().weight(1);
+        Variable y = model.addVariable("Y").binary().weight(2);
+        Variable z = model.addVariable("Z").binary().weight(3);
+        Variable w = model.addVariable("W").lower(0).upper(10).weight(1);
+
+        // At most one of X, Y and Z
+        model.addExpression("SOS").upper(1).set(x, 1).set(y, 1).set(z, 1);
+        // Z requires W >= 6, and X allows W <= 5
+        model.addExpression("ZW").upper(0).set(z, 6).set(w, -1);
+        model.addExpression("XW").upper(10).set(x, 5).set(w, 1);
+
+        ModelStrategy strategy = IntegerStrategy.DEFAULT.newModelStrategy(model);
+        NodePropagator propagator = new NodePropagator(model, strategy).copy();
+
+        NodeKey root = new NodeKey(model);
+        TestUtils.assertTrue(propagator.propagate(root, strategy));
+
+        NodeKey withX = root.createUpperBranch(0, 0.5, 0.0); // X >= 1
+        TestUtils.assertTrue(propagator.propagate(withX, strategy));
+
+        NodeKey withXandY = withX.createUpperBranch(1, 0.5, 0.0); // Y >= 1
+        TestUtils.assertFalse(propagator.propagate(withXandY, strategy));
+
+        NodeKey withZ = root.createUpperBranch(2, 0.5, 0.0); // Z >= 1
+        TestUtils.assertTrue(propagator.propagate(withZ, strategy));
+
+        NodeKey withZandX = withZ.createUpperBranch(0, 0.5, 0.0); // X >= 1
+        TestUtils.assertFalse(propagator.propagate(withZandX, strategy));
+
+        // The root state is cached and reused – starting over from it gives the same result
+        TestUtils.assertTrue(propagator.propagate(withX, strategy));
+        TestUtils.assertTrue(propagator.propagate(root, strategy));
+    }
+
+}
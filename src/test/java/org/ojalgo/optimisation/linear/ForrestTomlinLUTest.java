@@ -0,0 +1,147 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.ArrayR064;
+import org.ojalgo.array.SparseArray;
+import org.ojalgo.matrix.decomposition.LU;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
+
+public class ForrestTomlinLUTest extends OptimisationLinearTests {
+
+    private static final NumberContext ACCURACY = NumberContext.of(10);
+
+    private static void compare(final List<SparseArray<Double>> columns, final ForrestTomlinLU factors) {
+
+        int dim = columns.size();
+
+        Primitive64Store basis = Primitive64Store.FACTORY.make(dim, dim);
+        for (int j = 0; j < dim; j++) {
+            columns.get(j).supplyTo(basis.sliceColumn(j));
+        }
+
+        LU<Double> lu = LU.R064.make(basis);
+        lu.decompose(basis);
+
+        Primitive64Store random = Primitive64Store.FACTORY.makeFilled(dim, 1, Uniform.standard());
+        Primitive64Store exp = Primitive64Store.FACTORY.make(dim, 1);
+        Primitive64Store act = Primitive64Store.FACTORY.make(dim, 1);
+
+        lu.ftran(random, exp);
+        factors.ftran(random, act);
+        TestUtils.assertEquals(exp, act, ACCURACY);
+
+        lu.btran(random, exp);
+        factors.btran(random, act);
+        TestUtils.assertEquals(exp, act, ACCURACY);
+    }
+
+    private static SparseArray<Double> newColumn(final int dim, final Random random, final int index) {
+
+        SparseArray<Double> retVal = SparseArray.factory(ArrayR064.FACTORY).make(dim);
+
+        // Diagonally dominant, to keep the basis nonsingular
+        retVal.set(index, 4.0 + random.nextDouble());
+        for (int k = 0; k < 3; k++) {
+            retVal.add(random.nextInt(dim), random.nextDouble() - 0.5);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Same example as {@link ProductFormInverseTest#testLecture6Example()}
+     */
+    @Test
+    public void testLecture6Example() {
+
+        SparseArray<Double> arr0 = SparseArray.factory(ArrayR064.FACTORY).make(3);
+        arr0.set(0, 8);
+        arr0.set(1, 4);
+        arr0.set(2, 2);
+        SparseArray<Double> arr2 = SparseArray.factory(ArrayR064.FACTORY).make(3);
+        arr2.set(0, 1);
+        arr2.set(1, 1.5);
+        arr2.set(2, 0.5);
+
+        List<SparseArray<Double>> columns = new ArrayList<>();
+        for (int j = 0; j < 3; j++) {
+            SparseArray<Double> unit = SparseArray.factory(ArrayR064.FACTORY).make(3);
+            unit.set(j, 1.0);
+            columns.add(unit);
+        }
+
+        ForrestTomlinLU factors = new ForrestTomlinLU(3);
+        ForrestTomlinLUTest.compare(columns, factors);
+
+        columns.set(2, arr0);
+        factors.update(columns::get, 2, arr0);
+        ForrestTomlinLUTest.compare(columns, factors);
+
+        columns.set(1, arr2);
+        factors.update(columns::get, 1, arr2);
+        ForrestTomlinLUTest.compare(columns, factors);
+    }
+
+    /**
+     * Many random column exchanges - enough to trigger refactorisation
+     */
+    @Test
+    public void testRandomUpdates() {
+
+        int dim = 50;
+        Random random = new Random(123L);
+
+        List<SparseArray<Double>> columns = new ArrayList<>();
+        for (int j = 0; j < dim; j++) {
+            columns.add(ForrestTomlinLUTest.newColumn(dim, random, j));
+        }
+
+        ForrestTomlinLU factors = new ForrestTomlinLU(dim);
+        factors.reset(columns::get);
+        ForrestTomlinLUTest.compare(columns, factors);
+
+        for (int u = 0; u < 250; u++) {
+
+            int index = random.nextInt(dim);
+            SparseArray<Double> entering = ForrestTomlinLUTest.newColumn(dim, random, index);
+
+            columns.set(index, entering);
+            factors.update(columns::get, index, entering);
+
+            if (u % 10 == 0) {
+                ForrestTomlinLUTest.compare(columns, factors);
+            }
+        }
+
+        ForrestTomlinLUTest.compare(columns, factors);
+    }
+
+}
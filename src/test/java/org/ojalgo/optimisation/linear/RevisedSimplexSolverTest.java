@@ -21,7 +21,9 @@
  */
 package org.ojalgo.optimisation.linear;
 
+import java.util.List;
 import java.util.Random;
+import java.util.function.Function;
 
 import org.junit.jupiter.api.Test;
 import org.ojalgo.TestUtils;
@@ -628,6 +630,53 @@ public class RevisedSimplexSolverTest extends OptimisationLinearTests {
         RevisedSimplexSolverTest.doTestPhasedVariants(model, expected);
     }
 
+    /**
+     * Solve, then tighten a variable range in place and solve again (warm start), and also start a new
+     * solver from the first optimal basis. Both should match a cold solve of the modified model.
+     */
+    @Test
+    public void testWarmStartAfterRangeUpdate() {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+
+        Variable x0 = model.addVariable().lower(0).upper(10).weight(-5);
+        Variable x1 = model.addVariable().lower(0).upper(10).weight(-4);
+        Variable x2 = model.addVariable().lower(0).upper(10).weight(-3);
+
+        model.addExpression().add(x0, 2).add(x1, 3).add(x2, 1).upper(5);
+        model.addExpression().add(x0, 4).add(x1, 1).add(x2, 2).upper(11);
+        model.addExpression().add(x0, 3).add(x1, 4).add(x2, 2).upper(8);
+
+        ExpressionsBasedModel root = model.simplify();
+
+        ExpressionsBasedModel modified = model.copy();
+        modified.getVariable(0).upper(1);
+        ExpressionsBasedModel simplified = modified.simplify();
+
+        Optimisation.Options options = new Optimisation.Options();
+
+        List<Function<ExpressionsBasedModel, SimplexStore>> factories = List.of(TableauStore::build, RevisedStore::build);
+
+        for (Function<ExpressionsBasedModel, SimplexStore> factory : factories) {
+
+            Result expected = factory.apply(simplified).newPhasedSimplexSolver(options).solve();
+            TestUtils.assertStateNotLessThanOptimal(expected);
+
+            PhasedSimplexSolver solver = factory.apply(root).newPhasedSimplexSolver(options);
+            TestUtils.assertStateNotLessThanOptimal(solver.solve());
+
+            int[] basis = solver.getBasis();
+            TestUtils.assertTrue(basis != null);
+
+            TestUtils.assertTrue(solver.updateRange(0, 0.0, 1.0));
+            RevisedSimplexSolverTest.assertEquals(expected, solver.solve());
+
+            PhasedSimplexSolver started = factory.apply(simplified).newPhasedSimplexSolver(options);
+            TestUtils.assertTrue(started.setBasis(basis));
+            RevisedSimplexSolverTest.assertEquals(expected, started.solve());
+        }
+    }
+
     // TODO Example https://www.uobabylon.edu.iq/eprints/publication_11_20693_31.pdf
     // TODO Example http://faculty.ndhu.edu.tw/~ywan/courses/network/notes/Lect_6_Revised_Simplex_new.pdf
     // TODO Example https://cyberlab.engr.uconn.edu/wp-content/uploads/sites/2576/2018/09/lecture9.pdf
@@ -0,0 +1,109 @@
+/*
+ * Copyright 1997-2023 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.ModelFileTest;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Optimisation.Result;
+import org.ojalgo.optimisation.linear.LinearSolver.Pricing;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Each of the pricing rules, with and without partial pricing, should arrive at the same optimal objective
+ * function value – only the path (number of iterations) differs.
+ */
+public class SimplexPricingTest extends OptimisationLinearTests {
+
+    private static final NumberContext ACCURACY = NumberContext.of(7, 6);
+
+    private static void doTest(final String name, final boolean tableau) {
+
+        ExpressionsBasedModel simplified = ModelFileTest.makeModel("netlib", name, false).simplify();
+
+        if (tableau) {
+            SimplexPricingTest.doTest(name, opt -> TableauStore.build(simplified).newPhasedSimplexSolver(opt));
+        }
+        SimplexPricingTest.doTest(name, opt -> RevisedStore.build(simplified).newPhasedSimplexSolver(opt));
+    }
+
+    private static void doTest(final String name, final Function<Optimisation.Options, SimplexSolver> factory) {
+
+        Result expected = null;
+
+        for (Pricing pricing : Pricing.values()) {
+            for (int partial : new int[] { 0, 8 }) {
+
+                List<LinearSolver.Statistics> reported = new ArrayList<>();
+
+                Optimisation.Options options = new Optimisation.Options();
+                options.linear().pricing(pricing).partialPricing(partial).statistics(reported::add);
+
+                SimplexSolver solver = factory.apply(options);
+                Result actual = solver.solve();
+
+                TestUtils.assertEquals(1, reported.size());
+                LinearSolver.Statistics statistics = reported.get(0);
+
+                if (DEBUG) {
+                    BasicLogger.debug("{} {} {}: {}", name, solver.getClass().getSimpleName(), partial, statistics);
+                }
+
+                TestUtils.assertEquals(pricing, statistics.pricing);
+                TestUtils.assertEquals(actual.getState(), statistics.state);
+                TestUtils.assertTrue(statistics.countIterations() > 0);
+                TestUtils.assertTrue(statistics.nanos > 0L);
+
+                TestUtils.assertStateNotLessThanOptimal(actual);
+
+                if (expected == null) {
+                    expected = actual;
+                } else {
+                    TestUtils.assertEquals(expected.getValue(), actual.getValue(), ACCURACY);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testADLITTLE() {
+        SimplexPricingTest.doTest("ADLITTLE.SIF", false);
+    }
+
+    @Test
+    public void testAFIRO() {
+        SimplexPricingTest.doTest("AFIRO.SIF", true);
+    }
+
+    @Test
+    public void testSC50A() {
+        SimplexPricingTest.doTest("SC50A.SIF", true);
+    }
+
+}